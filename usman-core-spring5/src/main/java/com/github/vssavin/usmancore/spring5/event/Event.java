@@ -1,5 +1,7 @@
 package com.github.vssavin.usmancore.spring5.event;
 
+import com.github.vssavin.usmancore.data.IdSequences;
+import com.github.vssavin.usmancore.event.EventBuckets;
 import com.github.vssavin.usmancore.event.EventType;
 import com.github.vssavin.usmancore.spring5.user.User;
 
@@ -16,7 +18,9 @@ import java.util.Date;
 public class Event {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = IdSequences.EVENTS_SEQUENCE,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "user_id")
@@ -32,6 +36,9 @@ public class Event {
     @Column(name = "event_message")
     private String eventMessage;
 
+    @Column(name = "event_bucket")
+    private Integer eventBucket;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", insertable = false, updatable = false)
     private User user;
@@ -78,6 +85,10 @@ public class Event {
         return user;
     }
 
+    public Integer getEventBucket() {
+        return eventBucket;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -90,6 +101,10 @@ public class Event {
         this.eventTimestamp = eventTimestamp;
     }
 
+    public void setEventBucket(Integer eventBucket) {
+        this.eventBucket = eventBucket;
+    }
+
     public void setEventMessage(String eventMessage) {
         this.eventMessage = eventMessage;
     }
@@ -102,6 +117,14 @@ public class Event {
         this.eventType = eventType;
     }
 
+    @PrePersist
+    @PreUpdate
+    void updateEventBucket() {
+        if (eventTimestamp != null) {
+            eventBucket = EventBuckets.bucketOf(eventTimestamp);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,42 @@
+package com.github.vssavin.usmancore.spring5.event;
+
+import com.github.vssavin.usmancore.data.pagination.KeysetCursor;
+import com.github.vssavin.usmancore.event.EventBuckets;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Querydsl based implementation of {@link EventKeysetRepository}. The seek condition uses
+ * the (event_timestamp, id) index order, so the database reads only the requested rows,
+ * and skips the event buckets newer than the cursor.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class EventKeysetRepositoryImpl implements EventKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Event> findEventsAfter(Predicate predicate, KeysetCursor cursor, int limit) {
+        QEvent event = QEvent.event;
+        BooleanBuilder where = new BooleanBuilder(predicate);
+        if (cursor != null) {
+            where.and(event.eventBucket.loe(EventBuckets.bucketOf(cursor.getTimestamp())));
+            where.and(event.eventTimestamp.lt(cursor.getTimestamp())
+                .or(event.eventTimestamp.eq(cursor.getTimestamp()).and(event.id.lt(cursor.getId()))));
+        }
+        return new JPAQuery<Event>(entityManager).select(event)
+            .from(event)
+            .where(where)
+            .orderBy(event.eventTimestamp.desc(), event.id.desc())
+            .limit(limit)
+            .fetch();
+    }
+
+}
@@ -14,7 +14,8 @@ import java.util.List;
  * @author vssavin on 07.12.2023.
  */
 @Repository
-public interface EventRepository extends PagingAndSortingRepository<Event, Long>, QuerydslPredicateExecutor<Event> {
+public interface EventRepository
+        extends PagingAndSortingRepository<Event, Long>, QuerydslPredicateExecutor<Event>, EventKeysetRepository {
 
     @Transactional
     @NonNull
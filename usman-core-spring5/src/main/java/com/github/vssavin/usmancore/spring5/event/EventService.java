@@ -1,10 +1,18 @@
 package com.github.vssavin.usmancore.spring5.event;
 
 import com.github.vssavin.usmancore.aspect.UsmanRouteDatasource;
+import com.github.vssavin.usmancore.cache.UsmanCache;
+import com.github.vssavin.usmancore.data.pagination.KeysetCursor;
+import com.github.vssavin.usmancore.data.pagination.KeysetPage;
 import com.github.vssavin.usmancore.data.pagination.Paged;
 import com.github.vssavin.usmancore.data.pagination.Paging;
+import com.github.vssavin.usmancore.event.EventBuckets;
+import com.github.vssavin.usmancore.event.EventCount;
 import com.github.vssavin.usmancore.event.EventDto;
 import com.github.vssavin.usmancore.event.EventFilter;
+import com.github.vssavin.usmancore.event.EventRecorder;
+import com.github.vssavin.usmancore.event.EventRollupEngine;
+import com.github.vssavin.usmancore.event.EventRollupGranularity;
 import com.github.vssavin.usmancore.event.EventType;
 import com.github.vssavin.usmancore.exception.event.EventServiceException;
 import com.github.vssavin.usmancore.spring5.user.User;
@@ -17,11 +25,15 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main implementation of event service.
@@ -31,14 +43,34 @@ import java.util.List;
 @Service
 public class EventService {
 
+    private static final int COUNT_CACHE_MAX_SIZE = 1000;
+
+    private static final long COUNT_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
     private final EventRepository eventRepository;
 
     private final EventMapper eventMapper;
 
-    @Autowired
+    private final EventRecorder eventRecorder;
+
+    private final EventRollupEngine eventRollupEngine;
+
+    private final UsmanCache<String, Long> eventsCountCache = UsmanCache.builder()
+        .maxSize(COUNT_CACHE_MAX_SIZE)
+        .ttlMillis(COUNT_CACHE_TTL_MILLIS)
+        .build();
+
     public EventService(EventRepository eventRepository, EventMapper eventMapper) {
+        this(eventRepository, eventMapper, null, null);
+    }
+
+    @Autowired
+    public EventService(EventRepository eventRepository, EventMapper eventMapper, EventRecorder eventRecorder,
+            EventRollupEngine eventRollupEngine) {
         this.eventRepository = eventRepository;
         this.eventMapper = eventMapper;
+        this.eventRecorder = eventRecorder;
+        this.eventRollupEngine = eventRollupEngine;
     }
 
     public EventDto createEvent(User user, EventType eventType, String eventMessage) {
@@ -46,6 +78,7 @@ public class EventService {
             Event event = new Event(user.getId(), eventType, new Timestamp(System.currentTimeMillis()), eventMessage,
                     user);
             user.getEvents().add(event);
+            rollupAfterCommit(user.getId(), eventType, event.getEventTimestamp().getTime());
             return eventMapper.toDto(event);
         }
         catch (Exception e) {
@@ -56,6 +89,27 @@ public class EventService {
         }
     }
 
+    /**
+     * Records the event in the background with the {@link EventRecorder}, without touching
+     * the events collection of the user. Falls back to {@link #createEvent} if there is no
+     * recorder or the user is not saved yet.
+     * @param user event user
+     * @param eventType event type
+     * @param eventMessage event message
+     */
+    public void recordEvent(User user, EventType eventType, String eventMessage) {
+        if (eventRecorder != null && user != null && user.getId() != null) {
+            // the stored event and its rollup counters must fall into the same buckets
+            long timestamp = System.currentTimeMillis();
+            if (eventRecorder.record(user.getId(), eventType, eventMessage, timestamp) && eventRollupEngine != null) {
+                eventRollupEngine.record(user.getId(), eventType, timestamp);
+            }
+        }
+        else {
+            createEvent(user, eventType, eventMessage);
+        }
+    }
+
     @Transactional
     @UsmanRouteDatasource
     public Paged<EventDto> findEvents(EventFilter eventFilter, int pageNumber, int pageSize) {
@@ -88,6 +142,103 @@ public class EventService {
 
     }
 
+    /**
+     * Finds events using keyset pagination, newest events first.
+     * @param eventFilter events filter, may be null
+     * @param cursor next cursor of the previous page, null or empty for the first page
+     * @param pageSize page size
+     * @return page of events
+     */
+    @Transactional
+    @UsmanRouteDatasource
+    public KeysetPage<EventDto> findEvents(EventFilter eventFilter, String cursor, int pageSize) {
+        String message = String.format(
+                "An error occurred while searching for events with params: cursor = %s, pageSize = %d, filter: [%s]!",
+                cursor, pageSize, eventFilter);
+        try {
+            KeysetCursor position = null;
+            if (cursor != null && !cursor.isEmpty()) {
+                position = KeysetCursor.decode(cursor);
+                if (position.getTimestamp() == null) {
+                    throw new IllegalArgumentException("Events page cursor must contain a timestamp!");
+                }
+            }
+            Predicate predicate = eventFilter == null || eventFilter.isEmpty() ? null
+                    : eventFilterToPredicate(eventFilter);
+            List<Event> events = eventRepository.findEventsAfter(predicate, position, pageSize + 1);
+            return KeysetPage.of(events, pageSize, event -> KeysetCursor.of(event.getEventTimestamp(), event.getId()))
+                .map(eventMapper::toDto);
+        }
+        catch (Exception e) {
+            throw new EventServiceException(message, e);
+        }
+    }
+
+    /**
+     * Counts events matching the filter. The count is cached for a minute, so it is an
+     * estimate for tables that change often and is requested separately from pages.
+     * @param eventFilter events filter, may be null
+     * @return events count
+     */
+    @Transactional
+    @UsmanRouteDatasource
+    public long countEvents(EventFilter eventFilter) {
+        try {
+            return eventsCountCache.get(String.valueOf(eventFilter), key -> {
+                if (eventFilter == null || eventFilter.isEmpty()) {
+                    return eventRepository.count();
+                }
+                return eventRepository.count(eventFilterToPredicate(eventFilter));
+            });
+        }
+        catch (Exception e) {
+            throw new EventServiceException(
+                    String.format("An error occurred while counting events, filter: [%s]!", eventFilter), e);
+        }
+    }
+
+    /**
+     * Returns the numbers of events per minute, hour or day, read from the event rollups.
+     * The cost depends on the number of buckets in the period, not on the number of events.
+     * @param granularity bucket granularity
+     * @param eventType event type
+     * @param userId user id, null for all users
+     * @param from start of the period, inclusive
+     * @param to end of the period, exclusive
+     * @return event counts per bucket, buckets without events are omitted
+     */
+    public List<EventCount> getEventSeries(EventRollupGranularity granularity, EventType eventType, Long userId,
+            Date from, Date to) {
+        if (eventRollupEngine == null) {
+            throw new EventServiceException("Event rollups are not configured!");
+        }
+        try {
+            return eventRollupEngine.getSeries(granularity, eventType, userId, from, to);
+        }
+        catch (Exception e) {
+            throw new EventServiceException(String.format(
+                    "An error occurred while reading event series [granularity=%s][eventType=%s][userId=%s]",
+                    granularity, eventType, userId), e);
+        }
+    }
+
+    private void rollupAfterCommit(Long userId, EventType eventType, long timestamp) {
+        if (eventRollupEngine == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventRollupEngine.record(userId, eventType, timestamp);
+                }
+            });
+        }
+        else {
+            eventRollupEngine.record(userId, eventType, timestamp);
+        }
+    }
+
     Predicate eventFilterToPredicate(EventFilter eventFilter) {
         QEvent event = QEvent.event;
         BooleanExpression expression = null;
@@ -109,6 +260,10 @@ public class EventService {
         }
 
         if (eventFilter.getStartEventTimestamp() != null) {
+            expressions.add(event.eventBucket.goe(EventBuckets.bucketOf(eventFilter.getStartEventTimestamp())));
+            if (eventFilter.getEndEventTimestamp() != null) {
+                expressions.add(event.eventBucket.loe(EventBuckets.bucketOf(eventFilter.getEndEventTimestamp())));
+            }
             expressions.add(event.eventTimestamp.between(eventFilter.getStartEventTimestamp(),
                     eventFilter.getEndEventTimestamp()));
         }
@@ -118,7 +273,7 @@ public class EventService {
                 expression = expr;
             }
             else {
-                expression = expression.eq(expr);
+                expression = expression.and(expr);
             }
         }
 
@@ -0,0 +1,120 @@
+package com.github.vssavin.usmancore.spring5.security.auth;
+
+import com.github.vssavin.usmancore.spring5.user.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Identity of the current request, resolved once and kept in a request attribute. The
+ * remember-me cookie is decoded and its signature is checked once per request, and users
+ * are looked up once per login, so the csrf token repository, the remember-me filter and
+ * the authentication services share the same result. Values are bound to the remember-me
+ * cookie they were resolved for.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public final class RequestAuthenticationContext {
+
+    private static final String ATTRIBUTE_NAME = RequestAuthenticationContext.class.getName();
+
+    private String rememberMeCookie;
+
+    private UserDetails userDetails;
+
+    private boolean authenticationResolved;
+
+    private Authentication authentication;
+
+    private final Map<String, User> users = new HashMap<>();
+
+    private RequestAuthenticationContext() {
+    }
+
+    /**
+     * Returns the context of the request, creating it on the first call.
+     * @param request current request
+     * @return request authentication context
+     */
+    public static RequestAuthenticationContext of(HttpServletRequest request) {
+        Object attribute = request.getAttribute(ATTRIBUTE_NAME);
+        if (attribute instanceof RequestAuthenticationContext) {
+            return (RequestAuthenticationContext) attribute;
+        }
+        RequestAuthenticationContext context = new RequestAuthenticationContext();
+        request.setAttribute(ATTRIBUTE_NAME, context);
+        return context;
+    }
+
+    /**
+     * Returns the user details of the remember-me cookie, validating the cookie only once.
+     * @param cookie remember-me cookie value
+     * @param resolver cookie validator and user details loader
+     * @return user details
+     */
+    public UserDetails resolveUserDetails(String cookie, Supplier<UserDetails> resolver) {
+        bindTo(cookie);
+        if (userDetails == null) {
+            userDetails = resolver.get();
+        }
+        return userDetails;
+    }
+
+    /**
+     * Returns the authentication of the remember-me cookie, resolving it only once.
+     * @param cookie remember-me cookie value
+     * @param resolver authentication resolver, may return null
+     * @return authentication or null if the cookie is not accepted
+     */
+    public Authentication resolveAuthentication(String cookie, Supplier<Authentication> resolver) {
+        bindTo(cookie);
+        if (!authenticationResolved) {
+            authentication = resolver.get();
+            authenticationResolved = true;
+        }
+        return authentication;
+    }
+
+    /**
+     * Returns the user with the given login, loading it only once per request.
+     * @param login user login or principal name
+     * @param loader user loader
+     * @return user, null if not found
+     */
+    public User resolveUser(String login, Function<String, User> loader) {
+        User user = users.get(login);
+        if (user == null) {
+            user = loader.apply(login);
+            if (user != null) {
+                users.put(login, user);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Forgets everything resolved for the request, e.g. on logout.
+     */
+    public void clear() {
+        rememberMeCookie = null;
+        userDetails = null;
+        authenticationResolved = false;
+        authentication = null;
+        users.clear();
+    }
+
+    private void bindTo(String cookie) {
+        if (!cookie.equals(rememberMeCookie)) {
+            rememberMeCookie = cookie;
+            userDetails = null;
+            authenticationResolved = false;
+            authentication = null;
+        }
+    }
+
+}
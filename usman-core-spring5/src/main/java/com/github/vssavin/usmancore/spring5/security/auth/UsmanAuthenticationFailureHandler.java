@@ -2,8 +2,10 @@ package com.github.vssavin.usmancore.spring5.security.auth;
 
 import com.github.vssavin.usmancore.config.UsmanUrlsConfigurer;
 import com.github.vssavin.usmancore.exception.auth.AuthenticationForbiddenException;
+import com.github.vssavin.usmancore.exception.auth.AuthenticationOverloadedException;
 import com.github.vssavin.usmancore.spring5.auth.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
@@ -23,6 +25,8 @@ import java.io.IOException;
 @Component
 class UsmanAuthenticationFailureHandler implements AuthenticationFailureHandler {
 
+    private static final int RETRY_AFTER_SECONDS = 1;
+
     private final String failureRedirectUrl;
 
     private final AuthService authService;
@@ -37,6 +41,12 @@ class UsmanAuthenticationFailureHandler implements AuthenticationFailureHandler
     public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
             AuthenticationException exception) throws IOException {
 
+        if (exception instanceof AuthenticationOverloadedException) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getMessage());
+            return;
+        }
+
         String lang = request.getParameter("lang");
         if (lang != null) {
             lang = "&lang=" + lang;
@@ -1,5 +1,7 @@
 package com.github.vssavin.usmancore.spring5.security.csrf;
 
+import com.github.vssavin.usmancore.security.TokenDigests;
+import com.github.vssavin.usmancore.security.csrf.CsrfTokenCache;
 import com.github.vssavin.usmancore.spring5.security.rememberme.Authenticator;
 import com.github.vssavin.usmancore.spring5.security.rememberme.UserRememberMeToken;
 import com.github.vssavin.usmancore.spring5.security.rememberme.UserRememberMeTokenRepository;
@@ -20,8 +22,6 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A CsrfTokenRepository that stores the CsrfToken in the user management database.
@@ -38,6 +38,10 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
 
     private static final int TWO_WEEKS_SECONDS = 1209600;
 
+    private static final int DEFAULT_CACHE_MAX_USERS = 10_000;
+
+    private static final int DEFAULT_CACHE_MAX_TOKENS_PER_USER = 5;
+
     private String parameterName = DEFAULT_CSRF_PARAMETER_NAME;
 
     private String headerName = DEFAULT_CSRF_HEADER_NAME;
@@ -47,9 +51,7 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
 
     private boolean useCache = false;
 
-    private static final Map<Long, List<UserCsrfToken>> csrfCache = new ConcurrentHashMap<>(32);
-
-    private static final Map<UserRememberMeToken, UserCsrfToken> rememberMeCsrfMap = new ConcurrentHashMap<>(32);
+    private CsrfTokenCache tokenCache = new CsrfTokenCache(DEFAULT_CACHE_MAX_USERS, DEFAULT_CACHE_MAX_TOKENS_PER_USER);
 
     private final Authenticator authenticator;
 
@@ -80,25 +82,16 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
         if (authentication != null && authentication.getPrincipal() instanceof User) {
             User user = (User) authentication.getPrincipal();
             log.debug("Requested saving token for user {}", user);
-            List<UserRememberMeToken> rememberMeTokens;
-
-            rememberMeTokens = rememberMeTokenRepository.findByUserId(user.getId());
+            UserRememberMeToken requestRememberMeToken = findRememberMeTokenInCookies(request, user);
 
-            AtomicReference<UserRememberMeToken> requestRememberMeToken = new AtomicReference<>();
-            rememberMeTokens.forEach(rememberMeToken -> {
-                if (isRememberMeTokenPresentInCookies(request, rememberMeToken)) {
-                    requestRememberMeToken.set(rememberMeToken);
-                }
-            });
-
-            if (token == null && requestRememberMeToken.get() != null) {
+            if (token == null && requestRememberMeToken != null) {
                 // delete token from storage by user remember-me token
-                deleteTokenFromStorage(user, requestRememberMeToken.get());
+                deleteTokenFromStorage(user, requestRememberMeToken);
             }
             else {
                 if (token != null && !token.getToken().equals(anonymousDefaultToken.getToken())) {
                     // save token to database by user id
-                    saveTokenToStorage(user, requestRememberMeToken.get(), token);
+                    saveTokenToStorage(user, requestRememberMeToken, token);
                 }
             }
         }
@@ -106,21 +99,13 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
 
     private void deleteTokenFromStorage(User user, UserRememberMeToken rememberMeToken) {
         log.debug("Requested token deleting {} {}", user, rememberMeToken);
-        UserCsrfToken requestedCsrfToken = rememberMeCsrfMap.get(rememberMeToken);
-        if (!rememberMeToken.getToken().isEmpty()) {
-            if (useCache) {
-                List<UserCsrfToken> userCsrfTokens = csrfCache.get(user.getId());
-                if (userCsrfTokens != null) {
-                    userCsrfTokens.remove(requestedCsrfToken);
-                }
-            }
-            else {
+        if (!rememberMeToken.getTokenDigest().isEmpty()) {
+            // also removes the csrf token from the cached tokens of the user
+            String requestedCsrfToken = tokenCache.unbindRememberMeToken(rememberMeToken.getTokenDigest());
+            if (!useCache && requestedCsrfToken != null) {
                 log.debug("Deleting csrf token from the database!");
-                if (requestedCsrfToken != null) {
-                    tokenRepository.deleteByToken(requestedCsrfToken.getToken());
-                }
+                tokenRepository.deleteByToken(requestedCsrfToken);
             }
-            rememberMeCsrfMap.remove(rememberMeToken);
         }
         log.debug("Deleting finished!");
     }
@@ -131,10 +116,8 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
         Optional<UserCsrfToken> optionalUserCsrfToken;
         UserCsrfToken userCsrfToken;
         if (useCache) {
-            userTokens = csrfCache.get(user.getId());
-            if (userTokens == null) {
-                userTokens = Collections.emptyList();
-            }
+            // the cache renews the expiration date of a saved again token
+            userTokens = Collections.emptyList();
         }
         else {
             log.debug("Searching in database!");
@@ -149,9 +132,8 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
 
         if (useCache) {
             if (rememberMeToken != null) {
-                List<UserCsrfToken> list = new ArrayList<>();
-                list.add(userCsrfToken);
-                csrfCache.put(user.getId(), list);
+                tokenCache.putUserToken(user.getId(), userCsrfToken.getToken(),
+                        userCsrfToken.getExpirationDate().getTime());
             }
         }
         else {
@@ -162,7 +144,8 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
         }
 
         if (rememberMeToken != null) {
-            rememberMeCsrfMap.put(rememberMeToken, userCsrfToken);
+            tokenCache.bindRememberMeToken(rememberMeToken.getTokenDigest(), user.getId(), userCsrfToken.getToken(),
+                    userCsrfToken.getExpirationDate().getTime());
         }
 
         log.debug("Token saving finished!");
@@ -187,20 +170,20 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
 
         if (authentication.getPrincipal() instanceof User) {
             User user = (User) authentication.getPrincipal();
-            List<UserCsrfToken> userTokens;
-            List<UserCsrfToken> tokensToUpdate = new ArrayList<>();
-            // load token from database by user id or remember-me token
             if (useCache) {
-                userTokens = csrfCache.get(user.getId());
-                if (userTokens == null) {
-                    userTokens = Collections.emptyList();
+                // expired tokens are evicted from the cache, a new token is issued then
+                List<String> cachedTokens = tokenCache.getUserTokens(user.getId());
+                if (!cachedTokens.isEmpty()) {
+                    return new DefaultCsrfToken(this.headerName, this.parameterName, cachedTokens.get(0));
                 }
-            }
-            else {
-                log.debug("Searching token in the database for user {}", user);
-                userTokens = tokenRepository.findByUserId(user.getId());
+                return null;
             }
 
+            List<UserCsrfToken> tokensToUpdate = new ArrayList<>();
+            // load token from database by user id
+            log.debug("Searching token in the database for user {}", user);
+            List<UserCsrfToken> userTokens = tokenRepository.findByUserId(user.getId());
+
             userTokens.forEach(token -> {
                 if (token.getExpirationDate().getTime() < System.currentTimeMillis()) {
                     token.setExpirationDate(new Date(System.currentTimeMillis() + (long) tokenValiditySeconds * 1000));
@@ -208,10 +191,8 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
                 }
             });
 
-            if (!useCache) {
-                log.debug("Updating tokens in the database!");
-                tokenRepository.saveAll(tokensToUpdate);
-            }
+            log.debug("Updating tokens in the database!");
+            tokenRepository.saveAll(tokensToUpdate);
 
             log.debug("Loading finished!");
             if (!userTokens.isEmpty()) {
@@ -226,21 +207,46 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
         return UUID.randomUUID().toString();
     }
 
-    private boolean isRememberMeTokenPresentInCookies(HttpServletRequest request, UserRememberMeToken rememberMeToken) {
-        boolean present = false;
-        for (Cookie cookie : request.getCookies()) {
-            if (cookie.getValue().equals(rememberMeToken.getToken())) {
-                present = true;
-                break;
+    private UserRememberMeToken findRememberMeTokenInCookies(HttpServletRequest request, User user) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null || cookies.length == 0) {
+            return null;
+        }
+        Set<String> tokenDigests = new HashSet<>();
+        for (Cookie cookie : cookies) {
+            if (cookie.getValue() != null && !cookie.getValue().isEmpty()) {
+                tokenDigests.add(TokenDigests.sha256(cookie.getValue()));
+            }
+        }
+        if (tokenDigests.isEmpty()) {
+            return null;
+        }
+        // single indexed lookup by the digests of the request cookies
+        for (UserRememberMeToken rememberMeToken : rememberMeTokenRepository.findByTokenDigestIn(tokenDigests)) {
+            if (user.getId().equals(rememberMeToken.getUserId())) {
+                return rememberMeToken;
             }
         }
-        return present;
+        return null;
     }
 
     public void setUseCache(boolean useCache) {
         this.useCache = useCache;
     }
 
+    /**
+     * Sets the cache of the csrf tokens and of their remember-me token bindings.
+     * @param tokenCache the cache to use
+     */
+    public void setTokenCache(CsrfTokenCache tokenCache) {
+        Assert.notNull(tokenCache, "tokenCache cannot be null");
+        this.tokenCache = tokenCache;
+    }
+
+    public CsrfTokenCache.Stats getTokenCacheStats() {
+        return tokenCache.getStats();
+    }
+
     /**
      * Sets the {@link HttpServletRequest} parameter name that the {@link CsrfToken} is
      * expected to appear on
@@ -266,7 +272,7 @@ public class UmCsrfTokenRepository implements CsrfTokenRepository {
     /**
      * Mock implementation of the HttpServletResponse interface.
      */
-    private static class UmMockHttpServletResponse implements HttpServletResponse {
+    static class UmMockHttpServletResponse implements HttpServletResponse {
 
         @Override
         public void addCookie(Cookie cookie) {
@@ -1,5 +1,6 @@
 package com.github.vssavin.usmancore.spring5.security.rememberme;
 
+import com.github.vssavin.usmancore.security.TokenDigests;
 import com.github.vssavin.usmancore.spring5.user.User;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -7,17 +8,19 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.List;
-import java.util.Optional;
+import java.util.Date;
 
 /**
  * Identifies previously remembered users by a Base-64 encoded cookie, refresh it on
- * autoLogin event and stores it in the user management database.
+ * autoLogin event and stores its digest in the user management database.
  *
  * @author vssavin on 11.12.2023.
  */
 public class RefreshOnLoginDatabaseTokenBasedRememberMeService extends RefreshOnAutologinTokenBasedRememberMeServices {
 
+    private static final String ISSUED_COOKIE_ATTRIBUTE = RefreshOnLoginDatabaseTokenBasedRememberMeService.class
+        .getName() + ".ISSUED_COOKIE";
+
     private final UserRememberMeTokenRepository tokenRepository;
 
     public RefreshOnLoginDatabaseTokenBasedRememberMeService(String key, UserDetailsService userDetailsService,
@@ -29,8 +32,12 @@ public class RefreshOnLoginDatabaseTokenBasedRememberMeService extends RefreshOn
     @Override
     protected UserDetails processAutoLoginCookie(String[] cookieTokens, HttpServletRequest request,
             HttpServletResponse response) {
+        request.removeAttribute(ISSUED_COOKIE_ATTRIBUTE);
         UserDetails result = super.processAutoLoginCookie(cookieTokens, request, response);
-        saveRememberMeToken(request, result);
+        // a cookie that was not refreshed is stored already
+        if (request.getAttribute(ISSUED_COOKIE_ATTRIBUTE) != null) {
+            saveRememberMeToken(request, result);
+        }
         return result;
     }
 
@@ -45,18 +52,32 @@ public class RefreshOnLoginDatabaseTokenBasedRememberMeService extends RefreshOn
         }
     }
 
+    @Override
+    protected void setCookie(String[] tokens, int maxAge, HttpServletRequest request, HttpServletResponse response) {
+        super.setCookie(tokens, maxAge, request, response);
+        // the issued cookie is the one the client sends from now on, so it is the one to store
+        request.setAttribute(ISSUED_COOKIE_ATTRIBUTE, encodeCookie(tokens));
+    }
+
     private void saveRememberMeToken(HttpServletRequest request, UserDetails userDetails) {
         Authentication successfulAuthentication = createSuccessfulAuthentication(request, userDetails);
         if (successfulAuthentication.getPrincipal() instanceof User) {
             User user = (User) successfulAuthentication.getPrincipal();
-            String rememberMeToken = extractRememberMeCookie(request);
-            List<UserRememberMeToken> userTokens = tokenRepository.findByUserId(user.getId());
-            Optional<UserRememberMeToken> optionalToken = userTokens.stream()
-                .filter(userToken -> userToken.getToken().equals(rememberMeToken))
-                .findFirst();
-            UserRememberMeToken token;
-            token = optionalToken.orElseGet(() -> new UserRememberMeToken(user.getId(), rememberMeToken));
-            tokenRepository.save(token);
+            String rememberMeToken = (String) request.getAttribute(ISSUED_COOKIE_ATTRIBUTE);
+            if (rememberMeToken == null) {
+                rememberMeToken = extractRememberMeCookie(request);
+            }
+            if (rememberMeToken == null) {
+                return;
+            }
+            String tokenDigest = TokenDigests.sha256(rememberMeToken);
+            if (tokenRepository.findByTokenDigest(tokenDigest) == null) {
+                int tokenLifetime = getTokenValiditySeconds();
+                // same expiry as the issued cookie, the token is removed by the token reaper after it
+                Date expirationDate = new Date(
+                        System.currentTimeMillis() + 1000L * ((tokenLifetime < 0) ? TWO_WEEKS_S : tokenLifetime));
+                tokenRepository.save(new UserRememberMeToken(user.getId(), tokenDigest, expirationDate));
+            }
         }
     }
 
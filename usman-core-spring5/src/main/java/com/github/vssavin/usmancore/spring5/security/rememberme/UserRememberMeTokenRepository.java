@@ -4,6 +4,7 @@ import com.github.vssavin.usmancore.aspect.UsmanRouteDatasource;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,6 +18,12 @@ public interface UserRememberMeTokenRepository extends CrudRepository<UserRememb
     @UsmanRouteDatasource
     List<UserRememberMeToken> findByUserId(Long userId);
 
+    @UsmanRouteDatasource
+    UserRememberMeToken findByTokenDigest(String tokenDigest);
+
+    @UsmanRouteDatasource
+    List<UserRememberMeToken> findByTokenDigestIn(Collection<String> tokenDigests);
+
     @UsmanRouteDatasource
     @Override
     UserRememberMeToken save(UserRememberMeToken entity);
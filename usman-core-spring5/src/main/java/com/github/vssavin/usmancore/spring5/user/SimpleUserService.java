@@ -1,7 +1,13 @@
 package com.github.vssavin.usmancore.spring5.user;
 
 import com.github.vssavin.usmancore.aspect.UsmanRouteDatasource;
+import com.github.vssavin.usmancore.auth.KnownLoginFilter;
+import com.github.vssavin.usmancore.cache.IndexedCache;
+import com.github.vssavin.usmancore.cache.UsmanCache;
 import com.github.vssavin.usmancore.config.Role;
+import com.github.vssavin.usmancore.config.UsmanConfigurer;
+import com.github.vssavin.usmancore.data.pagination.KeysetCursor;
+import com.github.vssavin.usmancore.data.pagination.KeysetPage;
 import com.github.vssavin.usmancore.data.pagination.Paged;
 import com.github.vssavin.usmancore.data.pagination.Paging;
 import com.github.vssavin.usmancore.exception.user.*;
@@ -11,6 +17,7 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.SimpleExpression;
 import com.querydsl.core.types.dsl.StringExpression;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -20,16 +27,26 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
- * Main implementation of user management service.
+ * Main implementation of user management service. Users read by id, login or email outside
+ * of a transaction are cached (if the cache is enabled), all changes made through this
+ * service invalidate the cached user, once more after the commit when made in a
+ * transaction. The cache keeps detached copies and every caller gets its own copy, so
+ * changes of a returned user are not seen by other threads until it is updated.
+ * Transactional callers always get a managed entity from the database. On the password
+ * authentication path logins rejected by the {@link KnownLoginFilter} are reported as not
+ * found without a database lookup.
  *
  * @author vssavin on 07.12.2023.
  */
@@ -38,14 +55,45 @@ public class SimpleUserService implements UserService {
 
     private static final Map<String, UserRecoveryParams> passwordRecoveryIds = new ConcurrentHashMap<>();
 
+    private static final String LOGIN_INDEX = "login";
+
+    private static final String EMAIL_INDEX = "email";
+
+    private static final String[] UNIQUE_USER_INDEXES = { "users_login_normalized_idx", "users_email_normalized_idx" };
+
+    private static final int COUNT_CACHE_MAX_SIZE = 1000;
+
+    private static final long COUNT_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
     private final PasswordEncoder passwordEncoder;
 
     private final UserRepository userRepository;
 
-    @Autowired
+    private final IndexedCache<Long, User> userCache;
+
+    private final KnownLoginFilter knownLoginFilter;
+
+    private final UsmanCache<String, Long> usersCountCache = UsmanCache.builder()
+        .maxSize(COUNT_CACHE_MAX_SIZE)
+        .ttlMillis(COUNT_CACHE_TTL_MILLIS)
+        .build();
+
     public SimpleUserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+        this(userRepository, passwordEncoder, null);
+    }
+
+    public SimpleUserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+            UsmanConfigurer usmanConfigurer) {
+        this(userRepository, passwordEncoder, usmanConfigurer, null);
+    }
+
+    @Autowired
+    public SimpleUserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+            UsmanConfigurer usmanConfigurer, KnownLoginFilter knownLoginFilter) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userCache = createUserCache(usmanConfigurer);
+        this.knownLoginFilter = knownLoginFilter;
     }
 
     @UsmanRouteDatasource
@@ -75,42 +123,90 @@ public class SimpleUserService implements UserService {
 
     @UsmanRouteDatasource
     @Override
-    public User getUserById(Long id) {
-        Optional<User> user;
+    public KeysetPage<User> getUsers(UserFilter userFilter, String cursor, int size) {
+        String errorMessage = String.format(
+                "Error while search user with params: cursor = %s, size = %d, filter: [%s]!", cursor, size, userFilter);
         try {
-            user = userRepository.findById(id);
+            KeysetCursor position = cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+            Predicate predicate = userFilter == null || userFilter.isEmpty() ? null : userFilterToPredicate(userFilter);
+            List<User> users = userRepository.findUsersAfter(predicate, position, size + 1);
+            return KeysetPage.of(users, size, user -> KeysetCursor.of(user.getId()));
         }
         catch (Exception e) {
-            throw new UserServiceException(String.format("Getting a user by id = %d error!", id), e);
+            throw new UserServiceException(errorMessage, e);
         }
+    }
 
-        if (!user.isPresent()) {
+    /**
+     * Counts users matching the filter. The count is cached for a minute, so it is an
+     * estimate and is requested separately from pages.
+     * @param userFilter users filter, may be null
+     * @return users count
+     */
+    @UsmanRouteDatasource
+    @Override
+    public long countUsers(UserFilter userFilter) {
+        try {
+            return usersCountCache.get(String.valueOf(userFilter), key -> {
+                if (userFilter == null || userFilter.isEmpty()) {
+                    return userRepository.count();
+                }
+                return userRepository.count(userFilterToPredicate(userFilter));
+            });
+        }
+        catch (Exception e) {
+            throw new UserServiceException(String.format("Error while counting users, filter: [%s]!", userFilter), e);
+        }
+    }
+
+    @UsmanRouteDatasource
+    @Override
+    public User getUserById(Long id) {
+        User user;
+        if (id != null && isUserCacheUsable()) {
+            user = copyOf(userCache.getById(id, this::findUserCopyById));
+        }
+        else {
+            user = findUserById(id);
+        }
+
+        if (user == null) {
             throw new UserNotFoundException(String.format("User with id = %d not found!", id));
         }
 
-        return user.get();
+        return user;
     }
 
     @UsmanRouteDatasource
     @Override
     public User addUser(User user) {
+        User savedUser;
         try {
-            return userRepository.save(user);
+            savedUser = userRepository.save(user);
         }
         catch (Exception e) {
             throw new UserServiceException(String.format("Adding error for user [%s]!", user), e);
         }
+        addKnownLogin(savedUser);
+        return savedUser;
     }
 
     @UsmanRouteDatasource
     @Override
     public User updateUser(User user) {
+        User savedUser;
         try {
-            return userRepository.save(user);
+            savedUser = userRepository.save(user);
         }
         catch (Exception e) {
             throw new UserServiceException(String.format("Update error for user [%s]", user), e);
         }
+        finally {
+            invalidateCachedUser(user);
+        }
+        // login or email may have been changed
+        addKnownLogin(savedUser);
+        return savedUser;
     }
 
     @UsmanRouteDatasource
@@ -132,15 +228,16 @@ public class SimpleUserService implements UserService {
     @UsmanRouteDatasource
     @Override
     public User getUserByLogin(String login) {
-        List<User> users;
-        try {
-            users = userRepository.findByLogin(login);
+        User user;
+        if (login != null && isUserCacheUsable()) {
+            user = copyOf(userCache.getByKey(LOGIN_INDEX, login, this::findUserCopyById,
+                    key -> copyOf(findUserByLogin(key))));
         }
-        catch (Exception e) {
-            throw new UserServiceException(String.format("Error while getting user by login [%s]", login), e);
+        else {
+            user = findUserByLogin(login);
         }
-        if (!users.isEmpty()) {
-            return users.get(0);
+        if (user != null) {
+            return user;
         }
         throw new UsernameNotFoundException(String.format("User with login: %s not found!", login));
 
@@ -149,16 +246,17 @@ public class SimpleUserService implements UserService {
     @UsmanRouteDatasource
     @Override
     public User getUserByEmail(String email) {
-        List<User> users;
-        try {
-            users = userRepository.findByEmail(email);
+        User user;
+        if (email != null && isUserCacheUsable()) {
+            user = copyOf(userCache.getByKey(EMAIL_INDEX, email, this::findUserCopyById,
+                    key -> copyOf(findUserByEmail(key))));
         }
-        catch (Exception e) {
-            throw new UserServiceException(String.format("Error while getting user by email [%s]", email), e);
+        else {
+            user = findUserByEmail(email);
         }
 
-        if (!users.isEmpty()) {
-            return users.get(0);
+        if (user != null) {
+            return user;
         }
         throw new EmailNotFoundException(String.format("Email: %s not found!", email));
     }
@@ -173,30 +271,31 @@ public class SimpleUserService implements UserService {
         catch (Exception e) {
             throw new UserServiceException(String.format("Error while deleting user [%s]", user), e);
         }
+        finally {
+            invalidateCachedUser(user);
+        }
     }
 
     @UsmanRouteDatasource
     @Override
     public User registerUser(String login, String username, String password, String email, Role role) {
-        User user = null;
+        User user = new User(login, username, password, email, role.name());
+        User savedUser;
         try {
-            user = getUserByLogin(login);
+            // uniqueness of the login and email is checked by the database in the same round-trip
+            savedUser = userRepository.saveAndFlush(user);
         }
-        catch (UsernameNotFoundException e) {
-            // ignore
-        }
-
-        if (user != null) {
-            throw new UserExistsException(String.format("User %s already exists!", username));
-        }
-
-        user = new User(login, username, password, email, role.name());
-        try {
-            return addUser(user);
+        catch (DataIntegrityViolationException e) {
+            if (isUniqueUserIndexViolation(e)) {
+                throw new UserExistsException(String.format("User %s already exists!", username), e);
+            }
+            throw new UserServiceException(String.format("User [%s] registration error!", user), e);
         }
         catch (Exception e) {
             throw new UserServiceException(String.format("User [%s] registration error!", user), e);
         }
+        addKnownLogin(savedUser);
+        return savedUser;
     }
 
     @UsmanRouteDatasource
@@ -329,9 +428,20 @@ public class SimpleUserService implements UserService {
     @UsmanRouteDatasource
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (knownLoginFilter != null && !knownLoginFilter.mightContain(username)) {
+            throw new UsernameNotFoundException(String.format("User with login: %s not found!", username));
+        }
         return getUserByLogin(username);
     }
 
+    /**
+     * Returns statistics of the user cache.
+     * @return cache statistics or null if the cache is disabled
+     */
+    public UsmanCache.Stats getUserCacheStats() {
+        return userCache == null ? null : userCache.getStats();
+    }
+
     Predicate userFilterToPredicate(UserFilter userFilter) {
         BooleanExpression expression = null;
         QUser user = QUser.user;
@@ -370,6 +480,96 @@ public class SimpleUserService implements UserService {
         return expression;
     }
 
+    private User findUserById(Long id) {
+        try {
+            return userRepository.findById(id).orElse(null);
+        }
+        catch (Exception e) {
+            throw new UserServiceException(String.format("Getting a user by id = %d error!", id), e);
+        }
+    }
+
+    private User findUserCopyById(Long id) {
+        return copyOf(findUserById(id));
+    }
+
+    private User findUserByLogin(String login) {
+        List<User> users;
+        try {
+            users = userRepository.findByLogin(login);
+        }
+        catch (Exception e) {
+            throw new UserServiceException(String.format("Error while getting user by login [%s]", login), e);
+        }
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    private User findUserByEmail(String email) {
+        List<User> users;
+        try {
+            users = userRepository.findByEmail(email);
+        }
+        catch (Exception e) {
+            throw new UserServiceException(String.format("Error while getting user by email [%s]", email), e);
+        }
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    private static boolean isUniqueUserIndexViolation(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage() == null ? "" : cause.getMessage().toLowerCase(Locale.ROOT);
+            for (String index : UNIQUE_USER_INDEXES) {
+                if (message.contains(index)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addKnownLogin(User user) {
+        if (knownLoginFilter != null && user != null) {
+            knownLoginFilter.put(user.getLogin());
+            knownLoginFilter.put(user.getEmail());
+        }
+    }
+
+    private boolean isUserCacheUsable() {
+        return userCache != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private void invalidateCachedUser(User user) {
+        if (userCache == null || user == null) {
+            return;
+        }
+        userCache.invalidate(user);
+        // a reader may cache the old row until the transaction commits, so invalidate again then
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.invalidate(user);
+                }
+            });
+        }
+    }
+
+    private static User copyOf(User user) {
+        return user == null ? null : user.copy();
+    }
+
+    private static IndexedCache<Long, User> createUserCache(UsmanConfigurer usmanConfigurer) {
+        if (usmanConfigurer == null || !usmanConfigurer.isUserCacheEnabled()) {
+            return null;
+        }
+        UsmanCache.Builder builder = UsmanCache.builder()
+            .maxSize(usmanConfigurer.getUserCacheMaxSize())
+            .ttlMillis(TimeUnit.SECONDS.toMillis(usmanConfigurer.getUserCacheTtlSeconds()))
+            .refreshAfterMillis(TimeUnit.SECONDS.toMillis(usmanConfigurer.getUserCacheRefreshAfterSeconds()));
+        return new IndexedCache<Long, User>(builder, User::getId).index(LOGIN_INDEX, User::getLogin)
+            .index(EMAIL_INDEX, User::getEmail);
+    }
+
     private String generateRandomPassword(int length) {
         String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
         SecureRandom random = new SecureRandom();
@@ -0,0 +1,37 @@
+package com.github.vssavin.usmancore.spring5.user;
+
+import com.github.vssavin.usmancore.data.pagination.KeysetCursor;
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Querydsl based implementation of {@link UserKeysetRepository}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class UserKeysetRepositoryImpl implements UserKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<User> findUsersAfter(Predicate predicate, KeysetCursor cursor, int limit) {
+        QUser user = QUser.user;
+        BooleanBuilder where = new BooleanBuilder(predicate);
+        if (cursor != null) {
+            where.and(user.id.gt(cursor.getId()));
+        }
+        return new JPAQuery<User>(entityManager).select(user)
+            .from(user)
+            .where(where)
+            .orderBy(user.id.asc())
+            .limit(limit)
+            .fetch();
+    }
+
+}
@@ -13,7 +13,8 @@ import java.util.List;
  * @author vssavin on 06.12.2023.
  */
 @Repository
-public interface UserRepository extends PagingAndSortingRepository<User, Long>, QuerydslPredicateExecutor<User> {
+public interface UserRepository
+        extends PagingAndSortingRepository<User, Long>, QuerydslPredicateExecutor<User>, UserKeysetRepository {
 
     List<User> findByLogin(String login);
 
@@ -21,6 +22,14 @@ public interface UserRepository extends PagingAndSortingRepository<User, Long>,
 
     List<User> findByEmail(String email);
 
+    /**
+     * Saves the user and flushes the changes, so constraint violations are thrown by this
+     * method and not at the end of the transaction.
+     * @param user user to save
+     * @return saved user
+     */
+    <S extends User> S saveAndFlush(S user);
+
     @Transactional
     void deleteByLogin(String login);
 
@@ -1,6 +1,7 @@
 package com.github.vssavin.usmancore.spring5.user;
 
 import com.github.vssavin.usmancore.config.Role;
+import com.github.vssavin.usmancore.data.pagination.KeysetPage;
 import com.github.vssavin.usmancore.data.pagination.Paged;
 import com.github.vssavin.usmancore.user.UserFilter;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -20,6 +21,10 @@ public interface UserService extends UserDetailsService {
 
     Paged<User> getUsers(UserFilter userFilter, int pageNumber, int size);
 
+    KeysetPage<User> getUsers(UserFilter userFilter, String cursor, int size);
+
+    long countUsers(UserFilter userFilter);
+
     User getUserById(Long id);
 
     User addUser(User user);
@@ -1,9 +1,12 @@
 package com.github.vssavin.usmancore.spring5.security.csrf;
 
+import com.github.vssavin.usmancore.security.TokenDigests;
 import com.github.vssavin.usmancore.spring5.security.rememberme.Authenticator;
 import com.github.vssavin.usmancore.spring5.security.rememberme.RefreshOnAutologinTokenBasedRememberMeServices;
+import com.github.vssavin.usmancore.spring5.security.rememberme.UserRememberMeToken;
 import com.github.vssavin.usmancore.spring5.security.rememberme.UserRememberMeTokenRepository;
 import com.github.vssavin.usmancore.spring5.user.User;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -16,8 +19,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.rememberme.AbstractRememberMeServices;
 import org.springframework.security.web.csrf.CsrfAuthenticationStrategy;
+import org.springframework.security.web.csrf.CsrfToken;
 
 import javax.servlet.http.Cookie;
+import java.util.Collections;
+import java.util.Date;
 import java.util.UUID;
 
 import static org.mockito.Mockito.*;
@@ -95,4 +101,28 @@ public class UmCsrfTokenRepositoryTest {
         verify(userCsrfTokenRepository, times(0)).saveAll(any());
     }
 
+    @Test
+    public void shouldRemoveCachedToken_WhenRememberMeTokenInvalidated() {
+        csrfTokenRepository.setUseCache(true);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(rememberMeServices.getParameter(), "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(adminUser, adminUser.getPassword());
+        rememberMeServices.loginSuccess(request, response, authentication);
+
+        Cookie rememberMeCookie = response.getCookie(rememberMeCookieName);
+        request.setCookies(rememberMeCookie);
+        String tokenDigest = TokenDigests.sha256(rememberMeCookie.getValue());
+        when(rememberMeTokenRepository.findByTokenDigestIn(Collections.singleton(tokenDigest)))
+            .thenReturn(Collections.singletonList(new UserRememberMeToken(adminUserId, tokenDigest, new Date())));
+        CsrfToken token = csrfTokenRepository.generateToken(request);
+        csrfTokenRepository.saveToken(token, request, response);
+        Assert.assertEquals(token.getToken(), csrfTokenRepository.loadToken(request).getToken());
+
+        csrfTokenRepository.saveToken(null, request, response);
+
+        Assert.assertNull(csrfTokenRepository.loadToken(request));
+        Assert.assertEquals(0, csrfTokenRepository.getTokenCacheStats().getRememberMeTokens());
+    }
+
 }
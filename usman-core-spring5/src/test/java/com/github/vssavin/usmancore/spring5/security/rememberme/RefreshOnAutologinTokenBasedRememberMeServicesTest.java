@@ -1,5 +1,8 @@
 package com.github.vssavin.usmancore.spring5.security.rememberme;
 
+import com.github.vssavin.usmancore.cache.UsmanCache;
+import com.github.vssavin.usmancore.security.RememberMeKeyRing;
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -9,9 +12,14 @@ import org.springframework.security.core.Authentication;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.UUID;
 
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * @author vssavin on 08.11.2023
@@ -70,6 +78,47 @@ public class RefreshOnAutologinTokenBasedRememberMeServicesTest extends Abstract
         Assert.assertNotNull("Principal shouldn't be null for requested user!", authentication.getPrincipal());
     }
 
+    @Test
+    public void shouldUseCachedUserForSameCookie() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(rememberMeServices.getParameter(), "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(adminUser, adminUser.getPassword());
+        rememberMeServices.loginSuccess(request, response, authentication);
+        request.setCookies(response.getCookie(rememberMeCookieName));
+        MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+        nextRequest.setCookies(response.getCookie(rememberMeCookieName));
+
+        Assert.assertNotNull(authenticator.retrieveAuthentication(request, response));
+        Assert.assertNotNull(authenticator.retrieveAuthentication(nextRequest, response));
+
+        UsmanCache.Stats stats = ((RefreshOnAutologinTokenBasedRememberMeServices) rememberMeServices)
+            .getUserCacheStats();
+        Assert.assertEquals(1, stats.getMisses());
+        Assert.assertEquals(1, stats.getHits());
+    }
+
+    @Test
+    public void shouldResolveAuthenticationOncePerRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(rememberMeServices.getParameter(), "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(adminUser, adminUser.getPassword());
+        rememberMeServices.loginSuccess(request, response, authentication);
+        request.setCookies(response.getCookie(rememberMeCookieName));
+
+        Authentication first = authenticator.retrieveAuthentication(request, new MockHttpServletResponse());
+        Authentication second = authenticator.retrieveAuthentication(request, new MockHttpServletResponse());
+        Assert.assertNotNull(rememberMeServices.autoLogin(request, new MockHttpServletResponse()));
+
+        Assert.assertSame(first, second);
+        UsmanCache.Stats stats = ((RefreshOnAutologinTokenBasedRememberMeServices) rememberMeServices)
+            .getUserCacheStats();
+        Assert.assertEquals(1, stats.getMisses());
+        Assert.assertEquals(0, stats.getHits());
+        verify(userDetailsService, times(1)).loadUserByUsername(adminUser.getLogin());
+    }
+
     @Test
     public void shouldResponseContainsCookieWhenAutoLoginOk() {
         MockHttpServletRequest request = new MockHttpServletRequest();
@@ -93,4 +142,90 @@ public class RefreshOnAutologinTokenBasedRememberMeServicesTest extends Abstract
         Assert.assertNotNull("Remember-me autoLogin cookie shouldn't be null!", autoLoginRememberMeCookie);
     }
 
+    @Test
+    public void shouldRefreshCookieOnlyAfterRefreshFraction() {
+        RefreshOnAutologinTokenBasedRememberMeServices services;
+        services = (RefreshOnAutologinTokenBasedRememberMeServices) rememberMeServices;
+        services.setRefreshFraction(0.5);
+        services.setTokenValiditySeconds(100);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(rememberMeServices.getParameter(), "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(adminUser, adminUser.getPassword());
+        rememberMeServices.loginSuccess(request, response, authentication);
+        Cookie loginRememberMeCookie = response.getCookie(rememberMeCookieName);
+
+        MockHttpServletRequest freshRequest = new MockHttpServletRequest();
+        freshRequest.setCookies(loginRememberMeCookie);
+        MockHttpServletResponse freshResponse = new MockHttpServletResponse();
+        Assert.assertNotNull(rememberMeServices.autoLogin(freshRequest, freshResponse));
+        Assert.assertNull("Fresh cookie shouldn't be refreshed!", freshResponse.getCookie(rememberMeCookieName));
+
+        // the same cookie has used up more than a half of a longer lifetime
+        services.setTokenValiditySeconds(1000);
+        MockHttpServletRequest oldRequest = new MockHttpServletRequest();
+        oldRequest.setCookies(loginRememberMeCookie);
+        MockHttpServletResponse oldResponse = new MockHttpServletResponse();
+        Assert.assertNotNull(rememberMeServices.autoLogin(oldRequest, oldResponse));
+        Assert.assertNotNull("Old cookie should be refreshed!", oldResponse.getCookie(rememberMeCookieName));
+    }
+
+    @Test
+    public void shouldAcceptCookieSignedWithPreviousKey_WhenKeyRotated() throws SQLException {
+        RefreshOnAutologinTokenBasedRememberMeServices services;
+        services = (RefreshOnAutologinTokenBasedRememberMeServices) rememberMeServices;
+        JdbcDataSource dataSource = createKeysDataSource();
+        insertKey(dataSource, "previous", System.currentTimeMillis() - 2000);
+        RememberMeKeyRing keyRing = new RememberMeKeyRing(dataSource, null, 0, services.getTokenValiditySeconds());
+        keyRing.refresh();
+        services.setKeyRing(keyRing);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(rememberMeServices.getParameter(), "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(adminUser, adminUser.getPassword());
+        rememberMeServices.loginSuccess(request, response, authentication);
+        Cookie previousKeyCookie = response.getCookie(rememberMeCookieName);
+
+        insertKey(dataSource, "active", System.currentTimeMillis() - 1000);
+        keyRing.refresh();
+        MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+        nextRequest.setCookies(previousKeyCookie);
+
+        Assert.assertEquals("active", keyRing.getActiveKeyId());
+        Assert.assertNotNull("Cookie signed with the previous key should be accepted!",
+                authenticator.retrieveAuthentication(nextRequest, new MockHttpServletResponse()));
+
+        RememberMeKeyRing otherKeyRing = new RememberMeKeyRing(createKeysDataSource(), null, 0,
+                services.getTokenValiditySeconds());
+        otherKeyRing.refresh();
+        services.setKeyRing(otherKeyRing);
+        // drops validated cookies
+        services.setUserRemoveDelaySeconds(services.getUserRemoveDelaySeconds());
+        MockHttpServletRequest unknownKeyRequest = new MockHttpServletRequest();
+        unknownKeyRequest.setCookies(previousKeyCookie);
+        Assert.assertNull("Cookie signed with an unknown key shouldn't be accepted!",
+                authenticator.retrieveAuthentication(unknownKeyRequest, new MockHttpServletResponse()));
+    }
+
+    private JdbcDataSource createKeysDataSource() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE rememberme_keys(id VARCHAR(32) PRIMARY KEY, "
+                    + "secret VARCHAR(64) NOT NULL, created_at TIMESTAMP NOT NULL)");
+        }
+        return dataSource;
+    }
+
+    private void insertKey(JdbcDataSource dataSource, String id, long createdAt) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection
+                    .prepareStatement("INSERT INTO rememberme_keys(id, secret, created_at) VALUES (?, ?, ?)")) {
+            statement.setString(1, id);
+            statement.setString(2, UUID.randomUUID().toString());
+            statement.setTimestamp(3, new Timestamp(createdAt));
+            statement.executeUpdate();
+        }
+    }
+
 }
@@ -1,6 +1,9 @@
 package com.github.vssavin.usmancore.spring5.security.rememberme;
 
+import com.github.vssavin.usmancore.security.TokenDigests;
+import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -55,4 +58,36 @@ public class RefreshOnLoginDatabaseTokenBasedRememberMeServiceTest extends Abstr
         verify(userRememberMeTokenRepository, atLeast(2)).save(any());
     }
 
+    @Test
+    public void shouldSaveDigestOfIssuedCookie() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(rememberMeServices.getParameter(), "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(adminUser, adminUser.getPassword());
+
+        rememberMeServices.loginSuccess(request, response, authentication);
+
+        ArgumentCaptor<UserRememberMeToken> captor = ArgumentCaptor.forClass(UserRememberMeToken.class);
+        verify(userRememberMeTokenRepository).save(captor.capture());
+        String cookieValue = response.getCookie(rememberMeCookieName).getValue();
+        Assert.assertEquals(TokenDigests.sha256(cookieValue), captor.getValue().getTokenDigest());
+        Assert.assertEquals(Long.valueOf(adminUserId), captor.getValue().getUserId());
+    }
+
+    @Test
+    public void shouldNotSaveToken_WhenCookieNotRefreshed() {
+        ((RefreshOnAutologinTokenBasedRememberMeServices) rememberMeServices).setRefreshFraction(0.5);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(rememberMeServices.getParameter(), "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(adminUser, adminUser.getPassword());
+        rememberMeServices.loginSuccess(request, response, authentication);
+
+        MockHttpServletRequest autoLoginRequest = new MockHttpServletRequest();
+        autoLoginRequest.setCookies(response.getCookie(rememberMeCookieName));
+        rememberMeServices.autoLogin(autoLoginRequest, new MockHttpServletResponse());
+
+        verify(userRememberMeTokenRepository, times(1)).save(any());
+    }
+
 }
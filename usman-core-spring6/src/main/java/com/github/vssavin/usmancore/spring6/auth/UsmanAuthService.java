@@ -10,6 +10,7 @@ import com.github.vssavin.usmancore.exception.auth.AuthenticationForbiddenExcept
 import com.github.vssavin.usmancore.exception.user.UserExpiredException;
 import com.github.vssavin.usmancore.exception.user.UserNotFoundException;
 import com.github.vssavin.usmancore.spring6.event.EventService;
+import com.github.vssavin.usmancore.spring6.security.auth.RequestAuthenticationContext;
 import com.github.vssavin.usmancore.spring6.user.User;
 import com.github.vssavin.usmancore.spring6.user.UserService;
 import org.slf4j.Logger;
@@ -19,6 +20,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -30,6 +32,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -56,7 +59,9 @@ public class UsmanAuthService extends UsmanBaseAuthenticationService
     @Autowired
     public UsmanAuthService(UserService userService, EventService eventService, UsmanConfigurer usmanConfigurer,
             PasswordEncoder passwordEncoder) {
-        super(userService, passwordEncoder, usmanConfigurer.getSecureService(), usmanConfigurer);
+        super(userService, passwordEncoder, usmanConfigurer.getSecureService(), usmanConfigurer,
+                usmanConfigurer.isPasswordVerificationVirtualThreads()
+                        ? VirtualThreadFactory.create("usman-password-verifier-") : null);
         this.userService = userService;
         this.eventService = eventService;
         this.usmanConfigurer = usmanConfigurer;
@@ -81,12 +86,13 @@ public class UsmanAuthService extends UsmanBaseAuthenticationService
             // ignore, it's ok
         }
 
+        RequestAuthenticationContext context = RequestAuthenticationContext.of(request);
         if (user == null && authentication.getPrincipal() instanceof User) {
-            user = userService.getUserByLogin(((User) authentication.getPrincipal()).getLogin());
+            user = context.resolveUser(((User) authentication.getPrincipal()).getLogin(), userService::getUserByLogin);
         }
 
         if (user == null) {
-            user = userService.getUserByLogin(authentication.getPrincipal().toString());
+            user = context.resolveUser(authentication.getPrincipal().toString(), userService::getUserByLogin);
         }
 
         if (user == null) {
@@ -106,44 +112,46 @@ public class UsmanAuthService extends UsmanBaseAuthenticationService
             .collect(Collectors.toList());
     }
 
-    @Override
-    public boolean isAuthenticationAllowed(String ipAddress) {
-        int failureCounts = getFailureCount(ipAddress);
-        if (failureCounts >= maxFailureCount) {
-            long expireTime = getBanExpirationTime(ipAddress);
-            if (expireTime > 0 && System.currentTimeMillis() < expireTime) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     @Override
     public void processFailureAuthentication(HttpServletRequest request, HttpServletResponse response,
             AuthenticationException exception) {
         String userIp = request.getRemoteAddr();
-        int failureCount = getFailureCount(userIp);
-
-        if (failureCount >= maxFailureCount) {
-            long expirationTime = getBanExpirationTime(userIp);
-            if (expirationTime == 0) {
-                blockIp(userIp);
-                log.info("IP {} has been blocked!", userIp);
-                throw new AuthenticationForbiddenException("Sorry! You have been blocked! Try again later!");
-            }
-            else if (expirationTime < System.currentTimeMillis()) {
-                resetFailureCount(userIp);
-                incrementFailureCount(userIp);
-            }
-            else {
-                throw new AuthenticationForbiddenException("Sorry! You have been blocked! Try again later!");
-            }
+        long expirationTime = getBanExpirationTime(userIp);
+
+        if (expirationTime >= System.currentTimeMillis()) {
+            throw new AuthenticationForbiddenException("Sorry! You have been blocked! Try again later!");
+        }
+        else if (expirationTime > 0) {
+            resetFailureCount(userIp);
+            incrementFailureCount(userIp);
+        }
+        else if (getFailureCount(userIp) >= maxFailureCount) {
+            blockIp(userIp);
+            log.info("IP {} has been blocked!", userIp);
+            throw new AuthenticationForbiddenException("Sorry! You have been blocked! Try again later!");
         }
         else {
             incrementFailureCount(userIp);
         }
     }
 
+    @Override
+    protected void updatePasswordHash(UserDetails userDetails, String encodedPassword) {
+        if (userDetails instanceof User) {
+            // the authenticated user may be shared, so a fresh copy is updated
+            User authenticatedUser = (User) userDetails;
+            User user = userService.getUserById(authenticatedUser.getId());
+            if (!Objects.equals(user.getPassword(), authenticatedUser.getPassword())) {
+                log.debug("Password of user [{}] has been changed since the login, the hash is not upgraded",
+                        user.getLogin());
+                return;
+            }
+            user.setPassword(encodedPassword);
+            userService.updateUser(user);
+            log.info("Password hash of user [{}] has been upgraded", user.getLogin());
+        }
+    }
+
     @Override
     public void notifyArgumentsProcessed(Class<?> aClass) {
         if (aClass != null && UsmanSecureServiceArgumentsHandler.class.isAssignableFrom(aClass)) {
@@ -161,7 +169,7 @@ public class UsmanAuthService extends UsmanBaseAuthenticationService
                 message = String.format("User [%s] logged out using IP: %s", user.getLogin(), request.getRemoteAddr());
                 break;
         }
-        eventService.createEvent(user, eventType, message);
+        eventService.recordEvent(user, eventType, message);
     }
 
 }
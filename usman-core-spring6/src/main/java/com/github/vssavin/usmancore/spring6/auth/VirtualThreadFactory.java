@@ -0,0 +1,44 @@
+package com.github.vssavin.usmancore.spring6.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates a {@link java.util.concurrent.ThreadFactory} producing virtual threads when the
+ * runtime supports them (Java 21+). The module is compiled for Java 17, so the virtual
+ * thread builder is resolved reflectively.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+final class VirtualThreadFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadFactory.class);
+
+    private VirtualThreadFactory() {
+
+    }
+
+    /**
+     * Returns a virtual thread factory.
+     * @param namePrefix thread name prefix
+     * @return virtual thread factory or null if virtual threads are not supported
+     */
+    static ThreadFactory create(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+            builder = nameMethod.invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Virtual threads are not supported by the runtime, platform threads will be used!");
+            log.debug("Creating virtual thread factory error: ", e);
+            return null;
+        }
+    }
+
+}
@@ -1,7 +1,13 @@
 package com.github.vssavin.usmancore.spring6.config;
 
 import com.github.vssavin.usmancore.config.*;
+import com.github.vssavin.usmancore.security.HmacKeyRing;
+import com.github.vssavin.usmancore.security.RememberMeKeyRing;
+import com.github.vssavin.usmancore.security.csrf.CsrfTokenCache;
+import com.github.vssavin.usmancore.security.csrf.CsrfTokenMode;
+import com.github.vssavin.usmancore.security.csrf.SignedCsrfTokens;
 import com.github.vssavin.usmancore.spring6.security.auth.UsmanBlackListFilter;
+import com.github.vssavin.usmancore.spring6.security.csrf.StatelessCsrfTokenRepository;
 import com.github.vssavin.usmancore.spring6.security.csrf.UmCsrfTokenRepository;
 import com.github.vssavin.usmancore.spring6.security.csrf.UserCsrfTokenRepository;
 import com.github.vssavin.usmancore.spring6.security.rememberme.Authenticator;
@@ -9,6 +15,7 @@ import com.github.vssavin.usmancore.spring6.security.rememberme.RefreshOnLoginDa
 import com.github.vssavin.usmancore.spring6.security.rememberme.UserRememberMeTokenRepository;
 import com.github.vssavin.usmancore.spring6.user.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -26,11 +33,12 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.logout.LogoutSuccessHandler;
-import org.springframework.security.web.authentication.rememberme.AbstractRememberMeServices;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides default user management configuration for spring-security.
@@ -85,30 +93,46 @@ public class DefaultSecurityConfig {
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity security, UsmanConfigurer usmanConfigurer,
-            UsmanUrlsConfigurer urlsConfigurer, UsmanBlackListFilter blackListFilter) throws Exception {
+            UsmanUrlsConfigurer urlsConfigurer, UsmanBlackListFilter blackListFilter,
+            @Qualifier("csrfKeyRing") HmacKeyRing csrfKeyRing, RememberMeKeyRing rememberMeKeyRing) throws Exception {
 
         security.addFilterBefore(blackListFilter, BasicAuthenticationFilter.class);
 
         List<AuthorizedUrlPermission> urlPermissions = usmanConfigurer.getPermissions();
         registerUrls(security, urlPermissions);
 
+        // identifies remember-me authentications of this node only, cookies are signed with the key ring
         String secretKey = UUID.randomUUID().toString();
 
-        AbstractRememberMeServices rememberMeServices = new RefreshOnLoginDatabaseTokenBasedRememberMeService(secretKey,
-                userService, rememberMeTokenRepository);
+        RefreshOnLoginDatabaseTokenBasedRememberMeService rememberMeServices;
+        rememberMeServices = new RefreshOnLoginDatabaseTokenBasedRememberMeService(secretKey, userService,
+                rememberMeTokenRepository);
         rememberMeServices.setAlwaysRemember(true);
         rememberMeServices.setTokenValiditySeconds(usmanConfigurer.getRememberMeTokenValiditySeconds());
+        rememberMeServices.setRefreshFraction(usmanConfigurer.getRememberMeRefreshFraction());
+        rememberMeServices.setKeyRing(rememberMeKeyRing);
 
         Authenticator authenticator = (Authenticator) rememberMeServices;
 
         if (!usmanConfigurer.isCsrfEnabled()) {
             security.csrf(AbstractHttpConfigurer::disable);
         }
+        else if (usmanConfigurer.getCsrfTokenMode() == CsrfTokenMode.STATELESS) {
+            SignedCsrfTokens signedCsrfTokens = new SignedCsrfTokens(csrfKeyRing,
+                    TimeUnit.SECONDS.toMillis(usmanConfigurer.getCsrfTokenValiditySeconds()));
+            StatelessCsrfTokenRepository statelessCsrfTokenRepository = new StatelessCsrfTokenRepository(
+                    authenticator, signedCsrfTokens);
+            // signed tokens are verified as sent, so they must not be masked
+            security.csrf(configurer -> configurer.csrfTokenRepository(statelessCsrfTokenRepository)
+                .csrfTokenRequestHandler(new CsrfTokenRequestAttributeHandler()));
+        }
         else {
             UmCsrfTokenRepository umCsrfTokenRepository = new UmCsrfTokenRepository(authenticator, csrfTokenRepository,
                     rememberMeTokenRepository);
             umCsrfTokenRepository.setTokenValiditySeconds(usmanConfigurer.getCsrfTokenValiditySeconds());
             umCsrfTokenRepository.setUseCache(true);
+            umCsrfTokenRepository.setTokenCache(new CsrfTokenCache(usmanConfigurer.getCsrfCacheMaxUsers(),
+                    usmanConfigurer.getCsrfCacheMaxTokensPerUser()));
             security.csrf(configurer -> configurer.csrfTokenRepository(umCsrfTokenRepository));
         }
 
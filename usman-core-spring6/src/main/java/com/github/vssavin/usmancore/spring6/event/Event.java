@@ -1,5 +1,7 @@
 package com.github.vssavin.usmancore.spring6.event;
 
+import com.github.vssavin.usmancore.data.IdSequences;
+import com.github.vssavin.usmancore.event.EventBuckets;
 import com.github.vssavin.usmancore.event.EventType;
 import com.github.vssavin.usmancore.spring6.user.User;
 
@@ -17,7 +19,9 @@ import java.util.Date;
 public class Event {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = IdSequences.EVENTS_SEQUENCE,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "user_id")
@@ -33,6 +37,9 @@ public class Event {
     @Column(name = "event_message")
     private String eventMessage;
 
+    @Column(name = "event_bucket")
+    private Integer eventBucket;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", insertable = false, updatable = false)
     private User user;
@@ -79,6 +86,10 @@ public class Event {
         return user;
     }
 
+    public Integer getEventBucket() {
+        return eventBucket;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -91,6 +102,10 @@ public class Event {
         this.eventTimestamp = eventTimestamp;
     }
 
+    public void setEventBucket(Integer eventBucket) {
+        this.eventBucket = eventBucket;
+    }
+
     public void setEventMessage(String eventMessage) {
         this.eventMessage = eventMessage;
     }
@@ -103,6 +118,14 @@ public class Event {
         this.eventType = eventType;
     }
 
+    @PrePersist
+    @PreUpdate
+    void updateEventBucket() {
+        if (eventTimestamp != null) {
+            eventBucket = EventBuckets.bucketOf(eventTimestamp);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
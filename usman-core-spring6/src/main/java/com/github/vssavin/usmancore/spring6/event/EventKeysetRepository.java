@@ -0,0 +1,25 @@
+package com.github.vssavin.usmancore.spring6.event;
+
+import com.github.vssavin.usmancore.data.pagination.KeysetCursor;
+import com.querydsl.core.types.Predicate;
+
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination of events.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public interface EventKeysetRepository {
+
+    /**
+     * Returns events ordered by timestamp and id, newest first, that follow the cursor.
+     * @param predicate filter, may be null
+     * @param cursor timestamp and id of the last event of the previous page, null for the
+     * first page
+     * @param limit max events count
+     * @return found events
+     */
+    List<Event> findEventsAfter(Predicate predicate, KeysetCursor cursor, int limit);
+
+}
@@ -15,8 +15,8 @@ import java.util.List;
  * @author vssavin on 07.12.2023.
  */
 @Repository
-public interface EventRepository
-        extends PagingAndSortingRepository<Event, Long>, QuerydslPredicateExecutor<Event>, CrudRepository<Event, Long> {
+public interface EventRepository extends PagingAndSortingRepository<Event, Long>, QuerydslPredicateExecutor<Event>,
+        CrudRepository<Event, Long>, EventKeysetRepository {
 
     @Transactional
     @NonNull
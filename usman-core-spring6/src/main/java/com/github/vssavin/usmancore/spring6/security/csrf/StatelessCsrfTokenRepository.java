@@ -0,0 +1,123 @@
+package com.github.vssavin.usmancore.spring6.security.csrf;
+
+import com.github.vssavin.usmancore.security.csrf.SignedCsrfTokens;
+import com.github.vssavin.usmancore.spring6.security.rememberme.Authenticator;
+import com.github.vssavin.usmancore.spring6.user.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.CsrfTokenRepository;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.util.Assert;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.UUID;
+
+/**
+ * A CsrfTokenRepository that stores nothing. Tokens of authenticated users are HMAC-signed
+ * over the user id, the remember-me series and the expiry time, and the token sent with a
+ * request is verified in memory. Anonymous users get the shared default token, as with
+ * {@link UmCsrfTokenRepository}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class StatelessCsrfTokenRepository implements CsrfTokenRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(StatelessCsrfTokenRepository.class);
+
+    private static final String DEFAULT_CSRF_PARAMETER_NAME = "_csrf";
+
+    private static final String DEFAULT_CSRF_HEADER_NAME = "X-CSRF-TOKEN";
+
+    private String parameterName = DEFAULT_CSRF_PARAMETER_NAME;
+
+    private String headerName = DEFAULT_CSRF_HEADER_NAME;
+
+    private CsrfToken anonymousDefaultToken = new DefaultCsrfToken(this.headerName, this.parameterName,
+            createRandomToken());
+
+    private final Authenticator authenticator;
+
+    private final SignedCsrfTokens signedCsrfTokens;
+
+    public StatelessCsrfTokenRepository(Authenticator authenticator, SignedCsrfTokens signedCsrfTokens) {
+        this.authenticator = authenticator;
+        this.signedCsrfTokens = signedCsrfTokens;
+    }
+
+    @Override
+    public CsrfToken generateToken(HttpServletRequest request) {
+        User user = retrieveUser(request);
+        if (user == null) {
+            return new DefaultCsrfToken(this.headerName, this.parameterName, createRandomToken());
+        }
+        return new DefaultCsrfToken(this.headerName, this.parameterName,
+                signedCsrfTokens.create(user.getId(), SignedCsrfTokens.seriesOf(user.getPassword())));
+    }
+
+    @Override
+    public void saveToken(CsrfToken token, HttpServletRequest request, HttpServletResponse response) {
+        log.trace("Stateless csrf token is not saved!");
+    }
+
+    @Override
+    public CsrfToken loadToken(HttpServletRequest request) {
+        Authentication authentication = authenticator.retrieveAuthentication(request,
+                new UmCsrfTokenRepository.UmMockHttpServletResponse());
+        if (authentication == null) {
+            return anonymousDefaultToken;
+        }
+        if (authentication.getPrincipal() instanceof User) {
+            User user = (User) authentication.getPrincipal();
+            String token = request.getHeader(this.headerName);
+            if (token == null) {
+                token = request.getParameter(this.parameterName);
+            }
+            if (user.getId() != null
+                    && signedCsrfTokens.verify(token, user.getId(), SignedCsrfTokens.seriesOf(user.getPassword()))) {
+                return new DefaultCsrfToken(this.headerName, this.parameterName, token);
+            }
+            log.debug("No valid csrf token in the request of user {}", user.getLogin());
+        }
+        return null;
+    }
+
+    /**
+     * Sets the {@link HttpServletRequest} parameter name that the {@link CsrfToken} is
+     * expected to appear on
+     * @param parameterName the new parameter name to use
+     */
+    public void setParameterName(String parameterName) {
+        Assert.hasLength(parameterName, "parameterName cannot be null or empty");
+        this.parameterName = parameterName;
+        anonymousDefaultToken = new DefaultCsrfToken(this.headerName, this.parameterName, createRandomToken());
+    }
+
+    /**
+     * Sets the header name that the {@link CsrfToken} is expected to appear on and the
+     * header that the response will contain the {@link CsrfToken}.
+     * @param headerName the new header name to use
+     */
+    public void setHeaderName(String headerName) {
+        Assert.hasLength(headerName, "headerName cannot be null or empty");
+        this.headerName = headerName;
+        anonymousDefaultToken = new DefaultCsrfToken(this.headerName, this.parameterName, createRandomToken());
+    }
+
+    private User retrieveUser(HttpServletRequest request) {
+        Authentication authentication = authenticator.retrieveAuthentication(request,
+                new UmCsrfTokenRepository.UmMockHttpServletResponse());
+        if (authentication != null && authentication.getPrincipal() instanceof User
+                && ((User) authentication.getPrincipal()).getId() != null) {
+            return (User) authentication.getPrincipal();
+        }
+        return null;
+    }
+
+    private String createRandomToken() {
+        return UUID.randomUUID().toString();
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.github.vssavin.usmancore.spring6.security.csrf;
 
+import com.github.vssavin.usmancore.data.IdSequences;
 import jakarta.persistence.*;
 
 import java.util.Date;
@@ -14,7 +15,9 @@ import java.util.Date;
 public class UserCsrfToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "csrf_tokens_seq")
+    @SequenceGenerator(name = "csrf_tokens_seq", sequenceName = IdSequences.CSRF_TOKENS_SEQUENCE,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "user_id")
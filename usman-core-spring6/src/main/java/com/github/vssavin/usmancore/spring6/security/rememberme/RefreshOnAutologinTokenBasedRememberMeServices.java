@@ -1,5 +1,8 @@
 package com.github.vssavin.usmancore.spring6.security.rememberme;
 
+import com.github.vssavin.usmancore.cache.UsmanCache;
+import com.github.vssavin.usmancore.security.RememberMeKeyRing;
+import com.github.vssavin.usmancore.spring6.security.auth.RequestAuthenticationContext;
 import org.springframework.security.authentication.AccountStatusException;
 import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
 import org.springframework.security.core.Authentication;
@@ -15,31 +18,38 @@ import org.springframework.security.web.authentication.rememberme.TokenBasedReme
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.util.Date;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Identifies previously remembered users by a Base-64 encoded cookie and refresh it on
  * autoLogin event. Also implements method {@link #retrieveAuthentication} to create
  * {@link Authentication} object without changing response cookies. It contains a
- * temporary local cache of usernames to reduce database connections.
+ * temporary local cache of already validated cookies to reduce database connections,
+ * entries expire lazily and the cache size is bounded. Within a request the cookie is
+ * validated only once, see {@link RequestAuthenticationContext}. The cookie is re-signed
+ * and sent again only after it has used up the refresh fraction of its lifetime. With a
+ * {@link RememberMeKeyRing} cookies are signed with its active key and verified with all
+ * of its keys, otherwise the key given to the constructor is used.
  *
  * @author vssavin on 11.12.2023.
  */
 public class RefreshOnAutologinTokenBasedRememberMeServices extends TokenBasedRememberMeServices
         implements Authenticator {
 
-    private final Map<String, UserDetails> userDetailsCache = new ConcurrentHashMap<>();
-
-    private final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
-
     private UserDetailsChecker userDetailsChecker = new AccountStatusUserDetailsChecker();
 
     private int userRemoveDelaySeconds = 10;
 
+    private int userCacheMaxSize = 10_000;
+
+    private double refreshFraction = 0;
+
+    private volatile UsmanCache<String, UserDetails> userDetailsCache = createUserDetailsCache();
+
+    private volatile RememberMeKeyRing keyRing;
+
+    private final ThreadLocal<String> verificationKey = new ThreadLocal<>();
+
     public RefreshOnAutologinTokenBasedRememberMeServices(String key, UserDetailsService userDetailsService) {
         super(key, userDetailsService);
     }
@@ -51,9 +61,13 @@ public class RefreshOnAutologinTokenBasedRememberMeServices extends TokenBasedRe
         UserDetails result = getUserDetails(cookieTokens, request, response);
 
         int tokenLifetime = getTokenValiditySeconds();
-        long expiryTime = System.currentTimeMillis();
         // SEC-949
-        expiryTime += 1000L * ((tokenLifetime < 0) ? TWO_WEEKS_S : tokenLifetime);
+        long lifetimeMillis = 1000L * ((tokenLifetime < 0) ? TWO_WEEKS_S : tokenLifetime);
+        if (!isRefreshRequired(cookieTokens, lifetimeMillis)) {
+            this.logger.trace("Remember-me cookie is fresh enough, not refreshed");
+            return result;
+        }
+        long expiryTime = System.currentTimeMillis() + lifetimeMillis;
         String signatureValue = makeTokenSignature(expiryTime, cookieTokens[0], result.getPassword());
         setCookie(new String[] { cookieTokens[0], Long.toString(expiryTime), cookieTokens[2], signatureValue },
                 tokenLifetime, request, response);
@@ -73,6 +87,12 @@ public class RefreshOnAutologinTokenBasedRememberMeServices extends TokenBasedRe
             return null;
         }
 
+        return RequestAuthenticationContext.of(request)
+            .resolveAuthentication(rememberMeCookie, () -> resolveAuthentication(rememberMeCookie, request, response));
+    }
+
+    private Authentication resolveAuthentication(String rememberMeCookie, HttpServletRequest request,
+            HttpServletResponse response) {
         try {
             String[] cookieTokens = decodeCookie(rememberMeCookie);
             UserDetails user = getUserDetails(cookieTokens, request, response);
@@ -99,38 +119,143 @@ public class RefreshOnAutologinTokenBasedRememberMeServices extends TokenBasedRe
         return null;
     }
 
+    /**
+     * Returns the key cookies are signed with: the key the cookie is being verified with,
+     * the active key of the key ring or the key given to the constructor.
+     * @return signing key
+     */
+    @Override
+    public String getKey() {
+        String key = verificationKey.get();
+        if (key != null) {
+            return key;
+        }
+        RememberMeKeyRing currentKeyRing = keyRing;
+        return currentKeyRing == null ? super.getKey() : currentKeyRing.getActiveKey();
+    }
+
     @Override
     public void setUserDetailsChecker(UserDetailsChecker userDetailsChecker) {
         super.setUserDetailsChecker(userDetailsChecker);
         this.userDetailsChecker = userDetailsChecker;
     }
 
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        RequestAuthenticationContext.of(request).clear();
+        String rememberMeCookie = extractRememberMeCookie(request);
+        if (rememberMeCookie != null && !rememberMeCookie.isEmpty()) {
+            try {
+                userDetailsCache.invalidate(String.join(":", decodeCookie(rememberMeCookie)));
+            }
+            catch (InvalidCookieException ex) {
+                this.logger.debug("Invalid remember-me cookie: " + ex.getMessage());
+            }
+        }
+        super.logout(request, response, authentication);
+    }
+
     public void setUserRemoveDelaySeconds(int userRemoveDelaySeconds) {
         this.userRemoveDelaySeconds = userRemoveDelaySeconds;
+        this.userDetailsCache = createUserDetailsCache();
     }
 
     public int getUserRemoveDelaySeconds() {
         return userRemoveDelaySeconds;
     }
 
+    public void setUserCacheMaxSize(int userCacheMaxSize) {
+        this.userCacheMaxSize = userCacheMaxSize;
+        this.userDetailsCache = createUserDetailsCache();
+    }
+
+    public int getUserCacheMaxSize() {
+        return userCacheMaxSize;
+    }
+
+    /**
+     * Sets the fraction of the cookie lifetime that has to pass before the cookie is
+     * refreshed on auto-login, 0 refreshes it on every auto-login.
+     * @param refreshFraction fraction of the lifetime, from 0 to 1
+     */
+    public void setRefreshFraction(double refreshFraction) {
+        if (refreshFraction < 0 || refreshFraction > 1) {
+            throw new IllegalArgumentException("Refresh fraction must be between 0 and 1!");
+        }
+        this.refreshFraction = refreshFraction;
+    }
+
+    public double getRefreshFraction() {
+        return refreshFraction;
+    }
+
+    public void setKeyRing(RememberMeKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    public RememberMeKeyRing getKeyRing() {
+        return keyRing;
+    }
+
+    public UsmanCache.Stats getUserCacheStats() {
+        return userDetailsCache.getStats();
+    }
+
     private UserDetails getUserDetails(String[] cookieTokens, HttpServletRequest request,
             HttpServletResponse response) {
-
-        String userLogin = cookieTokens[0];
-        String threadName = Thread.currentThread().getName();
-        return userDetailsCache.computeIfAbsent(userLogin, login -> {
-            if (this.logger.isDebugEnabled()) {
-                this.logger.debug(String.format("[%s] User '%s' not found in the local cache!", threadName, userLogin));
-            }
-            executorService.schedule(() -> {
-                if (logger.isDebugEnabled()) {
-                    this.logger
-                        .debug(String.format("[%s] Removing user '%s' from th local cache!", threadName, userLogin));
+        String cookieValue = String.join(":", cookieTokens);
+        return RequestAuthenticationContext.of(request)
+            .resolveUserDetails(cookieValue, () -> userDetailsCache.get(cookieValue, key -> {
+                if (this.logger.isDebugEnabled()) {
+                    this.logger.debug(String.format("User '%s' not found in the local cache!", cookieTokens[0]));
                 }
-                userDetailsCache.remove(userLogin);
-            }, userRemoveDelaySeconds, TimeUnit.SECONDS);
+                return verifyCookie(cookieTokens, request, response);
+            }));
+    }
+
+    private UserDetails verifyCookie(String[] cookieTokens, HttpServletRequest request,
+            HttpServletResponse response) {
+        RememberMeKeyRing currentKeyRing = keyRing;
+        if (currentKeyRing == null) {
             return super.processAutoLoginCookie(cookieTokens, request, response);
-        });
+        }
+        InvalidCookieException failure = new InvalidCookieException("No remember-me keys available");
+        for (String key : currentKeyRing.getKeys()) {
+            verificationKey.set(key);
+            try {
+                return super.processAutoLoginCookie(cookieTokens, request, response);
+            }
+            catch (InvalidCookieException e) {
+                // the cookie may be signed with one of the previous keys
+                failure = e;
+            }
+            finally {
+                verificationKey.remove();
+            }
+        }
+        throw failure;
+    }
+
+    private boolean isRefreshRequired(String[] cookieTokens, long lifetimeMillis) {
+        if (refreshFraction <= 0) {
+            return true;
+        }
+        long expiryTime;
+        try {
+            expiryTime = Long.parseLong(cookieTokens[1]);
+        }
+        catch (NumberFormatException e) {
+            return true;
+        }
+        long remainingMillis = expiryTime - System.currentTimeMillis();
+        return remainingMillis < lifetimeMillis * (1 - refreshFraction);
+    }
+
+    private UsmanCache<String, UserDetails> createUserDetailsCache() {
+        return UsmanCache.builder()
+            .maxSize(userCacheMaxSize)
+            .ttlMillis(TimeUnit.SECONDS.toMillis(userRemoveDelaySeconds))
+            .build();
     }
 
 }
@@ -1,9 +1,14 @@
 package com.github.vssavin.usmancore.spring6.security.rememberme;
 
+import com.github.vssavin.usmancore.data.IdSequences;
+import com.github.vssavin.usmancore.security.TokenDigests;
 import jakarta.persistence.*;
 
+import java.util.Date;
+
 /**
- * Base remember-me entity.
+ * Base remember-me entity. Only the digest of the remember-me cookie is stored, see
+ * {@link TokenDigests}.
  *
  * @author vssavin on 11.12.2023.
  */
@@ -12,18 +17,24 @@ import jakarta.persistence.*;
 public class UserRememberMeToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rememberme_tokens_seq")
+    @SequenceGenerator(name = "rememberme_tokens_seq", sequenceName = IdSequences.REMEMBER_ME_TOKENS_SEQUENCE,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "user_id")
     private Long userId;
 
-    @Column(name = "token")
-    private String token;
+    @Column(name = "token_digest", length = TokenDigests.DIGEST_LENGTH, unique = true)
+    private String tokenDigest;
+
+    @Column(name = "expiration_date")
+    private Date expirationDate;
 
-    public UserRememberMeToken(Long userId, String token) {
+    public UserRememberMeToken(Long userId, String tokenDigest, Date expirationDate) {
         this.userId = userId;
-        this.token = token;
+        this.tokenDigest = tokenDigest;
+        this.expirationDate = expirationDate;
     }
 
     public UserRememberMeToken() {
@@ -37,8 +48,12 @@ public class UserRememberMeToken {
         return userId;
     }
 
-    public String getToken() {
-        return token;
+    public String getTokenDigest() {
+        return tokenDigest;
+    }
+
+    public Date getExpirationDate() {
+        return expirationDate;
     }
 
     public void setId(Long id) {
@@ -49,8 +64,12 @@ public class UserRememberMeToken {
         this.userId = userId;
     }
 
-    public void setToken(String token) {
-        this.token = token;
+    public void setTokenDigest(String tokenDigest) {
+        this.tokenDigest = tokenDigest;
+    }
+
+    public void setExpirationDate(Date expirationDate) {
+        this.expirationDate = expirationDate;
     }
 
     @Override
@@ -67,19 +86,20 @@ public class UserRememberMeToken {
         if (!userId.equals(that.userId)) {
             return false;
         }
-        return token.equals(that.token);
+        return tokenDigest.equals(that.tokenDigest);
     }
 
     @Override
     public int hashCode() {
         int result = userId.hashCode();
-        result = 31 * result + token.hashCode();
+        result = 31 * result + tokenDigest.hashCode();
         return result;
     }
 
     @Override
     public String toString() {
-        return "UserRememberMeToken{" + "id=" + id + ", userId=" + userId + ", token='" + token + '\'' + '}';
+        return "UserRememberMeToken{" + "id=" + id + ", userId=" + userId + ", tokenDigest='" + tokenDigest + '\''
+                + ", expirationDate=" + expirationDate + '}';
     }
 
 }
@@ -2,6 +2,7 @@ package com.github.vssavin.usmancore.spring6.user;
 
 import com.github.vssavin.usmancore.config.Role;
 import com.github.vssavin.usmancore.exception.user.EmailNotFoundException;
+import com.github.vssavin.usmancore.spring6.security.auth.RequestAuthenticationContext;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -31,7 +32,9 @@ public class SimpleUserSecurityService implements UserSecurityService {
         String userLogin = authorizedUserName;
         if (!authorizedUserName.isEmpty()) {
             try {
-                authorizedUserName = userService.getUserByLogin(authorizedUserName).getName();
+                authorizedUserName = RequestAuthenticationContext.of(request)
+                    .resolveUser(authorizedUserName, userService::getUserByLogin)
+                    .getName();
             }
             catch (UsernameNotFoundException e) {
                 authorizedUserName = "";
@@ -92,11 +95,14 @@ public class SimpleUserSecurityService implements UserSecurityService {
         Principal principal = request.getUserPrincipal();
         User user = null;
         if (principal != null) {
+            // resolved once per request, all checks of the request share the user
+            RequestAuthenticationContext context = RequestAuthenticationContext.of(request);
             if (principal instanceof OAuth2AuthenticationToken) {
-                user = userService.getUserByOAuth2Token((OAuth2AuthenticationToken) principal);
+                user = context.resolveUser(principal.getName(),
+                        name -> userService.getUserByOAuth2Token((OAuth2AuthenticationToken) principal));
             }
             else {
-                user = userService.getUserByLogin(principal.getName());
+                user = context.resolveUser(principal.getName(), userService::getUserByLogin);
             }
         }
 
@@ -1,5 +1,6 @@
 package com.github.vssavin.usmancore.spring6.user;
 
+import com.github.vssavin.usmancore.data.IdSequences;
 import com.github.vssavin.usmancore.spring6.event.Event;
 import jakarta.persistence.*;
 import org.springframework.security.core.GrantedAuthority;
@@ -20,7 +21,9 @@ public class User implements UserDetails {
     public static final int EXPIRATION_DAYS = 1;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = IdSequences.USERS_SEQUENCE,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
 
     private String login;
@@ -47,6 +50,12 @@ public class User implements UserDetails {
 
     private int enabled = 1;
 
+    @Column(name = "login_normalized")
+    private String loginNormalized;
+
+    @Column(name = "email_normalized")
+    private String emailNormalized;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     private final List<Event> events = new ArrayList<>();
 
@@ -180,6 +189,42 @@ public class User implements UserDetails {
         this.events.addAll(events);
     }
 
+    /**
+     * Updates case-normalized login and email, the database keeps them unique.
+     */
+    @PrePersist
+    @PreUpdate
+    void normalizeLoginAndEmail() {
+        loginNormalized = normalize(login);
+        emailNormalized = normalize(email);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Creates a detached copy of the user without events.
+     * @return copy of the user
+     */
+    User copy() {
+        User user = new User();
+        user.id = id;
+        user.login = login;
+        user.name = name;
+        user.password = password;
+        user.email = email;
+        user.authority = authority;
+        user.expirationDate = expirationDate == null ? null : new Date(expirationDate.getTime());
+        user.verificationId = verificationId;
+        user.accountLocked = accountLocked;
+        user.credentialsExpired = credentialsExpired;
+        user.enabled = enabled;
+        user.loginNormalized = loginNormalized;
+        user.emailNormalized = emailNormalized;
+        return user;
+    }
+
     public static UserBuilder builder() {
         return new UserBuilder();
     }
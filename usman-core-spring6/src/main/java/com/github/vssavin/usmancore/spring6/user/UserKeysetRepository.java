@@ -0,0 +1,24 @@
+package com.github.vssavin.usmancore.spring6.user;
+
+import com.github.vssavin.usmancore.data.pagination.KeysetCursor;
+import com.querydsl.core.types.Predicate;
+
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination of users.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public interface UserKeysetRepository {
+
+    /**
+     * Returns users ordered by id that follow the cursor.
+     * @param predicate filter, may be null
+     * @param cursor id of the last user of the previous page, null for the first page
+     * @param limit max users count
+     * @return found users
+     */
+    List<User> findUsersAfter(Predicate predicate, KeysetCursor cursor, int limit);
+
+}
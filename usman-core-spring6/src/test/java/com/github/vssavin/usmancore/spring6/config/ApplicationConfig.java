@@ -79,7 +79,8 @@ public class ApplicationConfig {
 
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(
-            @Qualifier("routingDatasource") DataSource routingDatasource, DatabaseConfig databaseConfig) {
+            @Qualifier("routingDatasource") DataSource routingDatasource, DatabaseConfig databaseConfig,
+            UsmanDatabaseConfig usmanDatabaseConfig) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
 
         try {
@@ -91,6 +92,7 @@ public class ApplicationConfig {
 
             Properties additionalProperties = new Properties();
             additionalProperties.put("hibernate.dialect", hibernateDialect);
+            additionalProperties.putAll(usmanDatabaseConfig.getJpaBatchProperties());
             em.setJpaProperties(additionalProperties);
         }
         catch (Exception e) {
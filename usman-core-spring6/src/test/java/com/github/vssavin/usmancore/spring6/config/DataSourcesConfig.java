@@ -28,7 +28,13 @@ public class DataSourcesConfig {
                 .setType(H2)
                 .setScriptEncoding("UTF-8")
                 .ignoreFailedDrops(true)
-                .addScript("com/github/vssavin/usmancore/config/init.sql")
+                .addScript("com/github/vssavin/usmancore/config/migration/V1__init.sql")
+                .addScript("com/github/vssavin/usmancore/config/migration/V2__unique_logins.sql")
+                .addScript("com/github/vssavin/usmancore/config/migration/V3__foreign_key_indexes.sql")
+                .addScript("com/github/vssavin/usmancore/config/migration/V4__bigint_event_ids.sql")
+                .addScript("com/github/vssavin/usmancore/config/migration/V5__csrf_keys.sql")
+                .addScript("com/github/vssavin/usmancore/config/migration/V6__password_rehash_plan.sql")
+                .addScript("com/github/vssavin/usmancore/config/migration/V7__user_created_at.sql")
                 .build();
         }
         return appDataSource;
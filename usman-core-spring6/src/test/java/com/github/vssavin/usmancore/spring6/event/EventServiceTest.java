@@ -1,8 +1,12 @@
 package com.github.vssavin.usmancore.spring6.event;
 
+import com.github.vssavin.usmancore.data.pagination.KeysetCursor;
+import com.github.vssavin.usmancore.data.pagination.KeysetPage;
 import com.github.vssavin.usmancore.data.pagination.Paged;
 import com.github.vssavin.usmancore.event.EventDto;
 import com.github.vssavin.usmancore.event.EventFilter;
+import com.github.vssavin.usmancore.event.EventRecorder;
+import com.github.vssavin.usmancore.event.EventRollupEngine;
 import com.github.vssavin.usmancore.event.EventType;
 import com.github.vssavin.usmancore.exception.event.EventServiceException;
 import com.github.vssavin.usmancore.spring6.user.User;
@@ -12,15 +16,18 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -60,6 +67,35 @@ public class EventServiceTest {
         Assert.assertEquals("User should be equal!", user, event.getUser());
     }
 
+    @Test
+    public void shouldCountCreatedEventInRollups() {
+        EventRollupEngine rollupEngine = mock(EventRollupEngine.class);
+        EventService service = new EventService(eventRepository, eventMapper, null, rollupEngine);
+        User user = new User("", "", "", "", "");
+
+        service.createEvent(user, EventType.LOGGED_IN, "User logged in");
+
+        verify(rollupEngine, times(1)).record(any(), eq(EventType.LOGGED_IN), anyLong());
+    }
+
+    @Test
+    public void shouldRecordEventAndRollupWithSameTimestamp() {
+        EventRecorder recorder = mock(EventRecorder.class);
+        EventRollupEngine rollupEngine = mock(EventRollupEngine.class);
+        when(recorder.record(eq(1L), eq(EventType.LOGGED_IN), eq("User logged in"), anyLong())).thenReturn(true);
+        EventService service = new EventService(eventRepository, eventMapper, recorder, rollupEngine);
+        User user = new User("", "", "", "", "");
+        user.setId(1L);
+
+        service.recordEvent(user, EventType.LOGGED_IN, "User logged in");
+
+        ArgumentCaptor<Long> recordedAt = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> rolledUpAt = ArgumentCaptor.forClass(Long.class);
+        verify(recorder).record(eq(1L), eq(EventType.LOGGED_IN), eq("User logged in"), recordedAt.capture());
+        verify(rollupEngine).record(eq(1L), eq(EventType.LOGGED_IN), rolledUpAt.capture());
+        Assert.assertEquals(recordedAt.getValue(), rolledUpAt.getValue());
+    }
+
     @Test(expected = EventServiceException.class)
     public void shouldThrowException_WhenCreateEventWithWrongUser() {
         eventService.createEvent(null, EventType.LOGGED_OUT, "");
@@ -85,6 +121,42 @@ public class EventServiceTest {
         verify(eventRepository, times(1)).findAll(pageable);
     }
 
+    @Test
+    public void shouldReturnNextCursor_WhenMoreEventsExist() {
+        List<Event> events = new ArrayList<>();
+        for (long id = 3; id > 0; id--) {
+            events.add(new Event(id, 1L, new Timestamp(1_000_000L + id), "event " + id));
+        }
+        when(eventRepository.findEventsAfter(null, null, 3)).thenReturn(events);
+
+        KeysetPage<EventDto> page = eventService.findEvents(null, null, 2);
+        Assert.assertEquals(2, page.getItems().size());
+        KeysetCursor cursor = KeysetCursor.decode(page.getNextCursor());
+        Assert.assertEquals(2L, cursor.getId());
+
+        when(eventRepository.findEventsAfter(null, cursor, 3)).thenReturn(events.subList(2, 3));
+        page = eventService.findEvents(null, page.getNextCursor(), 2);
+        Assert.assertEquals(1, page.getItems().size());
+        Assert.assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void shouldRestrictEventBuckets_WhenTimestampRangeSpecified() {
+        Timestamp start = Timestamp.valueOf("2026-01-15 10:00:00");
+        Timestamp end = Timestamp.valueOf("2026-03-02 10:00:00");
+        EventFilter filter = new EventFilter(null, null, null, null, start, end);
+
+        String predicate = String.valueOf(eventService.eventFilterToPredicate(filter));
+
+        Assert.assertTrue(predicate, predicate.contains("eventBucket >= 202601"));
+        Assert.assertTrue(predicate, predicate.contains("eventBucket <= 202603"));
+    }
+
+    @Test(expected = EventServiceException.class)
+    public void shouldThrowException_WhenWrongCursorSpecified() {
+        eventService.findEvents(null, "wrong cursor", 5);
+    }
+
     @Test(expected = EventServiceException.class)
     public void shouldThrowException_WhenWrongPageNumberSpecified() {
         EventFilter filter = EventFilter.emptyEventFilter();
@@ -0,0 +1,153 @@
+package com.github.vssavin.usmancore.spring6.security.csrf;
+
+import com.github.vssavin.usmancore.security.HmacKeyRing;
+import com.github.vssavin.usmancore.security.csrf.SignedCsrfTokens;
+import com.github.vssavin.usmancore.spring6.security.rememberme.Authenticator;
+import com.github.vssavin.usmancore.spring6.security.rememberme.RefreshOnAutologinTokenBasedRememberMeServices;
+import com.github.vssavin.usmancore.spring6.security.rememberme.UserRememberMeTokenRepository;
+import com.github.vssavin.usmancore.spring6.user.User;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.rememberme.AbstractRememberMeServices;
+import org.springframework.security.web.csrf.CsrfToken;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class StatelessCsrfTokenRepositoryTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StatelessCsrfTokenRepositoryTest.class);
+
+    private static final int BENCHMARK_REQUESTS = 20_000;
+
+    private final User adminUser = new User("admin", "admin", "admin", "admin@example.com", "ROLE_ADMIN");
+
+    private final String rememberMeCookieName = "remember-me";
+
+    private AbstractRememberMeServices rememberMeServices;
+
+    private Authenticator authenticator;
+
+    private StatelessCsrfTokenRepository csrfTokenRepository;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private UserRememberMeTokenRepository rememberMeTokenRepository;
+
+    @Mock
+    private UserCsrfTokenRepository userCsrfTokenRepository;
+
+    @Before
+    public void setUp() {
+        adminUser.setId(1L);
+        rememberMeServices = new RefreshOnAutologinTokenBasedRememberMeServices(UUID.randomUUID().toString(),
+                userDetailsService);
+        rememberMeServices.setCookieName(rememberMeCookieName);
+        authenticator = (Authenticator) rememberMeServices;
+        HmacKeyRing keyRing = new HmacKeyRing(2);
+        keyRing.rotate();
+        csrfTokenRepository = new StatelessCsrfTokenRepository(authenticator,
+                new SignedCsrfTokens(keyRing, TimeUnit.HOURS.toMillis(1)));
+        when(userDetailsService.loadUserByUsername(adminUser.getLogin())).thenReturn(adminUser);
+    }
+
+    @Test
+    public void shouldLoadSignedToken_WhenTokenOfSameUserSent() {
+        MockHttpServletRequest request = authenticatedRequest();
+        CsrfToken token = csrfTokenRepository.generateToken(request);
+        request.addHeader(token.getHeaderName(), token.getToken());
+
+        CsrfToken loadedToken = csrfTokenRepository.loadToken(request);
+
+        Assert.assertNotNull(loadedToken);
+        Assert.assertEquals(token.getToken(), loadedToken.getToken());
+    }
+
+    @Test
+    public void shouldNotLoadToken_WhenTokenIsNotSigned() {
+        MockHttpServletRequest request = authenticatedRequest();
+        request.addParameter("_csrf", UUID.randomUUID().toString());
+
+        Assert.assertNull(csrfTokenRepository.loadToken(request));
+    }
+
+    @Test
+    public void shouldNotLoadToken_WhenPasswordChanged() {
+        MockHttpServletRequest request = authenticatedRequest();
+        CsrfToken token = csrfTokenRepository.generateToken(request);
+        request.addHeader(token.getHeaderName(), token.getToken());
+        User changedUser = new User("admin", "admin", "changed", "admin@example.com", "ROLE_ADMIN");
+        changedUser.setId(1L);
+        Authenticator changedAuthenticator = mock(Authenticator.class);
+        when(changedAuthenticator.retrieveAuthentication(any(), any()))
+            .thenReturn(new UsernamePasswordAuthenticationToken(changedUser, changedUser.getPassword()));
+        HmacKeyRing keyRing = new HmacKeyRing(1);
+        keyRing.rotate();
+
+        StatelessCsrfTokenRepository repository = new StatelessCsrfTokenRepository(changedAuthenticator,
+                new SignedCsrfTokens(keyRing, TimeUnit.HOURS.toMillis(1)));
+
+        Assert.assertNull(repository.loadToken(request));
+    }
+
+    @Test
+    public void benchmarkLoadTokenInDatabaseAndStatelessModes() {
+        MockHttpServletRequest statelessRequest = authenticatedRequest();
+        CsrfToken token = csrfTokenRepository.generateToken(statelessRequest);
+        statelessRequest.addHeader(token.getHeaderName(), token.getToken());
+        MockHttpServletRequest databaseRequest = authenticatedRequest();
+        when(userCsrfTokenRepository.findByUserId(anyLong())).thenReturn(Collections.emptyList());
+        UmCsrfTokenRepository databaseRepository = new UmCsrfTokenRepository(authenticator, userCsrfTokenRepository,
+                rememberMeTokenRepository);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_REQUESTS; i++) {
+            databaseRepository.loadToken(databaseRequest);
+        }
+        long databaseNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_REQUESTS; i++) {
+            Assert.assertNotNull(csrfTokenRepository.loadToken(statelessRequest));
+        }
+        long statelessNanos = System.nanoTime() - start;
+
+        log.info("Load csrf token: database mode {} ns per request (without database latency), {} queries; "
+                + "stateless mode {} ns per request, no queries", databaseNanos / BENCHMARK_REQUESTS,
+                mockingDetails(userCsrfTokenRepository).getInvocations().size(), statelessNanos / BENCHMARK_REQUESTS);
+
+        verify(userCsrfTokenRepository, times(BENCHMARK_REQUESTS)).findByUserId(anyLong());
+    }
+
+    private MockHttpServletRequest authenticatedRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(rememberMeServices.getParameter(), "true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication authentication = new UsernamePasswordAuthenticationToken(adminUser, adminUser.getPassword());
+        rememberMeServices.loginSuccess(request, response, authentication);
+        MockHttpServletRequest authenticatedRequest = new MockHttpServletRequest();
+        authenticatedRequest.setCookies(response.getCookie(rememberMeCookieName));
+        return authenticatedRequest;
+    }
+
+}
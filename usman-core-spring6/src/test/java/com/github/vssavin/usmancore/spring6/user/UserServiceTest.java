@@ -1,9 +1,12 @@
 package com.github.vssavin.usmancore.spring6.user;
 
+import com.github.vssavin.usmancore.auth.KnownLoginFilter;
 import com.github.vssavin.usmancore.config.DataSourceSwitcher;
 import com.github.vssavin.usmancore.config.Role;
+import com.github.vssavin.usmancore.config.UsmanConfigurer;
 import com.github.vssavin.usmancore.data.pagination.Paged;
 import com.github.vssavin.usmancore.exception.user.EmailNotFoundException;
+import com.github.vssavin.usmancore.exception.user.UserExistsException;
 import com.github.vssavin.usmancore.exception.user.UserNotFoundException;
 import com.github.vssavin.usmancore.exception.user.UserServiceException;
 import com.github.vssavin.usmancore.user.UserFilter;
@@ -15,6 +18,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -27,6 +31,7 @@ import org.springframework.security.oauth2.client.authentication.OAuth2Authentic
 import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
+import java.sql.SQLException;
 import java.util.*;
 
 /**
@@ -67,13 +72,13 @@ public class UserServiceTest {
         Mockito.when(userRepository.findByEmail(adminUser.getEmail())).thenReturn(Collections.singletonList(adminUser));
 
         Mockito.when(userRepository.findByLogin(oAuthUser.getLogin()))
-            .thenReturn(Collections.emptyList())
             .thenReturn(Collections.singletonList(oAuthUser));
 
         Mockito.when(userRepository.findByEmail(oAuthUser.getLogin()))
             .thenReturn(Collections.emptyList())
             .thenReturn(Collections.singletonList(oAuthUser));
 
+        Mockito.when(userRepository.saveAndFlush(oAuthUser)).thenReturn(oAuthUser);
         Mockito.when(userRepository.save(oAuthUser)).thenReturn(oAuthUser);
         Mockito.when(userRepository.findById(null)).thenThrow(IllegalArgumentException.class);
         Mockito.when(userRepository.findAll(pageOneSizeOne))
@@ -226,6 +231,122 @@ public class UserServiceTest {
         Assert.assertNull(user);
     }
 
+    @Test
+    public void shouldCacheUserUntilUpdate() {
+        User cachedUser = new User("cached", "cached", "", "cached@example.com", Role.ROLE_USER.name());
+        cachedUser.setId(100L);
+        Mockito.when(userRepository.findByLogin(cachedUser.getLogin()))
+            .thenReturn(Collections.singletonList(cachedUser));
+        Mockito.when(userRepository.save(cachedUser)).thenReturn(cachedUser);
+        SimpleUserService cachingUserService = new SimpleUserService(userRepository, passwordEncoder,
+                new UsmanConfigurer().userCacheEnabled(true));
+
+        cachingUserService.getUserByLogin(cachedUser.getLogin());
+        User user = cachingUserService.getUserByLogin(cachedUser.getLogin());
+        Assert.assertEquals(cachedUser, user);
+        Assert.assertNotSame(cachedUser, user);
+        Mockito.verify(userRepository, Mockito.times(1)).findByLogin(cachedUser.getLogin());
+
+        cachingUserService.updateUser(cachedUser);
+        cachingUserService.getUserByLogin(cachedUser.getLogin());
+        Mockito.verify(userRepository, Mockito.times(2)).findByLogin(cachedUser.getLogin());
+        Assert.assertEquals(1, cachingUserService.getUserCacheStats().getHits());
+        Assert.assertEquals(2, cachingUserService.getUserCacheStats().getMisses());
+    }
+
+    @Test
+    public void shouldNotShareCachedUser_WhenReturnedUserChanged() {
+        User cachedUser = new User("shared", "shared", "", "shared@example.com", Role.ROLE_USER.name());
+        cachedUser.setId(101L);
+        Mockito.when(userRepository.findByLogin(cachedUser.getLogin()))
+            .thenReturn(Collections.singletonList(cachedUser));
+        SimpleUserService cachingUserService = new SimpleUserService(userRepository, passwordEncoder,
+                new UsmanConfigurer().userCacheEnabled(true));
+
+        cachingUserService.getUserByLogin(cachedUser.getLogin()).setAuthority(Role.ROLE_ADMIN.name());
+        cachedUser.setAuthority(Role.ROLE_ADMIN.name());
+
+        User user = cachingUserService.getUserByLogin(cachedUser.getLogin());
+        Assert.assertEquals(Role.ROLE_USER.name(), user.getAuthority());
+        Assert.assertEquals(1, cachingUserService.getUserCacheStats().getHits());
+    }
+
+    @Test
+    public void shouldNotQueryDatabase_WhenKnownLoginFilterRejectsLogin() {
+        KnownLoginFilter knownLoginFilter = Mockito.mock(KnownLoginFilter.class);
+        Mockito.when(knownLoginFilter.mightContain("unknown")).thenReturn(false);
+        SimpleUserService filteringUserService = new SimpleUserService(userRepository, passwordEncoder,
+                new UsmanConfigurer(), knownLoginFilter);
+
+        try {
+            filteringUserService.loadUserByUsername("unknown");
+            Assert.fail("Unknown login should be rejected!");
+        }
+        catch (UsernameNotFoundException e) {
+            Mockito.verify(userRepository, Mockito.never()).findByLogin(Mockito.anyString());
+        }
+    }
+
+    @Test
+    public void shouldLoadUserFromDatabase_WhenKnownLoginFilterMightContainLogin() {
+        KnownLoginFilter knownLoginFilter = Mockito.mock(KnownLoginFilter.class);
+        Mockito.when(knownLoginFilter.mightContain("knownUser")).thenReturn(true);
+        User knownUser = new User("knownUser", "knownUser", "", "known@example.com", "ROLE_USER");
+        Mockito.when(userRepository.findByLogin("knownUser")).thenReturn(Collections.singletonList(knownUser));
+        SimpleUserService filteringUserService = new SimpleUserService(userRepository, passwordEncoder,
+                new UsmanConfigurer(), knownLoginFilter);
+
+        Assert.assertEquals(knownUser, filteringUserService.loadUserByUsername("knownUser"));
+    }
+
+    @Test
+    public void shouldNotUseKnownLoginFilter_WhenUserRequestedByEmail() {
+        KnownLoginFilter knownLoginFilter = Mockito.mock(KnownLoginFilter.class);
+        SimpleUserService filteringUserService = new SimpleUserService(userRepository, passwordEncoder,
+                new UsmanConfigurer(), knownLoginFilter);
+
+        Assert.assertEquals(adminUser, filteringUserService.getUserByEmail(adminUser.getEmail()));
+        Mockito.verify(knownLoginFilter, Mockito.never()).mightContain(Mockito.anyString());
+    }
+
+    @Test
+    public void shouldAddKnownLogin_WhenUserRegistered() {
+        KnownLoginFilter knownLoginFilter = Mockito.mock(KnownLoginFilter.class);
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        SimpleUserService filteringUserService = new SimpleUserService(userRepository, passwordEncoder,
+                new UsmanConfigurer(), knownLoginFilter);
+
+        filteringUserService.registerUser("registered", "registered", "", "registered@example.com", Role.ROLE_USER);
+
+        Mockito.verify(knownLoginFilter).put("registered");
+        Mockito.verify(knownLoginFilter).put("registered@example.com");
+    }
+
+    @Test
+    public void shouldThrowUserExistsException_WhenLoginIndexViolated() {
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class)))
+            .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                    new SQLException("Unique index or primary key violation: \"PUBLIC.USERS_LOGIN_NORMALIZED_IDX "
+                            + "ON PUBLIC.USERS(LOGIN_NORMALIZED)\"", "23505")));
+
+        try {
+            userService.registerUser("Admin", "Admin", "", "other@example.com", Role.ROLE_USER);
+            Assert.fail("Duplicate login should be rejected!");
+        }
+        catch (UserExistsException e) {
+            Mockito.verify(userRepository, Mockito.never()).findByLogin("Admin");
+        }
+    }
+
+    @Test(expected = UserServiceException.class)
+    public void shouldThrowUserServiceException_WhenOtherConstraintViolated() {
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class)))
+            .thenThrow(new DataIntegrityViolationException("NULL not allowed for column \"NAME\""));
+
+        userService.registerUser("other", null, "", "other@example.com", Role.ROLE_USER);
+    }
+
     private OAuth2User createUser(String email) {
         Map<String, Object> attributesMap = new HashMap<>();
         String nameAttributeKey = "email";
@@ -1,11 +1,13 @@
 package com.github.vssavin.usmancore.aspect;
 
 import com.github.vssavin.usmancore.config.DataSourceSwitcher;
+import com.github.vssavin.usmancore.config.SchemaInitializer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
@@ -13,7 +15,8 @@ import org.springframework.stereotype.Component;
 
 /**
  * Ensures that the datasource is switched before and after executing methods marked with
- * the {@link com.github.vssavin.usmancore.aspect.UsmanRouteDatasource} annotation.
+ * the {@link com.github.vssavin.usmancore.aspect.UsmanRouteDatasource} annotation. Methods
+ * wait until the user management schema is initialized, see {@link SchemaInitializer}.
  *
  * @author vssavin on 05.12.2023.
  */
@@ -26,13 +29,20 @@ class UsmanRoutingDatasourceAspect {
 
     private final DataSourceSwitcher dataSourceSwitcher;
 
+    private final ObjectProvider<SchemaInitializer> schemaInitializerProvider;
+
+    private volatile SchemaInitializer schemaInitializer;
+
     @Autowired
-    UsmanRoutingDatasourceAspect(DataSourceSwitcher dataSourceSwitcher) {
+    UsmanRoutingDatasourceAspect(DataSourceSwitcher dataSourceSwitcher,
+            ObjectProvider<SchemaInitializer> schemaInitializerProvider) {
         this.dataSourceSwitcher = dataSourceSwitcher;
+        this.schemaInitializerProvider = schemaInitializerProvider;
     }
 
     @Around("@annotation(UsmanRouteDatasource)")
     public Object routeDatasource(ProceedingJoinPoint joinPoint) throws Throwable {
+        awaitSchema();
         log.debug("Switching to usman database...");
         Object result;
         dataSourceSwitcher.switchToUmDataSource();
@@ -47,4 +57,13 @@ class UsmanRoutingDatasourceAspect {
         return result;
     }
 
+    private void awaitSchema() {
+        SchemaInitializer initializer = schemaInitializer;
+        if (initializer == null) {
+            initializer = schemaInitializerProvider.getIfAvailable();
+            schemaInitializer = initializer;
+        }
+        SchemaInitializer.awaitIfPresent(initializer);
+    }
+
 }
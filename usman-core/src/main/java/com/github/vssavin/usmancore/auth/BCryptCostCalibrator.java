@@ -0,0 +1,92 @@
+package com.github.vssavin.usmancore.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses a BCrypt work factor (strength) for a target verification latency on the
+ * current hardware. Every strength step doubles the hashing time, so the calibrator
+ * measures increasing strengths until the target is exceeded.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    public static final int MIN_STRENGTH = 4;
+
+    public static final int MAX_STRENGTH = 31;
+
+    private static final int MAX_CALIBRATED_STRENGTH = 16;
+
+    private static final String SAMPLE_PASSWORD = "usman-calibration-Passw0rd!";
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    private BCryptCostCalibrator() {
+
+    }
+
+    /**
+     * Returns the highest strength whose hashing time doesn't exceed the target.
+     * @param targetMillis target hashing time in milliseconds
+     * @param minStrength lowest acceptable strength, returned if even this strength is
+     * slower than the target
+     * @return calibrated strength
+     */
+    public static int calibrate(long targetMillis, int minStrength) {
+        if (minStrength < MIN_STRENGTH || minStrength > MAX_STRENGTH) {
+            throw new IllegalArgumentException("Wrong BCrypt strength: " + minStrength);
+        }
+        warmUp();
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        int strength = minStrength;
+        long elapsedNanos = measure(strength);
+        while (strength < MAX_CALIBRATED_STRENGTH && elapsedNanos * 2 <= targetNanos) {
+            strength++;
+            elapsedNanos = measure(strength);
+            if (elapsedNanos > targetNanos) {
+                strength--;
+                break;
+            }
+        }
+        log.info("BCrypt strength calibrated to {} for target verification time {} ms", strength, targetMillis);
+        return strength;
+    }
+
+    /**
+     * Returns the strength of the BCrypt hash.
+     * @param encodedPassword BCrypt hash, for example {@code $2a$10$...}
+     * @return strength or -1 if the value is not a BCrypt hash
+     */
+    public static int getStrength(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char high = encodedPassword.charAt(4);
+        char low = encodedPassword.charAt(5);
+        if (!Character.isDigit(high) || !Character.isDigit(low)) {
+            return -1;
+        }
+        return (high - '0') * 10 + (low - '0');
+    }
+
+    private static void warmUp() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            measure(MIN_STRENGTH);
+        }
+    }
+
+    private static long measure(int strength) {
+        String salt = BCrypt.gensalt(strength);
+        long start = System.nanoTime();
+        BCrypt.hashpw(SAMPLE_PASSWORD, salt);
+        return System.nanoTime() - start;
+    }
+
+}
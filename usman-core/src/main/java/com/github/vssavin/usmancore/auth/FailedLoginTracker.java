@@ -0,0 +1,279 @@
+package com.github.vssavin.usmancore.auth;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Memory-bounded tracker of failed authentication attempts. Failures are counted in a
+ * sliding time window, entries expire by themselves once their failures left the window
+ * and their ban (if any) has ended. The number of tracked keys is bounded by the
+ * configured capacity: the map is split into independently locked LRU segments, each
+ * segment drops expired entries first and the least recently used ones after that.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class FailedLoginTracker {
+
+    private static final int SEGMENTS_COUNT = 64;
+
+    private static final int EXPIRED_SCAN_LIMIT = 8;
+
+    private final Segment[] segments;
+
+    private final long windowMillis;
+
+    private final int maxTrackedFailures;
+
+    private final int capacity;
+
+    private final LongSupplier clock;
+
+    private final LongAdder capacityEvictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    public FailedLoginTracker(int capacity, long windowMillis, int maxTrackedFailures) {
+        this(capacity, windowMillis, maxTrackedFailures, System::currentTimeMillis);
+    }
+
+    FailedLoginTracker(int capacity, long windowMillis, int maxTrackedFailures, LongSupplier clock) {
+        if (capacity <= 0 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Capacity and window must be positive!");
+        }
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        this.maxTrackedFailures = Math.max(1, maxTrackedFailures);
+        this.clock = clock;
+        int segmentCapacity = Math.max(1, (capacity + SEGMENTS_COUNT - 1) / SEGMENTS_COUNT);
+        this.segments = new Segment[SEGMENTS_COUNT];
+        for (int i = 0; i < SEGMENTS_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Returns the number of failures of the key inside the sliding window.
+     * @param key tracked key, usually the client ip address
+     * @return failures count, never greater than the max tracked failures count
+     */
+    public int getFailureCount(String key) {
+        long now = clock.getAsLong();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            FailureRecord record = segment.getAlive(key, now);
+            return record == null ? 0 : record.countFailures(now, windowMillis);
+        }
+    }
+
+    public void recordFailure(String key) {
+        long now = clock.getAsLong();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            FailureRecord record = segment.getAlive(key, now);
+            if (record == null) {
+                record = new FailureRecord(maxTrackedFailures);
+                segment.putBounded(key, record, now);
+            }
+            record.addFailure(now);
+        }
+    }
+
+    /**
+     * Returns the ban expiration time of the key.
+     * @param key tracked key
+     * @return ban expiration time in milliseconds or 0 if the key is not banned
+     */
+    public long getBanExpirationTime(String key) {
+        long now = clock.getAsLong();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            FailureRecord record = segment.getAlive(key, now);
+            return record == null ? 0 : record.banExpirationTime;
+        }
+    }
+
+    public void ban(String key, long expirationTime) {
+        long now = clock.getAsLong();
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            FailureRecord record = segment.getAlive(key, now);
+            if (record == null) {
+                record = new FailureRecord(maxTrackedFailures);
+                segment.putBounded(key, record, now);
+            }
+            record.banExpirationTime = expirationTime;
+        }
+    }
+
+    public void reset(String key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Stats getStats() {
+        return new Stats(size(), capacity, capacityEvictions.sum(), expirations.sum());
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENTS_COUNT - 1)];
+    }
+
+    private boolean isExpired(FailureRecord record, long now) {
+        return now >= Math.max(record.lastFailureTime + windowMillis, record.banExpirationTime);
+    }
+
+    /**
+     * Failures of a single key. Keeps up to {@code maxTrackedFailures} latest failure
+     * timestamps, which is enough to check the window against the failures limit.
+     */
+    private static final class FailureRecord {
+
+        private final long[] failureTimes;
+
+        private int next;
+
+        private long lastFailureTime;
+
+        private long banExpirationTime;
+
+        private FailureRecord(int maxTrackedFailures) {
+            this.failureTimes = new long[maxTrackedFailures];
+        }
+
+        private void addFailure(long now) {
+            failureTimes[next] = now;
+            next = (next + 1) % failureTimes.length;
+            lastFailureTime = now;
+        }
+
+        private int countFailures(long now, long windowMillis) {
+            long windowStart = now - windowMillis;
+            int count = 0;
+            for (long failureTime : failureTimes) {
+                if (failureTime != 0 && failureTime > windowStart) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+    }
+
+    /**
+     * Access ordered part of the tracker guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<String, FailureRecord> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        private FailureRecord getAlive(String key, long now) {
+            FailureRecord record = get(key);
+            if (record != null && isExpired(record, now)) {
+                remove(key);
+                expirations.increment();
+                return null;
+            }
+            return record;
+        }
+
+        private void putBounded(String key, FailureRecord record, long now) {
+            if (size() >= maxSize) {
+                removeExpired(now);
+            }
+            put(key, record);
+        }
+
+        private void removeExpired(long now) {
+            Iterator<FailureRecord> iterator = values().iterator();
+            for (int i = 0; i < EXPIRED_SCAN_LIMIT && iterator.hasNext(); i++) {
+                if (isExpired(iterator.next(), now)) {
+                    iterator.remove();
+                    expirations.increment();
+                }
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FailureRecord> eldest) {
+            if (size() > maxSize) {
+                capacityEvictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Statistics of the {@link FailedLoginTracker}.
+     */
+    public static final class Stats {
+
+        private final int size;
+
+        private final int capacity;
+
+        private final long capacityEvictions;
+
+        private final long expirations;
+
+        private Stats(int size, int capacity, long capacityEvictions, long expirations) {
+            this.size = size;
+            this.capacity = capacity;
+            this.capacityEvictions = capacityEvictions;
+            this.expirations = expirations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getCapacityEvictions() {
+            return capacityEvictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "size=" + size + ", capacity=" + capacity + ", capacityEvictions=" + capacityEvictions
+                    + ", expirations=" + expirations + '}';
+        }
+
+    }
+
+}
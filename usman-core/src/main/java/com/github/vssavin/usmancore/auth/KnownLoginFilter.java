@@ -0,0 +1,494 @@
+package com.github.vssavin.usmancore.auth;
+
+import com.github.vssavin.usmancore.config.BackgroundScheduler;
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bloom filter of existing logins and emails. A positive answer of
+ * {@link #mightContain(String)} may be false with the configured probability, a negative
+ * answer is trusted by callers without a database lookup. The filter is built by
+ * streaming the users table and is updated with {@link #put(String)} when users are added
+ * through this node. Users added by other nodes sharing the database or directly in the
+ * database are picked up by frequent refreshes, which read only the users created since
+ * the last one by the indexed creation time, so such a user may be rejected for up to the
+ * refresh interval. Ids can't be used for that: every node allocates them in blocks, so
+ * they don't grow in the order of insertion. If the filter has not been refreshed within
+ * the staleness window, e.g. while the database is unavailable, every value is reported
+ * as possibly existing. Deleted users can't be removed from a bloom filter, they are
+ * dropped by the periodic rebuild. Until the first build finishes, and if the filter is
+ * disabled, every value is reported as possibly existing as well.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class KnownLoginFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(KnownLoginFilter.class);
+
+    private static final String USERS_TABLE = "users";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int MAX_WORDS = Integer.MAX_VALUE / 64;
+
+    /**
+     * Users created this long before the latest known creation time are read again by a
+     * refresh, they may have been committed after the previous refresh. Users inserted by
+     * longer transactions are picked up by the next rebuild.
+     */
+    private static final long REFRESH_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final DataSource dataSource;
+
+    private final SchemaInitializer schemaInitializer;
+
+    private final boolean enabled;
+
+    private final int expectedUsers;
+
+    private final double falsePositiveRate;
+
+    private final long rebuildIntervalMillis;
+
+    private final long refreshIntervalMillis;
+
+    private final long maxStalenessMillis;
+
+    private final LongSupplier clock;
+
+    private final long seed = new SecureRandom().nextLong();
+
+    private final LongAdder rejections = new LongAdder();
+
+    private final LongAdder staleChecks = new LongAdder();
+
+    private final BackgroundScheduler scheduler = new BackgroundScheduler("usman-known-login-filter",
+            Thread.MIN_PRIORITY);
+
+    private volatile Bits bits;
+
+    private volatile Set<String> pendingValues;
+
+    private volatile long refreshedAt;
+
+    private long rebuiltAt;
+
+    private Timestamp lastCreatedAt;
+
+    /**
+     * Creates a filter.
+     * @param dataSource user management data source
+     * @param schemaInitializer initializer of the schema the filter is built after, null if
+     * the schema is not initialized by user management
+     * @param enabled whether the filter is used, a disabled filter never rejects values
+     * @param expectedUsers minimal number of users the filter is sized for, the filter is
+     * sized for the actual number of users on every build if it is greater
+     * @param falsePositiveRate probability of a false positive answer
+     * @param rebuildIntervalMinutes interval of the rebuilds, 0 disables them
+     * @param refreshIntervalSeconds interval of the refreshes with users created since the
+     * previous one, 0 disables them
+     * @param maxStalenessSeconds time since the last build or refresh after which the filter
+     * reports every value as possibly existing, 0 trusts the filter regardless of its age
+     */
+    public KnownLoginFilter(DataSource dataSource, SchemaInitializer schemaInitializer, boolean enabled,
+            int expectedUsers, double falsePositiveRate, long rebuildIntervalMinutes, long refreshIntervalSeconds,
+            long maxStalenessSeconds) {
+        this(dataSource, schemaInitializer, enabled, expectedUsers, falsePositiveRate, rebuildIntervalMinutes,
+                refreshIntervalSeconds, maxStalenessSeconds, System::currentTimeMillis);
+    }
+
+    KnownLoginFilter(DataSource dataSource, SchemaInitializer schemaInitializer, boolean enabled, int expectedUsers,
+            double falsePositiveRate, long rebuildIntervalMinutes, long refreshIntervalSeconds,
+            long maxStalenessSeconds, LongSupplier clock) {
+        if (expectedUsers <= 0) {
+            throw new IllegalArgumentException("Expected users count must be positive!");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1!");
+        }
+        this.dataSource = dataSource;
+        this.schemaInitializer = schemaInitializer;
+        this.enabled = enabled;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildIntervalMillis = TimeUnit.MINUTES.toMillis(rebuildIntervalMinutes);
+        this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(refreshIntervalSeconds);
+        this.maxStalenessMillis = TimeUnit.SECONDS.toMillis(maxStalenessSeconds);
+        this.clock = clock;
+        long updateIntervalMillis = refreshIntervalMillis > 0 ? refreshIntervalMillis : rebuildIntervalMillis;
+        if (maxStalenessMillis > 0 && maxStalenessMillis <= updateIntervalMillis) {
+            throw new IllegalArgumentException(
+                    "Known login filter staleness must be greater than its update interval!");
+        }
+    }
+
+    /**
+     * Schedules the build of the filter, its periodic refreshes and rebuilds.
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                update();
+            }
+            catch (Exception e) {
+                log.warn("Known login filter update error!", e);
+            }
+        };
+        long updateIntervalMillis = refreshIntervalMillis > 0 ? refreshIntervalMillis : rebuildIntervalMillis;
+        scheduler.start(task, 0, updateIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.stop();
+    }
+
+    /**
+     * Builds the filter from the users table and replaces the current one. Values added
+     * during the build are added to the new filter as well.
+     * @throws SQLException if the users table can't be read
+     * @throws IllegalStateException if the schema is not initialized in time
+     */
+    public synchronized void rebuild() throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        long start = clock.getAsLong();
+        Set<String> pending = ConcurrentHashMap.newKeySet();
+        pendingValues = pending;
+        try {
+            Bits newBits;
+            Timestamp newLastCreatedAt;
+            try (Connection connection = dataSource.getConnection()) {
+                newBits = new Bits(Math.max(expectedUsers, countUsers(connection)) * 2L, falsePositiveRate);
+                newLastCreatedAt = loadUsers(connection, newBits);
+            }
+            bits = newBits;
+            lastCreatedAt = newLastCreatedAt;
+            rebuiltAt = start;
+            refreshedAt = start;
+            pending.forEach(value -> newBits.put(hash(value)));
+            log.info("Known login filter built in {} ms: {}", clock.getAsLong() - start, getStats());
+        }
+        finally {
+            pendingValues = null;
+        }
+    }
+
+    /**
+     * Adds the users created since the last build or refresh, builds the filter if it is
+     * not built yet.
+     * @throws SQLException if the users table can't be read
+     * @throws IllegalStateException if the schema is not initialized in time
+     */
+    public synchronized void refresh() throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        Bits currentBits = bits;
+        if (currentBits == null) {
+            rebuild();
+            return;
+        }
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        long start = clock.getAsLong();
+        Timestamp from = new Timestamp(lastCreatedAt.getTime() - REFRESH_OVERLAP_MILLIS);
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT login, email, created_at FROM " + USERS_TABLE + " WHERE created_at > ?")) {
+            statement.setTimestamp(1, from);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                lastCreatedAt = putUsers(resultSet, currentBits, lastCreatedAt);
+            }
+        }
+        refreshedAt = start;
+    }
+
+    /**
+     * Checks whether the login or email may exist.
+     * @param value login or email
+     * @return false if the value doesn't exist, as of the last build or refresh
+     */
+    public boolean mightContain(String value) {
+        Bits currentBits = bits;
+        if (currentBits == null || value == null) {
+            return true;
+        }
+        if (maxStalenessMillis > 0 && clock.getAsLong() - refreshedAt > maxStalenessMillis) {
+            staleChecks.increment();
+            return true;
+        }
+        if (currentBits.mightContain(hash(value))) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    /**
+     * Adds the login or email of a stored user.
+     * @param value login or email, null is ignored
+     */
+    public void put(String value) {
+        if (!enabled || value == null) {
+            return;
+        }
+        long hash = hash(value);
+        while (true) {
+            Bits currentBits = bits;
+            if (currentBits != null) {
+                currentBits.put(hash);
+            }
+            Set<String> pending = pendingValues;
+            if (pending != null) {
+                pending.add(value);
+            }
+            // the filter may have been replaced by a rebuild that didn't see this value
+            if (currentBits == bits) {
+                return;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Stats getStats() {
+        Bits currentBits = bits;
+        if (currentBits == null) {
+            return new Stats(false, 0, 0, 0, 0, rejections.sum(), staleChecks.sum(), 0);
+        }
+        return new Stats(true, currentBits.size, currentBits.hashFunctions, currentBits.insertions.sum(),
+                currentBits.estimateFalsePositiveRate(), rejections.sum(), staleChecks.sum(), refreshedAt);
+    }
+
+    private synchronized void update() throws SQLException {
+        if (bits == null || rebuildIntervalMillis > 0 && clock.getAsLong() - rebuiltAt >= rebuildIntervalMillis) {
+            rebuild();
+        }
+        else {
+            refresh();
+        }
+    }
+
+    private int countUsers(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + USERS_TABLE)) {
+            resultSet.next();
+            // headroom for users registered until the next rebuild
+            long users = resultSet.getLong(1);
+            return (int) Math.min(users + users / 2, Integer.MAX_VALUE);
+        }
+    }
+
+    private Timestamp loadUsers(Connection connection, Bits newBits) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        // some drivers stream results only inside a transaction
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(FETCH_SIZE);
+            Timestamp newLastCreatedAt;
+            try (ResultSet resultSet = statement
+                .executeQuery("SELECT login, email, created_at FROM " + USERS_TABLE)) {
+                newLastCreatedAt = putUsers(resultSet, newBits, new Timestamp(0));
+            }
+            connection.commit();
+            return newLastCreatedAt;
+        }
+        finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private Timestamp putUsers(ResultSet resultSet, Bits targetBits, Timestamp createdAfter) throws SQLException {
+        Timestamp latest = createdAfter;
+        while (resultSet.next()) {
+            putLoaded(targetBits, resultSet.getString(1));
+            putLoaded(targetBits, resultSet.getString(2));
+            Timestamp createdAt = resultSet.getTimestamp(3);
+            if (createdAt != null && createdAt.after(latest)) {
+                latest = createdAt;
+            }
+        }
+        return latest;
+    }
+
+    private void putLoaded(Bits newBits, String value) {
+        if (value != null) {
+            newBits.put(hash(value));
+        }
+    }
+
+    private long hash(String value) {
+        // FNV-1a with a random seed, so false positives can't be precomputed
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+
+        private final long size;
+
+        private final int hashFunctions;
+
+        private final LongAdder insertions = new LongAdder();
+
+        private Bits(long expectedInsertions, double falsePositiveRate) {
+            double optimalSize = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+            int wordsCount = (int) Math.min(Math.max(1, (long) Math.ceil(optimalSize / 64)), MAX_WORDS);
+            this.words = new AtomicLongArray(wordsCount);
+            this.size = wordsCount * 64L;
+            this.hashFunctions = (int) Math.max(1, Math.round((double) size / expectedInsertions * Math.log(2)));
+        }
+
+        private void put(long hash) {
+            int first = (int) hash;
+            int second = (int) (hash >>> 32) | 1;
+            boolean changed = false;
+            for (int i = 0; i < hashFunctions; i++) {
+                long index = Integer.toUnsignedLong(first + i * second) % size;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current = words.get(word);
+                while ((current & mask) == 0) {
+                    if (words.compareAndSet(word, current, current | mask)) {
+                        changed = true;
+                        break;
+                    }
+                    current = words.get(word);
+                }
+            }
+            // values read again by an overlapping refresh are not counted twice
+            if (changed) {
+                insertions.increment();
+            }
+        }
+
+        private boolean mightContain(long hash) {
+            int first = (int) hash;
+            int second = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < hashFunctions; i++) {
+                long index = Integer.toUnsignedLong(first + i * second) % size;
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double estimateFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions.sum() / size), hashFunctions);
+        }
+
+    }
+
+    public static final class Stats {
+
+        private final boolean built;
+
+        private final long bits;
+
+        private final int hashFunctions;
+
+        private final long insertions;
+
+        private final double estimatedFalsePositiveRate;
+
+        private final long rejections;
+
+        private final long staleChecks;
+
+        private final long refreshedAt;
+
+        private Stats(boolean built, long bits, int hashFunctions, long insertions, double estimatedFalsePositiveRate,
+                long rejections, long staleChecks, long refreshedAt) {
+            this.built = built;
+            this.bits = bits;
+            this.hashFunctions = hashFunctions;
+            this.insertions = insertions;
+            this.estimatedFalsePositiveRate = estimatedFalsePositiveRate;
+            this.rejections = rejections;
+            this.staleChecks = staleChecks;
+            this.refreshedAt = refreshedAt;
+        }
+
+        public boolean isBuilt() {
+            return built;
+        }
+
+        public long getBits() {
+            return bits;
+        }
+
+        public int getHashFunctions() {
+            return hashFunctions;
+        }
+
+        public long getInsertions() {
+            return insertions;
+        }
+
+        public double getEstimatedFalsePositiveRate() {
+            return estimatedFalsePositiveRate;
+        }
+
+        public long getRejections() {
+            return rejections;
+        }
+
+        /**
+         * Returns the number of checks answered without the filter because it was not
+         * refreshed within the staleness window.
+         * @return number of stale checks
+         */
+        public long getStaleChecks() {
+            return staleChecks;
+        }
+
+        public long getRefreshedAt() {
+            return refreshedAt;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "built=" + built + ", bits=" + bits + ", hashFunctions=" + hashFunctions
+                    + ", insertions=" + insertions + ", estimatedFalsePositiveRate=" + estimatedFalsePositiveRate
+                    + ", rejections=" + rejections + ", staleChecks=" + staleChecks + ", refreshedAt=" + refreshedAt
+                    + '}';
+        }
+
+    }
+
+}
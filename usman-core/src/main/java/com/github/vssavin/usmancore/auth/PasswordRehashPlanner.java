@@ -0,0 +1,316 @@
+package com.github.vssavin.usmancore.auth;
+
+import com.github.vssavin.usmancore.config.BackgroundScheduler;
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically scans stored password hashes in the background and reports how many users
+ * still have outdated hashing parameters. Outdated hashes are upgraded on the next
+ * successful login of the user, the report shows how far that process has got. The scan
+ * runs once per interval for the whole cluster: the node that moves the start time of the
+ * plan row forward scans the hashes and stores the report, the other nodes read it.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class PasswordRehashPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordRehashPlanner.class);
+
+    private static final String SELECT_PASSWORDS_QUERY = "SELECT id, password FROM users WHERE id > ? "
+            + "ORDER BY id LIMIT ?";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String PLAN_TABLE = "password_rehash_plan";
+
+    private static final int PLAN_ID = 1;
+
+    /**
+     * Nodes started within this time after a single (not periodic) plan read its report.
+     */
+    private static final long SINGLE_PLAN_REUSE_MINUTES = 60;
+
+    private final DataSource dataSource;
+
+    private final SchemaInitializer schemaInitializer;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final long intervalMinutes;
+
+    private final long reuseMillis;
+
+    private final LongSupplier clock;
+
+    private final BackgroundScheduler scheduler = new BackgroundScheduler("usman-rehash-planner",
+            Thread.MIN_PRIORITY);
+
+    private volatile Report lastReport;
+
+    public PasswordRehashPlanner(DataSource dataSource, SchemaInitializer schemaInitializer,
+            PasswordEncoder passwordEncoder, long intervalMinutes) {
+        this(dataSource, schemaInitializer, passwordEncoder, intervalMinutes, System::currentTimeMillis);
+    }
+
+    PasswordRehashPlanner(DataSource dataSource, SchemaInitializer schemaInitializer, PasswordEncoder passwordEncoder,
+            long intervalMinutes, LongSupplier clock) {
+        this.dataSource = dataSource;
+        this.schemaInitializer = schemaInitializer;
+        this.passwordEncoder = passwordEncoder;
+        this.intervalMinutes = intervalMinutes;
+        this.reuseMillis = TimeUnit.MINUTES.toMillis(intervalMinutes > 0 ? intervalMinutes : SINGLE_PLAN_REUSE_MINUTES);
+        this.clock = clock;
+    }
+
+    public void start() {
+        Runnable task = () -> {
+            try {
+                planForCluster();
+            }
+            catch (Exception e) {
+                log.warn("Password rehash planning error!", e);
+            }
+        };
+        scheduler.start(task, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        scheduler.stop();
+    }
+
+    /**
+     * Scans all stored password hashes unless another node has started a scan within the
+     * plan interval, in which case the report of that scan is loaded.
+     * @return report of the scan or null if the scan of another node has not finished yet
+     * @throws SQLException if the users or the plan table can't be read
+     * @throws IllegalStateException if the schema is not initialized in time
+     */
+    public Report planForCluster() throws SQLException {
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        long now = clock.getAsLong();
+        try (Connection connection = dataSource.getConnection()) {
+            Timestamp previousStart = claimPlan(connection, now);
+            if (previousStart == null) {
+                Report report = loadReport(connection);
+                if (report != null) {
+                    lastReport = report;
+                }
+                log.debug("Password rehash plan is made by another node, last report: {}", report);
+                return report;
+            }
+            try {
+                Report report = scan(connection);
+                saveReport(connection, report);
+                return report;
+            }
+            catch (SQLException | RuntimeException e) {
+                releasePlan(connection, now, previousStart);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Scans all stored password hashes on this node.
+     * @return report of the scan
+     * @throws SQLException if the users table can't be read
+     * @throws IllegalStateException if the schema is not initialized in time
+     */
+    public Report plan() throws SQLException {
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        try (Connection connection = dataSource.getConnection()) {
+            return scan(connection);
+        }
+    }
+
+    private Report scan(Connection connection) throws SQLException {
+        long totalUsers = 0;
+        long outdatedUsers = 0;
+        Map<Integer, Long> usersByStrength = new TreeMap<>();
+        long lastId = 0;
+        boolean hasMore = true;
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_PASSWORDS_QUERY)) {
+            while (hasMore) {
+                statement.setLong(1, lastId);
+                statement.setInt(2, BATCH_SIZE);
+                int rows = 0;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows++;
+                        lastId = resultSet.getLong(1);
+                        String encodedPassword = resultSet.getString(2);
+                        totalUsers++;
+                        int strength = BCryptCostCalibrator.getStrength(encodedPassword);
+                        usersByStrength.merge(strength, 1L, Long::sum);
+                        if (strength >= 0 && passwordEncoder.upgradeEncoding(encodedPassword)) {
+                            outdatedUsers++;
+                        }
+                    }
+                }
+                hasMore = rows == BATCH_SIZE;
+            }
+        }
+        Report report = new Report(totalUsers, outdatedUsers, usersByStrength, clock.getAsLong());
+        lastReport = report;
+        log.info("Password rehash plan: {}", report);
+        return report;
+    }
+
+    /**
+     * Returns the report of the last scan.
+     * @return last report or null if no scan has finished yet
+     */
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Moves the start time of the plan forward if it is older than the plan interval.
+     * @return previous start time or null if the plan is made by another node
+     */
+    private Timestamp claimPlan(Connection connection, long now) throws SQLException {
+        Timestamp previousStart;
+        try (PreparedStatement statement = connection
+            .prepareStatement("SELECT started_at FROM " + PLAN_TABLE + " WHERE id = ?")) {
+            statement.setInt(1, PLAN_ID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new SQLException("No plan row found in " + PLAN_TABLE);
+                }
+                previousStart = resultSet.getTimestamp(1);
+            }
+        }
+        if (previousStart.getTime() > now - reuseMillis) {
+            return null;
+        }
+        try (PreparedStatement statement = connection
+            .prepareStatement("UPDATE " + PLAN_TABLE + " SET started_at = ? WHERE id = ? AND started_at = ?")) {
+            statement.setTimestamp(1, new Timestamp(now));
+            statement.setInt(2, PLAN_ID);
+            statement.setTimestamp(3, previousStart);
+            return statement.executeUpdate() == 1 ? previousStart : null;
+        }
+    }
+
+    /**
+     * Restores the start time of a failed plan, so another node can make it.
+     */
+    private void releasePlan(Connection connection, long startedAt, Timestamp previousStart) {
+        try (PreparedStatement statement = connection
+            .prepareStatement("UPDATE " + PLAN_TABLE + " SET started_at = ? WHERE id = ? AND started_at = ?")) {
+            statement.setTimestamp(1, previousStart);
+            statement.setInt(2, PLAN_ID);
+            statement.setTimestamp(3, new Timestamp(startedAt));
+            statement.executeUpdate();
+        }
+        catch (SQLException e) {
+            log.warn("Releasing password rehash plan error!", e);
+        }
+    }
+
+    private void saveReport(Connection connection, Report report) throws SQLException {
+        StringBuilder usersByStrength = new StringBuilder();
+        report.usersByStrength.forEach((strength, users) -> {
+            if (usersByStrength.length() > 0) {
+                usersByStrength.append(',');
+            }
+            usersByStrength.append(strength).append(':').append(users);
+        });
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE " + PLAN_TABLE
+                + " SET finished_at = ?, total_users = ?, outdated_users = ?, users_by_strength = ? WHERE id = ?")) {
+            statement.setTimestamp(1, new Timestamp(report.createdAt));
+            statement.setLong(2, report.totalUsers);
+            statement.setLong(3, report.outdatedUsers);
+            statement.setString(4, usersByStrength.toString());
+            statement.setInt(5, PLAN_ID);
+            statement.executeUpdate();
+        }
+    }
+
+    private Report loadReport(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT finished_at, total_users, "
+                + "outdated_users, users_by_strength FROM " + PLAN_TABLE + " WHERE id = ?")) {
+            statement.setInt(1, PLAN_ID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getTimestamp(1) == null) {
+                    return null;
+                }
+                Map<Integer, Long> usersByStrength = new TreeMap<>();
+                String storedUsersByStrength = resultSet.getString(4);
+                if (storedUsersByStrength != null && !storedUsersByStrength.isEmpty()) {
+                    for (String entry : storedUsersByStrength.split(",")) {
+                        int separatorIndex = entry.indexOf(':');
+                        usersByStrength.put(Integer.parseInt(entry.substring(0, separatorIndex)),
+                                Long.parseLong(entry.substring(separatorIndex + 1)));
+                    }
+                }
+                return new Report(resultSet.getLong(2), resultSet.getLong(3), usersByStrength,
+                        resultSet.getTimestamp(1).getTime());
+            }
+        }
+    }
+
+    /**
+     * Result of the stored password hashes scan.
+     */
+    public static final class Report {
+
+        private final long totalUsers;
+
+        private final long outdatedUsers;
+
+        private final Map<Integer, Long> usersByStrength;
+
+        private final long createdAt;
+
+        private Report(long totalUsers, long outdatedUsers, Map<Integer, Long> usersByStrength, long createdAt) {
+            this.totalUsers = totalUsers;
+            this.outdatedUsers = outdatedUsers;
+            this.usersByStrength = Collections.unmodifiableMap(usersByStrength);
+            this.createdAt = createdAt;
+        }
+
+        public long getTotalUsers() {
+            return totalUsers;
+        }
+
+        public long getOutdatedUsers() {
+            return outdatedUsers;
+        }
+
+        /**
+         * Returns users count per BCrypt strength, -1 is used for non BCrypt hashes.
+         * @return users count per strength
+         */
+        public Map<Integer, Long> getUsersByStrength() {
+            return usersByStrength;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" + "totalUsers=" + totalUsers + ", outdatedUsers=" + outdatedUsers + ", usersByStrength="
+                    + usersByStrength + ", createdAt=" + createdAt + '}';
+        }
+
+    }
+
+}
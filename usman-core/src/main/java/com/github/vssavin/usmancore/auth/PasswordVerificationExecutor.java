@@ -0,0 +1,283 @@
+package com.github.vssavin.usmancore.auth;
+
+import com.github.vssavin.usmancore.exception.auth.AuthenticationOverloadedException;
+import com.github.vssavin.usmancore.metrics.LatencyHistogram;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs password hash verification on a dedicated bounded executor, so that CPU heavy
+ * hashing (e.g. BCrypt) can't occupy every request thread during a login storm. At most
+ * {@code concurrency} verifications run at the same time and at most {@code queueLimit}
+ * wait for a worker; requests that don't fit into the queue or don't start within the
+ * wait timeout fail fast with {@link AuthenticationOverloadedException}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class PasswordVerificationExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    private final long waitTimeoutMillis;
+
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+
+    private final LatencyHistogram verificationTime = new LatencyHistogram();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    public PasswordVerificationExecutor(int concurrency, int queueLimit, long waitTimeoutMillis) {
+        this(concurrency, queueLimit, waitTimeoutMillis, null);
+    }
+
+    public PasswordVerificationExecutor(int concurrency, int queueLimit, long waitTimeoutMillis,
+            ThreadFactory threadFactory) {
+        if (concurrency <= 0 || queueLimit <= 0 || waitTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Concurrency, queue limit and wait timeout must be positive!");
+        }
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueLimit),
+                threadFactory != null ? threadFactory : new DaemonThreadFactory("usman-password-verifier-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Verifies the raw password against the encoded one using the executor.
+     * @param passwordEncoder password encoder to use
+     * @param rawPassword raw password
+     * @param encodedPassword encoded password
+     * @return true if the passwords match
+     * @throws AuthenticationOverloadedException if the verification can't be started in
+     * time
+     */
+    public boolean matches(PasswordEncoder passwordEncoder, CharSequence rawPassword, String encodedPassword) {
+        VerificationTask task = new VerificationTask(passwordEncoder, rawPassword, encodedPassword);
+        Future<Boolean> future;
+        try {
+            future = executor.submit(task);
+        }
+        catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new AuthenticationOverloadedException("Too many concurrent authentications! Try again later!", e);
+        }
+        updateMaxQueueDepth(executor.getQueue().size());
+
+        try {
+            return getResult(task, future);
+        }
+        catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Password verification has been interrupted!", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AuthenticationServiceException("Password verification error!", cause);
+        }
+    }
+
+    /**
+     * Runs the task on the executor without waiting for it. Tasks that can be postponed,
+     * like password hash upgrades, are only accepted while no verification is queued.
+     * @param task task to run
+     * @return false if the task has not been accepted
+     */
+    public boolean executeIfIdle(Runnable task) {
+        if (!executor.getQueue().isEmpty()) {
+            return false;
+        }
+        try {
+            executor.execute(task);
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(executor.getQueue().size(), maxQueueDepth.get(), executor.getActiveCount(),
+                rejected.sum(), timedOut.sum(), waitTime.snapshot(), verificationTime.snapshot());
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean getResult(VerificationTask task, Future<Boolean> future)
+            throws InterruptedException, ExecutionException {
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            if (task.abandon()) {
+                future.cancel(false);
+                executor.remove((Runnable) future);
+                timedOut.increment();
+                throw new AuthenticationOverloadedException(String.format(
+                        "Password verification was not started within %d ms! Try again later!", waitTimeoutMillis),
+                        e);
+            }
+            // the verification is already running, it takes a bounded amount of time
+            return future.get();
+        }
+    }
+
+    private void updateMaxQueueDepth(int queueDepth) {
+        int currentMax = maxQueueDepth.get();
+        while (queueDepth > currentMax && !maxQueueDepth.compareAndSet(currentMax, queueDepth)) {
+            currentMax = maxQueueDepth.get();
+        }
+    }
+
+    /**
+     * Verification of a single password. Either the worker starts the task or the caller
+     * abandons it after the wait timeout, whichever happens first.
+     */
+    private final class VerificationTask implements Callable<Boolean> {
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private final long submitTime = System.nanoTime();
+
+        private final PasswordEncoder passwordEncoder;
+
+        private final CharSequence rawPassword;
+
+        private final String encodedPassword;
+
+        private VerificationTask(PasswordEncoder passwordEncoder, CharSequence rawPassword, String encodedPassword) {
+            this.passwordEncoder = passwordEncoder;
+            this.rawPassword = rawPassword;
+            this.encodedPassword = encodedPassword;
+        }
+
+        @Override
+        public Boolean call() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            long startTime = System.nanoTime();
+            waitTime.recordNanos(startTime - submitTime);
+            try {
+                return passwordEncoder.matches(rawPassword, encodedPassword);
+            }
+            finally {
+                verificationTime.recordNanos(System.nanoTime() - startTime);
+            }
+        }
+
+        private boolean abandon() {
+            return claimed.compareAndSet(false, true);
+        }
+
+    }
+
+    /**
+     * Point-in-time metrics of the {@link PasswordVerificationExecutor}.
+     */
+    public static final class Metrics {
+
+        private final int queueDepth;
+
+        private final int maxQueueDepth;
+
+        private final int activeVerifications;
+
+        private final long rejected;
+
+        private final long timedOut;
+
+        private final LatencyHistogram.Snapshot waitTime;
+
+        private final LatencyHistogram.Snapshot verificationTime;
+
+        private Metrics(int queueDepth, int maxQueueDepth, int activeVerifications, long rejected, long timedOut,
+                LatencyHistogram.Snapshot waitTime, LatencyHistogram.Snapshot verificationTime) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.activeVerifications = activeVerifications;
+            this.rejected = rejected;
+            this.timedOut = timedOut;
+            this.waitTime = waitTime;
+            this.verificationTime = verificationTime;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        public int getActiveVerifications() {
+            return activeVerifications;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getTimedOut() {
+            return timedOut;
+        }
+
+        public LatencyHistogram.Snapshot getWaitTime() {
+            return waitTime;
+        }
+
+        public LatencyHistogram.Snapshot getVerificationTime() {
+            return verificationTime;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" + "queueDepth=" + queueDepth + ", maxQueueDepth=" + maxQueueDepth
+                    + ", activeVerifications=" + activeVerifications + ", rejected=" + rejected + ", timedOut="
+                    + timedOut + ", waitTime=" + waitTime + ", verificationTime=" + verificationTime + '}';
+        }
+
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        private final String namePrefix;
+
+        private DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -3,6 +3,11 @@ package com.github.vssavin.usmancore.auth;
 import com.github.vssavin.usmancore.config.UsmanConfigurer;
 import com.github.vssavin.usmancore.security.SecureService;
 import com.github.vssavin.usmancore.security.auth.UsmanUsernamePasswordAuthenticationToken;
+import com.github.vssavin.usmancore.security.ip.IpAddresses;
+import com.github.vssavin.usmancore.security.ip.IpBlocklist;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.security.authentication.AccountExpiredException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
@@ -11,13 +16,15 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
 
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main implementation of {@link com.github.vssavin.usmancore.auth.UsmanBaseAuthenticator}
@@ -25,13 +32,11 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * @author vssavin on 11.12.2023.
  */
-public class UsmanBaseAuthenticationService implements UsmanBaseAuthenticator {
+public class UsmanBaseAuthenticationService implements UsmanBaseAuthenticator, DisposableBean {
 
-    private static final Class<? extends Authentication> authenticationClass = UsmanUsernamePasswordAuthenticationToken.class;
-
-    private static final ConcurrentHashMap<String, Integer> blackList = new ConcurrentHashMap<>(50);
+    private static final Logger log = LoggerFactory.getLogger(UsmanBaseAuthenticationService.class);
 
-    private static final ConcurrentHashMap<String, Long> banExpirationTime = new ConcurrentHashMap<>(50);
+    private static final Class<? extends Authentication> authenticationClass = UsmanUsernamePasswordAuthenticationToken.class;
 
     private final UserDetailsService userDetailsService;
 
@@ -39,17 +44,44 @@ public class UsmanBaseAuthenticationService implements UsmanBaseAuthenticator {
 
     private SecureService secureService;
 
+    private final FailedLoginTracker failedLoginTracker;
+
+    private final IpBlocklist ipBlocklist;
+
+    private final PasswordVerificationExecutor passwordVerificationExecutor;
+
+    private volatile String dummyPasswordHash;
+
     protected final int maxFailureCount;
 
     protected final int blockTimeMinutes;
 
     public UsmanBaseAuthenticationService(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
             SecureService secureService, UsmanConfigurer usmanConfigurer) {
+        this(userDetailsService, passwordEncoder, secureService, usmanConfigurer, null);
+    }
+
+    protected UsmanBaseAuthenticationService(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder,
+            SecureService secureService, UsmanConfigurer usmanConfigurer, ThreadFactory verificationThreadFactory) {
         this.userDetailsService = userDetailsService;
         this.passwordEncoder = passwordEncoder;
         this.secureService = secureService;
         this.maxFailureCount = usmanConfigurer.getMaxAuthFailureCount();
         this.blockTimeMinutes = usmanConfigurer.getAuthFailureBlockTimeMinutes();
+        this.failedLoginTracker = new FailedLoginTracker(usmanConfigurer.getAuthFailureTrackerCapacity(),
+                TimeUnit.MINUTES.toMillis(usmanConfigurer.getAuthFailureWindowMinutes()), maxFailureCount);
+        this.ipBlocklist = new IpBlocklist(usmanConfigurer.getIpv6BanPrefixLength(),
+                usmanConfigurer.getAuthFailureTrackerCapacity());
+        usmanConfigurer.getBlockedIpRanges().forEach(ipBlocklist::addStaticRange);
+        if (usmanConfigurer.isPasswordVerificationOffloaded()) {
+            this.passwordVerificationExecutor = new PasswordVerificationExecutor(
+                    usmanConfigurer.getPasswordVerificationConcurrency(),
+                    usmanConfigurer.getPasswordVerificationQueueLimit(),
+                    usmanConfigurer.getPasswordVerificationWaitTimeoutMillis(), verificationThreadFactory);
+        }
+        else {
+            this.passwordVerificationExecutor = null;
+        }
     }
 
     @Override
@@ -57,14 +89,22 @@ public class UsmanBaseAuthenticationService implements UsmanBaseAuthenticator {
         Object credentials = authentication.getCredentials();
         Object userName = authentication.getPrincipal();
         if (credentials != null) {
-            UserDetails user = userDetailsService.loadUserByUsername(userName.toString());
+            UserDetails user;
+            try {
+                user = userDetailsService.loadUserByUsername(userName.toString());
+            }
+            catch (UsernameNotFoundException e) {
+                mitigateTimingAttack(authentication, credentials);
+                throw e;
+            }
             if (user != null) {
                 checkUserDetails(user);
 
                 String addr = getRemoteAddress(authentication);
                 String password = secureService.decrypt(credentials.toString(), secureService.getPrivateKey(addr));
 
-                if (passwordEncoder.matches(password, user.getPassword())) {
+                if (passwordMatches(password, user.getPassword())) {
+                    upgradePasswordHashIfNeeded(user, password);
                     List<GrantedAuthority> authorities = new ArrayList<>(user.getAuthorities());
                     return new UsmanUsernamePasswordAuthenticationToken(authentication.getPrincipal(), password,
                             authorities);
@@ -86,14 +126,12 @@ public class UsmanBaseAuthenticationService implements UsmanBaseAuthenticator {
 
     @Override
     public boolean isAuthenticationAllowed(String authId) {
-        int failureCounts = getFailureCount(authId);
-        if (failureCounts >= maxFailureCount) {
-            long expireTime = getBanExpirationTime(authId);
-            if (expireTime > 0 && System.currentTimeMillis() < expireTime) {
-                return false;
-            }
+        if (isIpBlocked(authId)) {
+            return false;
         }
-        return true;
+        // a ban outlives the failures of the window, so it is checked regardless of their count
+        long expireTime = getBanExpirationTime(authId);
+        return expireTime == 0 || System.currentTimeMillis() >= expireTime;
     }
 
     @Override
@@ -101,10 +139,112 @@ public class UsmanBaseAuthenticationService implements UsmanBaseAuthenticator {
         return authenticationClass;
     }
 
+    public FailedLoginTracker.Stats getFailedLoginStats() {
+        return failedLoginTracker.getStats();
+    }
+
+    public IpBlocklist getIpBlocklist() {
+        return ipBlocklist;
+    }
+
+    /**
+     * Returns metrics of the password verification executor.
+     * @return executor metrics or null if password verification is not offloaded
+     */
+    public PasswordVerificationExecutor.Metrics getPasswordVerificationMetrics() {
+        return passwordVerificationExecutor != null ? passwordVerificationExecutor.getMetrics() : null;
+    }
+
+    /**
+     * Stops the password verification threads when the service is removed from the
+     * context.
+     */
+    @Override
+    public void destroy() {
+        if (passwordVerificationExecutor != null) {
+            passwordVerificationExecutor.shutdown();
+        }
+    }
+
     protected void setSecureService(SecureService secureService) {
         this.secureService = secureService;
     }
 
+    /**
+     * Stores the upgraded password hash of the user. Called after a successful login if
+     * the stored hash was created with outdated encoder parameters, on the password
+     * verification executor if verification is offloaded.
+     * @param userDetails authenticated user
+     * @param encodedPassword new password hash
+     */
+    protected void updatePasswordHash(UserDetails userDetails, String encodedPassword) {
+        log.debug("Password hash of user [{}] is outdated, but the hash update is not supported!",
+                userDetails.getUsername());
+    }
+
+    /**
+     * Upgrades an outdated password hash. If password verification is offloaded, the hash
+     * is encoded on the verification executor and the login does not wait for it; the
+     * upgrade is postponed to a later login while verifications are queued.
+     */
+    private void upgradePasswordHashIfNeeded(UserDetails userDetails, String rawPassword) {
+        try {
+            if (!passwordEncoder.upgradeEncoding(userDetails.getPassword())) {
+                return;
+            }
+            if (passwordVerificationExecutor == null) {
+                upgradePasswordHash(userDetails, rawPassword);
+            }
+            else if (!passwordVerificationExecutor.executeIfIdle(() -> upgradePasswordHash(userDetails, rawPassword))) {
+                log.debug("Password hash upgrade of user [{}] is postponed, password verifications are queued",
+                        userDetails.getUsername());
+            }
+        }
+        catch (RuntimeException e) {
+            log.warn("Upgrading password hash error for user [{}]!", userDetails.getUsername(), e);
+        }
+    }
+
+    private void upgradePasswordHash(UserDetails userDetails, String rawPassword) {
+        try {
+            updatePasswordHash(userDetails, passwordEncoder.encode(rawPassword));
+        }
+        catch (RuntimeException e) {
+            log.warn("Upgrading password hash error for user [{}]!", userDetails.getUsername(), e);
+        }
+    }
+
+    /**
+     * Spends the same time on an unknown user as on a wrong password, so response times
+     * don't reveal which logins exist, even if unknown logins are rejected without a query.
+     */
+    private void mitigateTimingAttack(Authentication authentication, Object credentials) {
+        try {
+            String addr = getRemoteAddress(authentication);
+            String password = secureService.decrypt(credentials.toString(), secureService.getPrivateKey(addr));
+            passwordMatches(password, getDummyPasswordHash());
+        }
+        catch (RuntimeException e) {
+            log.debug("Dummy password verification error!", e);
+        }
+    }
+
+    private String getDummyPasswordHash() {
+        String hash = dummyPasswordHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode(UUID.randomUUID().toString());
+            dummyPasswordHash = hash;
+        }
+        return hash;
+    }
+
+    private boolean passwordMatches(String rawPassword, String encodedPassword) {
+        if (passwordVerificationExecutor != null) {
+            return passwordVerificationExecutor.matches(passwordEncoder, rawPassword, encodedPassword);
+        }
+        return passwordEncoder.matches(rawPassword, encodedPassword);
+    }
+
     private void checkUserDetails(UserDetails userDetails) {
         if (!userDetails.isAccountNonExpired()) {
             throw new AccountExpiredException("Account is expired!");
@@ -127,26 +267,38 @@ public class UsmanBaseAuthenticationService implements UsmanBaseAuthenticator {
         return "";
     }
 
+    protected boolean isIpBlocked(String userIp) {
+        return ipBlocklist.isBlocked(userIp);
+    }
+
     protected int getFailureCount(String userIp) {
-        return blackList.getOrDefault(userIp, 1);
+        return failedLoginTracker.getFailureCount(toTrackingKey(userIp)) + 1;
     }
 
     protected void incrementFailureCount(String userIp) {
-        int failureCounts = getFailureCount(userIp) + 1;
-        blackList.put(userIp, failureCounts);
+        failedLoginTracker.recordFailure(toTrackingKey(userIp));
     }
 
     protected void resetFailureCount(String userIp) {
-        blackList.put(userIp, 1);
-        banExpirationTime.remove(userIp);
+        failedLoginTracker.reset(toTrackingKey(userIp));
+        ipBlocklist.unban(userIp);
     }
 
     protected long getBanExpirationTime(String userIp) {
-        return banExpirationTime.getOrDefault(userIp, 0L);
+        return failedLoginTracker.getBanExpirationTime(toTrackingKey(userIp));
     }
 
     protected void blockIp(String ip) {
-        banExpirationTime.put(ip, Calendar.getInstance().getTimeInMillis() + ((long) blockTimeMinutes * 60 * 1000));
+        long expirationTime = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(blockTimeMinutes);
+        failedLoginTracker.ban(toTrackingKey(ip), expirationTime);
+        if (!ipBlocklist.ban(ip, expirationTime)) {
+            log.warn("IP {} has not been added to the blocklist, the address is not valid or the bans limit is "
+                    + "reached! Rejected bans: {}", ip, ipBlocklist.getRejectedBansCount());
+        }
+    }
+
+    private String toTrackingKey(String userIp) {
+        return IpAddresses.toSubnetKey(userIp, ipBlocklist.getIpv6BanPrefixLength());
     }
 
 }
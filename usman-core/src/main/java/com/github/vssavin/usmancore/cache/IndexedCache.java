@@ -0,0 +1,162 @@
+package com.github.vssavin.usmancore.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache of entities available by id and by a set of unique secondary keys (login, email
+ * etc.). Entities are stored once by id, secondary keys are mapped to ids. A secondary key
+ * lookup validates that the found entity still has the requested key, so invalidating an
+ * entity by id is enough to make all its old keys miss, even if these keys were changed.
+ * The id of an entity loaded by a secondary key is not known before the load, so
+ * invalidations are counted for the whole cache: an entity whose load overlapped an
+ * invalidation is returned but not cached.
+ *
+ * @param <I> id type
+ * @param <V> entity type
+ * @author vssavin on 16.10.2026.
+ */
+public class IndexedCache<I, V> {
+
+    private final UsmanCache<I, V> values;
+
+    private final Function<V, I> idExtractor;
+
+    private final UsmanCache.Builder builder;
+
+    private final Map<String, Index<I, V>> indexes = new LinkedHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public IndexedCache(UsmanCache.Builder builder, Function<V, I> idExtractor) {
+        this.builder = builder;
+        this.values = builder.build();
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * Registers a unique secondary key. Must be called before the cache is used.
+     * @param name index name
+     * @param keyExtractor secondary key extractor
+     * @return this cache
+     */
+    public IndexedCache<I, V> index(String name, Function<V, String> keyExtractor) {
+        indexes.put(name, new Index<>(builder.build(), keyExtractor));
+        return this;
+    }
+
+    public V getById(I id, Function<? super I, ? extends V> loader) {
+        return values.get(id, loader);
+    }
+
+    /**
+     * Returns the entity by the secondary key.
+     * @param indexName index name
+     * @param key secondary key
+     * @param idLoader entity loader by id, used to refresh the cached entity
+     * @param keyLoader entity loader by the secondary key, used on a miss
+     * @return cached or loaded entity, null if the loader found nothing
+     */
+    public V getByKey(String indexName, String key, Function<? super I, ? extends V> idLoader,
+            Function<String, ? extends V> keyLoader) {
+        Index<I, V> index = getIndex(indexName);
+        I id = index.ids.getIfPresent(key);
+        if (id != null) {
+            V value = values.get(id, idLoader);
+            if (value != null && key.equals(index.keyExtractor.apply(value))) {
+                return value;
+            }
+            index.ids.invalidate(key);
+        }
+        else {
+            values.recordMiss();
+        }
+
+        long loadGeneration = generation.get();
+        V value = keyLoader.apply(key);
+        if (value != null) {
+            put(value);
+            if (generation.get() != loadGeneration) {
+                // invalidated while loading, the loaded entity may be stale
+                invalidate(value);
+            }
+        }
+        return value;
+    }
+
+    public void put(V value) {
+        I id = idExtractor.apply(value);
+        if (id == null) {
+            return;
+        }
+        values.put(id, value);
+        for (Index<I, V> index : indexes.values()) {
+            String key = index.keyExtractor.apply(value);
+            if (key != null) {
+                index.ids.put(key, id);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the entity and its secondary keys. If the entity has no id (for example,
+     * it was built from request data), the cached ids of its secondary keys are
+     * invalidated.
+     * @param value entity to invalidate
+     */
+    public void invalidate(V value) {
+        generation.incrementAndGet();
+        I id = idExtractor.apply(value);
+        if (id != null) {
+            values.invalidate(id);
+        }
+        for (Index<I, V> index : indexes.values()) {
+            String key = index.keyExtractor.apply(value);
+            if (key != null) {
+                I cachedId = index.ids.getIfPresent(key);
+                if (cachedId != null) {
+                    values.invalidate(cachedId);
+                }
+                index.ids.invalidate(key);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        values.invalidateAll();
+        for (Index<I, V> index : indexes.values()) {
+            index.ids.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns statistics of the entities cache, secondary key lookups are counted in its
+     * hits and misses.
+     * @return cache statistics
+     */
+    public UsmanCache.Stats getStats() {
+        return values.getStats();
+    }
+
+    private Index<I, V> getIndex(String indexName) {
+        return Objects.requireNonNull(indexes.get(indexName), () -> "Unknown cache index: " + indexName);
+    }
+
+    private static final class Index<I, V> {
+
+        private final UsmanCache<String, I> ids;
+
+        private final Function<V, String> keyExtractor;
+
+        private Index(UsmanCache<String, I> ids, Function<V, String> keyExtractor) {
+            this.ids = ids;
+            this.keyExtractor = keyExtractor;
+        }
+
+    }
+
+}
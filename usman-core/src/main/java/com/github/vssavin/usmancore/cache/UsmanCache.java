@@ -0,0 +1,443 @@
+package com.github.vssavin.usmancore.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Small in-memory cache with time-to-live, size bound and refresh-ahead. Entries are kept
+ * in independently locked access ordered segments, expired entries are dropped lazily on
+ * access and the least recently used ones are evicted when a segment is full. When
+ * refresh-ahead is enabled, the first reader of an entry older than the refresh interval
+ * reloads it on its own thread while concurrent readers still get the cached value, so a
+ * hot entry is renewed before it expires. Loading on the caller thread keeps thread bound
+ * state (datasource routing, transactions) of the caller. Every segment counts its
+ * invalidations, a value loaded on a miss or a refresh is stored only if no key of its
+ * segment was invalidated during the load, so a load racing with an update never caches
+ * the value read before the update.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author vssavin on 16.10.2026.
+ */
+public class UsmanCache<K, V> {
+
+    private static final Logger log = LoggerFactory.getLogger(UsmanCache.class);
+
+    private static final int SEGMENTS_COUNT = 16;
+
+    private static final int EXPIRED_SCAN_LIMIT = 8;
+
+    private final Segment[] segments;
+
+    private final long ttlMillis;
+
+    private final long refreshAfterMillis;
+
+    private final int maxSize;
+
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    UsmanCache(Builder builder) {
+        if (builder.maxSize <= 0 || builder.ttlMillis <= 0) {
+            throw new IllegalArgumentException("Cache max size and ttl must be positive!");
+        }
+        if (builder.refreshAfterMillis < 0 || builder.refreshAfterMillis >= builder.ttlMillis) {
+            throw new IllegalArgumentException("Refresh interval must be non-negative and less than ttl!");
+        }
+        this.maxSize = builder.maxSize;
+        this.ttlMillis = builder.ttlMillis;
+        this.refreshAfterMillis = builder.refreshAfterMillis;
+        this.clock = builder.clock;
+        int segmentCapacity = Math.max(1, (maxSize + SEGMENTS_COUNT - 1) / SEGMENTS_COUNT);
+        this.segments = new UsmanCache.Segment[SEGMENTS_COUNT];
+        for (int i = 0; i < SEGMENTS_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the cached value without loading it.
+     * @param key cache key
+     * @return cached value or null if absent or expired
+     */
+    public V getIfPresent(K key) {
+        long now = clock.getAsLong();
+        Segment segment = segmentFor(key);
+        CacheEntry<V> entry;
+        synchronized (segment) {
+            entry = segment.getAlive(key, now);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Returns the cached value, loading it on a miss. Null values returned by the loader
+     * are not cached, exceptions of the loader are propagated on a miss and logged on a
+     * refresh (the stale value is returned then).
+     * @param key cache key
+     * @param loader value loader, called on the caller thread
+     * @return cached or loaded value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = clock.getAsLong();
+        Segment segment = segmentFor(key);
+        CacheEntry<V> entry;
+        boolean refresh = false;
+        long generation;
+        synchronized (segment) {
+            generation = segment.generation;
+            entry = segment.getAlive(key, now);
+            if (entry != null && refreshAfterMillis > 0 && !entry.refreshing
+                    && now - entry.loadTime >= refreshAfterMillis) {
+                entry.refreshing = true;
+                refresh = true;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            V value = loader.apply(key);
+            if (value != null) {
+                putIfNotInvalidated(key, value, generation);
+            }
+            return value;
+        }
+
+        hits.increment();
+        if (!refresh) {
+            return entry.value;
+        }
+
+        refreshes.increment();
+        try {
+            V value = loader.apply(key);
+            if (value != null) {
+                if (!putIfNotInvalidated(key, value, generation)) {
+                    // another key of the segment was invalidated, the entry is refreshed later
+                    synchronized (segment) {
+                        entry.refreshing = false;
+                    }
+                }
+            }
+            else {
+                invalidate(key);
+            }
+            return value;
+        }
+        catch (RuntimeException e) {
+            log.debug("Cache entry refresh failed, key: [{}]", key, e);
+            synchronized (segment) {
+                entry.refreshing = false;
+            }
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * Puts the value with its own time-to-live.
+     * @param key cache key
+     * @param value value, must not be null
+     * @param entryTtlMillis entry time-to-live in milliseconds
+     */
+    public void put(K key, V value, long entryTtlMillis) {
+        put(key, value, entryTtlMillis, -1);
+    }
+
+    public void invalidate(K key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.generation++;
+            segment.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.generation++;
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public Stats getStats() {
+        return new Stats(size(), maxSize, hits.sum(), misses.sum(), refreshes.sum(), evictions.sum(),
+                expirations.sum());
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Returns the invalidation counter of the segment of the key, to be passed to
+     * {@link #putIfNotInvalidated} after the value is loaded.
+     * @param key cache key
+     * @return invalidation counter
+     */
+    long generation(K key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.generation;
+        }
+    }
+
+    /**
+     * Puts the loaded value unless a key of its segment was invalidated since the
+     * generation was read.
+     * @return false if the value was not stored
+     */
+    boolean putIfNotInvalidated(K key, V value, long generation) {
+        return put(key, value, ttlMillis, generation);
+    }
+
+    private boolean put(K key, V value, long entryTtlMillis, long generation) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cache value must not be null!");
+        }
+        long now = clock.getAsLong();
+        CacheEntry<V> entry = new CacheEntry<>(value, now, now + entryTtlMillis);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (generation >= 0 && segment.generation != generation) {
+                return false;
+            }
+            if (segment.size() >= segment.maxSize) {
+                segment.removeExpired(now);
+            }
+            segment.put(key, entry);
+            return true;
+        }
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENTS_COUNT - 1)];
+    }
+
+    private static final class CacheEntry<V> {
+
+        private final V value;
+
+        private final long loadTime;
+
+        private final long expirationTime;
+
+        private boolean refreshing;
+
+        private CacheEntry(V value, long loadTime, long expirationTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+            this.expirationTime = expirationTime;
+        }
+
+    }
+
+    /**
+     * Access ordered part of the cache guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<Object, CacheEntry<V>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private long generation;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        private CacheEntry<V> getAlive(Object key, long now) {
+            CacheEntry<V> entry = get(key);
+            if (entry != null && entry.expirationTime <= now) {
+                remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry;
+        }
+
+        private void removeExpired(long now) {
+            Iterator<CacheEntry<V>> iterator = values().iterator();
+            for (int i = 0; i < EXPIRED_SCAN_LIMIT && iterator.hasNext(); i++) {
+                if (iterator.next().expirationTime <= now) {
+                    iterator.remove();
+                    expirations.increment();
+                }
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry<V>> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Builder of the {@link UsmanCache}.
+     */
+    public static final class Builder {
+
+        private int maxSize = 10_000;
+
+        private long ttlMillis = 60_000;
+
+        private long refreshAfterMillis = 0;
+
+        private LongSupplier clock = System::currentTimeMillis;
+
+        private Builder() {
+        }
+
+        public Builder maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder ttlMillis(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+            return this;
+        }
+
+        /**
+         * Sets the age after which a read reloads the entry, 0 disables refresh-ahead.
+         * @param refreshAfterMillis refresh interval in milliseconds, less than ttl
+         * @return this builder
+         */
+        public Builder refreshAfterMillis(long refreshAfterMillis) {
+            this.refreshAfterMillis = refreshAfterMillis;
+            return this;
+        }
+
+        Builder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public <K, V> UsmanCache<K, V> build() {
+            return new UsmanCache<>(this);
+        }
+
+    }
+
+    /**
+     * Statistics of the {@link UsmanCache}.
+     */
+    public static final class Stats {
+
+        private final int size;
+
+        private final int maxSize;
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long refreshes;
+
+        private final long evictions;
+
+        private final long expirations;
+
+        private Stats(int size, int maxSize, long hits, long misses, long refreshes, long evictions,
+                long expirations) {
+            this.size = size;
+            this.maxSize = maxSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.refreshes = refreshes;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        public long getRefreshes() {
+            return refreshes;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "size=" + size + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses
+                    + ", refreshes=" + refreshes + ", evictions=" + evictions + ", expirations=" + expirations + '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.github.vssavin.usmancore.config;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a task of a background component in its own daemon thread, once or repeatedly
+ * with a fixed delay between the runs. The thread is created on start and stopped with
+ * {@link #stop()}, after that the scheduler can be started again.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class BackgroundScheduler {
+
+    private final String threadName;
+
+    private final int threadPriority;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a scheduler.
+     * @param threadName name of the thread
+     * @param threadPriority priority of the thread
+     */
+    public BackgroundScheduler(String threadName, int threadPriority) {
+        this.threadName = threadName;
+        this.threadPriority = threadPriority;
+    }
+
+    /**
+     * Starts the thread unless it is already started and schedules the task.
+     * @param task task, an exception thrown by a run cancels the following runs
+     * @param initialDelay delay of the first run
+     * @param delay delay between the end of a run and the start of the next one, the task
+     * runs only once if the delay is not positive
+     * @param unit unit of the delays
+     * @return true if the scheduler was started, false if it was already running
+     */
+    public synchronized boolean start(Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        if (executor != null) {
+            return false;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            thread.setPriority(threadPriority);
+            return thread;
+        });
+        if (delay > 0) {
+            executor.scheduleWithFixedDelay(task, initialDelay, delay, unit);
+        }
+        else {
+            executor.schedule(task, initialDelay, unit);
+        }
+        return true;
+    }
+
+    /**
+     * Interrupts the running task and cancels the scheduled runs.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+}
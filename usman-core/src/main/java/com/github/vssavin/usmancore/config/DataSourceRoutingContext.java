@@ -0,0 +1,59 @@
+package com.github.vssavin.usmancore.config;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Holds the data source routing stack of the current thread. Every request or
+ * transaction is processed by its own thread, so routing changes made by one of them are
+ * never visible to the others.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+final class DataSourceRoutingContext {
+
+    private static final ThreadLocal<Deque<RoutingDataSource.DATASOURCE_TYPE>> ROUTING_STACK = new ThreadLocal<>();
+
+    private DataSourceRoutingContext() {
+
+    }
+
+    static void push(RoutingDataSource.DATASOURCE_TYPE key) {
+        Deque<RoutingDataSource.DATASOURCE_TYPE> stack = ROUTING_STACK.get();
+        if (stack == null) {
+            stack = new ArrayDeque<>();
+            ROUTING_STACK.set(stack);
+        }
+        stack.push(key);
+    }
+
+    static void pop() {
+        Deque<RoutingDataSource.DATASOURCE_TYPE> stack = ROUTING_STACK.get();
+        if (stack == null) {
+            return;
+        }
+        stack.poll();
+        if (stack.isEmpty()) {
+            ROUTING_STACK.remove();
+        }
+    }
+
+    /**
+     * Returns the data source key of the current thread.
+     * @return current key or {@code null} if the routing was not switched by the thread
+     */
+    static RoutingDataSource.DATASOURCE_TYPE currentKey() {
+        Deque<RoutingDataSource.DATASOURCE_TYPE> stack = ROUTING_STACK.get();
+        return stack == null ? null : stack.peek();
+    }
+
+    static int depth() {
+        Deque<RoutingDataSource.DATASOURCE_TYPE> stack = ROUTING_STACK.get();
+        return stack == null ? 0 : stack.size();
+    }
+
+    static void clear() {
+        ROUTING_STACK.remove();
+    }
+
+}
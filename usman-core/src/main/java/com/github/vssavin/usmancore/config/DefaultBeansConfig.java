@@ -1,12 +1,24 @@
 package com.github.vssavin.usmancore.config;
 
+import com.github.vssavin.usmancore.auth.BCryptCostCalibrator;
+import com.github.vssavin.usmancore.auth.KnownLoginFilter;
+import com.github.vssavin.usmancore.auth.PasswordRehashPlanner;
+import com.github.vssavin.usmancore.event.EventRecorder;
+import com.github.vssavin.usmancore.event.EventRetentionReaper;
+import com.github.vssavin.usmancore.event.EventRollupEngine;
+import com.github.vssavin.usmancore.security.PersistentHmacKeyRing;
+import com.github.vssavin.usmancore.security.RememberMeKeyRing;
+import com.github.vssavin.usmancore.security.TokenReaper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.sql.DataSource;
-import java.util.Collections;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Contains default beans for user management.
@@ -16,16 +28,103 @@ import java.util.List;
 public class DefaultBeansConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(UsmanConfigurer usmanConfigurer) {
+        int strength = usmanConfigurer.getPasswordHashStrength();
+        if (usmanConfigurer.getPasswordHashCalibrationTargetMillis() > 0) {
+            strength = BCryptCostCalibrator.calibrate(usmanConfigurer.getPasswordHashCalibrationTargetMillis(),
+                    strength);
+        }
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PasswordRehashPlanner passwordRehashPlanner(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            PasswordEncoder passwordEncoder, UsmanConfigurer usmanConfigurer, SchemaInitializer schemaInitializer) {
+        return new PasswordRehashPlanner(usmanDataSource, schemaInitializer, passwordEncoder,
+                usmanConfigurer.getPasswordRehashPlanIntervalMinutes());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public EventRecorder eventRecorder(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            UsmanConfigurer usmanConfigurer, SchemaInitializer schemaInitializer) {
+        return EventRecorder.builder(usmanDataSource)
+            .bufferSize(usmanConfigurer.getEventRecorderBufferSize())
+            .batchSize(usmanConfigurer.getEventRecorderBatchSize())
+            .flushIntervalMillis(usmanConfigurer.getEventRecorderFlushIntervalMillis())
+            .overflowPolicy(usmanConfigurer.getEventRecorderOverflowPolicy())
+            .spillDirectory(Paths.get(usmanConfigurer.getEventRecorderSpillDirectory()))
+            .schemaInitializer(schemaInitializer)
+            .build();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public EventRetentionReaper eventRetentionReaper(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            UsmanConfigurer usmanConfigurer, SchemaInitializer schemaInitializer) {
+        return new EventRetentionReaper(usmanDataSource, schemaInitializer, usmanConfigurer.getEventRetentionMonths(),
+                usmanConfigurer.getEventRetentionCheckIntervalMinutes(), usmanConfigurer.getEventRetentionBatchSize(),
+                usmanConfigurer.getEventRetentionPauseMillis());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public TokenReaper tokenReaper(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            UsmanConfigurer usmanConfigurer, SchemaInitializer schemaInitializer) {
+        return new TokenReaper(usmanDataSource, schemaInitializer, usmanConfigurer.getTokenReaperIntervalMinutes(),
+                usmanConfigurer.getTokenReaperBatchSize(), usmanConfigurer.getTokenReaperPauseMillis());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public EventRollupEngine eventRollupEngine(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            UsmanConfigurer usmanConfigurer, SchemaInitializer schemaInitializer) {
+        return new EventRollupEngine(usmanDataSource, schemaInitializer,
+                usmanConfigurer.getEventRollupFlushIntervalMillis(),
+                usmanConfigurer.getEventRollupMinuteRetentionHours(),
+                usmanConfigurer.getEventRollupMaxPendingCounters());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PersistentHmacKeyRing csrfKeyRing(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            UsmanConfigurer usmanConfigurer, SchemaInitializer schemaInitializer) {
+        return new PersistentHmacKeyRing(usmanDataSource, schemaInitializer, "csrf_keys",
+                usmanConfigurer.getCsrfKeyRingSize(), usmanConfigurer.getCsrfKeyRotationHours());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public RememberMeKeyRing rememberMeKeyRing(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            UsmanConfigurer usmanConfigurer, SchemaInitializer schemaInitializer) {
+        return new RememberMeKeyRing(usmanDataSource, schemaInitializer,
+                usmanConfigurer.getRememberMeKeyRotationHours(), usmanConfigurer.getRememberMeTokenValiditySeconds());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public KnownLoginFilter knownLoginFilter(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            UsmanConfigurer usmanConfigurer, SchemaInitializer schemaInitializer) {
+        return new KnownLoginFilter(usmanDataSource, schemaInitializer, usmanConfigurer.isKnownLoginFilterEnabled(),
+                usmanConfigurer.getKnownLoginFilterExpectedUsers(),
+                usmanConfigurer.getKnownLoginFilterFalsePositiveRate(),
+                usmanConfigurer.getKnownLoginFilterRebuildMinutes(),
+                usmanConfigurer.getKnownLoginFilterRefreshSeconds(),
+                usmanConfigurer.getKnownLoginFilterMaxStalenessSeconds());
     }
 
     @Bean
-    public SqlScriptExecutor sqlScriptExecutor(DataSource usmanDataSource) {
-        SqlScriptExecutor sqlScriptExecutor = new SqlScriptExecutor(usmanDataSource);
-        List<String> scriptsList = Collections.singletonList("init.sql");
-        sqlScriptExecutor.executeSqlScriptsFromResource(scriptsList, "");
-        return sqlScriptExecutor;
+    public SqlScriptExecutor sqlScriptExecutor(@Qualifier("usmanDatasource") DataSource usmanDataSource) {
+        return new SqlScriptExecutor(usmanDataSource);
+    }
+
+    @Bean
+    public SchemaMigrator schemaMigrator(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            SqlScriptExecutor sqlScriptExecutor) {
+        return new SchemaMigrator(usmanDataSource, sqlScriptExecutor);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SchemaInitializer schemaInitializer(@Qualifier("usmanDatasource") DataSource usmanDataSource,
+            SchemaMigrator schemaMigrator, UsmanConfigurer usmanConfigurer) {
+        List<String> scriptsList = Arrays.asList("V1__init.sql", "V2__unique_logins.sql",
+                "V3__foreign_key_indexes.sql", "V4__bigint_event_ids.sql", "V5__csrf_keys.sql",
+                "V6__password_rehash_plan.sql", "V7__user_created_at.sql");
+        return new SchemaInitializer(usmanDataSource, schemaMigrator, scriptsList, usmanConfigurer.isSchemaInitAsync(),
+                TimeUnit.SECONDS.toMillis(usmanConfigurer.getSchemaInitTimeoutSeconds()));
     }
 
 }
@@ -8,7 +8,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Routes connection switching between data sources based on a lookup key.
+ * Routes connection switching between data sources based on a lookup key. The key is
+ * taken from the routing context of the current thread, the default key is used if the
+ * thread did not switch the routing.
  *
  * @author vssavin on 28.11.2023.
  */
@@ -20,16 +22,17 @@ class RoutingDataSource extends AbstractRoutingDataSource {
 
     }
 
-    private DATASOURCE_TYPE datasourceKey = DATASOURCE_TYPE.APPLICATION_DATASOURCE;
+    private volatile DATASOURCE_TYPE defaultKey = DATASOURCE_TYPE.APPLICATION_DATASOURCE;
 
     private final Map<Object, Object> dataSources = new HashMap<>();
 
     void setKey(DATASOURCE_TYPE key) {
-        this.datasourceKey = key;
+        this.defaultKey = key;
     }
 
     public DATASOURCE_TYPE getDatasourceKey() {
-        return datasourceKey;
+        DATASOURCE_TYPE key = DataSourceRoutingContext.currentKey();
+        return key != null ? key : defaultKey;
     }
 
     RoutingDataSource() {
@@ -42,13 +45,13 @@ class RoutingDataSource extends AbstractRoutingDataSource {
 
     @Override
     protected Object determineCurrentLookupKey() {
-        return datasourceKey;
+        return getDatasourceKey();
     }
 
     @NonNull
     @Override
     protected DataSource determineTargetDataSource() {
-        return (DataSource) dataSources.get(datasourceKey);
+        return (DataSource) dataSources.get(getDatasourceKey());
     }
 
 }
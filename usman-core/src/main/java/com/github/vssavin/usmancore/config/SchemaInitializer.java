@@ -0,0 +1,168 @@
+package com.github.vssavin.usmancore.config;
+
+import com.github.vssavin.usmancore.data.IdSequences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Initializes the user management schema: applies migrations with {@link SchemaMigrator}
+ * and creates id sequences. In the asynchronous mode the initialization runs in a
+ * background thread in parallel with the rest of the context startup, and users of the
+ * schema wait for it with {@link #awaitReady()}, which is called for every method marked
+ * with {@link com.github.vssavin.usmancore.aspect.UsmanRouteDatasource}. Durations of the
+ * startup phases are available with {@link #getPhaseTimings()}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class SchemaInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaInitializer.class);
+
+    private static final String MIGRATIONS_PATH = "migration/";
+
+    private final DataSource dataSource;
+
+    private final SchemaMigrator schemaMigrator;
+
+    private final List<String> scripts;
+
+    private final boolean async;
+
+    private final long readyTimeoutMillis;
+
+    private final CountDownLatch readyLatch = new CountDownLatch(1);
+
+    private volatile boolean ready;
+
+    private volatile RuntimeException failure;
+
+    private volatile Map<String, Long> phaseTimings = Collections.emptyMap();
+
+    private Thread initializer;
+
+    /**
+     * Creates a schema initializer.
+     * @param dataSource user management data source
+     * @param schemaMigrator schema migrator
+     * @param scripts names of the migration scripts
+     * @param async whether to initialize the schema in a background thread
+     * @param readyTimeoutMillis how long {@link #awaitReady()} waits for the schema
+     */
+    public SchemaInitializer(DataSource dataSource, SchemaMigrator schemaMigrator, List<String> scripts,
+            boolean async, long readyTimeoutMillis) {
+        this.dataSource = dataSource;
+        this.schemaMigrator = schemaMigrator;
+        this.scripts = scripts;
+        this.async = async;
+        this.readyTimeoutMillis = readyTimeoutMillis;
+    }
+
+    /**
+     * Initializes the schema, in the asynchronous mode only starts the initialization.
+     * @throws IllegalStateException if the synchronous initialization fails
+     */
+    public synchronized void start() {
+        if (initializer != null || readyLatch.getCount() == 0) {
+            return;
+        }
+        if (!async) {
+            initialize();
+            if (failure != null) {
+                throw failure;
+            }
+            return;
+        }
+        initializer = new Thread(this::initialize, "usman-schema-initializer");
+        initializer.setDaemon(true);
+        initializer.start();
+    }
+
+    public synchronized void stop() {
+        if (initializer != null) {
+            initializer.interrupt();
+            initializer = null;
+        }
+    }
+
+    /**
+     * Waits until the schema is initialized.
+     * @throws IllegalStateException if the initialization failed or did not finish in time
+     */
+    public void awaitReady() {
+        if (ready) {
+            return;
+        }
+        try {
+            if (!readyLatch.await(readyTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(
+                        "User management schema is not initialized in " + readyTimeoutMillis + " ms!");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the user management schema!", e);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("User management schema initialization failed!", failure);
+        }
+    }
+
+    /**
+     * Waits until the schema is initialized if the initializer is present.
+     * @param schemaInitializer schema initializer, null if the schema is not initialized by
+     * user management
+     * @throws IllegalStateException if the initialization failed or did not finish in time
+     */
+    public static void awaitIfPresent(SchemaInitializer schemaInitializer) {
+        if (schemaInitializer != null) {
+            schemaInitializer.awaitReady();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns durations of the finished startup phases: migration phases prefixed with
+     * "migration.", id sequences creation and the whole initialization.
+     * @return phase durations in milliseconds, in execution order
+     */
+    public Map<String, Long> getPhaseTimings() {
+        return phaseTimings;
+    }
+
+    private void initialize() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        long start = System.currentTimeMillis();
+        try {
+            schemaMigrator.migrate(SchemaMigrator.class, MIGRATIONS_PATH, scripts);
+            schemaMigrator.getLastTimings().forEach((phase, millis) -> timings.put("migration." + phase, millis));
+            // sequences may be missing even if the schema is up-to-date, e.g. dropped manually
+            long sequencesStart = System.currentTimeMillis();
+            IdSequences.initialize(dataSource);
+            timings.put("idSequences", System.currentTimeMillis() - sequencesStart);
+            ready = true;
+        }
+        catch (RuntimeException e) {
+            failure = e;
+            log.error("User management schema initialization error!", e);
+        }
+        finally {
+            timings.put("total", System.currentTimeMillis() - start);
+            phaseTimings = Collections.unmodifiableMap(timings);
+            readyLatch.countDown();
+        }
+        log.info("User management schema initialization {} ({} mode), phase timings: {}",
+                ready ? "finished" : "failed", async ? "async" : "sync", phaseTimings);
+    }
+
+}
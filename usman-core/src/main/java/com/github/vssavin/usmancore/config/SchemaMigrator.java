@@ -0,0 +1,349 @@
+package com.github.vssavin.usmancore.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies versioned sql scripts named {@code V<version>__<description>.sql} in version
+ * order, executing them with {@link SqlScriptExecutor}. Applied versions and script
+ * checksums are kept in the schema history table, every script is executed once. An
+ * applied script must never be changed, schema changes go to a new version: a checksum
+ * mismatch fails the migration. Nodes migrating the same database at the same time are
+ * serialized by a lock row owned by the node that inserted it. The owner refreshes the
+ * lock before every script, a lock not refreshed for a while is considered abandoned and
+ * removed, and waiting nodes wait longer than that. If the schema is up-to-date, the
+ * migration costs a single query. Durations of the migration phases are kept for the last
+ * migration, see {@link #getLastTimings()}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final String HISTORY_TABLE = "usman_schema_history";
+
+    private static final String LOCK_TABLE = "usman_schema_lock";
+
+    private static final Pattern SCRIPT_NAME_PATTERN = Pattern.compile("V(\\d+)__\\w+\\.sql");
+
+    private static final long LOCK_RETRY_MILLIS = 500;
+
+    private static final long DEFAULT_STALE_LOCK_MILLIS = 600_000;
+
+    private static final long DEFAULT_LOCK_WAIT_MILLIS = 900_000;
+
+    private final DataSource dataSource;
+
+    private final SqlScriptExecutor sqlScriptExecutor;
+
+    private final long lockWaitMillis;
+
+    private final long staleLockMillis;
+
+    private volatile Map<String, Long> lastTimings = Collections.emptyMap();
+
+    public SchemaMigrator(DataSource dataSource, SqlScriptExecutor sqlScriptExecutor) {
+        this(dataSource, sqlScriptExecutor, DEFAULT_LOCK_WAIT_MILLIS, DEFAULT_STALE_LOCK_MILLIS);
+    }
+
+    SchemaMigrator(DataSource dataSource, SqlScriptExecutor sqlScriptExecutor, long lockWaitMillis,
+            long staleLockMillis) {
+        if (lockWaitMillis <= staleLockMillis) {
+            throw new IllegalArgumentException("Lock wait timeout must be greater than the stale lock timeout!");
+        }
+        this.dataSource = dataSource;
+        this.sqlScriptExecutor = sqlScriptExecutor;
+        this.lockWaitMillis = lockWaitMillis;
+        this.staleLockMillis = staleLockMillis;
+    }
+
+    /**
+     * Applies new scripts found in the resources.
+     * @param resourceClass class the resource path is relative to
+     * @param resourcePath scripts resource path, e.g. "migration/"
+     * @param scriptNames script names
+     * @return number of executed scripts
+     * @throws IllegalStateException if a script is not found or fails, an applied script has
+     * been changed or the schema history can't be read
+     */
+    public int migrate(Class<?> resourceClass, String resourcePath, List<String> scriptNames) {
+        List<Script> scripts = new ArrayList<>();
+        for (String scriptName : scriptNames) {
+            try (InputStream inputStream = resourceClass.getResourceAsStream(resourcePath + scriptName)) {
+                if (inputStream == null) {
+                    throw new IllegalStateException(String.format("Script %s not found!", resourcePath + scriptName));
+                }
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = inputStream.read(buffer)) > 0) {
+                    content.write(buffer, 0, read);
+                }
+                scripts.add(new Script(scriptName, new String(content.toByteArray(), StandardCharsets.UTF_8)));
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Reading script " + scriptName + " error!", e);
+            }
+        }
+        return migrate(scripts);
+    }
+
+    int migrate(List<Script> scripts) {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        try {
+            return migrate(scripts, timings);
+        }
+        finally {
+            lastTimings = Collections.unmodifiableMap(timings);
+        }
+    }
+
+    private int migrate(List<Script> scripts, Map<String, Long> timings) {
+        List<Script> orderedScripts = new ArrayList<>(scripts);
+        orderedScripts.sort(Comparator.comparingInt(script -> script.version));
+        long start = System.currentTimeMillis();
+        boolean upToDate = getPendingScripts(orderedScripts, readHistory()).isEmpty();
+        timings.put("history", System.currentTimeMillis() - start);
+        if (upToDate) {
+            log.debug("Schema is up to date");
+            return 0;
+        }
+
+        start = System.currentTimeMillis();
+        String lockOwner = UUID.randomUUID().toString();
+        try {
+            createSchemaTables();
+            acquireLock(lockOwner);
+        }
+        catch (SQLException e) {
+            throw new IllegalStateException("Schema migration lock error!", e);
+        }
+        timings.put("lock", System.currentTimeMillis() - start);
+        try {
+            // another node may have migrated the schema while we were waiting for the lock
+            List<Script> pendingScripts = getPendingScripts(orderedScripts, readHistory());
+            for (Script script : pendingScripts) {
+                start = System.currentTimeMillis();
+                refreshLock(lockOwner);
+                apply(script);
+                timings.put(script.name, System.currentTimeMillis() - start);
+            }
+            return pendingScripts.size();
+        }
+        finally {
+            releaseLock(lockOwner);
+        }
+    }
+
+    /**
+     * Returns durations of the phases of the last migration: the history check, waiting for
+     * the lock and execution of every applied script.
+     * @return phase durations in milliseconds, in execution order
+     */
+    public Map<String, Long> getLastTimings() {
+        return lastTimings;
+    }
+
+    private List<Script> getPendingScripts(List<Script> scripts, Map<Integer, Long> history) {
+        List<Script> pendingScripts = new ArrayList<>();
+        for (Script script : scripts) {
+            Long checksum = history.get(script.version);
+            if (checksum == null) {
+                pendingScripts.add(script);
+            }
+            else if (checksum != script.checksum) {
+                throw new IllegalStateException(String.format(
+                        "Checksum of the applied script %s has changed, add a new migration version instead!",
+                        script.name));
+            }
+        }
+        return pendingScripts;
+    }
+
+    private Map<Integer, Long> readHistory() {
+        Map<Integer, Long> history = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            if (!historyTableExists(connection)) {
+                log.debug("Schema history table doesn't exist");
+                return Collections.emptyMap();
+            }
+            try (Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement.executeQuery("SELECT version, checksum FROM " + HISTORY_TABLE)) {
+                while (resultSet.next()) {
+                    history.put(resultSet.getInt(1), resultSet.getLong(2));
+                }
+            }
+        }
+        catch (SQLException e) {
+            // an empty history would apply every script again
+            throw new IllegalStateException("Reading schema history error!", e);
+        }
+        return history;
+    }
+
+    private boolean historyTableExists(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String escape = metaData.getSearchStringEscape();
+        String pattern = escape == null ? HISTORY_TABLE : HISTORY_TABLE.replace("_", escape + "_");
+        // unquoted names are stored in upper case by H2 and in lower case by PostgreSQL
+        for (String tableName : new String[] { pattern.toUpperCase(Locale.ROOT), pattern }) {
+            try (ResultSet tables = metaData.getTables(null, null, tableName, new String[] { "TABLE" })) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void apply(Script script) {
+        log.info("Applying script {}", script.name);
+        try (Connection connection = dataSource.getConnection()) {
+            sqlScriptExecutor.executeSqlScript(new StringReader(script.content), connection);
+        }
+        catch (SQLException e) {
+            throw new IllegalStateException("Executing script " + script.name + " error!", e);
+        }
+
+        String query = "INSERT INTO " + HISTORY_TABLE + "(script, checksum, applied_at, version) VALUES (?, ?, ?, ?)";
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, script.name);
+            statement.setLong(2, script.checksum);
+            statement.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            statement.setInt(4, script.version);
+            statement.executeUpdate();
+        }
+        catch (SQLException e) {
+            throw new IllegalStateException("Saving schema history of " + script.name + " error!", e);
+        }
+    }
+
+    private void createSchemaTables() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + "(version integer primary key, "
+                    + "script varchar(255) not null, checksum bigint not null, applied_at timestamp not null)");
+            statement.execute("CREATE TABLE IF NOT EXISTS " + LOCK_TABLE
+                    + "(id integer primary key, locked_at timestamp not null, owner varchar(36))");
+            // the lock table of older versions has no owner
+            statement.execute("ALTER TABLE " + LOCK_TABLE + " ADD COLUMN IF NOT EXISTS owner varchar(36)");
+        }
+    }
+
+    private void acquireLock(String lockOwner) throws SQLException {
+        long deadline = System.currentTimeMillis() + lockWaitMillis;
+        while (true) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (PreparedStatement statement = connection
+                    .prepareStatement("DELETE FROM " + LOCK_TABLE + " WHERE locked_at < ?")) {
+                    statement.setTimestamp(1, new Timestamp(System.currentTimeMillis() - staleLockMillis));
+                    if (statement.executeUpdate() > 0) {
+                        log.warn("Removed abandoned schema migration lock");
+                    }
+                }
+                try (PreparedStatement statement = connection
+                    .prepareStatement("INSERT INTO " + LOCK_TABLE + "(id, locked_at, owner) VALUES (1, ?, ?)")) {
+                    statement.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+                    statement.setString(2, lockOwner);
+                    statement.executeUpdate();
+                    return;
+                }
+                catch (SQLException e) {
+                    if (System.currentTimeMillis() > deadline) {
+                        throw e;
+                    }
+                    log.debug("Schema migration is locked by another node, waiting...");
+                }
+            }
+            try {
+                Thread.sleep(LOCK_RETRY_MILLIS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the schema migration lock!", e);
+            }
+        }
+    }
+
+    private void refreshLock(String lockOwner) {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection
+                    .prepareStatement("UPDATE " + LOCK_TABLE + " SET locked_at = ? WHERE id = 1 AND owner = ?")) {
+            statement.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+            statement.setString(2, lockOwner);
+            if (statement.executeUpdate() == 0) {
+                throw new IllegalStateException("Schema migration lock was removed as abandoned!");
+            }
+        }
+        catch (SQLException e) {
+            throw new IllegalStateException("Schema migration lock error!", e);
+        }
+    }
+
+    private void releaseLock(String lockOwner) {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection
+                    .prepareStatement("DELETE FROM " + LOCK_TABLE + " WHERE id = 1 AND owner = ?")) {
+            statement.setString(1, lockOwner);
+            if (statement.executeUpdate() == 0) {
+                log.warn("Schema migration lock was removed as abandoned before it was released");
+            }
+        }
+        catch (SQLException e) {
+            log.error("Releasing schema migration lock error!", e);
+        }
+    }
+
+    static final class Script {
+
+        private final String name;
+
+        private final int version;
+
+        private final String content;
+
+        private final long checksum;
+
+        Script(String name, String content) {
+            Matcher matcher = SCRIPT_NAME_PATTERN.matcher(name);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Wrong migration script name: " + name);
+            }
+            this.name = name;
+            this.version = Integer.parseInt(matcher.group(1));
+            this.content = content;
+            CRC32 crc32 = new CRC32();
+            crc32.update(content.getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc32.getValue();
+        }
+
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.github.vssavin.usmancore.config;
 
+import org.apache.ibatis.jdbc.RuntimeSqlException;
 import org.apache.ibatis.jdbc.ScriptRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -193,6 +194,31 @@ public class SqlScriptExecutor {
         }
     }
 
+    /**
+     * Executes the script with the given connection, stopping at the first failed statement.
+     * @param reader script reader
+     * @param connection database connection
+     * @throws IllegalStateException if a statement of the script fails
+     */
+    public void executeSqlScript(Reader reader, Connection connection) {
+        StringWriter logWriter = new StringWriter();
+        ScriptRunner scriptRunner = new ScriptRunner(connection);
+        scriptRunner.setStopOnError(true);
+        scriptRunner.setLogWriter(new PrintWriter(logWriter));
+        scriptRunner.setErrorLogWriter(new PrintWriter(logWriter));
+        try {
+            scriptRunner.runScript(reader);
+        }
+        catch (RuntimeSqlException e) {
+            throw new IllegalStateException("Executing script error: " + e.getMessage(), e);
+        }
+        finally {
+            if (!logWriter.toString().isEmpty()) {
+                log.debug(logWriter.toString());
+            }
+        }
+    }
+
     private Stream<BufferedReader> sqlScriptBufferedReaderStream(Stream<Path> pathStream) {
         return pathStream.map(filePath -> {
             try {
@@ -234,8 +260,7 @@ public class SqlScriptExecutor {
 
     private void executeSqlScript(Reader reader, DataSource dataSource) {
         StringWriter logWriter = new StringWriter();
-        try (Reader innerReader = reader) {
-            Connection connection = dataSource.getConnection();
+        try (Reader innerReader = reader; Connection connection = dataSource.getConnection()) {
             ScriptRunner scriptRunner = new ScriptRunner(connection);
             StringWriter errorWriter = new StringWriter();
             scriptRunner.setLogWriter(new PrintWriter(logWriter));
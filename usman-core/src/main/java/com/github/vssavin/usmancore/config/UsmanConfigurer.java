@@ -1,10 +1,13 @@
 package com.github.vssavin.usmancore.config;
 
+import com.github.vssavin.usmancore.event.EventOverflowPolicy;
 import com.github.vssavin.usmancore.security.SecureService;
+import com.github.vssavin.usmancore.security.csrf.CsrfTokenMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpMethod;
 
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -51,6 +54,99 @@ public class UsmanConfigurer {
 
     private int authFailureBlockTimeMinutes = 60;
 
+    private int authFailureWindowMinutes = 60;
+
+    private int authFailureTrackerCapacity = 100_000;
+
+    private final List<String> blockedIpRanges = new ArrayList<>();
+
+    private int ipv6BanPrefixLength = 64;
+
+    private boolean passwordVerificationOffloaded = false;
+
+    private int passwordVerificationConcurrency = Runtime.getRuntime().availableProcessors();
+
+    private int passwordVerificationQueueLimit = 256;
+
+    private long passwordVerificationWaitTimeoutMillis = 5000;
+
+    private boolean passwordVerificationVirtualThreads = false;
+
+    private int passwordHashStrength = 10;
+
+    private long passwordHashCalibrationTargetMillis = 0;
+
+    private long passwordRehashPlanIntervalMinutes = 1440;
+
+    private boolean userCacheEnabled = false;
+
+    private int userCacheMaxSize = 10_000;
+
+    private long userCacheTtlSeconds = 300;
+
+    private long userCacheRefreshAfterSeconds = 240;
+
+    private int eventRecorderBufferSize = 8192;
+
+    private int eventRecorderBatchSize = 256;
+
+    private long eventRecorderFlushIntervalMillis = 1000;
+
+    private EventOverflowPolicy eventRecorderOverflowPolicy = EventOverflowPolicy.BLOCK;
+
+    private String eventRecorderSpillDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "usman-events")
+        .toString();
+
+    private int eventRetentionMonths = 0;
+
+    private long eventRetentionCheckIntervalMinutes = 60;
+
+    private int eventRetentionBatchSize = 1000;
+
+    private long eventRetentionPauseMillis = 50;
+
+    private long eventRollupFlushIntervalMillis = 5000;
+
+    private int eventRollupMinuteRetentionHours = 48;
+
+    private int eventRollupMaxPendingCounters = 100_000;
+
+    private CsrfTokenMode csrfTokenMode = CsrfTokenMode.DATABASE;
+
+    private int csrfKeyRingSize = 3;
+
+    private long csrfKeyRotationHours = 168;
+
+    private int csrfCacheMaxUsers = 10_000;
+
+    private int csrfCacheMaxTokensPerUser = 5;
+
+    private long tokenReaperIntervalMinutes = 60;
+
+    private int tokenReaperBatchSize = 500;
+
+    private long tokenReaperPauseMillis = 50;
+
+    private double rememberMeRefreshFraction = 0.5;
+
+    private long rememberMeKeyRotationHours = 168;
+
+    private boolean schemaInitAsync = false;
+
+    private long schemaInitTimeoutSeconds = 60;
+
+    private boolean knownLoginFilterEnabled = false;
+
+    private int knownLoginFilterExpectedUsers = 100_000;
+
+    private double knownLoginFilterFalsePositiveRate = 0.01;
+
+    private long knownLoginFilterRebuildMinutes = 60;
+
+    private long knownLoginFilterRefreshSeconds = 5;
+
+    private long knownLoginFilterMaxStalenessSeconds = 60;
+
     private int rememberMeTokenValiditySeconds = TWO_WEEKS_S;
 
     private int csrfTokenValiditySeconds = TWO_WEEKS_S;
@@ -128,6 +224,302 @@ public class UsmanConfigurer {
         return this;
     }
 
+    public UsmanConfigurer authFailureWindowMinutes(int authFailureWindowMinutes) {
+        checkAccess();
+        this.authFailureWindowMinutes = authFailureWindowMinutes;
+        return this;
+    }
+
+    public UsmanConfigurer authFailureTrackerCapacity(int authFailureTrackerCapacity) {
+        checkAccess();
+        this.authFailureTrackerCapacity = authFailureTrackerCapacity;
+        return this;
+    }
+
+    public UsmanConfigurer blockedIpRange(String blockedIpRange) {
+        checkAccess();
+        this.blockedIpRanges.add(blockedIpRange);
+        return this;
+    }
+
+    public UsmanConfigurer blockedIpRanges(List<String> blockedIpRanges) {
+        checkAccess();
+        this.blockedIpRanges.addAll(blockedIpRanges);
+        return this;
+    }
+
+    public UsmanConfigurer ipv6BanPrefixLength(int ipv6BanPrefixLength) {
+        checkAccess();
+        this.ipv6BanPrefixLength = ipv6BanPrefixLength;
+        return this;
+    }
+
+    public UsmanConfigurer passwordVerificationOffloaded(boolean passwordVerificationOffloaded) {
+        checkAccess();
+        this.passwordVerificationOffloaded = passwordVerificationOffloaded;
+        return this;
+    }
+
+    public UsmanConfigurer passwordVerificationConcurrency(int passwordVerificationConcurrency) {
+        checkAccess();
+        this.passwordVerificationConcurrency = passwordVerificationConcurrency;
+        return this;
+    }
+
+    public UsmanConfigurer passwordVerificationQueueLimit(int passwordVerificationQueueLimit) {
+        checkAccess();
+        this.passwordVerificationQueueLimit = passwordVerificationQueueLimit;
+        return this;
+    }
+
+    public UsmanConfigurer passwordVerificationWaitTimeoutMillis(long passwordVerificationWaitTimeoutMillis) {
+        checkAccess();
+        this.passwordVerificationWaitTimeoutMillis = passwordVerificationWaitTimeoutMillis;
+        return this;
+    }
+
+    public UsmanConfigurer passwordVerificationVirtualThreads(boolean passwordVerificationVirtualThreads) {
+        checkAccess();
+        this.passwordVerificationVirtualThreads = passwordVerificationVirtualThreads;
+        return this;
+    }
+
+    public UsmanConfigurer passwordHashStrength(int passwordHashStrength) {
+        checkAccess();
+        this.passwordHashStrength = passwordHashStrength;
+        return this;
+    }
+
+    public UsmanConfigurer passwordHashCalibrationTargetMillis(long passwordHashCalibrationTargetMillis) {
+        checkAccess();
+        this.passwordHashCalibrationTargetMillis = passwordHashCalibrationTargetMillis;
+        return this;
+    }
+
+    public UsmanConfigurer passwordRehashPlanIntervalMinutes(long passwordRehashPlanIntervalMinutes) {
+        checkAccess();
+        this.passwordRehashPlanIntervalMinutes = passwordRehashPlanIntervalMinutes;
+        return this;
+    }
+
+    /**
+     * Enables the cache of users read outside of transactions. The cache is local to the
+     * node, changes made by other nodes or directly in the database, including locked and
+     * deleted accounts, are seen only after the entry expires, so it is disabled by default.
+     * @param userCacheEnabled whether users are cached
+     * @return this configurer
+     */
+    public UsmanConfigurer userCacheEnabled(boolean userCacheEnabled) {
+        checkAccess();
+        this.userCacheEnabled = userCacheEnabled;
+        return this;
+    }
+
+    public UsmanConfigurer userCacheMaxSize(int userCacheMaxSize) {
+        checkAccess();
+        this.userCacheMaxSize = userCacheMaxSize;
+        return this;
+    }
+
+    public UsmanConfigurer userCacheTtlSeconds(long userCacheTtlSeconds) {
+        checkAccess();
+        this.userCacheTtlSeconds = userCacheTtlSeconds;
+        return this;
+    }
+
+    public UsmanConfigurer userCacheRefreshAfterSeconds(long userCacheRefreshAfterSeconds) {
+        checkAccess();
+        this.userCacheRefreshAfterSeconds = userCacheRefreshAfterSeconds;
+        return this;
+    }
+
+    public UsmanConfigurer eventRecorderBufferSize(int eventRecorderBufferSize) {
+        checkAccess();
+        this.eventRecorderBufferSize = eventRecorderBufferSize;
+        return this;
+    }
+
+    public UsmanConfigurer eventRecorderBatchSize(int eventRecorderBatchSize) {
+        checkAccess();
+        this.eventRecorderBatchSize = eventRecorderBatchSize;
+        return this;
+    }
+
+    public UsmanConfigurer eventRecorderFlushIntervalMillis(long eventRecorderFlushIntervalMillis) {
+        checkAccess();
+        this.eventRecorderFlushIntervalMillis = eventRecorderFlushIntervalMillis;
+        return this;
+    }
+
+    public UsmanConfigurer eventRecorderOverflowPolicy(EventOverflowPolicy eventRecorderOverflowPolicy) {
+        checkAccess();
+        this.eventRecorderOverflowPolicy = eventRecorderOverflowPolicy;
+        return this;
+    }
+
+    public UsmanConfigurer eventRecorderSpillDirectory(String eventRecorderSpillDirectory) {
+        checkAccess();
+        this.eventRecorderSpillDirectory = eventRecorderSpillDirectory;
+        return this;
+    }
+
+    public UsmanConfigurer eventRetentionMonths(int eventRetentionMonths) {
+        checkAccess();
+        this.eventRetentionMonths = eventRetentionMonths;
+        return this;
+    }
+
+    public UsmanConfigurer eventRetentionCheckIntervalMinutes(long eventRetentionCheckIntervalMinutes) {
+        checkAccess();
+        this.eventRetentionCheckIntervalMinutes = eventRetentionCheckIntervalMinutes;
+        return this;
+    }
+
+    public UsmanConfigurer eventRetentionBatchSize(int eventRetentionBatchSize) {
+        checkAccess();
+        this.eventRetentionBatchSize = eventRetentionBatchSize;
+        return this;
+    }
+
+    public UsmanConfigurer eventRetentionPauseMillis(long eventRetentionPauseMillis) {
+        checkAccess();
+        this.eventRetentionPauseMillis = eventRetentionPauseMillis;
+        return this;
+    }
+
+    public UsmanConfigurer eventRollupFlushIntervalMillis(long eventRollupFlushIntervalMillis) {
+        checkAccess();
+        this.eventRollupFlushIntervalMillis = eventRollupFlushIntervalMillis;
+        return this;
+    }
+
+    public UsmanConfigurer eventRollupMinuteRetentionHours(int eventRollupMinuteRetentionHours) {
+        checkAccess();
+        this.eventRollupMinuteRetentionHours = eventRollupMinuteRetentionHours;
+        return this;
+    }
+
+    public UsmanConfigurer eventRollupMaxPendingCounters(int eventRollupMaxPendingCounters) {
+        checkAccess();
+        this.eventRollupMaxPendingCounters = eventRollupMaxPendingCounters;
+        return this;
+    }
+
+    public UsmanConfigurer csrfTokenMode(CsrfTokenMode csrfTokenMode) {
+        checkAccess();
+        this.csrfTokenMode = csrfTokenMode;
+        return this;
+    }
+
+    public UsmanConfigurer csrfKeyRingSize(int csrfKeyRingSize) {
+        checkAccess();
+        this.csrfKeyRingSize = csrfKeyRingSize;
+        return this;
+    }
+
+    /**
+     * Sets the rotation interval of the csrf signing keys. Tokens signed with a key older
+     * than the key ring size are rejected, so the ring size minus one multiplied by this
+     * interval should not be shorter than the token validity.
+     * @param csrfKeyRotationHours rotation interval in hours, 0 disables rotation
+     * @return this configurer
+     */
+    public UsmanConfigurer csrfKeyRotationHours(long csrfKeyRotationHours) {
+        checkAccess();
+        this.csrfKeyRotationHours = csrfKeyRotationHours;
+        return this;
+    }
+
+    public UsmanConfigurer csrfCacheMaxUsers(int csrfCacheMaxUsers) {
+        checkAccess();
+        this.csrfCacheMaxUsers = csrfCacheMaxUsers;
+        return this;
+    }
+
+    public UsmanConfigurer csrfCacheMaxTokensPerUser(int csrfCacheMaxTokensPerUser) {
+        checkAccess();
+        this.csrfCacheMaxTokensPerUser = csrfCacheMaxTokensPerUser;
+        return this;
+    }
+
+    public UsmanConfigurer tokenReaperIntervalMinutes(long tokenReaperIntervalMinutes) {
+        checkAccess();
+        this.tokenReaperIntervalMinutes = tokenReaperIntervalMinutes;
+        return this;
+    }
+
+    public UsmanConfigurer tokenReaperBatchSize(int tokenReaperBatchSize) {
+        checkAccess();
+        this.tokenReaperBatchSize = tokenReaperBatchSize;
+        return this;
+    }
+
+    public UsmanConfigurer tokenReaperPauseMillis(long tokenReaperPauseMillis) {
+        checkAccess();
+        this.tokenReaperPauseMillis = tokenReaperPauseMillis;
+        return this;
+    }
+
+    public UsmanConfigurer rememberMeRefreshFraction(double rememberMeRefreshFraction) {
+        checkAccess();
+        this.rememberMeRefreshFraction = rememberMeRefreshFraction;
+        return this;
+    }
+
+    public UsmanConfigurer rememberMeKeyRotationHours(long rememberMeKeyRotationHours) {
+        checkAccess();
+        this.rememberMeKeyRotationHours = rememberMeKeyRotationHours;
+        return this;
+    }
+
+    public UsmanConfigurer schemaInitAsync(boolean schemaInitAsync) {
+        checkAccess();
+        this.schemaInitAsync = schemaInitAsync;
+        return this;
+    }
+
+    public UsmanConfigurer schemaInitTimeoutSeconds(long schemaInitTimeoutSeconds) {
+        checkAccess();
+        this.schemaInitTimeoutSeconds = schemaInitTimeoutSeconds;
+        return this;
+    }
+
+    public UsmanConfigurer knownLoginFilterEnabled(boolean knownLoginFilterEnabled) {
+        checkAccess();
+        this.knownLoginFilterEnabled = knownLoginFilterEnabled;
+        return this;
+    }
+
+    public UsmanConfigurer knownLoginFilterExpectedUsers(int knownLoginFilterExpectedUsers) {
+        checkAccess();
+        this.knownLoginFilterExpectedUsers = knownLoginFilterExpectedUsers;
+        return this;
+    }
+
+    public UsmanConfigurer knownLoginFilterFalsePositiveRate(double knownLoginFilterFalsePositiveRate) {
+        checkAccess();
+        this.knownLoginFilterFalsePositiveRate = knownLoginFilterFalsePositiveRate;
+        return this;
+    }
+
+    public UsmanConfigurer knownLoginFilterRebuildMinutes(long knownLoginFilterRebuildMinutes) {
+        checkAccess();
+        this.knownLoginFilterRebuildMinutes = knownLoginFilterRebuildMinutes;
+        return this;
+    }
+
+    public UsmanConfigurer knownLoginFilterRefreshSeconds(long knownLoginFilterRefreshSeconds) {
+        checkAccess();
+        this.knownLoginFilterRefreshSeconds = knownLoginFilterRefreshSeconds;
+        return this;
+    }
+
+    public UsmanConfigurer knownLoginFilterMaxStalenessSeconds(long knownLoginFilterMaxStalenessSeconds) {
+        checkAccess();
+        this.knownLoginFilterMaxStalenessSeconds = knownLoginFilterMaxStalenessSeconds;
+        return this;
+    }
+
     public UsmanConfigurer rememberMeTokenValiditySeconds(int rememberMeTokenValiditySeconds) {
         checkAccess();
         this.rememberMeTokenValiditySeconds = rememberMeTokenValiditySeconds;
@@ -213,6 +605,190 @@ public class UsmanConfigurer {
         return authFailureBlockTimeMinutes;
     }
 
+    public int getAuthFailureWindowMinutes() {
+        return authFailureWindowMinutes;
+    }
+
+    public int getAuthFailureTrackerCapacity() {
+        return authFailureTrackerCapacity;
+    }
+
+    public List<String> getBlockedIpRanges() {
+        return Collections.unmodifiableList(blockedIpRanges);
+    }
+
+    public int getIpv6BanPrefixLength() {
+        return ipv6BanPrefixLength;
+    }
+
+    public boolean isPasswordVerificationOffloaded() {
+        return passwordVerificationOffloaded;
+    }
+
+    public int getPasswordVerificationConcurrency() {
+        return passwordVerificationConcurrency;
+    }
+
+    public int getPasswordVerificationQueueLimit() {
+        return passwordVerificationQueueLimit;
+    }
+
+    public long getPasswordVerificationWaitTimeoutMillis() {
+        return passwordVerificationWaitTimeoutMillis;
+    }
+
+    public boolean isPasswordVerificationVirtualThreads() {
+        return passwordVerificationVirtualThreads;
+    }
+
+    public int getPasswordHashStrength() {
+        return passwordHashStrength;
+    }
+
+    public long getPasswordHashCalibrationTargetMillis() {
+        return passwordHashCalibrationTargetMillis;
+    }
+
+    public long getPasswordRehashPlanIntervalMinutes() {
+        return passwordRehashPlanIntervalMinutes;
+    }
+
+    public boolean isUserCacheEnabled() {
+        return userCacheEnabled;
+    }
+
+    public int getUserCacheMaxSize() {
+        return userCacheMaxSize;
+    }
+
+    public long getUserCacheTtlSeconds() {
+        return userCacheTtlSeconds;
+    }
+
+    public long getUserCacheRefreshAfterSeconds() {
+        return userCacheRefreshAfterSeconds;
+    }
+
+    public int getEventRecorderBufferSize() {
+        return eventRecorderBufferSize;
+    }
+
+    public int getEventRecorderBatchSize() {
+        return eventRecorderBatchSize;
+    }
+
+    public long getEventRecorderFlushIntervalMillis() {
+        return eventRecorderFlushIntervalMillis;
+    }
+
+    public EventOverflowPolicy getEventRecorderOverflowPolicy() {
+        return eventRecorderOverflowPolicy;
+    }
+
+    public String getEventRecorderSpillDirectory() {
+        return eventRecorderSpillDirectory;
+    }
+
+    public int getEventRetentionMonths() {
+        return eventRetentionMonths;
+    }
+
+    public long getEventRetentionCheckIntervalMinutes() {
+        return eventRetentionCheckIntervalMinutes;
+    }
+
+    public int getEventRetentionBatchSize() {
+        return eventRetentionBatchSize;
+    }
+
+    public long getEventRetentionPauseMillis() {
+        return eventRetentionPauseMillis;
+    }
+
+    public long getEventRollupFlushIntervalMillis() {
+        return eventRollupFlushIntervalMillis;
+    }
+
+    public int getEventRollupMinuteRetentionHours() {
+        return eventRollupMinuteRetentionHours;
+    }
+
+    public int getEventRollupMaxPendingCounters() {
+        return eventRollupMaxPendingCounters;
+    }
+
+    public CsrfTokenMode getCsrfTokenMode() {
+        return csrfTokenMode;
+    }
+
+    public int getCsrfKeyRingSize() {
+        return csrfKeyRingSize;
+    }
+
+    public long getCsrfKeyRotationHours() {
+        return csrfKeyRotationHours;
+    }
+
+    public int getCsrfCacheMaxUsers() {
+        return csrfCacheMaxUsers;
+    }
+
+    public int getCsrfCacheMaxTokensPerUser() {
+        return csrfCacheMaxTokensPerUser;
+    }
+
+    public long getTokenReaperIntervalMinutes() {
+        return tokenReaperIntervalMinutes;
+    }
+
+    public int getTokenReaperBatchSize() {
+        return tokenReaperBatchSize;
+    }
+
+    public long getTokenReaperPauseMillis() {
+        return tokenReaperPauseMillis;
+    }
+
+    public double getRememberMeRefreshFraction() {
+        return rememberMeRefreshFraction;
+    }
+
+    public long getRememberMeKeyRotationHours() {
+        return rememberMeKeyRotationHours;
+    }
+
+    public boolean isSchemaInitAsync() {
+        return schemaInitAsync;
+    }
+
+    public long getSchemaInitTimeoutSeconds() {
+        return schemaInitTimeoutSeconds;
+    }
+
+    public boolean isKnownLoginFilterEnabled() {
+        return knownLoginFilterEnabled;
+    }
+
+    public int getKnownLoginFilterExpectedUsers() {
+        return knownLoginFilterExpectedUsers;
+    }
+
+    public double getKnownLoginFilterFalsePositiveRate() {
+        return knownLoginFilterFalsePositiveRate;
+    }
+
+    public long getKnownLoginFilterRebuildMinutes() {
+        return knownLoginFilterRebuildMinutes;
+    }
+
+    public long getKnownLoginFilterRefreshSeconds() {
+        return knownLoginFilterRefreshSeconds;
+    }
+
+    public long getKnownLoginFilterMaxStalenessSeconds() {
+        return knownLoginFilterMaxStalenessSeconds;
+    }
+
     public int getRememberMeTokenValiditySeconds() {
         return rememberMeTokenValiditySeconds;
     }
@@ -242,7 +818,39 @@ public class UsmanConfigurer {
                 + '\'' + ", permissions=" + permissions + ", resourceHandlers=" + resourceHandlers + ", csrfEnabled="
                 + csrfEnabled + ", configured=" + configured + ", registrationAllowed=" + registrationAllowed
                 + ", maxAuthFailureCount=" + maxAuthFailureCount + ", authFailureBlockTimeMinutes="
-                + authFailureBlockTimeMinutes + '}';
+                + authFailureBlockTimeMinutes + ", authFailureWindowMinutes=" + authFailureWindowMinutes
+                + ", authFailureTrackerCapacity=" + authFailureTrackerCapacity + ", blockedIpRanges=" + blockedIpRanges
+                + ", ipv6BanPrefixLength=" + ipv6BanPrefixLength + ", passwordVerificationOffloaded="
+                + passwordVerificationOffloaded + ", passwordVerificationConcurrency=" + passwordVerificationConcurrency
+                + ", passwordVerificationQueueLimit=" + passwordVerificationQueueLimit
+                + ", passwordVerificationWaitTimeoutMillis=" + passwordVerificationWaitTimeoutMillis
+                + ", passwordVerificationVirtualThreads=" + passwordVerificationVirtualThreads
+                + ", passwordHashStrength=" + passwordHashStrength + ", passwordHashCalibrationTargetMillis="
+                + passwordHashCalibrationTargetMillis + ", passwordRehashPlanIntervalMinutes="
+                + passwordRehashPlanIntervalMinutes + ", userCacheEnabled=" + userCacheEnabled + ", userCacheMaxSize="
+                + userCacheMaxSize + ", userCacheTtlSeconds=" + userCacheTtlSeconds + ", userCacheRefreshAfterSeconds="
+                + userCacheRefreshAfterSeconds + ", eventRecorderBufferSize=" + eventRecorderBufferSize
+                + ", eventRecorderBatchSize=" + eventRecorderBatchSize + ", eventRecorderFlushIntervalMillis="
+                + eventRecorderFlushIntervalMillis + ", eventRecorderOverflowPolicy=" + eventRecorderOverflowPolicy
+                + ", eventRecorderSpillDirectory=" + eventRecorderSpillDirectory + ", eventRetentionMonths="
+                + eventRetentionMonths + ", eventRetentionCheckIntervalMinutes=" + eventRetentionCheckIntervalMinutes
+                + ", eventRetentionBatchSize=" + eventRetentionBatchSize + ", eventRetentionPauseMillis="
+                + eventRetentionPauseMillis
+                + ", eventRollupFlushIntervalMillis=" + eventRollupFlushIntervalMillis
+                + ", eventRollupMinuteRetentionHours=" + eventRollupMinuteRetentionHours
+                + ", eventRollupMaxPendingCounters=" + eventRollupMaxPendingCounters + ", csrfTokenMode="
+                + csrfTokenMode + ", csrfKeyRingSize=" + csrfKeyRingSize + ", csrfKeyRotationHours="
+                + csrfKeyRotationHours + ", csrfCacheMaxUsers=" + csrfCacheMaxUsers
+                + ", csrfCacheMaxTokensPerUser=" + csrfCacheMaxTokensPerUser + ", tokenReaperIntervalMinutes="
+                + tokenReaperIntervalMinutes + ", tokenReaperBatchSize=" + tokenReaperBatchSize
+                + ", tokenReaperPauseMillis=" + tokenReaperPauseMillis + ", rememberMeRefreshFraction="
+                + rememberMeRefreshFraction + ", rememberMeKeyRotationHours=" + rememberMeKeyRotationHours
+                + ", schemaInitAsync=" + schemaInitAsync + ", schemaInitTimeoutSeconds=" + schemaInitTimeoutSeconds
+                + ", knownLoginFilterEnabled=" + knownLoginFilterEnabled + ", knownLoginFilterExpectedUsers="
+                + knownLoginFilterExpectedUsers + ", knownLoginFilterFalsePositiveRate="
+                + knownLoginFilterFalsePositiveRate + ", knownLoginFilterRebuildMinutes="
+                + knownLoginFilterRebuildMinutes + ", knownLoginFilterRefreshSeconds=" + knownLoginFilterRefreshSeconds
+                + ", knownLoginFilterMaxStalenessSeconds=" + knownLoginFilterMaxStalenessSeconds + '}';
     }
 
     void changeSecureService(SecureService secureService) {
@@ -1,5 +1,6 @@
 package com.github.vssavin.usmancore.config;
 
+import com.github.vssavin.usmancore.data.pool.UsmanPooledDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,8 +10,6 @@ import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
 import javax.sql.DataSource;
-import java.util.Collections;
-import java.util.List;
 
 /**
  * Configuration of user management data sources.
@@ -52,13 +51,10 @@ public class UsmanDataSourceConfig {
         catch (Exception e) {
             log.error("Creating datasource error: ", e);
         }
-        this.usmanDatasource = dataSource;
+        // the schema is initialized once by DefaultBeansConfig.schemaInitializer
+        this.usmanDatasource = usmanDatabaseConfig.isPoolEnabled() ? createPooledDataSource(dataSource) : dataSource;
 
-        SqlScriptExecutor sqlScriptExecutor = new SqlScriptExecutor(usmanDatasource);
-        List<String> script = Collections.singletonList("init.sql");
-        sqlScriptExecutor.executeSqlScriptsFromResource(UsmanDataSourceConfig.class, script, "");
-
-        return dataSource;
+        return this.usmanDatasource;
     }
 
     @Bean
@@ -79,6 +75,21 @@ public class UsmanDataSourceConfig {
         return routingDataSource;
     }
 
+    private DataSource createPooledDataSource(DataSource targetDataSource) {
+        UsmanPooledDataSource pooledDataSource = UsmanPooledDataSource.builder(targetDataSource)
+            .minSize(usmanDatabaseConfig.getPoolMinSize())
+            .maxSize(usmanDatabaseConfig.getPoolMaxSize())
+            .acquireTimeoutMillis(usmanDatabaseConfig.getPoolAcquireTimeoutMillis())
+            .idleTimeoutMillis(usmanDatabaseConfig.getPoolIdleTimeoutMillis())
+            .validationTimeoutSeconds(usmanDatabaseConfig.getPoolValidationTimeoutSeconds())
+            .validationIntervalMillis(usmanDatabaseConfig.getPoolValidationIntervalMillis())
+            .statementCacheSize(usmanDatabaseConfig.getPoolStatementCacheSize())
+            .build();
+        log.debug("Using pooled user management datasource: minSize = {}, maxSize = {}",
+                usmanDatabaseConfig.getPoolMinSize(), usmanDatabaseConfig.getPoolMaxSize());
+        return pooledDataSource;
+    }
+
     private void setDatasourcePassword(DriverManagerDataSource dataSource,
             UsmanPasswordEncodingArgumentsHandler argumentsHandler) {
         if (argumentsHandler.isDbPasswordEncoded()) {
@@ -1,9 +1,12 @@
 package com.github.vssavin.usmancore.config;
 
+import com.github.vssavin.usmancore.data.IdSequences;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 
+import java.util.Properties;
+
 /**
  * Configuration of user management database params.
  *
@@ -37,6 +40,33 @@ public class UsmanDatabaseConfig {
     @Value("${usman.db.additionalParams}")
     private String additionalParams;
 
+    @Value("${usman.db.pool.enabled:false}")
+    private boolean poolEnabled;
+
+    @Value("${usman.db.pool.minSize:2}")
+    private int poolMinSize;
+
+    @Value("${usman.db.pool.maxSize:10}")
+    private int poolMaxSize;
+
+    @Value("${usman.db.pool.acquireTimeoutMillis:30000}")
+    private long poolAcquireTimeoutMillis;
+
+    @Value("${usman.db.pool.idleTimeoutMillis:600000}")
+    private long poolIdleTimeoutMillis;
+
+    @Value("${usman.db.pool.validationTimeoutSeconds:5}")
+    private int poolValidationTimeoutSeconds;
+
+    @Value("${usman.db.pool.validationIntervalMillis:5000}")
+    private long poolValidationIntervalMillis;
+
+    @Value("${usman.db.pool.statementCacheSize:64}")
+    private int poolStatementCacheSize;
+
+    @Value("${usman.db.jdbcBatchSize:" + IdSequences.ALLOCATION_SIZE + "}")
+    private int jdbcBatchSize;
+
     public String getUrl() {
         return url;
     }
@@ -93,4 +123,92 @@ public class UsmanDatabaseConfig {
         this.additionalParams = additionalParams;
     }
 
+    public boolean isPoolEnabled() {
+        return poolEnabled;
+    }
+
+    public void setPoolEnabled(boolean poolEnabled) {
+        this.poolEnabled = poolEnabled;
+    }
+
+    public int getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    public void setPoolMinSize(int poolMinSize) {
+        this.poolMinSize = poolMinSize;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public void setPoolMaxSize(int poolMaxSize) {
+        this.poolMaxSize = poolMaxSize;
+    }
+
+    public long getPoolAcquireTimeoutMillis() {
+        return poolAcquireTimeoutMillis;
+    }
+
+    public void setPoolAcquireTimeoutMillis(long poolAcquireTimeoutMillis) {
+        this.poolAcquireTimeoutMillis = poolAcquireTimeoutMillis;
+    }
+
+    public long getPoolIdleTimeoutMillis() {
+        return poolIdleTimeoutMillis;
+    }
+
+    public void setPoolIdleTimeoutMillis(long poolIdleTimeoutMillis) {
+        this.poolIdleTimeoutMillis = poolIdleTimeoutMillis;
+    }
+
+    public int getPoolValidationTimeoutSeconds() {
+        return poolValidationTimeoutSeconds;
+    }
+
+    public void setPoolValidationTimeoutSeconds(int poolValidationTimeoutSeconds) {
+        this.poolValidationTimeoutSeconds = poolValidationTimeoutSeconds;
+    }
+
+    public long getPoolValidationIntervalMillis() {
+        return poolValidationIntervalMillis;
+    }
+
+    public void setPoolValidationIntervalMillis(long poolValidationIntervalMillis) {
+        this.poolValidationIntervalMillis = poolValidationIntervalMillis;
+    }
+
+    public int getPoolStatementCacheSize() {
+        return poolStatementCacheSize;
+    }
+
+    public void setPoolStatementCacheSize(int poolStatementCacheSize) {
+        this.poolStatementCacheSize = poolStatementCacheSize;
+    }
+
+    public int getJdbcBatchSize() {
+        return jdbcBatchSize;
+    }
+
+    public void setJdbcBatchSize(int jdbcBatchSize) {
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    /**
+     * Returns Hibernate properties enabling JDBC batching for the user management entities.
+     * The library does not create the entity manager factory, so the application declaring it
+     * must add these properties to its JPA properties, otherwise entities are written one
+     * statement at a time.
+     * @return JDBC batching properties
+     */
+    public Properties getJpaBatchProperties() {
+        Properties properties = new Properties();
+        properties.put("hibernate.jdbc.batch_size", String.valueOf(jdbcBatchSize));
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        properties.put("hibernate.jdbc.batch_versioned_data", "true");
+        return properties;
+    }
+
 }
@@ -0,0 +1,123 @@
+package com.github.vssavin.usmancore.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+
+/**
+ * Removes rows in small chunks until a chunk smaller than the batch size is removed. Every
+ * chunk is expected to run in its own short transaction and chunks are separated by a
+ * pause, so a table is never locked for long and the write-ahead log grows gradually. A
+ * failed chunk (e.g. a lock timeout) is retried with an exponentially growing pause, the
+ * removal is abandoned after a few failures in a row and continued by the next run.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class ChunkedRemoval {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedRemoval.class);
+
+    private static final int MAX_FAILURES = 5;
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final int batchSize;
+
+    private final long pauseMillis;
+
+    /**
+     * Creates a removal.
+     * @param batchSize maximal number of rows removed by a chunk
+     * @param pauseMillis pause between chunks, 0 removes chunks one after another
+     */
+    public ChunkedRemoval(int batchSize, long pauseMillis) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive!");
+        }
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * Removes chunks until all matching rows are removed or the removal is abandoned.
+     * @param description what is removed, for the log
+     * @param chunk removal of a single chunk
+     * @return result of the removal
+     * @throws InterruptedException if interrupted while pausing between chunks
+     */
+    public Result removeAll(String description, Chunk chunk) throws InterruptedException {
+        long removed = 0;
+        int failures = 0;
+        long backoffMillis = Math.max(pauseMillis, 1);
+        while (!Thread.currentThread().isInterrupted()) {
+            int chunkSize;
+            try {
+                chunkSize = chunk.remove(batchSize);
+                failures = 0;
+                backoffMillis = Math.max(pauseMillis, 1);
+            }
+            catch (SQLException e) {
+                if (++failures >= MAX_FAILURES) {
+                    log.warn("Removal of {} failed {} times, postponed to the next run!", description, failures, e);
+                    return new Result(removed, false);
+                }
+                log.debug("Removal of {} failed, retrying in {} ms", description, backoffMillis, e);
+                Thread.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+                continue;
+            }
+            removed += chunkSize;
+            if (chunkSize < batchSize) {
+                return new Result(removed, true);
+            }
+            if (pauseMillis > 0) {
+                Thread.sleep(pauseMillis);
+            }
+        }
+        return new Result(removed, false);
+    }
+
+    /**
+     * Removal of a single chunk in its own transaction.
+     */
+    @FunctionalInterface
+    public interface Chunk {
+
+        /**
+         * Removes the next chunk.
+         * @param batchSize maximal number of rows to remove
+         * @return number of removed rows
+         * @throws SQLException if the chunk can't be removed, the transaction must be rolled
+         * back
+         */
+        int remove(int batchSize) throws SQLException;
+
+    }
+
+    public static final class Result {
+
+        private final long removed;
+
+        private final boolean completed;
+
+        private Result(long removed, boolean completed) {
+            this.removed = removed;
+            this.completed = completed;
+        }
+
+        public long getRemoved() {
+            return removed;
+        }
+
+        /**
+         * Returns whether all matching rows are removed.
+         * @return false if the removal was abandoned or interrupted
+         */
+        public boolean isCompleted() {
+            return completed;
+        }
+
+    }
+
+}
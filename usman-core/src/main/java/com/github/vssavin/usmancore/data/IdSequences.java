@@ -0,0 +1,119 @@
+package com.github.vssavin.usmancore.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Id sequences of the user management tables. Entities take ids from these sequences with
+ * a pooled optimizer (one sequence call per {@link #ALLOCATION_SIZE} rows), so Hibernate
+ * can batch inserts, which is impossible with identity columns.
+ *
+ * <p>
+ * Sequences are created by {@link #initialize(DataSource)}. For an existing database the
+ * sequence starts after the largest id of its table, so rows inserted through identity
+ * columns before the migration keep their ids.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public final class IdSequences {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequences.class);
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String USERS_SEQUENCE = "users_seq";
+
+    public static final String EVENTS_SEQUENCE = "events_seq";
+
+    public static final String REMEMBER_ME_TOKENS_SEQUENCE = "rememberme_tokens_seq";
+
+    public static final String CSRF_TOKENS_SEQUENCE = "csrf_tokens_seq";
+
+    private static final String SEQUENCE_EXISTS_QUERY = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES "
+            + "WHERE UPPER(SEQUENCE_NAME) = ?";
+
+    private static final Map<String, String> TABLE_SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        TABLE_SEQUENCES.put("users", USERS_SEQUENCE);
+        TABLE_SEQUENCES.put("events", EVENTS_SEQUENCE);
+        TABLE_SEQUENCES.put("rememberme_tokens", REMEMBER_ME_TOKENS_SEQUENCE);
+        TABLE_SEQUENCES.put("csrf_tokens", CSRF_TOKENS_SEQUENCE);
+    }
+
+    private IdSequences() {
+
+    }
+
+    /**
+     * Creates missing id sequences. A new sequence starts at {@code max(id) + ALLOCATION_SIZE}
+     * of its table, because the pooled optimizer uses the sequence value as the upper bound
+     * of the allocated block. Existing sequences are left as is, so it is safe to call this
+     * on every start, also from several nodes at once.
+     * @param dataSource user management data source, tables must exist
+     */
+    public static void initialize(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            for (Map.Entry<String, String> entry : TABLE_SEQUENCES.entrySet()) {
+                String table = entry.getKey();
+                String sequence = entry.getValue();
+                if (!sequenceExists(connection, sequence)) {
+                    long start = maxId(connection, table) + ALLOCATION_SIZE;
+                    try (Statement statement = connection.createStatement()) {
+                        // another node may create the sequence at the same time
+                        statement.execute(String.format("CREATE SEQUENCE IF NOT EXISTS %s START WITH %d INCREMENT BY %d",
+                                sequence, start, ALLOCATION_SIZE));
+                    }
+                    log.info("Created id sequence {} for table {} starting with {}", sequence, table, start);
+                }
+            }
+        }
+        catch (SQLException e) {
+            throw new IllegalStateException("Initializing id sequences error!", e);
+        }
+    }
+
+    /**
+     * Returns the SQL expression taking the next value of the sequence. Inserts made with
+     * plain JDBC should take ids with {@link PooledIdAllocator}, a whole sequence value per
+     * row would waste {@link #ALLOCATION_SIZE} ids.
+     * @param connection database connection
+     * @param sequence sequence name
+     * @return next value expression
+     * @throws SQLException if a database access error occurs
+     */
+    public static String nextValueExpression(Connection connection, String sequence) throws SQLException {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        if (productName != null && productName.toLowerCase(Locale.ROOT).contains("postgres")) {
+            return "nextval('" + sequence + "')";
+        }
+        return "NEXT VALUE FOR " + sequence;
+    }
+
+    private static boolean sequenceExists(Connection connection, String sequence) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SEQUENCE_EXISTS_QUERY)) {
+            statement.setString(1, sequence.toUpperCase(Locale.ROOT));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getLong(1) > 0;
+            }
+        }
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT MAX(id) FROM " + table)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.github.vssavin.usmancore.data;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Allocates ids from one of the {@link IdSequences} for inserts made with plain JDBC, the
+ * same way the pooled optimizer of Hibernate does: a sequence value is the upper bound of a
+ * block of {@link IdSequences#ALLOCATION_SIZE} ids, so the sequence is called once per
+ * block and ids allocated here never collide with ids allocated by entities.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class PooledIdAllocator {
+
+    private final String sequence;
+
+    private long nextId;
+
+    private long maxId = -1;
+
+    public PooledIdAllocator(String sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Returns the next id, calls the sequence if the current block is used up.
+     * @param connection connection the sequence is called with
+     * @return next id
+     * @throws SQLException if the sequence call fails
+     */
+    public synchronized long next(Connection connection) throws SQLException {
+        if (nextId > maxId) {
+            try (Statement statement = connection.createStatement();
+                    ResultSet resultSet = statement
+                        .executeQuery("SELECT " + IdSequences.nextValueExpression(connection, sequence))) {
+                resultSet.next();
+                maxId = resultSet.getLong(1);
+                nextId = maxId - IdSequences.ALLOCATION_SIZE + 1;
+            }
+        }
+        return nextId++;
+    }
+
+}
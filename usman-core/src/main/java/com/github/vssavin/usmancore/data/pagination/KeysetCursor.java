@@ -0,0 +1,125 @@
+package com.github.vssavin.usmancore.data.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Position of a keyset page: the sort key of the last returned row. The position is either
+ * an id or a (timestamp, id) pair, and is passed to clients as an opaque URL-safe token.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public final class KeysetCursor {
+
+    private static final String VERSION = "v1";
+
+    private static final String SEPARATOR = "|";
+
+    private final Timestamp timestamp;
+
+    private final long id;
+
+    private KeysetCursor(Timestamp timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    public static KeysetCursor of(long id) {
+        return new KeysetCursor(null, id);
+    }
+
+    public static KeysetCursor of(Date timestamp, long id) {
+        Objects.requireNonNull(timestamp, "Timestamp must not be null!");
+        Timestamp copy;
+        if (timestamp instanceof Timestamp) {
+            copy = new Timestamp(timestamp.getTime());
+            copy.setNanos(((Timestamp) timestamp).getNanos());
+        }
+        else {
+            copy = new Timestamp(timestamp.getTime());
+        }
+        return new KeysetCursor(copy, id);
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()}.
+     * @param token cursor token
+     * @return decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Page cursor must not be empty!");
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Wrong page cursor: " + token, e);
+        }
+        if (!VERSION.equals(parts[0]) || (parts.length != 2 && parts.length != 4)) {
+            throw new IllegalArgumentException("Wrong page cursor: " + token);
+        }
+        try {
+            if (parts.length == 2) {
+                return new KeysetCursor(null, Long.parseLong(parts[1]));
+            }
+            Timestamp timestamp = new Timestamp(Long.parseLong(parts[1]));
+            timestamp.setNanos(Integer.parseInt(parts[2]));
+            return new KeysetCursor(timestamp, Long.parseLong(parts[3]));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Wrong page cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        String value = timestamp == null ? VERSION + SEPARATOR + id
+                : VERSION + SEPARATOR + timestamp.getTime() + SEPARATOR + timestamp.getNanos() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the timestamp of the position.
+     * @return timestamp with nanoseconds or null if the position is an id only
+     */
+    public Timestamp getTimestamp() {
+        if (timestamp == null) {
+            return null;
+        }
+        Timestamp copy = new Timestamp(timestamp.getTime());
+        copy.setNanos(timestamp.getNanos());
+        return copy;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return id == that.id && Objects.equals(timestamp, that.timestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestamp, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" + "timestamp=" + timestamp + ", id=" + id + '}';
+    }
+
+}
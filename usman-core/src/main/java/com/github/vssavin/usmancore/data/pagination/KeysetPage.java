@@ -0,0 +1,87 @@
+package com.github.vssavin.usmancore.data.pagination;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Page of a keyset (seek) pagination. Unlike {@link Paged} it has no page numbers and no
+ * total count: the next page is requested with the {@link #getNextCursor() next cursor}
+ * token, so deep pages cost the same as the first one.
+ *
+ * @param <T> the type of the paged element.
+ * @author vssavin on 16.10.2026.
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates a page from rows fetched with the limit {@code pageSize + 1}: the extra row
+     * only signals that the next page exists.
+     * @param rows fetched rows, ordered by the keyset
+     * @param pageSize page size
+     * @param cursorExtractor returns the keyset position of a row
+     * @param <T> the type of the paged element
+     * @return keyset page
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, KeysetCursor> cursorExtractor) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, cursorExtractor.apply(items.get(pageSize - 1)).encode());
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the token of the next page.
+     * @return encoded {@link KeysetCursor} or null if this page is the last one
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetPage<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPage{" + "items=" + items + ", nextCursor='" + nextCursor + '\'' + '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KeysetPage<?> that = (KeysetPage<?>) o;
+        return items.equals(that.items) && Objects.equals(nextCursor, that.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(items, nextCursor);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.github.vssavin.usmancore.data.pool;
+
+import com.github.vssavin.usmancore.metrics.LatencyHistogram;
+
+/**
+ * Point-in-time metrics of the {@link UsmanPooledDataSource}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class PoolMetrics {
+
+    private final int active;
+
+    private final int idle;
+
+    private final int waiting;
+
+    private final int total;
+
+    private final long timeouts;
+
+    private final long evicted;
+
+    private final LatencyHistogram.Snapshot acquisitionTime;
+
+    PoolMetrics(int active, int idle, int waiting, int total, long timeouts, long evicted,
+            LatencyHistogram.Snapshot acquisitionTime) {
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.total = total;
+        this.timeouts = timeouts;
+        this.evicted = evicted;
+        this.acquisitionTime = acquisitionTime;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getEvicted() {
+        return evicted;
+    }
+
+    public LatencyHistogram.Snapshot getAcquisitionTime() {
+        return acquisitionTime;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" + "active=" + active + ", idle=" + idle + ", waiting=" + waiting + ", total=" + total
+                + ", timeouts=" + timeouts + ", evicted=" + evicted + ", acquisitionTime=" + acquisitionTime + '}';
+    }
+
+}
@@ -0,0 +1,615 @@
+package com.github.vssavin.usmancore.data.pool;
+
+import com.github.vssavin.usmancore.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link javax.sql.DataSource} that keeps a bounded pool of physical connections
+ * obtained from a target (non-pooled) data source. Supports idle eviction, validation of
+ * connections that have been idle for a while, a per-connection prepared statement cache
+ * and exposes pool metrics through {@link #getMetrics()}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class UsmanPooledDataSource implements DataSource, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(UsmanPooledDataSource.class);
+
+    private static final String CONNECTION_CLOSED_MESSAGE = "Connection is closed!";
+
+    private static final String CONNECTION_ERROR_SQL_STATE_PREFIX = "08";
+
+    private final DataSource targetDataSource;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long acquireTimeoutMillis;
+
+    private final long idleTimeoutMillis;
+
+    private final int validationTimeoutSeconds;
+
+    private final long validationIntervalMillis;
+
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+
+    private final Semaphore permits;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder evicted = new LongAdder();
+
+    private final LatencyHistogram acquisitionTime = new LatencyHistogram();
+
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile boolean closed;
+
+    private UsmanPooledDataSource(Builder builder) {
+        this.targetDataSource = builder.targetDataSource;
+        this.minSize = builder.minSize;
+        this.maxSize = builder.maxSize;
+        this.acquireTimeoutMillis = builder.acquireTimeoutMillis;
+        this.idleTimeoutMillis = builder.idleTimeoutMillis;
+        this.validationTimeoutSeconds = builder.validationTimeoutSeconds;
+        this.validationIntervalMillis = builder.validationIntervalMillis;
+        this.statementCacheSize = builder.statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "usman-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        this.housekeeper.execute(this::fillPool);
+        this.housekeeper.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder(DataSource targetDataSource) {
+        return new Builder(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        checkOpen();
+        long start = System.nanoTime();
+        boolean acquired;
+        waitingThreads.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection!", e);
+        }
+        finally {
+            waitingThreads.decrementAndGet();
+        }
+
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException(
+                    String.format("Connection is not available, request timed out after %d ms!", acquireTimeoutMillis));
+        }
+
+        try {
+            PooledConnection pooledConnection = takeConnection();
+            activeConnections.incrementAndGet();
+            acquisitionTime.recordNanos(System.nanoTime() - start);
+            return pooledConnection.lease();
+        }
+        catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled data source does not support per-call credentials!");
+    }
+
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(activeConnections.get(), idleConnections.size(), waitingThreads.get(),
+                totalConnections.get(), timeouts.sum(), evicted.sum(), acquisitionTime.snapshot());
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            destroy(pooledConnection);
+        }
+        log.debug("Connection pool closed, active connections will be closed when returned: {}",
+                activeConnections.get());
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return targetDataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        targetDataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        targetDataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return targetDataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return targetDataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return targetDataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || targetDataSource.isWrapperFor(iface);
+    }
+
+    private PooledConnection takeConnection() throws SQLException {
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            if (isUsable(pooledConnection)) {
+                return pooledConnection;
+            }
+            destroy(pooledConnection);
+        }
+        return createConnection();
+    }
+
+    private boolean isUsable(PooledConnection pooledConnection) {
+        if (System.currentTimeMillis() - pooledConnection.lastUsed < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return pooledConnection.physical.isValid(validationTimeoutSeconds);
+        }
+        catch (SQLException e) {
+            log.debug("Connection validation failed!", e);
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = targetDataSource.getConnection();
+        totalConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pooledConnection, boolean broken) {
+        activeConnections.decrementAndGet();
+        if (closed || broken) {
+            destroy(pooledConnection);
+        }
+        else {
+            pooledConnection.lastUsed = System.currentTimeMillis();
+            idleConnections.offerFirst(pooledConnection);
+            if (closed && idleConnections.remove(pooledConnection)) {
+                destroy(pooledConnection);
+            }
+        }
+        permits.release();
+    }
+
+    private void destroy(PooledConnection pooledConnection) {
+        totalConnections.decrementAndGet();
+        pooledConnection.closePhysical();
+    }
+
+    private void maintain() {
+        try {
+            evictIdleConnections();
+            fillPool();
+        }
+        catch (RuntimeException e) {
+            log.warn("Connection pool maintenance error!", e);
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() && totalConnections.get() > minSize) {
+            PooledConnection pooledConnection = iterator.next();
+            if (now - pooledConnection.lastUsed > idleTimeoutMillis && idleConnections.remove(pooledConnection)) {
+                evicted.increment();
+                destroy(pooledConnection);
+            }
+        }
+    }
+
+    private void fillPool() {
+        while (!closed && totalConnections.get() < minSize && permits.tryAcquire()) {
+            try {
+                PooledConnection pooledConnection = createConnection();
+                pooledConnection.lastUsed = System.currentTimeMillis();
+                idleConnections.offerLast(pooledConnection);
+            }
+            catch (SQLException e) {
+                log.warn("Unable to open a connection to fill the pool up to its minimum size!", e);
+                break;
+            }
+            finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Data source is closed!");
+        }
+    }
+
+    private static boolean isConnectionError(Throwable throwable) {
+        if (throwable instanceof SQLException) {
+            String sqlState = ((SQLException) throwable).getSQLState();
+            return sqlState != null && sqlState.startsWith(CONNECTION_ERROR_SQL_STATE_PREFIX);
+        }
+        return false;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        }
+        catch (Exception e) {
+            log.trace("Closing resource error!", e);
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+
+        private final boolean defaultAutoCommit;
+
+        private final boolean defaultReadOnly;
+
+        private final Map<String, PreparedStatement> statementCache;
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultAutoCommit = physical.getAutoCommit();
+            this.defaultReadOnly = physical.isReadOnly();
+            this.statementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > statementCacheSize) {
+                        closeQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(UsmanPooledDataSource.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new LeasedConnectionHandler(this));
+        }
+
+        private synchronized PreparedStatement prepareCached(String sql, Connection owner) throws SQLException {
+            PreparedStatement statement = statementCache.remove(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = physical.prepareStatement(sql);
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(UsmanPooledDataSource.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new CachedStatementHandler(this, sql, statement, owner));
+        }
+
+        private synchronized void returnStatement(String sql, PreparedStatement statement) {
+            try {
+                if (!statement.isClosed() && !statementCache.containsKey(sql)) {
+                    statement.clearParameters();
+                    statement.clearBatch();
+                    statementCache.put(sql, statement);
+                }
+                else {
+                    statement.close();
+                }
+            }
+            catch (SQLException e) {
+                closeQuietly(statement);
+            }
+        }
+
+        private void resetState() throws SQLException {
+            if (physical.getAutoCommit() != defaultAutoCommit) {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                }
+                physical.setAutoCommit(defaultAutoCommit);
+            }
+            else if (!defaultAutoCommit) {
+                physical.rollback();
+            }
+            if (physical.isReadOnly() != defaultReadOnly) {
+                physical.setReadOnly(defaultReadOnly);
+            }
+            physical.clearWarnings();
+        }
+
+        private synchronized void closePhysical() {
+            statementCache.values().forEach(UsmanPooledDataSource::closeQuietly);
+            statementCache.clear();
+            closeQuietly(physical);
+        }
+
+    }
+
+    /**
+     * Handles calls to a leased connection proxy. Closing the proxy returns the physical
+     * connection to the pool.
+     */
+    private final class LeasedConnectionHandler implements InvocationHandler {
+
+        private final PooledConnection pooledConnection;
+
+        private boolean closed;
+
+        private boolean broken;
+
+        private LeasedConnectionHandler(PooledConnection pooledConnection) {
+            this.pooledConnection = pooledConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    closeLease();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooledConnection.physical + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException(CONNECTION_CLOSED_MESSAGE);
+            }
+
+            if (statementCacheSize > 0 && "prepareStatement".equals(method.getName()) && args.length == 1) {
+                return pooledConnection.prepareCached((String) args[0], (Connection) proxy);
+            }
+
+            try {
+                return method.invoke(pooledConnection.physical, args);
+            }
+            catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (isConnectionError(cause)) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        private void closeLease() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (!broken) {
+                try {
+                    pooledConnection.resetState();
+                }
+                catch (SQLException e) {
+                    log.debug("Resetting connection state error, the connection will be discarded!", e);
+                    broken = true;
+                }
+            }
+            release(pooledConnection, broken);
+        }
+
+    }
+
+    /**
+     * Handles calls to a cached prepared statement proxy. Closing the proxy returns the
+     * statement to the connection statement cache.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+
+        private final PooledConnection pooledConnection;
+
+        private final String sql;
+
+        private final PreparedStatement statement;
+
+        private final Connection owner;
+
+        private boolean closed;
+
+        private CachedStatementHandler(PooledConnection pooledConnection, String sql, PreparedStatement statement,
+                Connection owner) {
+            this.pooledConnection = pooledConnection;
+            this.sql = sql;
+            this.statement = statement;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pooledConnection.returnStatement(sql, statement);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + sql + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed!");
+            }
+
+            try {
+                return method.invoke(statement, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+    /**
+     * Builder of the {@link UsmanPooledDataSource}.
+     */
+    public static final class Builder {
+
+        private final DataSource targetDataSource;
+
+        private int minSize = 2;
+
+        private int maxSize = 10;
+
+        private long acquireTimeoutMillis = 30_000;
+
+        private long idleTimeoutMillis = 600_000;
+
+        private int validationTimeoutSeconds = 5;
+
+        private long validationIntervalMillis = 5_000;
+
+        private int statementCacheSize = 64;
+
+        private Builder(DataSource targetDataSource) {
+            this.targetDataSource = targetDataSource;
+        }
+
+        public Builder minSize(int minSize) {
+            this.minSize = minSize;
+            return this;
+        }
+
+        public Builder maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        public Builder acquireTimeoutMillis(long acquireTimeoutMillis) {
+            this.acquireTimeoutMillis = acquireTimeoutMillis;
+            return this;
+        }
+
+        public Builder idleTimeoutMillis(long idleTimeoutMillis) {
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            return this;
+        }
+
+        public Builder validationTimeoutSeconds(int validationTimeoutSeconds) {
+            this.validationTimeoutSeconds = validationTimeoutSeconds;
+            return this;
+        }
+
+        public Builder validationIntervalMillis(long validationIntervalMillis) {
+            this.validationIntervalMillis = validationIntervalMillis;
+            return this;
+        }
+
+        public Builder statementCacheSize(int statementCacheSize) {
+            this.statementCacheSize = statementCacheSize;
+            return this;
+        }
+
+        public UsmanPooledDataSource build() {
+            if (targetDataSource == null) {
+                throw new IllegalArgumentException("Target data source must not be null!");
+            }
+            if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+                throw new IllegalArgumentException(
+                        String.format("Wrong pool size: minSize = %d, maxSize = %d!", minSize, maxSize));
+            }
+            if (acquireTimeoutMillis < 0 || idleTimeoutMillis <= 0 || validationTimeoutSeconds < 0
+                    || statementCacheSize < 0) {
+                throw new IllegalArgumentException("Pool timeouts and statement cache size must not be negative!");
+            }
+            return new UsmanPooledDataSource(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.github.vssavin.usmancore.event;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Monthly buckets of the events table. The bucket of an event is stored in the
+ * {@code event_bucket} column as {@code year * 100 + month} of its timestamp, in the zone
+ * the timestamps are stored in. Indexes of the table lead with the bucket, so queries
+ * bounded by time read only the matching buckets and an expired bucket is found and
+ * removed in chunks along the bucket index, without scanning the retained events.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public final class EventBuckets {
+
+    private EventBuckets() {
+
+    }
+
+    public static int bucketOf(Date timestamp) {
+        return bucketOf(timestamp.getTime());
+    }
+
+    public static int bucketOf(long epochMillis) {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        return dateTime.getYear() * 100 + dateTime.getMonthValue();
+    }
+
+    /**
+     * Returns the oldest bucket kept by the retention policy.
+     * @param nowMillis current time
+     * @param retentionMonths number of months to keep, including the current one
+     * @return oldest retained bucket
+     */
+    public static int firstRetainedBucket(long nowMillis, int retentionMonths) {
+        int current = bucketOf(nowMillis);
+        YearMonth first = YearMonth.of(current / 100, current % 100).minusMonths(retentionMonths - 1L);
+        return first.getYear() * 100 + first.getMonthValue();
+    }
+
+}
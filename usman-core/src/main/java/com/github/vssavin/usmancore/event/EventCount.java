@@ -0,0 +1,52 @@
+package com.github.vssavin.usmancore.event;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Number of events in one bucket of a time series.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class EventCount {
+
+    private final Date bucketStart;
+
+    private final long count;
+
+    public EventCount(Date bucketStart, long count) {
+        this.bucketStart = new Date(bucketStart.getTime());
+        this.count = count;
+    }
+
+    public Date getBucketStart() {
+        return new Date(bucketStart.getTime());
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EventCount that = (EventCount) o;
+        return count == that.count && bucketStart.getTime() == that.bucketStart.getTime();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bucketStart.getTime(), count);
+    }
+
+    @Override
+    public String toString() {
+        return "EventCount{" + "bucketStart=" + bucketStart + ", count=" + count + '}';
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.github.vssavin.usmancore.event;
+
+/**
+ * Behaviour of the {@link EventRecorder} when its buffer is full.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public enum EventOverflowPolicy {
+
+    /**
+     * Waits for free space up to the configured timeout, then drops the event.
+     */
+    BLOCK,
+
+    /**
+     * Drops the event immediately.
+     */
+    DROP,
+
+    /**
+     * Appends the event to a local spill file, which is written to the database as soon
+     * as the buffer is drained.
+     */
+    SPILL
+
+}
@@ -0,0 +1,650 @@
+package com.github.vssavin.usmancore.event;
+
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import com.github.vssavin.usmancore.data.IdSequences;
+import com.github.vssavin.usmancore.data.PooledIdAllocator;
+import com.github.vssavin.usmancore.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind recorder of user events. Events are put into a bounded ring buffer and
+ * written by a single background thread with batched JDBC inserts, a batch is flushed when
+ * it is full or when the flush interval has passed since its first event. When the buffer
+ * is full the event is handled according to the {@link EventOverflowPolicy}. Spilled
+ * events are written to the database once the buffer is drained. On {@link #close()} the
+ * buffer is flushed before the writer thread stops.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class EventRecorder implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventRecorder.class);
+
+    private static final String INSERT_EVENT_QUERY = "INSERT INTO events(id, user_id, event_type, event_timestamp, "
+            + "event_message, event_bucket) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SPILL_FILE_NAME = "usman-events.spill";
+
+    private static final String REPLAY_FILE_NAME = "usman-events.replay";
+
+    private static final char FIELD_SEPARATOR = '\t';
+
+    private final DataSource dataSource;
+
+    private final BlockingQueue<EventRecord> buffer;
+
+    private final int bufferSize;
+
+    private final int batchSize;
+
+    private final long flushIntervalMillis;
+
+    private final EventOverflowPolicy overflowPolicy;
+
+    private final long blockTimeoutMillis;
+
+    private final long shutdownTimeoutMillis;
+
+    private final Path spillFile;
+
+    private final Path replayFile;
+
+    private final SchemaInitializer schemaInitializer;
+
+    private final Object spillLock = new Object();
+
+    private final LongAdder recorded = new LongAdder();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder spilled = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LatencyHistogram flushTime = new LatencyHistogram();
+
+    private final PooledIdAllocator idAllocator = new PooledIdAllocator(IdSequences.EVENTS_SEQUENCE);
+
+    private volatile boolean closed;
+
+    private Thread writer;
+
+    private EventRecorder(Builder builder) {
+        if (builder.bufferSize <= 0 || builder.batchSize <= 0 || builder.flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Buffer size, batch size and flush interval must be positive!");
+        }
+        this.dataSource = builder.dataSource;
+        this.bufferSize = builder.bufferSize;
+        this.buffer = new ArrayBlockingQueue<>(builder.bufferSize);
+        this.batchSize = builder.batchSize;
+        this.flushIntervalMillis = builder.flushIntervalMillis;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.blockTimeoutMillis = builder.blockTimeoutMillis;
+        this.shutdownTimeoutMillis = builder.shutdownTimeoutMillis;
+        this.spillFile = builder.spillDirectory.resolve(SPILL_FILE_NAME);
+        this.replayFile = builder.spillDirectory.resolve(REPLAY_FILE_NAME);
+        this.schemaInitializer = builder.schemaInitializer;
+    }
+
+    public static Builder builder(DataSource dataSource) {
+        return new Builder(dataSource);
+    }
+
+    public synchronized void start() {
+        if (writer != null || closed) {
+            return;
+        }
+        writer = new Thread(this::writeLoop, "usman-event-recorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Records the event. Never touches the database on the caller thread.
+     * @param userId user id
+     * @param eventType event type
+     * @param message event message
+     * @return true if the event was buffered or spilled, false if it was dropped
+     */
+    public boolean record(long userId, EventType eventType, String message) {
+        return record(userId, eventType, message, System.currentTimeMillis());
+    }
+
+    /**
+     * Records the event with the given time. Never touches the database on the caller
+     * thread.
+     * @param userId user id
+     * @param eventType event type
+     * @param message event message
+     * @param timestamp event time in milliseconds
+     * @return true if the event was buffered or spilled, false if it was dropped
+     */
+    public boolean record(long userId, EventType eventType, String message, long timestamp) {
+        EventRecord record = new EventRecord(userId, eventType.name(), new Timestamp(timestamp),
+                message == null ? "" : message);
+        recorded.increment();
+        if (!closed && buffer.offer(record)) {
+            return true;
+        }
+        return handleOverflow(record);
+    }
+
+    /**
+     * Stops accepting events, writes the buffered ones and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        Thread currentWriter;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            currentWriter = writer;
+        }
+        if (currentWriter != null) {
+            try {
+                currentWriter.join(flushIntervalMillis + shutdownTimeoutMillis);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<EventRecord> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        if (!rest.isEmpty()) {
+            if (currentWriter == null || !currentWriter.isAlive()) {
+                writeBatch(rest);
+            }
+            else if (overflowPolicy == EventOverflowPolicy.SPILL && spill(rest)) {
+                log.warn("Event writer is not stopped in time, {} events are spilled", rest.size());
+            }
+            else {
+                dropped.add(rest.size());
+                log.warn("Event writer is not stopped in time, {} events are lost", rest.size());
+            }
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(buffer.size(), bufferSize, recorded.sum(), written.sum(), dropped.sum(), spilled.sum(),
+                failed.sum(), batches.sum(), flushTime.snapshot());
+    }
+
+    private boolean handleOverflow(EventRecord record) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (!closed && buffer.offer(record, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            case SPILL:
+                if (spill(Collections.singletonList(record))) {
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void writeLoop() {
+        List<EventRecord> batch = new ArrayList<>(batchSize);
+        while (!closed || !buffer.isEmpty()) {
+            try {
+                collectBatch(batch);
+            }
+            catch (InterruptedException e) {
+                log.debug("Event writer interrupted");
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+            else if (overflowPolicy == EventOverflowPolicy.SPILL && !closed) {
+                replaySpilled();
+            }
+        }
+    }
+
+    private void collectBatch(List<EventRecord> batch) throws InterruptedException {
+        EventRecord first = buffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || closed || remaining <= 0) {
+                break;
+            }
+            EventRecord next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(List<EventRecord> batch) {
+        long start = System.nanoTime();
+        try {
+            insert(batch);
+        }
+        catch (SQLException e) {
+            log.error("Writing {} events error!", batch.size(), e);
+            if (overflowPolicy != EventOverflowPolicy.SPILL || !spill(batch)) {
+                failed.add(batch.size());
+            }
+        }
+        finally {
+            flushTime.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    private void insert(List<EventRecord> records) throws SQLException {
+        awaitSchema();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_EVENT_QUERY)) {
+                for (EventRecord record : records) {
+                    statement.setLong(1, idAllocator.next(connection));
+                    statement.setLong(2, record.userId);
+                    statement.setString(3, record.eventType);
+                    statement.setTimestamp(4, record.timestamp);
+                    statement.setString(5, record.message);
+                    statement.setInt(6, EventBuckets.bucketOf(record.timestamp));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            }
+            catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        written.add(records.size());
+        batches.increment();
+    }
+
+    private boolean spill(List<EventRecord> records) {
+        synchronized (spillLock) {
+            try {
+                Files.createDirectories(spillFile.getParent());
+            }
+            catch (IOException e) {
+                log.error("Creating event spill directory error!", e);
+                return false;
+            }
+            try (BufferedWriter spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (EventRecord record : records) {
+                    spillWriter.write(record.toSpillLine());
+                    spillWriter.newLine();
+                }
+            }
+            catch (IOException e) {
+                log.error("Spilling {} events error!", records.size(), e);
+                return false;
+            }
+        }
+        spilled.add(records.size());
+        return true;
+    }
+
+    private void awaitSchema() throws SQLException {
+        if (schemaInitializer != null) {
+            try {
+                schemaInitializer.awaitReady();
+            }
+            catch (IllegalStateException e) {
+                // handled as any other write error: the events are spilled or counted as failed
+                throw new SQLException("User management schema is not ready!", e);
+            }
+        }
+    }
+
+    /**
+     * Writes spilled events to the database. Events that were not written because of an
+     * error are kept in the replay file for the next attempt.
+     */
+    private void replaySpilled() {
+        try {
+            synchronized (spillLock) {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            List<EventRecord> batch = new ArrayList<>(batchSize);
+            try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    EventRecord record = EventRecord.fromSpillLine(line);
+                    if (record == null) {
+                        log.warn("Skipping malformed spilled event: [{}]", line);
+                        continue;
+                    }
+                    batch.add(record);
+                    if (batch.size() == batchSize) {
+                        insertOrKeep(batch, reader);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    insertOrKeep(batch, reader);
+                }
+            }
+            Files.delete(replayFile);
+        }
+        catch (IOException | SQLException e) {
+            log.warn("Writing spilled events error, will retry later", e);
+        }
+    }
+
+    private void insertOrKeep(List<EventRecord> batch, BufferedReader reader) throws IOException, SQLException {
+        try {
+            insert(batch);
+        }
+        catch (SQLException e) {
+            Path keptFile = replayFile.resolveSibling(REPLAY_FILE_NAME + ".tmp");
+            try (BufferedWriter keptWriter = Files.newBufferedWriter(keptFile, StandardCharsets.UTF_8)) {
+                for (EventRecord record : batch) {
+                    keptWriter.write(record.toSpillLine());
+                    keptWriter.newLine();
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    keptWriter.write(line);
+                    keptWriter.newLine();
+                }
+            }
+            Files.move(keptFile, replayFile, StandardCopyOption.REPLACE_EXISTING);
+            throw e;
+        }
+    }
+
+    /**
+     * Buffered event.
+     */
+    private static final class EventRecord {
+
+        private final long userId;
+
+        private final String eventType;
+
+        private final Timestamp timestamp;
+
+        private final String message;
+
+        private EventRecord(long userId, String eventType, Timestamp timestamp, String message) {
+            this.userId = userId;
+            this.eventType = eventType;
+            this.timestamp = timestamp;
+            this.message = message;
+        }
+
+        private String toSpillLine() {
+            return String.valueOf(userId) + FIELD_SEPARATOR + eventType + FIELD_SEPARATOR + timestamp.getTime()
+                    + FIELD_SEPARATOR + timestamp.getNanos() + FIELD_SEPARATOR + escape(message);
+        }
+
+        private static EventRecord fromSpillLine(String line) {
+            String[] fields = line.split(String.valueOf(FIELD_SEPARATOR), 5);
+            if (fields.length != 5) {
+                return null;
+            }
+            try {
+                Timestamp timestamp = new Timestamp(Long.parseLong(fields[2]));
+                timestamp.setNanos(Integer.parseInt(fields[3]));
+                return new EventRecord(Long.parseLong(fields[0]), fields[1], timestamp, unescape(fields[4]));
+            }
+            catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static String escape(String value) {
+            StringBuilder builder = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    default:
+                        builder.append(c);
+                }
+            }
+            return builder.toString();
+        }
+
+        private static String unescape(String value) {
+            StringBuilder builder = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    char next = value.charAt(++i);
+                    builder.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+                }
+                else {
+                    builder.append(c);
+                }
+            }
+            return builder.toString();
+        }
+
+    }
+
+    /**
+     * Builder of the {@link EventRecorder}.
+     */
+    public static final class Builder {
+
+        private final DataSource dataSource;
+
+        private int bufferSize = 8192;
+
+        private int batchSize = 256;
+
+        private long flushIntervalMillis = 1000;
+
+        private EventOverflowPolicy overflowPolicy = EventOverflowPolicy.BLOCK;
+
+        private long blockTimeoutMillis = 100;
+
+        private long shutdownTimeoutMillis = 10_000;
+
+        private Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "usman-events");
+
+        private SchemaInitializer schemaInitializer;
+
+        private Builder(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder flushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+            return this;
+        }
+
+        public Builder overflowPolicy(EventOverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public Builder blockTimeoutMillis(long blockTimeoutMillis) {
+            this.blockTimeoutMillis = blockTimeoutMillis;
+            return this;
+        }
+
+        public Builder shutdownTimeoutMillis(long shutdownTimeoutMillis) {
+            this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+            return this;
+        }
+
+        public Builder spillDirectory(Path spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the initializer of the schema, events are written after the schema is ready.
+         * @param schemaInitializer schema initializer
+         * @return this builder
+         */
+        public Builder schemaInitializer(SchemaInitializer schemaInitializer) {
+            this.schemaInitializer = schemaInitializer;
+            return this;
+        }
+
+        public EventRecorder build() {
+            return new EventRecorder(this);
+        }
+
+    }
+
+    /**
+     * Statistics of the {@link EventRecorder}.
+     */
+    public static final class Stats {
+
+        private final int bufferedEvents;
+
+        private final int bufferSize;
+
+        private final long recorded;
+
+        private final long written;
+
+        private final long dropped;
+
+        private final long spilled;
+
+        private final long failed;
+
+        private final long batches;
+
+        private final LatencyHistogram.Snapshot flushTime;
+
+        private Stats(int bufferedEvents, int bufferSize, long recorded, long written, long dropped, long spilled,
+                long failed, long batches, LatencyHistogram.Snapshot flushTime) {
+            this.bufferedEvents = bufferedEvents;
+            this.bufferSize = bufferSize;
+            this.recorded = recorded;
+            this.written = written;
+            this.dropped = dropped;
+            this.spilled = spilled;
+            this.failed = failed;
+            this.batches = batches;
+            this.flushTime = flushTime;
+        }
+
+        public int getBufferedEvents() {
+            return bufferedEvents;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public long getRecorded() {
+            return recorded;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getSpilled() {
+            return spilled;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public LatencyHistogram.Snapshot getFlushTime() {
+            return flushTime;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "bufferedEvents=" + bufferedEvents + ", bufferSize=" + bufferSize + ", recorded="
+                    + recorded + ", written=" + written + ", dropped=" + dropped + ", spilled=" + spilled + ", failed="
+                    + failed + ", batches=" + batches + ", flushTime=" + flushTime + '}';
+        }
+
+    }
+
+}
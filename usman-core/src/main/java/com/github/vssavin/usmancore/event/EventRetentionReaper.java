@@ -0,0 +1,240 @@
+package com.github.vssavin.usmancore.event;
+
+import com.github.vssavin.usmancore.config.BackgroundScheduler;
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import com.github.vssavin.usmancore.data.ChunkedRemoval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically removes expired event buckets. Buckets older than the retention period are
+ * removed from the oldest one, each with a {@link ChunkedRemoval}: event ids are read
+ * along the bucket index and deleted in small chunks, every chunk in its own short
+ * transaction, with a pause between chunks. So removing a month of events never becomes a
+ * single huge transaction holding locks and flooding the write-ahead log. A run abandoned
+ * because of failing chunks stops at the current bucket and is continued by the next run.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class EventRetentionReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(EventRetentionReaper.class);
+
+    private static final String SELECT_NEXT_BUCKET_QUERY = "SELECT MIN(event_bucket) FROM events "
+            + "WHERE event_bucket > ? AND event_bucket < ?";
+
+    private static final String SELECT_CHUNK_QUERY = "SELECT id FROM events WHERE event_bucket = ? LIMIT ?";
+
+    private static final String DELETE_EVENT_QUERY = "DELETE FROM events WHERE id = ?";
+
+    private final DataSource dataSource;
+
+    private final SchemaInitializer schemaInitializer;
+
+    private final int retentionMonths;
+
+    private final long intervalMinutes;
+
+    private final ChunkedRemoval chunkedRemoval;
+
+    private final LongSupplier clock;
+
+    private final BackgroundScheduler scheduler = new BackgroundScheduler("usman-event-retention",
+            Thread.MIN_PRIORITY);
+
+    private volatile Report lastReport;
+
+    public EventRetentionReaper(DataSource dataSource, SchemaInitializer schemaInitializer, int retentionMonths,
+            long intervalMinutes, int batchSize, long pauseMillis) {
+        this(dataSource, schemaInitializer, retentionMonths, intervalMinutes, batchSize, pauseMillis,
+                System::currentTimeMillis);
+    }
+
+    EventRetentionReaper(DataSource dataSource, SchemaInitializer schemaInitializer, int retentionMonths,
+            long intervalMinutes, int batchSize, long pauseMillis, LongSupplier clock) {
+        this.dataSource = dataSource;
+        this.schemaInitializer = schemaInitializer;
+        this.retentionMonths = retentionMonths;
+        this.intervalMinutes = intervalMinutes;
+        this.chunkedRemoval = new ChunkedRemoval(batchSize, pauseMillis);
+        this.clock = clock;
+    }
+
+    public void start() {
+        if (retentionMonths <= 0) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                purge();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (Exception e) {
+                log.warn("Event retention error!", e);
+            }
+        };
+        scheduler.start(task, 0, Math.max(intervalMinutes, 1), TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        scheduler.stop();
+    }
+
+    /**
+     * Removes all buckets older than the retention period.
+     * @return report of the purge
+     * @throws SQLException if the expired buckets can't be found
+     * @throws InterruptedException if interrupted while pausing between chunks
+     * @throws IllegalStateException if the schema is not initialized in time
+     */
+    public Report purge() throws SQLException, InterruptedException {
+        if (retentionMonths <= 0) {
+            return new Report(0, 0, 0, clock.getAsLong());
+        }
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        int firstRetainedBucket = EventBuckets.firstRetainedBucket(clock.getAsLong(), retentionMonths);
+        List<Integer> buckets = new ArrayList<>();
+        long removedEvents = 0;
+        int previousBucket = Integer.MIN_VALUE;
+        Integer bucket;
+        while ((bucket = findNextBucket(previousBucket, firstRetainedBucket)) != null) {
+            int expiredBucket = bucket;
+            ChunkedRemoval.Result result = chunkedRemoval.removeAll("events of bucket " + expiredBucket,
+                    batchSize -> removeChunk(expiredBucket, batchSize));
+            removedEvents += result.getRemoved();
+            if (!result.isCompleted()) {
+                break;
+            }
+            buckets.add(expiredBucket);
+            previousBucket = expiredBucket;
+        }
+        Report report = new Report(firstRetainedBucket, buckets.size(), removedEvents, clock.getAsLong());
+        lastReport = report;
+        if (!buckets.isEmpty()) {
+            log.info("Removed expired event buckets {}: {}", buckets, report);
+        }
+        return report;
+    }
+
+    /**
+     * Returns the report of the last purge.
+     * @return last report or null if no purge has finished yet
+     */
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    private Integer findNextBucket(int previousBucket, int firstRetainedBucket) throws SQLException {
+        // the minimum is read from the bucket index, expired rows are not scanned
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_NEXT_BUCKET_QUERY)) {
+            statement.setInt(1, previousBucket);
+            statement.setInt(2, firstRetainedBucket);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                int bucket = resultSet.getInt(1);
+                return resultSet.wasNull() ? null : bucket;
+            }
+        }
+    }
+
+    private int removeChunk(int bucket, int batchSize) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            List<Long> ids = new ArrayList<>(batchSize);
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_CHUNK_QUERY)) {
+                statement.setInt(1, bucket);
+                statement.setInt(2, batchSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ids.add(resultSet.getLong(1));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_EVENT_QUERY)) {
+                for (long id : ids) {
+                    statement.setLong(1, id);
+                    statement.addBatch();
+                }
+                int removed = 0;
+                for (int count : statement.executeBatch()) {
+                    removed += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                }
+                connection.commit();
+                // the chunk is complete even if another node removed some of its events
+                return ids.size() == batchSize ? batchSize : removed;
+            }
+            catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Result of the expired event buckets removal.
+     */
+    public static final class Report {
+
+        private final int firstRetainedBucket;
+
+        private final int removedBuckets;
+
+        private final long removedEvents;
+
+        private final long createdAt;
+
+        private Report(int firstRetainedBucket, int removedBuckets, long removedEvents, long createdAt) {
+            this.firstRetainedBucket = firstRetainedBucket;
+            this.removedBuckets = removedBuckets;
+            this.removedEvents = removedEvents;
+            this.createdAt = createdAt;
+        }
+
+        public int getFirstRetainedBucket() {
+            return firstRetainedBucket;
+        }
+
+        public int getRemovedBuckets() {
+            return removedBuckets;
+        }
+
+        public long getRemovedEvents() {
+            return removedEvents;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" + "firstRetainedBucket=" + firstRetainedBucket + ", removedBuckets=" + removedBuckets
+                    + ", removedEvents=" + removedEvents + ", createdAt=" + createdAt + '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,352 @@
+package com.github.vssavin.usmancore.event;
+
+import com.github.vssavin.usmancore.config.BackgroundScheduler;
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Incremental rollups of the events stream. Every recorded event increments per minute,
+ * hour and day counters of its type, both for its user and for all users. Increments are
+ * accumulated in memory and periodically added to the {@code event_rollups} table, so
+ * time series are read from counters, one row per bucket, instead of scanning events.
+ * Minute counters are kept for a limited time only. The number of pending counters is
+ * bounded: while the database is unavailable, increments of counters that are not pending
+ * yet are dropped and counted in the {@link Stats}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class EventRollupEngine implements AutoCloseable {
+
+    /**
+     * User id of the counters summed over all users.
+     */
+    public static final long ALL_USERS = 0;
+
+    private static final Logger log = LoggerFactory.getLogger(EventRollupEngine.class);
+
+    private static final String UPDATE_COUNTER_QUERY = "UPDATE event_rollups SET event_count = event_count + ? "
+            + "WHERE granularity = ? AND event_type = ? AND user_id = ? AND bucket_start = ?";
+
+    private static final String INSERT_COUNTER_QUERY = "INSERT INTO event_rollups(event_count, granularity, "
+            + "event_type, user_id, bucket_start) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SERIES_QUERY = "SELECT bucket_start, event_count FROM event_rollups "
+            + "WHERE granularity = ? AND event_type = ? AND user_id = ? AND bucket_start >= ? AND bucket_start < ? "
+            + "ORDER BY bucket_start";
+
+    private static final String DELETE_EXPIRED_QUERY = "DELETE FROM event_rollups WHERE granularity = ? "
+            + "AND bucket_start < ?";
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final DataSource dataSource;
+
+    private final SchemaInitializer schemaInitializer;
+
+    private final long flushIntervalMillis;
+
+    private final long minuteRetentionMillis;
+
+    private final int maxPendingCounters;
+
+    private final LongSupplier clock;
+
+    private final Map<CounterKey, Long> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder droppedIncrements = new LongAdder();
+
+    private final BackgroundScheduler scheduler = new BackgroundScheduler("usman-event-rollups",
+            Thread.NORM_PRIORITY);
+
+    private long lastPurge;
+
+    public EventRollupEngine(DataSource dataSource, SchemaInitializer schemaInitializer, long flushIntervalMillis,
+            int minuteRetentionHours, int maxPendingCounters) {
+        this(dataSource, schemaInitializer, flushIntervalMillis, minuteRetentionHours, maxPendingCounters,
+                System::currentTimeMillis);
+    }
+
+    EventRollupEngine(DataSource dataSource, SchemaInitializer schemaInitializer, long flushIntervalMillis,
+            int minuteRetentionHours, int maxPendingCounters, LongSupplier clock) {
+        if (maxPendingCounters <= 0) {
+            throw new IllegalArgumentException("Max pending counters must be positive!");
+        }
+        this.dataSource = dataSource;
+        this.schemaInitializer = schemaInitializer;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.minuteRetentionMillis = TimeUnit.HOURS.toMillis(minuteRetentionHours);
+        this.maxPendingCounters = maxPendingCounters;
+        this.clock = clock;
+    }
+
+    public void start() {
+        scheduler.start(() -> {
+            try {
+                flush();
+            }
+            catch (Exception e) {
+                log.warn("Event rollups flush error!", e);
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.stop();
+        flush();
+    }
+
+    /**
+     * Counts the event in all granularities.
+     * @param userId event user id, null to count the event for all users only
+     * @param eventType event type
+     * @param timestamp event time
+     */
+    public void record(Long userId, EventType eventType, long timestamp) {
+        for (EventRollupGranularity granularity : EventRollupGranularity.values()) {
+            long bucketStart = granularity.truncate(timestamp);
+            addPending(new CounterKey(granularity, eventType.name(), ALL_USERS, bucketStart), 1);
+            if (userId != null) {
+                addPending(new CounterKey(granularity, eventType.name(), userId, bucketStart), 1);
+            }
+        }
+    }
+
+    /**
+     * Adds the accumulated increments to the rollup table. Increments that could not be
+     * written, also because the schema is not initialized in time, are kept for the next
+     * flush as long as the pending counters limit allows.
+     */
+    public synchronized void flush() {
+        Map<CounterKey, Long> deltas = new HashMap<>();
+        for (CounterKey key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta != null) {
+                deltas.put(key, delta);
+            }
+        }
+        try {
+            SchemaInitializer.awaitIfPresent(schemaInitializer);
+            if (!deltas.isEmpty()) {
+                write(deltas);
+            }
+            long now = clock.getAsLong();
+            if (now - lastPurge >= PURGE_INTERVAL_MILLIS) {
+                purgeMinuteCounters(now);
+                lastPurge = now;
+            }
+        }
+        catch (SQLException | IllegalStateException e) {
+            deltas.forEach(this::addPending);
+            log.error("Writing {} event counters error!", deltas.size(), e);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(pending.size(), maxPendingCounters, droppedIncrements.sum());
+    }
+
+    /**
+     * Returns the numbers of events per bucket, in bucket order. Buckets without events are
+     * omitted.
+     * @param granularity bucket granularity
+     * @param eventType event type
+     * @param userId user id, null for all users
+     * @param from start of the period, inclusive
+     * @param to end of the period, exclusive
+     * @return event counts per bucket
+     * @throws IllegalStateException if the counters can't be read or the schema is not
+     * initialized in time
+     */
+    public List<EventCount> getSeries(EventRollupGranularity granularity, EventType eventType, Long userId, Date from,
+            Date to) {
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        flush();
+        List<EventCount> series = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_SERIES_QUERY)) {
+            statement.setString(1, granularity.name());
+            statement.setString(2, eventType.name());
+            statement.setLong(3, userId == null ? ALL_USERS : userId);
+            statement.setTimestamp(4, new Timestamp(granularity.truncate(from.getTime())));
+            statement.setTimestamp(5, new Timestamp(to.getTime()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    series.add(new EventCount(resultSet.getTimestamp(1), resultSet.getLong(2)));
+                }
+            }
+        }
+        catch (SQLException e) {
+            throw new IllegalStateException("Reading event counters error!", e);
+        }
+        return series;
+    }
+
+    private void addPending(CounterKey key, long delta) {
+        // the size is approximate under concurrent updates, the limit may be slightly exceeded
+        if (pending.size() >= maxPendingCounters && !pending.containsKey(key)) {
+            droppedIncrements.add(delta);
+            return;
+        }
+        pending.merge(key, delta, Long::sum);
+    }
+
+    private void write(Map<CounterKey, Long> deltas) throws SQLException {
+        List<Map.Entry<CounterKey, Long>> entries = new ArrayList<>(deltas.entrySet());
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int[] updated;
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE_COUNTER_QUERY)) {
+                    for (Map.Entry<CounterKey, Long> entry : entries) {
+                        setCounter(statement, entry.getKey(), entry.getValue());
+                        statement.addBatch();
+                    }
+                    updated = statement.executeBatch();
+                }
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_COUNTER_QUERY)) {
+                    boolean hasInserts = false;
+                    for (int i = 0; i < entries.size(); i++) {
+                        if (updated[i] == 0) {
+                            setCounter(statement, entries.get(i).getKey(), entries.get(i).getValue());
+                            statement.addBatch();
+                            hasInserts = true;
+                        }
+                    }
+                    if (hasInserts) {
+                        statement.executeBatch();
+                    }
+                }
+                connection.commit();
+            }
+            catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void setCounter(PreparedStatement statement, CounterKey key, long delta) throws SQLException {
+        statement.setLong(1, delta);
+        statement.setString(2, key.granularity.name());
+        statement.setString(3, key.eventType);
+        statement.setLong(4, key.userId);
+        statement.setTimestamp(5, new Timestamp(key.bucketStart));
+    }
+
+    private void purgeMinuteCounters(long now) throws SQLException {
+        if (minuteRetentionMillis <= 0) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(DELETE_EXPIRED_QUERY)) {
+            statement.setString(1, EventRollupGranularity.MINUTE.name());
+            statement.setTimestamp(2, new Timestamp(now - minuteRetentionMillis));
+            int removed = statement.executeUpdate();
+            if (removed > 0) {
+                log.debug("Removed {} expired minute event counters", removed);
+            }
+        }
+    }
+
+    private static final class CounterKey {
+
+        private final EventRollupGranularity granularity;
+
+        private final String eventType;
+
+        private final long userId;
+
+        private final long bucketStart;
+
+        private CounterKey(EventRollupGranularity granularity, String eventType, long userId, long bucketStart) {
+            this.granularity = granularity;
+            this.eventType = eventType;
+            this.userId = userId;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CounterKey that = (CounterKey) o;
+            return userId == that.userId && bucketStart == that.bucketStart && granularity == that.granularity
+                    && eventType.equals(that.eventType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularity, eventType, userId, bucketStart);
+        }
+
+    }
+
+    /**
+     * Statistics of the {@link EventRollupEngine}.
+     */
+    public static final class Stats {
+
+        private final int pendingCounters;
+
+        private final int maxPendingCounters;
+
+        private final long droppedIncrements;
+
+        private Stats(int pendingCounters, int maxPendingCounters, long droppedIncrements) {
+            this.pendingCounters = pendingCounters;
+            this.maxPendingCounters = maxPendingCounters;
+            this.droppedIncrements = droppedIncrements;
+        }
+
+        public int getPendingCounters() {
+            return pendingCounters;
+        }
+
+        public int getMaxPendingCounters() {
+            return maxPendingCounters;
+        }
+
+        /**
+         * Returns the number of increments dropped because the pending counters were full.
+         * @return dropped increments
+         */
+        public long getDroppedIncrements() {
+            return droppedIncrements;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "pendingCounters=" + pendingCounters + ", maxPendingCounters=" + maxPendingCounters
+                    + ", droppedIncrements=" + droppedIncrements + '}';
+        }
+
+    }
+
+}
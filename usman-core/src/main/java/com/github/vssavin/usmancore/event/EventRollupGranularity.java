@@ -0,0 +1,38 @@
+package com.github.vssavin.usmancore.event;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Time granularity of the event counters maintained by the {@link EventRollupEngine}.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public enum EventRollupGranularity {
+
+    MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    EventRollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Returns the start of the bucket containing the given time, in the zone the event
+     * timestamps are stored in.
+     * @param epochMillis time
+     * @return bucket start
+     */
+    public long truncate(long epochMillis) {
+        ZoneId zone = ZoneId.systemDefault();
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone)
+            .truncatedTo(unit)
+            .atZone(zone)
+            .toInstant()
+            .toEpochMilli();
+    }
+
+}
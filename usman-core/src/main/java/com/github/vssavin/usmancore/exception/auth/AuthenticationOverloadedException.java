@@ -0,0 +1,21 @@
+package com.github.vssavin.usmancore.exception.auth;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when a password can't be verified because the password verification executor
+ * is saturated. Unlike bad credentials it does not count as an authentication failure.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class AuthenticationOverloadedException extends AuthenticationServiceException {
+
+    public AuthenticationOverloadedException(String message) {
+        super(message);
+    }
+
+    public AuthenticationOverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
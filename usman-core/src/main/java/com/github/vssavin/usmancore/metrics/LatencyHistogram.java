@@ -0,0 +1,148 @@
+package com.github.vssavin.usmancore.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed exponential buckets. Recording is allocation
+ * free and may be called concurrently from any thread.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class LatencyHistogram {
+
+    private static final long[] DEFAULT_BOUNDS_MICROS = { 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000 };
+
+    private final long[] boundsMicros;
+
+    private final LongAdder[] counts;
+
+    private final LongAdder totalMicros = new LongAdder();
+
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(DEFAULT_BOUNDS_MICROS);
+    }
+
+    public LatencyHistogram(long[] boundsMicros) {
+        this.boundsMicros = Arrays.copyOf(boundsMicros, boundsMicros.length);
+        this.counts = new LongAdder[boundsMicros.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+        counts[bucketIndex(micros)].increment();
+        totalMicros.add(micros);
+        long currentMax = maxMicros.get();
+        while (micros > currentMax && !maxMicros.compareAndSet(currentMax, micros)) {
+            currentMax = maxMicros.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[counts.length];
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            bucketCounts[i] = counts[i].sum();
+            count += bucketCounts[i];
+        }
+        return new Snapshot(Arrays.copyOf(boundsMicros, boundsMicros.length), bucketCounts, count, totalMicros.sum(),
+                maxMicros.get());
+    }
+
+    private int bucketIndex(long micros) {
+        int low = 0;
+        int high = boundsMicros.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (boundsMicros[middle] < micros) {
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Immutable view of the histogram state.
+     */
+    public static final class Snapshot {
+
+        private final long[] boundsMicros;
+
+        private final long[] bucketCounts;
+
+        private final long count;
+
+        private final long totalMicros;
+
+        private final long maxMicros;
+
+        private Snapshot(long[] boundsMicros, long[] bucketCounts, long count, long totalMicros, long maxMicros) {
+            this.boundsMicros = boundsMicros;
+            this.bucketCounts = bucketCounts;
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMicros() {
+            return count == 0 ? 0 : (double) totalMicros / count;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        /**
+         * Returns the upper bound of the bucket containing the specified percentile.
+         * @param percentile percentile in range (0, 100]
+         * @return upper bucket bound in microseconds or the observed maximum for the
+         * overflow bucket
+         */
+        public long getPercentileMicros(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= rank) {
+                    return i < boundsMicros.length ? Math.min(boundsMicros[i], maxMicros) : maxMicros;
+                }
+            }
+            return maxMicros;
+        }
+
+        public long[] getBoundsMicros() {
+            return Arrays.copyOf(boundsMicros, boundsMicros.length);
+        }
+
+        public long[] getBucketCounts() {
+            return Arrays.copyOf(bucketCounts, bucketCounts.length);
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" + "count=" + count + ", meanMicros=" + getMeanMicros() + ", p50Micros="
+                    + getPercentileMicros(50) + ", p99Micros=" + getPercentileMicros(99) + ", maxMicros=" + maxMicros
+                    + '}';
+        }
+
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.github.vssavin.usmancore.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Set of HMAC-SHA256 keys identified by short ids. New values are signed with the current
+ * (most recently added) key, values signed with any of the retained previous keys are
+ * still accepted, so keys can be rotated without invalidating everything signed before.
+ * The number of retained keys is bounded, the oldest key is dropped on rotation.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class HmacKeyRing {
+
+    public static final String ALGORITHM = "HmacSHA256";
+
+    static final int KEY_LENGTH = 32;
+
+    private static final int KEY_ID_LENGTH = 4;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final int maxKeys;
+
+    private volatile List<Key> keys = Collections.emptyList();
+
+    public HmacKeyRing(int maxKeys) {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("Key ring must retain at least one key!");
+        }
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Adds a key and makes it current.
+     * @param keyId key id, must not contain '.' and '|'
+     * @param secret key bytes
+     */
+    public synchronized void addKey(String keyId, byte[] secret) {
+        Objects.requireNonNull(keyId, "Key id must not be null!");
+        if (keyId.isEmpty() || keyId.indexOf('.') >= 0 || keyId.indexOf('|') >= 0) {
+            throw new IllegalArgumentException("Wrong key id: " + keyId);
+        }
+        List<Key> newKeys = new ArrayList<>(keys.size() + 1);
+        newKeys.add(new Key(keyId, secret.clone()));
+        for (Key key : keys) {
+            if (newKeys.size() < maxKeys && !key.id.equals(keyId)) {
+                newKeys.add(key);
+            }
+        }
+        keys = Collections.unmodifiableList(newKeys);
+    }
+
+    /**
+     * Generates a new random key and makes it current.
+     * @return id of the new key
+     */
+    public synchronized String rotate() {
+        byte[] secret = new byte[KEY_LENGTH];
+        random.nextBytes(secret);
+        String keyId;
+        do {
+            byte[] id = new byte[KEY_ID_LENGTH];
+            random.nextBytes(id);
+            keyId = toHex(id);
+        }
+        while (findKey(keyId) != null);
+        addKey(keyId, secret);
+        return keyId;
+    }
+
+    /**
+     * Returns the id of the key used for signing.
+     * @return current key id
+     * @throws IllegalStateException if the key ring is empty
+     */
+    public String getCurrentKeyId() {
+        List<Key> currentKeys = keys;
+        if (currentKeys.isEmpty()) {
+            throw new IllegalStateException("Key ring is empty!");
+        }
+        return currentKeys.get(0).id;
+    }
+
+    /**
+     * Returns ids of the retained keys, the current key first.
+     * @return key ids
+     */
+    public List<String> getKeyIds() {
+        List<String> ids = new ArrayList<>();
+        keys.forEach(key -> ids.add(key.id));
+        return ids;
+    }
+
+    /**
+     * Signs the data with the current key.
+     * @param data data to sign
+     * @return signature
+     */
+    public byte[] sign(byte[] data) {
+        return sign(getCurrentKeyId(), data);
+    }
+
+    /**
+     * Signs the data with the given key.
+     * @param keyId key id
+     * @param data data to sign
+     * @return signature or null if there is no such key
+     */
+    public byte[] sign(String keyId, byte[] data) {
+        Key key = findKey(keyId);
+        return key == null ? null : key.mac.get().doFinal(data);
+    }
+
+    /**
+     * Checks the signature in constant time.
+     * @param keyId id of the signing key
+     * @param data signed data
+     * @param signature signature to check
+     * @return true if the key is retained and the signature is valid
+     */
+    public boolean verify(String keyId, byte[] data, byte[] signature) {
+        byte[] expected = sign(keyId, data);
+        return expected != null && signature != null && MessageDigest.isEqual(expected, signature);
+    }
+
+    private Key findKey(String keyId) {
+        for (Key key : keys) {
+            if (key.id.equals(keyId)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static final class Key {
+
+        private final String id;
+
+        private final ThreadLocal<Mac> mac;
+
+        private Key(String id, byte[] secret) {
+            this.id = id;
+            SecretKeySpec keySpec = new SecretKeySpec(secret, ALGORITHM);
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac instance = Mac.getInstance(ALGORITHM);
+                    instance.init(keySpec);
+                    return instance;
+                }
+                catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Creating " + ALGORITHM + " instance error!", e);
+                }
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,241 @@
+package com.github.vssavin.usmancore.security;
+
+import com.github.vssavin.usmancore.config.BackgroundScheduler;
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link HmacKeyRing} whose keys are persisted in a table of the user management database,
+ * so signed values survive restarts and are accepted by all nodes sharing the database.
+ * Keys are rotated the same way as {@link RememberMeKeyRing} keys: once per rotation
+ * interval, the key id is the number of the interval, so nodes rotating at the same time
+ * insert the same key id and only one of them succeeds. The newest keys, up to the size of
+ * the ring, are retained, older ones are removed from the table. Keys are loaded in the
+ * background on start, or on the first use if they are needed earlier.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class PersistentHmacKeyRing extends HmacKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentHmacKeyRing.class);
+
+    private static final long MAX_REFRESH_INTERVAL_MINUTES = 10;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final DataSource dataSource;
+
+    private final SchemaInitializer schemaInitializer;
+
+    private final String table;
+
+    private final int maxKeys;
+
+    private final long rotationMillis;
+
+    private final long refreshIntervalMinutes;
+
+    private final LongSupplier clock;
+
+    private final BackgroundScheduler scheduler;
+
+    private volatile boolean loaded;
+
+    /**
+     * Creates a key ring.
+     * @param dataSource user management data source
+     * @param schemaInitializer initializer of the schema the keys are loaded after, null if
+     * the schema is not initialized by user management
+     * @param table table the keys are stored in
+     * @param maxKeys number of retained keys, values signed with older keys are rejected
+     * @param rotationHours key rotation interval, 0 keeps the first key forever
+     */
+    public PersistentHmacKeyRing(DataSource dataSource, SchemaInitializer schemaInitializer, String table, int maxKeys,
+            long rotationHours) {
+        this(dataSource, schemaInitializer, table, maxKeys, rotationHours, System::currentTimeMillis);
+    }
+
+    PersistentHmacKeyRing(DataSource dataSource, SchemaInitializer schemaInitializer, String table, int maxKeys,
+            long rotationHours, LongSupplier clock) {
+        super(maxKeys);
+        if (rotationHours < 0) {
+            throw new IllegalArgumentException("Key rotation interval must not be negative!");
+        }
+        this.dataSource = dataSource;
+        this.schemaInitializer = schemaInitializer;
+        this.table = table;
+        this.maxKeys = maxKeys;
+        this.rotationMillis = TimeUnit.HOURS.toMillis(rotationHours);
+        this.refreshIntervalMinutes = rotationHours == 0 ? MAX_REFRESH_INTERVAL_MINUTES
+                : Math.min(TimeUnit.HOURS.toMinutes(rotationHours), MAX_REFRESH_INTERVAL_MINUTES);
+        this.clock = clock;
+        this.scheduler = new BackgroundScheduler("usman-" + table.replace('_', '-'), Thread.MIN_PRIORITY);
+    }
+
+    /**
+     * Schedules loading of the keys and their periodic refreshes.
+     */
+    public void start() {
+        Runnable task = () -> {
+            try {
+                refresh();
+            }
+            catch (Exception e) {
+                log.warn("Keys refresh error for {}!", table, e);
+            }
+        };
+        scheduler.start(task, 0, refreshIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        scheduler.stop();
+    }
+
+    /**
+     * Reloads the keys from the database, adds a new key if the current one has outlived
+     * the rotation interval and removes keys that no longer fit into the ring.
+     * @throws SQLException if the keys table is not available
+     * @throws IllegalStateException if the schema is not initialized in time
+     */
+    public synchronized void refresh() throws SQLException {
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        long now = clock.getAsLong();
+        long slot = rotationMillis == 0 ? 0 : now / rotationMillis;
+        try (Connection connection = dataSource.getConnection()) {
+            List<StoredKey> storedKeys = loadKeys(connection);
+            if (storedKeys.isEmpty() || storedKeys.get(0).createdAt < slot * rotationMillis) {
+                String keyId = Long.toString(slot);
+                try {
+                    insertKey(connection, keyId, now);
+                    log.info("Key {} created in {}", keyId, table);
+                }
+                catch (SQLException e) {
+                    log.debug("Key {} was created in {} by another node", keyId, table, e);
+                }
+                storedKeys = loadKeys(connection);
+            }
+            if (storedKeys.isEmpty()) {
+                throw new SQLException("No keys found in " + table);
+            }
+
+            if (storedKeys.size() > maxKeys) {
+                removeKeysBefore(connection, storedKeys.get(maxKeys - 1).createdAt);
+                storedKeys = storedKeys.subList(0, maxKeys);
+            }
+            // keys are added oldest first, so the newest one becomes current
+            List<String> keyIds = getKeyIds();
+            for (int i = storedKeys.size() - 1; i >= 0; i--) {
+                StoredKey key = storedKeys.get(i);
+                if (!keyIds.contains(key.id)) {
+                    addKey(key.id, key.secret);
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    @Override
+    public String getCurrentKeyId() {
+        ensureLoaded();
+        return super.getCurrentKeyId();
+    }
+
+    @Override
+    public byte[] sign(String keyId, byte[] data) {
+        ensureLoaded();
+        return super.sign(keyId, data);
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            try {
+                refresh();
+            }
+            catch (SQLException e) {
+                throw new IllegalStateException("Loading keys from " + table + " error!", e);
+            }
+        }
+    }
+
+    private List<StoredKey> loadKeys(Connection connection) throws SQLException {
+        List<StoredKey> storedKeys = new ArrayList<>();
+        try (PreparedStatement statement = connection
+            .prepareStatement("SELECT id, secret, created_at FROM " + table + " ORDER BY created_at DESC, id DESC");
+                ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                storedKeys.add(new StoredKey(resultSet.getString(1), fromHex(resultSet.getString(2)),
+                        resultSet.getTimestamp(3).getTime()));
+            }
+        }
+        return storedKeys;
+    }
+
+    private void insertKey(Connection connection, String keyId, long createdAt) throws SQLException {
+        byte[] secret = new byte[KEY_LENGTH];
+        random.nextBytes(secret);
+        try (PreparedStatement statement = connection
+            .prepareStatement("INSERT INTO " + table + "(id, secret, created_at) VALUES (?, ?, ?)")) {
+            statement.setString(1, keyId);
+            statement.setString(2, toHex(secret));
+            statement.setTimestamp(3, new Timestamp(createdAt));
+            statement.executeUpdate();
+        }
+    }
+
+    private void removeKeysBefore(Connection connection, long createdAt) throws SQLException {
+        try (PreparedStatement statement = connection
+            .prepareStatement("DELETE FROM " + table + " WHERE created_at < ?")) {
+            statement.setTimestamp(1, new Timestamp(createdAt));
+            int removed = statement.executeUpdate();
+            if (removed > 0) {
+                log.info("Removed {} old keys from {}", removed, table);
+            }
+        }
+    }
+
+    private static byte[] fromHex(String hex) throws SQLException {
+        if (hex == null || hex.length() % 2 != 0) {
+            throw new SQLException("Wrong key secret format!");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new SQLException("Wrong key secret format!");
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    private static final class StoredKey {
+
+        private final String id;
+
+        private final byte[] secret;
+
+        private final long createdAt;
+
+        private StoredKey(String id, byte[] secret, long createdAt) {
+            this.id = id;
+            this.secret = secret;
+            this.createdAt = createdAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,258 @@
+package com.github.vssavin.usmancore.security;
+
+import com.github.vssavin.usmancore.config.BackgroundScheduler;
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Remember-me signing keys persisted in the user management database, so cookies survive
+ * restarts and are accepted by all nodes sharing the database. The newest key signs new
+ * cookies, previous keys only verify cookies signed before the rotation and are kept until
+ * those cookies expire. Keys are rotated once per rotation interval, the key id is the
+ * number of the interval, so nodes rotating at the same time insert the same key id and
+ * only one of them succeeds, the others load its key. Keys are loaded in the background on
+ * start, or on the first use if they are needed earlier.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class RememberMeKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(RememberMeKeyRing.class);
+
+    private static final String KEYS_TABLE = "rememberme_keys";
+
+    private static final int KEY_LENGTH = 32;
+
+    private static final long MAX_REFRESH_INTERVAL_MINUTES = 10;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final DataSource dataSource;
+
+    private final SchemaInitializer schemaInitializer;
+
+    private final long rotationMillis;
+
+    private final long refreshIntervalMinutes;
+
+    private final long retentionMillis;
+
+    private final LongSupplier clock;
+
+    private final BackgroundScheduler scheduler = new BackgroundScheduler("usman-remember-me-keys",
+            Thread.MIN_PRIORITY);
+
+    private volatile List<Key> keys = Collections.emptyList();
+
+    /**
+     * Creates a key ring.
+     * @param dataSource user management data source
+     * @param schemaInitializer initializer of the schema the keys are loaded after, null if
+     * the schema is not initialized by user management
+     * @param rotationHours key rotation interval, 0 keeps the first key forever
+     * @param tokenValiditySeconds remember-me cookie lifetime, previous keys are kept for
+     * this time after they are replaced
+     */
+    public RememberMeKeyRing(DataSource dataSource, SchemaInitializer schemaInitializer, long rotationHours,
+            long tokenValiditySeconds) {
+        this(dataSource, schemaInitializer, rotationHours, tokenValiditySeconds, System::currentTimeMillis);
+    }
+
+    RememberMeKeyRing(DataSource dataSource, SchemaInitializer schemaInitializer, long rotationHours,
+            long tokenValiditySeconds, LongSupplier clock) {
+        if (rotationHours < 0) {
+            throw new IllegalArgumentException("Key rotation interval must not be negative!");
+        }
+        this.dataSource = dataSource;
+        this.schemaInitializer = schemaInitializer;
+        this.rotationMillis = TimeUnit.HOURS.toMillis(rotationHours);
+        this.refreshIntervalMinutes = rotationHours == 0 ? MAX_REFRESH_INTERVAL_MINUTES
+                : Math.min(TimeUnit.HOURS.toMinutes(rotationHours), MAX_REFRESH_INTERVAL_MINUTES);
+        // a replaced key may still sign cookies until the node refreshes its keys
+        this.retentionMillis = TimeUnit.SECONDS.toMillis(Math.max(tokenValiditySeconds, 0))
+                + TimeUnit.MINUTES.toMillis(refreshIntervalMinutes);
+        this.clock = clock;
+    }
+
+    /**
+     * Schedules loading of the keys and their periodic refreshes.
+     */
+    public void start() {
+        Runnable task = () -> {
+            try {
+                refresh();
+            }
+            catch (Exception e) {
+                log.warn("Remember-me keys refresh error!", e);
+            }
+        };
+        scheduler.start(task, 0, refreshIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        scheduler.stop();
+    }
+
+    /**
+     * Reloads the keys from the database, adds a new key if the current one has outlived
+     * the rotation interval and removes keys no cookie can be signed with anymore.
+     * @throws SQLException if the keys table is not available
+     * @throws IllegalStateException if the schema is not initialized in time
+     */
+    public synchronized void refresh() throws SQLException {
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        long now = clock.getAsLong();
+        long slot = rotationMillis == 0 ? 0 : now / rotationMillis;
+        try (Connection connection = dataSource.getConnection()) {
+            List<Key> loadedKeys = loadKeys(connection);
+            if (loadedKeys.isEmpty() || loadedKeys.get(0).createdAt < slot * rotationMillis) {
+                String keyId = Long.toString(slot);
+                try {
+                    insertKey(connection, new Key(keyId, generateSecret(), now));
+                    log.info("Remember-me key {} created", keyId);
+                }
+                catch (SQLException e) {
+                    log.debug("Remember-me key {} was created by another node", keyId, e);
+                }
+                loadedKeys = loadKeys(connection);
+            }
+            if (loadedKeys.isEmpty()) {
+                throw new SQLException("No remember-me keys found in " + KEYS_TABLE);
+            }
+
+            List<Key> retainedKeys = new ArrayList<>();
+            retainedKeys.add(loadedKeys.get(0));
+            for (int i = 1; i < loadedKeys.size(); i++) {
+                if (loadedKeys.get(i - 1).createdAt + retentionMillis <= now) {
+                    break;
+                }
+                retainedKeys.add(loadedKeys.get(i));
+            }
+            if (retainedKeys.size() < loadedKeys.size()) {
+                removeKeysBefore(connection, retainedKeys.get(retainedKeys.size() - 1).createdAt);
+            }
+            keys = Collections.unmodifiableList(retainedKeys);
+        }
+    }
+
+    /**
+     * Returns the key used to sign new cookies.
+     * @return active key
+     * @throws IllegalStateException if the keys can't be loaded
+     */
+    public String getActiveKey() {
+        return getLoadedKeys().get(0).secret;
+    }
+
+    /**
+     * Returns the id of the key used to sign new cookies.
+     * @return active key id
+     * @throws IllegalStateException if the keys can't be loaded
+     */
+    public String getActiveKeyId() {
+        return getLoadedKeys().get(0).id;
+    }
+
+    /**
+     * Returns all keys cookies are verified with, the active key first.
+     * @return keys
+     * @throws IllegalStateException if the keys can't be loaded
+     */
+    public List<String> getKeys() {
+        List<String> secrets = new ArrayList<>();
+        getLoadedKeys().forEach(key -> secrets.add(key.secret));
+        return secrets;
+    }
+
+    private List<Key> getLoadedKeys() {
+        List<Key> currentKeys = keys;
+        if (currentKeys.isEmpty()) {
+            try {
+                refresh();
+            }
+            catch (SQLException e) {
+                throw new IllegalStateException("Loading remember-me keys error!", e);
+            }
+            currentKeys = keys;
+        }
+        return currentKeys;
+    }
+
+    private List<Key> loadKeys(Connection connection) throws SQLException {
+        List<Key> loadedKeys = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, secret, created_at FROM " + KEYS_TABLE + " ORDER BY created_at DESC, id DESC");
+                ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                loadedKeys.add(new Key(resultSet.getString(1), resultSet.getString(2),
+                        resultSet.getTimestamp(3).getTime()));
+            }
+        }
+        return loadedKeys;
+    }
+
+    private void insertKey(Connection connection, Key key) throws SQLException {
+        try (PreparedStatement statement = connection
+            .prepareStatement("INSERT INTO " + KEYS_TABLE + "(id, secret, created_at) VALUES (?, ?, ?)")) {
+            statement.setString(1, key.id);
+            statement.setString(2, key.secret);
+            statement.setTimestamp(3, new Timestamp(key.createdAt));
+            statement.executeUpdate();
+        }
+    }
+
+    private void removeKeysBefore(Connection connection, long createdAt) throws SQLException {
+        try (PreparedStatement statement = connection
+            .prepareStatement("DELETE FROM " + KEYS_TABLE + " WHERE created_at < ?")) {
+            statement.setTimestamp(1, new Timestamp(createdAt));
+            int removed = statement.executeUpdate();
+            if (removed > 0) {
+                log.info("Removed {} expired remember-me keys", removed);
+            }
+        }
+    }
+
+    private String generateSecret() {
+        byte[] secret = new byte[KEY_LENGTH];
+        random.nextBytes(secret);
+        char[] hex = new char[secret.length * 2];
+        for (int i = 0; i < secret.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(secret[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[secret[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static final class Key {
+
+        private final String id;
+
+        private final String secret;
+
+        private final long createdAt;
+
+        private Key(String id, String secret, long createdAt) {
+            this.id = id;
+            this.secret = secret;
+            this.createdAt = createdAt;
+        }
+
+    }
+
+}
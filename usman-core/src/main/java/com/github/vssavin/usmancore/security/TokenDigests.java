@@ -0,0 +1,51 @@
+package com.github.vssavin.usmancore.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digests of secret tokens (remember-me cookies etc.) that are stored and looked up
+ * instead of the raw token values. A leaked table then does not reveal usable tokens,
+ * and the fixed length digest is suitable for a unique index.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public final class TokenDigests {
+
+    /**
+     * Length of the hex encoded SHA-256 digest.
+     */
+    public static final int DIGEST_LENGTH = 64;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private TokenDigests() {
+
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 digest of the token.
+     * @param token raw token value
+     * @return token digest
+     */
+    public static String sha256(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("Token must not be null!");
+        }
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported!", e);
+        }
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+}
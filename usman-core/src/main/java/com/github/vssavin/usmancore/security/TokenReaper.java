@@ -0,0 +1,199 @@
+package com.github.vssavin.usmancore.security;
+
+import com.github.vssavin.usmancore.config.BackgroundScheduler;
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import com.github.vssavin.usmancore.data.ChunkedRemoval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically removes expired remember-me and csrf tokens. Rows are deleted by id with a
+ * {@link ChunkedRemoval}: in small chunks, every chunk in its own short transaction, with a
+ * pause between chunks, so the token tables are never locked for long.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class TokenReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenReaper.class);
+
+    private static final String REMEMBER_ME_TOKENS_TABLE = "rememberme_tokens";
+
+    private static final String CSRF_TOKENS_TABLE = "csrf_tokens";
+
+    private final DataSource dataSource;
+
+    private final SchemaInitializer schemaInitializer;
+
+    private final long intervalMinutes;
+
+    private final ChunkedRemoval chunkedRemoval;
+
+    private final LongSupplier clock;
+
+    private final BackgroundScheduler scheduler = new BackgroundScheduler("usman-token-reaper", Thread.MIN_PRIORITY);
+
+    private volatile Report lastReport;
+
+    public TokenReaper(DataSource dataSource, SchemaInitializer schemaInitializer, long intervalMinutes, int batchSize,
+            long pauseMillis) {
+        this(dataSource, schemaInitializer, intervalMinutes, batchSize, pauseMillis, System::currentTimeMillis);
+    }
+
+    TokenReaper(DataSource dataSource, SchemaInitializer schemaInitializer, long intervalMinutes, int batchSize,
+            long pauseMillis, LongSupplier clock) {
+        this.dataSource = dataSource;
+        this.schemaInitializer = schemaInitializer;
+        this.intervalMinutes = intervalMinutes;
+        this.chunkedRemoval = new ChunkedRemoval(batchSize, pauseMillis);
+        this.clock = clock;
+    }
+
+    public void start() {
+        if (intervalMinutes <= 0) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                purge();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (Exception e) {
+                log.warn("Token reaper error!", e);
+            }
+        };
+        scheduler.start(task, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        scheduler.stop();
+    }
+
+    /**
+     * Removes the tokens expired before now from all token tables.
+     * @return report of the purge
+     * @throws InterruptedException if interrupted while pausing between chunks
+     * @throws IllegalStateException if the schema is not initialized in time
+     */
+    public Report purge() throws InterruptedException {
+        SchemaInitializer.awaitIfPresent(schemaInitializer);
+        Timestamp now = new Timestamp(clock.getAsLong());
+        long removedRememberMeTokens = purgeTable(REMEMBER_ME_TOKENS_TABLE, now);
+        long removedCsrfTokens = purgeTable(CSRF_TOKENS_TABLE, now);
+        Report report = new Report(removedRememberMeTokens, removedCsrfTokens, clock.getAsLong());
+        lastReport = report;
+        if (removedRememberMeTokens > 0 || removedCsrfTokens > 0) {
+            log.info("Removed expired tokens: {}", report);
+        }
+        return report;
+    }
+
+    /**
+     * Returns the report of the last purge.
+     * @return last report or null if no purge has finished yet
+     */
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    private long purgeTable(String table, Timestamp now) throws InterruptedException {
+        return chunkedRemoval.removeAll("expired tokens from " + table, batchSize -> removeChunk(table, now, batchSize))
+            .getRemoved();
+    }
+
+    private int removeChunk(String table, Timestamp now, int batchSize) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            List<Long> ids = new ArrayList<>(batchSize);
+            // the chunk is read along the expiration index, so each query stops after batchSize rows
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id FROM " + table + " WHERE expiration_date < ? ORDER BY expiration_date LIMIT ?")) {
+                statement.setTimestamp(1, now);
+                statement.setInt(2, batchSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ids.add(resultSet.getLong(1));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection
+                .prepareStatement("DELETE FROM " + table + " WHERE id = ? AND expiration_date < ?")) {
+                for (long id : ids) {
+                    statement.setLong(1, id);
+                    statement.setTimestamp(2, now);
+                    statement.addBatch();
+                }
+                int removed = 0;
+                for (int count : statement.executeBatch()) {
+                    // a token renewed after it was selected is kept
+                    removed += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                }
+                connection.commit();
+                return removed;
+            }
+            catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Result of the expired tokens removal.
+     */
+    public static final class Report {
+
+        private final long removedRememberMeTokens;
+
+        private final long removedCsrfTokens;
+
+        private final long createdAt;
+
+        private Report(long removedRememberMeTokens, long removedCsrfTokens, long createdAt) {
+            this.removedRememberMeTokens = removedRememberMeTokens;
+            this.removedCsrfTokens = removedCsrfTokens;
+            this.createdAt = createdAt;
+        }
+
+        public long getRemovedRememberMeTokens() {
+            return removedRememberMeTokens;
+        }
+
+        public long getRemovedCsrfTokens() {
+            return removedCsrfTokens;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" + "removedRememberMeTokens=" + removedRememberMeTokens + ", removedCsrfTokens="
+                    + removedCsrfTokens + ", createdAt=" + createdAt + '}';
+        }
+
+    }
+
+}
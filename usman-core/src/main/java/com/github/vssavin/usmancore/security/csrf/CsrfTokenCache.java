@@ -0,0 +1,244 @@
+package com.github.vssavin.usmancore.security.csrf;
+
+import com.github.vssavin.usmancore.cache.UsmanCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Size and time bounded in-memory storage of the CSRF tokens of authenticated users. Keeps
+ * the newest tokens of each user (up to the per user limit) and the binding of the
+ * remember-me tokens to the CSRF tokens issued with them. Every entry lives until the
+ * expiration date of its token, the least recently used entries are evicted when the
+ * cache is full, and unbinding a remember-me token removes its CSRF token as well.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class CsrfTokenCache {
+
+    private final UsmanCache<Long, List<CachedToken>> userTokens;
+
+    private final UsmanCache<String, CachedToken> rememberMeTokens;
+
+    private final int maxTokensPerUser;
+
+    private final LongSupplier clock;
+
+    private final LongAdder overflowEvictions = new LongAdder();
+
+    public CsrfTokenCache(int maxUsers, int maxTokensPerUser) {
+        this(maxUsers, maxTokensPerUser, System::currentTimeMillis);
+    }
+
+    CsrfTokenCache(int maxUsers, int maxTokensPerUser, LongSupplier clock) {
+        if (maxTokensPerUser <= 0) {
+            throw new IllegalArgumentException("Max tokens per user must be positive!");
+        }
+        this.maxTokensPerUser = maxTokensPerUser;
+        this.clock = clock;
+        this.userTokens = UsmanCache.builder().maxSize(maxUsers).ttlMillis(Long.MAX_VALUE / 2).build();
+        this.rememberMeTokens = UsmanCache.builder()
+            .maxSize(maxUsers * maxTokensPerUser)
+            .ttlMillis(Long.MAX_VALUE / 2)
+            .build();
+    }
+
+    /**
+     * Returns the alive tokens of the user.
+     * @param userId user id
+     * @return tokens, the newest first
+     */
+    public List<String> getUserTokens(long userId) {
+        List<CachedToken> tokens = userTokens.getIfPresent(userId);
+        if (tokens == null) {
+            return Collections.emptyList();
+        }
+        long now = clock.getAsLong();
+        List<String> result = new ArrayList<>(tokens.size());
+        for (CachedToken token : tokens) {
+            if (token.expiresAt > now) {
+                result.add(token.token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the token to the newest tokens of the user, the oldest token is dropped if the
+     * user has too many of them.
+     * @param userId user id
+     * @param token csrf token
+     * @param expiresAtMillis expiration time of the token
+     */
+    public synchronized void putUserToken(long userId, String token, long expiresAtMillis) {
+        long now = clock.getAsLong();
+        List<CachedToken> tokens = new ArrayList<>(maxTokensPerUser);
+        tokens.add(new CachedToken(userId, token, expiresAtMillis));
+        List<CachedToken> currentTokens = userTokens.getIfPresent(userId);
+        if (currentTokens != null) {
+            for (CachedToken currentToken : currentTokens) {
+                if (currentToken.expiresAt <= now || currentToken.token.equals(token)) {
+                    continue;
+                }
+                if (tokens.size() < maxTokensPerUser) {
+                    tokens.add(currentToken);
+                }
+                else {
+                    overflowEvictions.increment();
+                }
+            }
+        }
+        putAlive(userId, tokens, now);
+    }
+
+    /**
+     * Binds the csrf token to the remember-me token it was issued with.
+     * @param rememberMeToken remember-me token
+     * @param userId user id
+     * @param token csrf token
+     * @param expiresAtMillis expiration time of the csrf token
+     */
+    public void bindRememberMeToken(String rememberMeToken, long userId, String token, long expiresAtMillis) {
+        long ttl = expiresAtMillis - clock.getAsLong();
+        if (ttl > 0) {
+            rememberMeTokens.put(rememberMeToken, new CachedToken(userId, token, expiresAtMillis), ttl);
+        }
+    }
+
+    /**
+     * Returns the csrf token bound to the remember-me token.
+     * @param rememberMeToken remember-me token
+     * @return csrf token or null if not bound or expired
+     */
+    public String getBoundToken(String rememberMeToken) {
+        CachedToken token = rememberMeTokens.getIfPresent(rememberMeToken);
+        return token != null && token.expiresAt > clock.getAsLong() ? token.token : null;
+    }
+
+    /**
+     * Removes the binding of the invalidated remember-me token together with the csrf token
+     * bound to it.
+     * @param rememberMeToken remember-me token
+     * @return removed csrf token or null if the remember-me token was not bound
+     */
+    public synchronized String unbindRememberMeToken(String rememberMeToken) {
+        CachedToken token = rememberMeTokens.getIfPresent(rememberMeToken);
+        if (token == null) {
+            return null;
+        }
+        rememberMeTokens.invalidate(rememberMeToken);
+        List<CachedToken> currentTokens = userTokens.getIfPresent(token.userId);
+        if (currentTokens != null) {
+            List<CachedToken> tokens = new ArrayList<>(currentTokens);
+            tokens.removeIf(userToken -> userToken.token.equals(token.token));
+            putAlive(token.userId, tokens, clock.getAsLong());
+        }
+        return token.token;
+    }
+
+    public void clear() {
+        userTokens.invalidateAll();
+        rememberMeTokens.invalidateAll();
+    }
+
+    public Stats getStats() {
+        UsmanCache.Stats userStats = userTokens.getStats();
+        UsmanCache.Stats rememberMeStats = rememberMeTokens.getStats();
+        return new Stats(userStats.getSize(), userStats.getMaxSize(), rememberMeStats.getSize(), maxTokensPerUser,
+                userStats.getEvictions() + rememberMeStats.getEvictions() + overflowEvictions.sum(),
+                userStats.getExpirations() + rememberMeStats.getExpirations());
+    }
+
+    private void putAlive(long userId, List<CachedToken> tokens, long now) {
+        tokens.removeIf(token -> token.expiresAt <= now);
+        if (tokens.isEmpty()) {
+            userTokens.invalidate(userId);
+            return;
+        }
+        long expiresAt = 0;
+        for (CachedToken token : tokens) {
+            expiresAt = Math.max(expiresAt, token.expiresAt);
+        }
+        userTokens.put(userId, Collections.unmodifiableList(tokens), expiresAt - now);
+    }
+
+    private static final class CachedToken {
+
+        private final long userId;
+
+        private final String token;
+
+        private final long expiresAt;
+
+        private CachedToken(long userId, String token, long expiresAt) {
+            this.userId = userId;
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+    /**
+     * Occupancy and eviction statistics of the {@link CsrfTokenCache}.
+     */
+    public static final class Stats {
+
+        private final int users;
+
+        private final int maxUsers;
+
+        private final int rememberMeTokens;
+
+        private final int maxTokensPerUser;
+
+        private final long evictions;
+
+        private final long expirations;
+
+        private Stats(int users, int maxUsers, int rememberMeTokens, int maxTokensPerUser, long evictions,
+                long expirations) {
+            this.users = users;
+            this.maxUsers = maxUsers;
+            this.rememberMeTokens = rememberMeTokens;
+            this.maxTokensPerUser = maxTokensPerUser;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        public int getMaxUsers() {
+            return maxUsers;
+        }
+
+        public int getRememberMeTokens() {
+            return rememberMeTokens;
+        }
+
+        public int getMaxTokensPerUser() {
+            return maxTokensPerUser;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "users=" + users + ", maxUsers=" + maxUsers + ", rememberMeTokens=" + rememberMeTokens
+                    + ", maxTokensPerUser=" + maxTokensPerUser + ", evictions=" + evictions + ", expirations="
+                    + expirations + '}';
+        }
+
+    }
+
+}
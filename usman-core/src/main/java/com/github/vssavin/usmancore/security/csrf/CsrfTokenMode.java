@@ -0,0 +1,20 @@
+package com.github.vssavin.usmancore.security.csrf;
+
+/**
+ * Storage mode of the CSRF tokens of authenticated users.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public enum CsrfTokenMode {
+
+    /**
+     * Tokens are stored in the user management database (or in the local cache).
+     */
+    DATABASE,
+
+    /**
+     * Tokens are HMAC-signed and verified in memory, nothing is stored.
+     */
+    STATELESS
+
+}
@@ -0,0 +1,118 @@
+package com.github.vssavin.usmancore.security.csrf;
+
+import com.github.vssavin.usmancore.security.HmacKeyRing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.LongSupplier;
+
+/**
+ * Creates and verifies stateless CSRF tokens. A token carries the user id, the remember-me
+ * series, the expiry time and the signing key id, and is signed with a key of the
+ * {@link HmacKeyRing}. Verification needs no storage: the signature, the binding to the
+ * user and the series, and the expiry are checked in memory.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class SignedCsrfTokens {
+
+    private static final String VERSION = "v1";
+
+    private static final String SEPARATOR = "|";
+
+    private static final int NONCE_LENGTH = 12;
+
+    private static final int SERIES_LENGTH = 12;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final HmacKeyRing keyRing;
+
+    private final long validityMillis;
+
+    private final LongSupplier clock;
+
+    public SignedCsrfTokens(HmacKeyRing keyRing, long validityMillis) {
+        this(keyRing, validityMillis, System::currentTimeMillis);
+    }
+
+    SignedCsrfTokens(HmacKeyRing keyRing, long validityMillis, LongSupplier clock) {
+        this.keyRing = keyRing;
+        this.validityMillis = validityMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the remember-me series for the stored credential of a user. Token based
+     * remember-me cookies stay valid while the credential is unchanged, so the series
+     * changes, and the CSRF tokens bound to it are revoked, together with them.
+     * @param credential stored (encoded) credential of the user
+     * @return series
+     */
+    public static String seriesOf(String credential) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(String.valueOf(credential).getBytes(StandardCharsets.UTF_8));
+            return encode(Arrays.copyOf(digest, SERIES_LENGTH));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported!", e);
+        }
+    }
+
+    /**
+     * Creates a token signed with the current key.
+     * @param userId user id
+     * @param series remember-me series
+     * @return token
+     */
+    public String create(long userId, String series) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        long expiresAt = clock.getAsLong() + validityMillis;
+        String payload = VERSION + SEPARATOR + userId + SEPARATOR + series + SEPARATOR + expiresAt + SEPARATOR
+                + keyRing.getCurrentKeyId() + SEPARATOR + encode(nonce);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return encode(payloadBytes) + "." + encode(keyRing.sign(payloadBytes));
+    }
+
+    /**
+     * Checks that the token is signed with a retained key, is bound to the user and the
+     * series and is not expired.
+     * @param token token to check, may be null
+     * @param userId user id
+     * @param series remember-me series
+     * @return true if the token is valid
+     */
+    public boolean verify(String token, long userId, String series) {
+        if (token == null) {
+            return false;
+        }
+        int separatorIndex = token.indexOf('.');
+        if (separatorIndex <= 0 || separatorIndex == token.length() - 1) {
+            return false;
+        }
+        try {
+            byte[] payloadBytes = Base64.getUrlDecoder().decode(token.substring(0, separatorIndex));
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|");
+            if (fields.length != 6 || !VERSION.equals(fields[0]) || Long.parseLong(fields[1]) != userId
+                    || !fields[2].equals(series) || Long.parseLong(fields[3]) < clock.getAsLong()) {
+                return false;
+            }
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(separatorIndex + 1));
+            return keyRing.verify(fields[4], payloadBytes, signature);
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+}
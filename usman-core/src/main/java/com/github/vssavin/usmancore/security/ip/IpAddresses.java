@@ -0,0 +1,254 @@
+package com.github.vssavin.usmancore.security.ip;
+
+/**
+ * Allocation-free parsing of textual IPv4 and IPv6 addresses into eight 16-bit groups.
+ * IPv4 addresses are represented as IPv4-mapped IPv6 addresses ({@code ::ffff:a.b.c.d}),
+ * so both families share a single 128-bit address space.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public final class IpAddresses {
+
+    public static final int ADDRESS_BITS = 128;
+
+    public static final int IPV4_MAPPED_PREFIX_BITS = 96;
+
+    static final int GROUPS_COUNT = 8;
+
+    static final int INVALID = 0;
+
+    static final int IPV4 = 4;
+
+    static final int IPV6 = 6;
+
+    private IpAddresses() {
+
+    }
+
+    /**
+     * Parses the address into the specified groups array.
+     * @param address textual address, may be enclosed in square brackets and contain a zone
+     * id
+     * @param groups array of eight elements to store the address groups
+     * @return {@link #IPV4}, {@link #IPV6} or {@link #INVALID} if the address can't be
+     * parsed
+     */
+    static int parse(CharSequence address, int[] groups) {
+        if (address == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = address.length();
+        if (end > 1 && address.charAt(0) == '[' && address.charAt(end - 1) == ']') {
+            start = 1;
+            end--;
+        }
+        boolean colonFound = false;
+        for (int i = start; i < end; i++) {
+            char c = address.charAt(i);
+            if (c == '%') {
+                end = i;
+                break;
+            }
+            if (c == ':') {
+                colonFound = true;
+            }
+        }
+        if (start == end) {
+            return INVALID;
+        }
+
+        if (!colonFound) {
+            long ipv4 = parseIpv4(address, start, end);
+            if (ipv4 < 0) {
+                return INVALID;
+            }
+            setIpv4Mapped(groups, ipv4);
+            return IPV4;
+        }
+
+        return parseIpv6(address, start, end, groups) ? IPV6 : INVALID;
+    }
+
+    static boolean isIpv4Mapped(int[] groups) {
+        for (int i = 0; i < 5; i++) {
+            if (groups[i] != 0) {
+                return false;
+            }
+        }
+        return groups[5] == 0xFFFF;
+    }
+
+    /**
+     * Returns the upper 64 bits of the address.
+     * @param groups address groups
+     * @return groups 0-3 packed into a long
+     */
+    static long high(int[] groups) {
+        return pack(groups, 0);
+    }
+
+    /**
+     * Returns the lower 64 bits of the address.
+     * @param groups address groups
+     * @return groups 4-7 packed into a long
+     */
+    static long low(int[] groups) {
+        return pack(groups, 4);
+    }
+
+    /**
+     * Returns a key that identifies the subnet the address belongs to. IPv4 addresses are
+     * returned as is, IPv6 addresses are truncated to the specified prefix length.
+     * @param address textual address
+     * @param ipv6PrefixLength IPv6 subnet prefix length
+     * @return subnet key or the original address if it can't be parsed
+     */
+    public static String toSubnetKey(String address, int ipv6PrefixLength) {
+        if (address == null || address.indexOf(':') < 0) {
+            return address;
+        }
+        int[] groups = new int[GROUPS_COUNT];
+        if (parse(address, groups) == INVALID || isIpv4Mapped(groups) || ipv6PrefixLength >= ADDRESS_BITS) {
+            return address;
+        }
+        applyPrefix(groups, ipv6PrefixLength);
+        StringBuilder builder = new StringBuilder(48);
+        for (int i = 0; i < GROUPS_COUNT; i++) {
+            if (i > 0) {
+                builder.append(':');
+            }
+            builder.append(Integer.toHexString(groups[i]));
+        }
+        return builder.append('/').append(ipv6PrefixLength).toString();
+    }
+
+    static void applyPrefix(int[] groups, int prefixLength) {
+        for (int i = 0; i < GROUPS_COUNT; i++) {
+            int groupPrefix = prefixLength - i * 16;
+            if (groupPrefix <= 0) {
+                groups[i] = 0;
+            }
+            else if (groupPrefix < 16) {
+                groups[i] &= (0xFFFF << (16 - groupPrefix)) & 0xFFFF;
+            }
+        }
+    }
+
+    private static long pack(int[] groups, int from) {
+        return ((long) groups[from] << 48) | ((long) groups[from + 1] << 32) | ((long) groups[from + 2] << 16)
+                | groups[from + 3];
+    }
+
+    private static void setIpv4Mapped(int[] groups, long ipv4) {
+        for (int i = 0; i < 5; i++) {
+            groups[i] = 0;
+        }
+        groups[5] = 0xFFFF;
+        groups[6] = (int) (ipv4 >>> 16);
+        groups[7] = (int) (ipv4 & 0xFFFF);
+    }
+
+    private static long parseIpv4(CharSequence address, int start, int end) {
+        long result = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? address.charAt(i) : '.';
+            if (c == '.') {
+                if (value < 0 || octets == 4) {
+                    return -1;
+                }
+                result = (result << 8) | value;
+                octets++;
+                value = -1;
+            }
+            else if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            }
+            else {
+                return -1;
+            }
+        }
+        return octets == 4 ? result : -1;
+    }
+
+    private static boolean parseIpv6(CharSequence address, int start, int end, int[] groups) {
+        int count = 0;
+        int compressAt = -1;
+        int i = start;
+        if (address.charAt(i) == ':') {
+            if (end - i < 2 || address.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressAt = 0;
+            i += 2;
+        }
+
+        while (i < end) {
+            int groupStart = i;
+            int value = 0;
+            int digits = 0;
+            boolean ipv4Tail = false;
+            while (i < end && address.charAt(i) != ':') {
+                char c = address.charAt(i);
+                if (c == '.') {
+                    long ipv4 = parseIpv4(address, groupStart, end);
+                    if (ipv4 < 0 || count > GROUPS_COUNT - 2) {
+                        return false;
+                    }
+                    groups[count++] = (int) (ipv4 >>> 16);
+                    groups[count++] = (int) (ipv4 & 0xFFFF);
+                    ipv4Tail = true;
+                    i = end;
+                    break;
+                }
+                int digit = Character.digit(c, 16);
+                if (digit < 0 || ++digits > 4) {
+                    return false;
+                }
+                value = (value << 4) | digit;
+                i++;
+            }
+            if (ipv4Tail) {
+                break;
+            }
+            if (digits == 0 || count == GROUPS_COUNT) {
+                return false;
+            }
+            groups[count++] = value;
+            if (i < end) {
+                i++;
+                if (i < end && address.charAt(i) == ':') {
+                    if (compressAt >= 0) {
+                        return false;
+                    }
+                    compressAt = count;
+                    i++;
+                }
+                else if (i == end) {
+                    return false;
+                }
+            }
+        }
+
+        if (compressAt >= 0) {
+            if (count == GROUPS_COUNT) {
+                return false;
+            }
+            int shift = GROUPS_COUNT - count;
+            for (int j = count - 1; j >= compressAt; j--) {
+                groups[j + shift] = groups[j];
+            }
+            for (int j = compressAt; j < compressAt + shift; j++) {
+                groups[j] = 0;
+            }
+            return true;
+        }
+        return count == GROUPS_COUNT;
+    }
+
+}
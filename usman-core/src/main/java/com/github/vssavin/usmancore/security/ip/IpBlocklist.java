@@ -0,0 +1,369 @@
+package com.github.vssavin.usmancore.security.ip;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocklist of IPv4/IPv6 prefixes backed by a persistent path-compressed binary trie over
+ * the 128 address bits. A node keeps the whole prefix leading to it, so chains of
+ * single-child nodes are skipped and a ban takes at most two nodes: its own and the branch
+ * where it leaves the existing prefixes. Lookups read a volatile root and allocate
+ * nothing, writes copy the changed path and publish a new root. Supports static deny
+ * ranges and expiring bans; IPv6 bans are widened to a configurable subnet (/64 by
+ * default) so that rotating addresses inside one subnet does not escape the ban. The
+ * number of active bans is limited, new bans are rejected when the limit is reached and no
+ * expired ones can be purged.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class IpBlocklist {
+
+    public static final int DEFAULT_IPV6_BAN_PREFIX_LENGTH = 64;
+
+    public static final int DEFAULT_MAX_BANS = 100_000;
+
+    private static final long STATIC_ENTRY = Long.MAX_VALUE;
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final ThreadLocal<int[]> groupsBuffer = ThreadLocal
+        .withInitial(() -> new int[IpAddresses.GROUPS_COUNT]);
+
+    private final int ipv6BanPrefixLength;
+
+    private final int maxBans;
+
+    private volatile Node root;
+
+    private int bansCount;
+
+    private long rejectedBansCount;
+
+    private long nextPurgeTime;
+
+    public IpBlocklist() {
+        this(DEFAULT_IPV6_BAN_PREFIX_LENGTH, DEFAULT_MAX_BANS);
+    }
+
+    public IpBlocklist(int ipv6BanPrefixLength, int maxBans) {
+        if (ipv6BanPrefixLength <= 0 || ipv6BanPrefixLength > IpAddresses.ADDRESS_BITS) {
+            throw new IllegalArgumentException("Wrong IPv6 ban prefix length: " + ipv6BanPrefixLength);
+        }
+        if (maxBans <= 0) {
+            throw new IllegalArgumentException("Max bans count must be positive!");
+        }
+        this.ipv6BanPrefixLength = ipv6BanPrefixLength;
+        this.maxBans = maxBans;
+    }
+
+    /**
+     * Checks if the address is covered by a static range or an active ban.
+     * @param address textual IPv4 or IPv6 address
+     * @return true if the address is blocked, false otherwise or if the address is not
+     * valid
+     */
+    public boolean isBlocked(CharSequence address) {
+        Node node = root;
+        if (node == null) {
+            return false;
+        }
+        int[] groups = groupsBuffer.get();
+        if (IpAddresses.parse(address, groups) == IpAddresses.INVALID) {
+            return false;
+        }
+        long high = IpAddresses.high(groups);
+        long low = IpAddresses.low(groups);
+        long now = System.currentTimeMillis();
+        while (node != null && node.covers(high, low)) {
+            if (node.expirationTime > now) {
+                return true;
+            }
+            if (node.length == IpAddresses.ADDRESS_BITS) {
+                break;
+            }
+            node = node.child(high, low);
+        }
+        return false;
+    }
+
+    /**
+     * Adds a permanent deny range.
+     * @param range address or CIDR range, for example {@code 10.0.0.0/8} or
+     * {@code 2001:db8::/32}
+     */
+    public synchronized void addStaticRange(String range) {
+        int[] groups = new int[IpAddresses.GROUPS_COUNT];
+        int prefixLength = parseRange(range, groups);
+        root = update(root, IpAddresses.high(groups), IpAddresses.low(groups), prefixLength, STATIC_ENTRY, false);
+    }
+
+    /**
+     * Bans the address until the specified time. IPv6 addresses are banned together with
+     * their subnet.
+     * @param address textual address
+     * @param expirationTime ban expiration time in milliseconds
+     * @return false if the address is not valid or the bans limit is reached
+     */
+    public synchronized boolean ban(CharSequence address, long expirationTime) {
+        int[] groups = new int[IpAddresses.GROUPS_COUNT];
+        if (IpAddresses.parse(address, groups) == IpAddresses.INVALID) {
+            rejectedBansCount++;
+            return false;
+        }
+        int prefixLength = banPrefixLength(groups);
+        long high = IpAddresses.high(groups);
+        long low = IpAddresses.low(groups);
+        if (findExpirationTime(root, high, low, prefixLength) == 0) {
+            if (bansCount >= maxBans && System.currentTimeMillis() >= nextPurgeTime) {
+                purgeExpired();
+            }
+            if (bansCount >= maxBans) {
+                rejectedBansCount++;
+                return false;
+            }
+            bansCount++;
+        }
+        root = update(root, high, low, prefixLength, expirationTime, false);
+        return true;
+    }
+
+    /**
+     * Removes the ban of the address (and its IPv6 subnet). Static ranges are kept.
+     * @param address textual address
+     */
+    public synchronized void unban(CharSequence address) {
+        int[] groups = new int[IpAddresses.GROUPS_COUNT];
+        if (root == null || IpAddresses.parse(address, groups) == IpAddresses.INVALID) {
+            return;
+        }
+        int prefixLength = banPrefixLength(groups);
+        long high = IpAddresses.high(groups);
+        long low = IpAddresses.low(groups);
+        long expirationTime = findExpirationTime(root, high, low, prefixLength);
+        if (expirationTime == 0 || expirationTime == STATIC_ENTRY) {
+            return;
+        }
+        bansCount--;
+        root = update(root, high, low, prefixLength, 0, true);
+    }
+
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        root = purge(root, now);
+        bansCount = countBans(root);
+        nextPurgeTime = now + PURGE_INTERVAL_MILLIS;
+    }
+
+    /**
+     * Returns the number of dynamic bans, including expired ones that were not purged yet.
+     * @return bans count
+     */
+    public synchronized int getBansCount() {
+        return bansCount;
+    }
+
+    /**
+     * Returns the number of bans rejected because the address was not valid or the bans
+     * limit was reached.
+     * @return rejected bans count
+     */
+    public synchronized long getRejectedBansCount() {
+        return rejectedBansCount;
+    }
+
+    public int getIpv6BanPrefixLength() {
+        return ipv6BanPrefixLength;
+    }
+
+    synchronized int getNodesCount() {
+        return countNodes(root);
+    }
+
+    private int banPrefixLength(int[] groups) {
+        if (IpAddresses.isIpv4Mapped(groups)) {
+            return IpAddresses.ADDRESS_BITS;
+        }
+        return ipv6BanPrefixLength;
+    }
+
+    private static int parseRange(String range, int[] groups) {
+        if (range == null) {
+            throw new IllegalArgumentException("IP range must not be null!");
+        }
+        int slashIndex = range.indexOf('/');
+        String address = slashIndex < 0 ? range : range.substring(0, slashIndex);
+        int version = IpAddresses.parse(address, groups);
+        if (version == IpAddresses.INVALID) {
+            throw new IllegalArgumentException("Wrong IP range: " + range);
+        }
+        int maxLength = version == IpAddresses.IPV4 ? 32 : IpAddresses.ADDRESS_BITS;
+        int prefixLength = maxLength;
+        if (slashIndex >= 0) {
+            try {
+                prefixLength = Integer.parseInt(range.substring(slashIndex + 1).trim());
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Wrong IP range: " + range, e);
+            }
+            if (prefixLength < 0 || prefixLength > maxLength) {
+                throw new IllegalArgumentException("Wrong IP range prefix length: " + range);
+            }
+        }
+        return version == IpAddresses.IPV4 ? IpAddresses.IPV4_MAPPED_PREFIX_BITS + prefixLength : prefixLength;
+    }
+
+    private static long findExpirationTime(Node node, long high, long low, int prefixLength) {
+        while (node != null && node.length <= prefixLength && node.covers(high, low)) {
+            if (node.length == prefixLength) {
+                return node.expirationTime;
+            }
+            node = node.child(high, low);
+        }
+        return 0;
+    }
+
+    private static Node update(Node node, long high, long low, int prefixLength, long expirationTime,
+            boolean replace) {
+        if (node == null) {
+            return expirationTime == 0 ? null : new Node(high, low, prefixLength, null, null, expirationTime);
+        }
+        int common = commonPrefixLength(node.high, node.low, high, low, Math.min(node.length, prefixLength));
+        if (common == node.length && common == prefixLength) {
+            long newExpirationTime;
+            if (node.expirationTime == STATIC_ENTRY) {
+                newExpirationTime = STATIC_ENTRY;
+            }
+            else if (replace) {
+                newExpirationTime = expirationTime;
+            }
+            else {
+                newExpirationTime = Math.max(node.expirationTime, expirationTime);
+            }
+            return compact(node, node.zero, node.one, newExpirationTime);
+        }
+        if (common == node.length) {
+            if (bit(high, low, node.length) == 0) {
+                return compact(node, update(node.zero, high, low, prefixLength, expirationTime, replace), node.one,
+                        node.expirationTime);
+            }
+            return compact(node, node.zero, update(node.one, high, low, prefixLength, expirationTime, replace),
+                    node.expirationTime);
+        }
+        // the prefix leaves the path of the node inside its skipped bits
+        if (expirationTime == 0) {
+            return node;
+        }
+        long branchExpirationTime = common == prefixLength ? expirationTime : 0;
+        Node leaf = common == prefixLength ? null : new Node(high, low, prefixLength, null, null, expirationTime);
+        if (bit(node.high, node.low, common) == 0) {
+            return new Node(high, low, common, node, leaf, branchExpirationTime);
+        }
+        return new Node(high, low, common, leaf, node, branchExpirationTime);
+    }
+
+    private static Node purge(Node node, long now) {
+        if (node == null) {
+            return null;
+        }
+        Node zero = purge(node.zero, now);
+        Node one = purge(node.one, now);
+        long expirationTime = node.expirationTime > now ? node.expirationTime : 0;
+        if (zero == node.zero && one == node.one && expirationTime == node.expirationTime) {
+            return node;
+        }
+        return compact(node, zero, one, expirationTime);
+    }
+
+    /**
+     * Returns the node with the specified children and expiration time, drops it if it is
+     * empty and replaces it with its only child if it does not end a prefix.
+     */
+    private static Node compact(Node node, Node zero, Node one, long expirationTime) {
+        if (expirationTime == 0) {
+            if (zero == null) {
+                return one;
+            }
+            if (one == null) {
+                return zero;
+            }
+        }
+        if (zero == node.zero && one == node.one && expirationTime == node.expirationTime) {
+            return node;
+        }
+        return new Node(node.high, node.low, node.length, zero, one, expirationTime);
+    }
+
+    private static int countBans(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        int count = node.expirationTime != 0 && node.expirationTime != STATIC_ENTRY ? 1 : 0;
+        return count + countBans(node.zero) + countBans(node.one);
+    }
+
+    private static int countNodes(Node node) {
+        return node == null ? 0 : 1 + countNodes(node.zero) + countNodes(node.one);
+    }
+
+    private static int commonPrefixLength(long high1, long low1, long high2, long low2, int maxLength) {
+        long difference = high1 ^ high2;
+        int length;
+        if (difference != 0) {
+            length = Long.numberOfLeadingZeros(difference);
+        }
+        else {
+            difference = low1 ^ low2;
+            length = difference == 0 ? IpAddresses.ADDRESS_BITS : 64 + Long.numberOfLeadingZeros(difference);
+        }
+        return Math.min(length, maxLength);
+    }
+
+    private static int bit(long high, long low, int index) {
+        return (int) (index < 64 ? high >>> (63 - index) : low >>> (127 - index)) & 1;
+    }
+
+    private static long highMask(int length) {
+        return length == 0 ? 0 : length >= 64 ? -1L : -1L << (64 - length);
+    }
+
+    private static long lowMask(int length) {
+        return length <= 64 ? 0 : length == IpAddresses.ADDRESS_BITS ? -1L : -1L << (128 - length);
+    }
+
+    /**
+     * Immutable trie node holding a prefix of the specified length. A non-zero expiration
+     * time marks the end of a blocked prefix, nodes without it always have two children.
+     */
+    private static final class Node {
+
+        private final long high;
+
+        private final long low;
+
+        private final int length;
+
+        private final Node zero;
+
+        private final Node one;
+
+        private final long expirationTime;
+
+        private Node(long high, long low, int length, Node zero, Node one, long expirationTime) {
+            this.high = high & highMask(length);
+            this.low = low & lowMask(length);
+            this.length = length;
+            this.zero = zero;
+            this.one = one;
+            this.expirationTime = expirationTime;
+        }
+
+        private boolean covers(long high, long low) {
+            return ((high ^ this.high) & highMask(length)) == 0 && ((low ^ this.low) & lowMask(length)) == 0;
+        }
+
+        private Node child(long high, long low) {
+            return bit(high, low, length) == 0 ? zero : one;
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+-- baseline schema. Applied once; never edit, add a new version.
+
+create table IF NOT EXISTS users(
+ id SERIAL primary key,
+ login varchar(50) not null,
+ name varchar(100) not null,
+ password varchar(60) not null,
+ email varchar(50) not null,
+ authority varchar(50) not null,
+ expiration_date timestamp not null,
+ verification_id varchar(50),
+ account_locked smallint DEFAULT 0,
+ credentials_expired smallint DEFAULT 0,
+ enabled smallint DEFAULT 1
+ );
+
+create table IF NOT EXISTS events(
+ id SERIAL primary key,
+ user_id SERIAL not null,
+ event_type varchar(255) not null,
+ event_timestamp timestamp not null,
+ event_message varchar(255) not null,
+ event_bucket integer not null,
+ foreign key (user_id) references users(id)
+);
+
+alter table events add column IF NOT EXISTS event_bucket integer;
+update events
+set event_bucket = cast(extract(year from event_timestamp) * 100 + extract(month from event_timestamp) as integer)
+where event_bucket is null;
+alter table events alter column event_bucket set not null;
+
+create index IF NOT EXISTS events_timestamp_id_idx on events(event_timestamp, id);
+create index IF NOT EXISTS events_bucket_timestamp_idx on events(event_bucket, event_timestamp);
+create index IF NOT EXISTS events_user_timestamp_idx on events(user_id, event_timestamp);
+
+create table IF NOT EXISTS event_rollups(
+ granularity varchar(8) not null,
+ event_type varchar(255) not null,
+ user_id bigint not null,
+ bucket_start timestamp not null,
+ event_count bigint not null,
+ primary key (granularity, event_type, user_id, bucket_start)
+);
+
+create index IF NOT EXISTS event_rollups_granularity_bucket_idx on event_rollups(granularity, bucket_start);
+
+-- remember-me tokens are stored as SHA-256 digests and looked up by the digest
+create table IF NOT EXISTS rememberme_tokens(
+ id SERIAL primary key,
+ user_id SERIAL not null,
+ token_digest varchar(64) not null,
+ expiration_date timestamp not null,
+ foreign key (user_id) references users(id)
+);
+
+-- token tables are no longer dropped at startup, expired tokens are removed by TokenReaper.
+-- Tables of older versions hold raw tokens without expiration dates, such rows can't be used.
+alter table rememberme_tokens add column IF NOT EXISTS token_digest varchar(64);
+alter table rememberme_tokens add column IF NOT EXISTS expiration_date timestamp;
+delete from rememberme_tokens where token_digest is null or expiration_date is null;
+alter table rememberme_tokens drop column IF EXISTS token;
+alter table rememberme_tokens alter column token_digest set not null;
+alter table rememberme_tokens alter column expiration_date set not null;
+
+create unique index IF NOT EXISTS rememberme_tokens_token_digest_idx on rememberme_tokens(token_digest);
+create index IF NOT EXISTS rememberme_tokens_expiration_idx on rememberme_tokens(expiration_date);
+
+-- remember-me signing keys shared by all nodes, the newest key is active, see RememberMeKeyRing
+create table IF NOT EXISTS rememberme_keys(
+ id varchar(32) primary key,
+ secret varchar(64) not null,
+ created_at timestamp not null
+);
+
+create table IF NOT EXISTS csrf_tokens(
+ id SERIAL primary key,
+ user_id SERIAL not null,
+ token varchar(255) not null,
+ expiration_date timestamp not null,
+ foreign key (user_id) references users(id)
+);
+
+create index IF NOT EXISTS csrf_tokens_expiration_idx on csrf_tokens(expiration_date);
+
+-- id sequences (users_seq, events_seq, rememberme_tokens_seq, csrf_tokens_seq) are created by IdSequences
+-- after this script, starting after the largest existing id, so that existing databases are migrated as well.
+-- The default admin takes an identity id, so it is only inserted into an empty table.
+
+insert into users(login, name, password, email, authority, expiration_date)
+select 'admin', 'admin', E'$2a$10$YdgnnXcd4W1IV2bXx9j8BevMDvfhHU1wNM5Puhmsbu1eknmqEsyCK', 'admin@example.com',
+'ROLE_ADMIN', '2099-01-01 00:00:00'
+where not exists (select 1 from users);
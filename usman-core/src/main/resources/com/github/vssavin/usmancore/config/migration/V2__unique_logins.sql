@@ -0,0 +1,13 @@
+-- case-normalized logins and emails are kept by the application, see User, unique indexes on them make the database
+-- reject duplicate registrations. Duplicates created before this script must be resolved manually, the script fails
+-- on them.
+
+alter table users add column IF NOT EXISTS login_normalized varchar(50);
+alter table users add column IF NOT EXISTS email_normalized varchar(50);
+update users set login_normalized = lower(login) where login_normalized is null;
+update users set email_normalized = lower(email) where email_normalized is null;
+alter table users alter column login_normalized set not null;
+alter table users alter column email_normalized set not null;
+
+create unique index IF NOT EXISTS users_login_normalized_idx on users(login_normalized);
+create unique index IF NOT EXISTS users_email_normalized_idx on users(email_normalized);
@@ -0,0 +1,23 @@
+-- user_id columns were declared as SERIAL, so every foreign key got its own useless sequence. They become plain
+-- BIGINT columns, like the entity ids. users.id keeps its type, a BIGINT foreign key may reference it.
+
+alter table events alter column user_id drop default;
+alter table events alter column user_id set data type bigint;
+drop sequence IF EXISTS events_user_id_seq;
+
+alter table rememberme_tokens alter column user_id drop default;
+alter table rememberme_tokens alter column user_id set data type bigint;
+drop sequence IF EXISTS rememberme_tokens_user_id_seq;
+
+alter table csrf_tokens alter column user_id drop default;
+alter table csrf_tokens alter column user_id set data type bigint;
+drop sequence IF EXISTS csrf_tokens_user_id_seq;
+
+-- events are looked up by user with events_user_timestamp_idx(user_id, event_timestamp), see V1__init.sql
+create index IF NOT EXISTS rememberme_tokens_user_id_idx on rememberme_tokens(user_id);
+create index IF NOT EXISTS csrf_tokens_user_id_idx on csrf_tokens(user_id);
+create index IF NOT EXISTS csrf_tokens_token_idx on csrf_tokens(token);
+
+-- exact lookups by login and email, the unique indexes of V2__unique_logins.sql cover only normalized values
+create index IF NOT EXISTS users_login_idx on users(login);
+create index IF NOT EXISTS users_email_idx on users(email);
@@ -0,0 +1,6 @@
+-- events.id was declared as SERIAL, an integer, while events are the largest table. Ids are taken from events_seq
+-- (see IdSequences), so the column becomes a plain BIGINT.
+
+alter table events alter column id drop default;
+alter table events alter column id set data type bigint;
+drop sequence IF EXISTS events_id_seq;
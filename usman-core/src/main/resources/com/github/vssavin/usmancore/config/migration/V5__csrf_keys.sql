@@ -0,0 +1,6 @@
+-- signing keys of stateless csrf tokens shared by all nodes, the newest key is current, see PersistentHmacKeyRing
+create table IF NOT EXISTS csrf_keys(
+ id varchar(32) primary key,
+ secret varchar(64) not null,
+ created_at timestamp not null
+);
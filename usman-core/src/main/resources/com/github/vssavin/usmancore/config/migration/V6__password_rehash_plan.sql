@@ -0,0 +1,14 @@
+-- the latest password rehash plan of the cluster, the node that moves started_at forward scans the hashes for all
+-- nodes, the others read its report, see PasswordRehashPlanner
+
+create table IF NOT EXISTS password_rehash_plan(
+ id int primary key,
+ started_at timestamp not null,
+ finished_at timestamp,
+ total_users bigint,
+ outdated_users bigint,
+ users_by_strength varchar(1024)
+);
+
+insert into password_rehash_plan(id, started_at)
+select 1, timestamp '1970-01-01 00:00:00' where not exists (select 1 from password_rehash_plan where id = 1);
@@ -0,0 +1,8 @@
+-- creation time of users, set by the database. KnownLoginFilter reads users created by other nodes by it, ids can't be
+-- used for that: every node allocates them in blocks, see IdSequences.
+
+alter table users add column IF NOT EXISTS created_at timestamp DEFAULT CURRENT_TIMESTAMP;
+update users set created_at = CURRENT_TIMESTAMP where created_at is null;
+alter table users alter column created_at set not null;
+
+create index IF NOT EXISTS users_created_at_idx on users(created_at);
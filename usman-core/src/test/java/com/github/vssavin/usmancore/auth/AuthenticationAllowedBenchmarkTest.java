@@ -0,0 +1,66 @@
+package com.github.vssavin.usmancore.auth;
+
+import com.github.vssavin.usmancore.config.UsmanConfigurer;
+import com.github.vssavin.usmancore.security.SecureService;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link UsmanBaseAuthenticationService#isAuthenticationAllowed(String)} while
+ * millions of distinct addresses fail to log in, and checks that the failures tracker
+ * stays within its capacity.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class AuthenticationAllowedBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthenticationAllowedBenchmarkTest.class);
+
+    private static final int DISTINCT_KEYS = 2_000_000;
+
+    private static final int TRACKER_CAPACITY = 50_000;
+
+    @Test
+    public void benchmarkAuthenticationAllowedWithDistinctKeys() {
+        UsmanConfigurer usmanConfigurer = new UsmanConfigurer().maxAuthFailureCount(3)
+            .authFailureTrackerCapacity(TRACKER_CAPACITY);
+        UsmanBaseAuthenticationService authenticationService = new UsmanBaseAuthenticationService(
+                Mockito.mock(UserDetailsService.class), Mockito.mock(PasswordEncoder.class),
+                Mockito.mock(SecureService.class), usmanConfigurer);
+
+        long allowed = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < DISTINCT_KEYS; i++) {
+            String ip = toIp(i);
+            if (authenticationService.isAuthenticationAllowed(ip)) {
+                allowed++;
+            }
+            authenticationService.incrementFailureCount(ip);
+            authenticationService.incrementFailureCount(ip);
+            if (authenticationService.getFailureCount(ip) >= 3) {
+                authenticationService.blockIp(ip);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        FailedLoginTracker.Stats stats = authenticationService.getFailedLoginStats();
+        log.info("Processed {} distinct keys in {} ms ({} ns per key), tracker stats: {}", DISTINCT_KEYS,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), elapsedNanos / DISTINCT_KEYS, stats);
+
+        Assert.assertEquals(DISTINCT_KEYS, allowed);
+        Assert.assertTrue("Tracker size exceeds capacity: " + stats, stats.getSize() <= TRACKER_CAPACITY);
+        Assert.assertFalse(authenticationService.isAuthenticationAllowed(toIp(DISTINCT_KEYS - 1)));
+    }
+
+    private static String toIp(int value) {
+        return "10." + ((value >>> 16) & 0xFF) + "." + ((value >>> 8) & 0xFF) + "." + (value & 0xFF);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.github.vssavin.usmancore.auth;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class BCryptCostCalibratorTest {
+
+    @Test
+    public void shouldGetStrengthOfBCryptHash() {
+        String hash = new BCryptPasswordEncoder(5).encode("password");
+        Assert.assertEquals(5, BCryptCostCalibrator.getStrength(hash));
+        Assert.assertEquals(-1, BCryptCostCalibrator.getStrength("plain"));
+        Assert.assertEquals(-1, BCryptCostCalibrator.getStrength(null));
+    }
+
+    @Test
+    public void shouldNotGoBelowMinStrength() {
+        Assert.assertEquals(6, BCryptCostCalibrator.calibrate(0, 6));
+    }
+
+    @Test
+    public void shouldIncreaseStrengthForSlowerTarget() {
+        int strength = BCryptCostCalibrator.calibrate(200, BCryptCostCalibrator.MIN_STRENGTH);
+        Assert.assertTrue(strength > BCryptCostCalibrator.MIN_STRENGTH);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenMinStrengthIsWrong() {
+        BCryptCostCalibrator.calibrate(100, 3);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.github.vssavin.usmancore.auth;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class FailedLoginTrackerTest {
+
+    private static final long WINDOW_MILLIS = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    public void shouldCountFailuresInsideWindowOnly() {
+        FailedLoginTracker tracker = new FailedLoginTracker(100, WINDOW_MILLIS, 3, now::get);
+        tracker.recordFailure("10.0.0.1");
+        now.addAndGet(WINDOW_MILLIS / 2);
+        tracker.recordFailure("10.0.0.1");
+        Assert.assertEquals(2, tracker.getFailureCount("10.0.0.1"));
+
+        now.addAndGet(WINDOW_MILLIS / 2 + 1);
+        Assert.assertEquals(1, tracker.getFailureCount("10.0.0.1"));
+        Assert.assertEquals(0, tracker.getFailureCount("10.0.0.2"));
+    }
+
+    @Test
+    public void shouldNotCountMoreThanMaxTrackedFailures() {
+        FailedLoginTracker tracker = new FailedLoginTracker(100, WINDOW_MILLIS, 3, now::get);
+        for (int i = 0; i < 10; i++) {
+            tracker.recordFailure("10.0.0.1");
+        }
+        Assert.assertEquals(3, tracker.getFailureCount("10.0.0.1"));
+    }
+
+    @Test
+    public void shouldKeepBannedKeyUntilBanExpires() {
+        FailedLoginTracker tracker = new FailedLoginTracker(100, WINDOW_MILLIS, 3, now::get);
+        tracker.recordFailure("10.0.0.1");
+        long banExpirationTime = now.get() + 3 * WINDOW_MILLIS;
+        tracker.ban("10.0.0.1", banExpirationTime);
+
+        now.addAndGet(2 * WINDOW_MILLIS);
+        Assert.assertEquals(banExpirationTime, tracker.getBanExpirationTime("10.0.0.1"));
+
+        now.addAndGet(WINDOW_MILLIS);
+        Assert.assertEquals(0, tracker.getBanExpirationTime("10.0.0.1"));
+        Assert.assertEquals(0, tracker.size());
+        Assert.assertEquals(1, tracker.getStats().getExpirations());
+    }
+
+    @Test
+    public void shouldForgetKeyAfterReset() {
+        FailedLoginTracker tracker = new FailedLoginTracker(100, WINDOW_MILLIS, 3, now::get);
+        tracker.recordFailure("10.0.0.1");
+        tracker.ban("10.0.0.1", now.get() + WINDOW_MILLIS);
+        tracker.reset("10.0.0.1");
+        Assert.assertEquals(0, tracker.getFailureCount("10.0.0.1"));
+        Assert.assertEquals(0, tracker.getBanExpirationTime("10.0.0.1"));
+        Assert.assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void shouldStayWithinCapacity() {
+        int capacity = 1024;
+        FailedLoginTracker tracker = new FailedLoginTracker(capacity, WINDOW_MILLIS, 3, now::get);
+        for (int i = 0; i < 100_000; i++) {
+            tracker.recordFailure("key-" + i);
+        }
+        FailedLoginTracker.Stats stats = tracker.getStats();
+        Assert.assertTrue("Tracker size exceeds capacity: " + stats, stats.getSize() <= capacity);
+        Assert.assertTrue(stats.getCapacityEvictions() >= 100_000 - capacity);
+    }
+
+    @Test
+    public void shouldPreferExpiredEntriesOverLiveOnes() {
+        FailedLoginTracker tracker = new FailedLoginTracker(64, WINDOW_MILLIS, 3, now::get);
+        for (int i = 0; i < 1000; i++) {
+            tracker.recordFailure("old-" + i);
+        }
+        long capacityEvictions = tracker.getStats().getCapacityEvictions();
+        now.addAndGet(WINDOW_MILLIS + 1);
+        tracker.recordFailure("new");
+        Assert.assertEquals(capacityEvictions, tracker.getStats().getCapacityEvictions());
+        Assert.assertEquals(1, tracker.getStats().getExpirations());
+        Assert.assertEquals(1, tracker.getFailureCount("new"));
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.github.vssavin.usmancore.auth;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class KnownLoginFilterTest {
+
+    private static final int USERS_COUNT = 10_000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private static final long MAX_STALENESS_SECONDS = 60;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users(id BIGINT PRIMARY KEY, login VARCHAR(255) NOT NULL, "
+                    + "email VARCHAR(255), created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL)");
+        }
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection
+                    .prepareStatement("INSERT INTO users(id, login, email) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < USERS_COUNT; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "user" + i);
+                statement.setString(3, i % 10 == 0 ? null : "user" + i + "@example.com");
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @Test
+    public void shouldContainAllStoredLoginsAndEmails() throws SQLException {
+        KnownLoginFilter filter = createFilter(true);
+
+        filter.rebuild();
+
+        for (int i = 0; i < USERS_COUNT; i++) {
+            Assert.assertTrue(filter.mightContain("user" + i));
+            if (i % 10 != 0) {
+                Assert.assertTrue(filter.mightContain("user" + i + "@example.com"));
+            }
+        }
+        Assert.assertTrue(filter.getStats().isBuilt());
+    }
+
+    @Test
+    public void shouldRejectMostUnknownLogins() throws SQLException {
+        KnownLoginFilter filter = createFilter(true);
+        filter.rebuild();
+
+        int checks = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < checks; i++) {
+            if (filter.mightContain("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+
+        Assert.assertTrue("Too many false positives: " + falsePositives,
+                falsePositives < checks * FALSE_POSITIVE_RATE * 2);
+        Assert.assertEquals(checks - falsePositives, filter.getStats().getRejections());
+    }
+
+    @Test
+    public void shouldContainAddedLogin() throws SQLException {
+        KnownLoginFilter filter = createFilter(true);
+        filter.rebuild();
+
+        filter.put("newUser");
+
+        Assert.assertTrue(filter.mightContain("newUser"));
+    }
+
+    @Test
+    public void shouldContainUserCreatedByOtherNode_WhenRefreshed() throws SQLException {
+        KnownLoginFilter filter = createFilter(true);
+        filter.rebuild();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users(id, login, email) VALUES (1, 'otherNodeUser', 'other@example.com')");
+        }
+
+        filter.refresh();
+
+        Assert.assertTrue(filter.mightContain("otherNodeUser"));
+        Assert.assertTrue(filter.mightContain("other@example.com"));
+    }
+
+    @Test
+    public void shouldNotCountUsersTwice_WhenRefreshReadsThemAgain() throws SQLException {
+        KnownLoginFilter filter = createFilter(true);
+        filter.rebuild();
+        long insertions = filter.getStats().getInsertions();
+
+        filter.refresh();
+
+        Assert.assertEquals(insertions, filter.getStats().getInsertions());
+    }
+
+    @Test
+    public void shouldNotRejectLogins_WhenNotRefreshedInTime() throws SQLException {
+        KnownLoginFilter filter = createFilter(true);
+        filter.rebuild();
+
+        now.addAndGet(MAX_STALENESS_SECONDS * 1000 + 1);
+
+        Assert.assertTrue(filter.mightContain("unknown"));
+        Assert.assertEquals(1, filter.getStats().getStaleChecks());
+        Assert.assertEquals(0, filter.getStats().getRejections());
+
+        filter.refresh();
+
+        Assert.assertEquals(now.get(), filter.getStats().getRefreshedAt());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFail_WhenStalenessNotGreaterThanRefreshInterval() {
+        new KnownLoginFilter(dataSource, null, true, 1000, FALSE_POSITIVE_RATE, 0, 60, 60);
+    }
+
+    @Test
+    public void shouldDropDeletedUsers_WhenRebuilt() throws SQLException {
+        KnownLoginFilter filter = createFilter(true);
+        filter.rebuild();
+        filter.put("deletedUser");
+
+        filter.rebuild();
+
+        Assert.assertFalse(filter.mightContain("deletedUser"));
+    }
+
+    @Test
+    public void shouldNotRejectLogins_WhenNotBuilt() {
+        KnownLoginFilter filter = createFilter(true);
+
+        Assert.assertTrue(filter.mightContain("unknown"));
+        Assert.assertFalse(filter.getStats().isBuilt());
+    }
+
+    @Test
+    public void shouldNotRejectLogins_WhenDisabled() throws SQLException {
+        KnownLoginFilter filter = createFilter(false);
+
+        filter.rebuild();
+
+        Assert.assertTrue(filter.mightContain("unknown"));
+        Assert.assertFalse(filter.getStats().isBuilt());
+    }
+
+    private KnownLoginFilter createFilter(boolean enabled) {
+        return new KnownLoginFilter(dataSource, null, enabled, 1000, FALSE_POSITIVE_RATE, 0, 5, MAX_STALENESS_SECONDS,
+                now::get);
+    }
+
+}
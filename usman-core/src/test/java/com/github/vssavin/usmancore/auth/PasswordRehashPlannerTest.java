@@ -0,0 +1,123 @@
+package com.github.vssavin.usmancore.auth;
+
+import com.github.vssavin.usmancore.config.SchemaMigrator;
+import com.github.vssavin.usmancore.config.SqlScriptExecutor;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class PasswordRehashPlannerTest {
+
+    private static final long INTERVAL_MINUTES = 60;
+
+    private static final String BCRYPT_HASH = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
+    private final AtomicLong now = new AtomicLong(Timestamp.valueOf("2026-10-16 12:00:00").getTime());
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource)).migrate(SchemaMigrator.class, "migration/",
+                Arrays.asList("V1__init.sql", "V2__unique_logins.sql", "V3__foreign_key_indexes.sql",
+                        "V4__bigint_event_ids.sql", "V5__csrf_keys.sql", "V6__password_rehash_plan.sql",
+                        "V7__user_created_at.sql"));
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM users");
+        }
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("INSERT INTO users(id, login, name, "
+                        + "password, email, authority, expiration_date, login_normalized, email_normalized) "
+                        + "VALUES (?, ?, ?, ?, ?, 'ROLE_USER', ?, ?, ?)")) {
+            for (int i = 1; i <= 3; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "user" + i);
+                statement.setString(3, "user" + i);
+                statement.setString(4, BCRYPT_HASH);
+                statement.setString(5, "user" + i + "@example.com");
+                statement.setTimestamp(6, new Timestamp(now.get()));
+                statement.setString(7, "user" + i);
+                statement.setString(8, "user" + i + "@example.com");
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @Test
+    public void shouldReadReport_WhenPlannedByAnotherNode() throws SQLException {
+        PasswordEncoder firstEncoder = createEncoder();
+        PasswordEncoder secondEncoder = createEncoder();
+
+        PasswordRehashPlanner.Report firstReport = createPlanner(firstEncoder).planForCluster();
+        PasswordRehashPlanner.Report secondReport = createPlanner(secondEncoder).planForCluster();
+
+        Assert.assertEquals(3, firstReport.getTotalUsers());
+        Assert.assertEquals(3, firstReport.getOutdatedUsers());
+        Assert.assertEquals(firstReport.getTotalUsers(), secondReport.getTotalUsers());
+        Assert.assertEquals(firstReport.getOutdatedUsers(), secondReport.getOutdatedUsers());
+        Assert.assertEquals(firstReport.getUsersByStrength(), secondReport.getUsersByStrength());
+        Mockito.verify(firstEncoder, Mockito.times(3)).upgradeEncoding(BCRYPT_HASH);
+        Mockito.verify(secondEncoder, Mockito.never()).upgradeEncoding(ArgumentMatchers.anyString());
+    }
+
+    @Test
+    public void shouldScanAgain_WhenIntervalPassed() throws SQLException {
+        createPlanner(createEncoder()).planForCluster();
+        PasswordEncoder secondEncoder = createEncoder();
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(INTERVAL_MINUTES));
+        createPlanner(secondEncoder).planForCluster();
+
+        Mockito.verify(secondEncoder, Mockito.times(3)).upgradeEncoding(BCRYPT_HASH);
+    }
+
+    @Test
+    public void shouldLetAnotherNodeScan_WhenScanFailed() throws SQLException {
+        PasswordEncoder failingEncoder = Mockito.mock(PasswordEncoder.class);
+        Mockito.when(failingEncoder.upgradeEncoding(ArgumentMatchers.anyString()))
+            .thenThrow(new IllegalStateException("failed"));
+        try {
+            createPlanner(failingEncoder).planForCluster();
+        }
+        catch (IllegalStateException e) {
+            // the scan of this node has failed
+        }
+        PasswordEncoder secondEncoder = createEncoder();
+
+        PasswordRehashPlanner.Report report = createPlanner(secondEncoder).planForCluster();
+
+        Assert.assertEquals(3, report.getTotalUsers());
+        Mockito.verify(secondEncoder, Mockito.times(3)).upgradeEncoding(BCRYPT_HASH);
+    }
+
+    private PasswordRehashPlanner createPlanner(PasswordEncoder passwordEncoder) {
+        return new PasswordRehashPlanner(dataSource, null, passwordEncoder, INTERVAL_MINUTES, now::get);
+    }
+
+    private static PasswordEncoder createEncoder() {
+        PasswordEncoder passwordEncoder = Mockito.mock(PasswordEncoder.class);
+        Mockito.when(passwordEncoder.upgradeEncoding(ArgumentMatchers.anyString())).thenReturn(true);
+        return passwordEncoder;
+    }
+
+}
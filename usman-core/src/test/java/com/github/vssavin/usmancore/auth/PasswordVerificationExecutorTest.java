@@ -0,0 +1,104 @@
+package com.github.vssavin.usmancore.auth;
+
+import com.github.vssavin.usmancore.exception.auth.AuthenticationOverloadedException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class PasswordVerificationExecutorTest {
+
+    private final CountDownLatch verificationStarted = new CountDownLatch(1);
+
+    private final CountDownLatch releaseVerification = new CountDownLatch(1);
+
+    private final PasswordEncoder blockingPasswordEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            verificationStarted.countDown();
+            try {
+                releaseVerification.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    };
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        releaseVerification.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void shouldVerifyPassword() {
+        PasswordVerificationExecutor executor = new PasswordVerificationExecutor(2, 2, 1000);
+        releaseVerification.countDown();
+        Assert.assertTrue(executor.matches(blockingPasswordEncoder, "password", "password"));
+        Assert.assertFalse(executor.matches(blockingPasswordEncoder, "password", "wrong"));
+        Assert.assertEquals(2, executor.getMetrics().getVerificationTime().getCount());
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldFailFastWhenVerificationIsNotStartedInTime() throws Exception {
+        PasswordVerificationExecutor executor = new PasswordVerificationExecutor(1, 1, 100);
+        Future<Boolean> running = callers
+            .submit(() -> executor.matches(blockingPasswordEncoder, "password", "password"));
+        Assert.assertTrue(verificationStarted.await(5, TimeUnit.SECONDS));
+
+        try {
+            executor.matches(blockingPasswordEncoder, "password", "password");
+            Assert.fail("AuthenticationOverloadedException expected!");
+        }
+        catch (AuthenticationOverloadedException e) {
+            Assert.assertEquals(1, executor.getMetrics().getTimedOut());
+        }
+
+        releaseVerification.countDown();
+        Assert.assertTrue(running.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() throws Exception {
+        PasswordVerificationExecutor executor = new PasswordVerificationExecutor(1, 1, 10_000);
+        callers.submit(() -> executor.matches(blockingPasswordEncoder, "password", "password"));
+        Assert.assertTrue(verificationStarted.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> executor.matches(blockingPasswordEncoder, "password", "password"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getMetrics().getQueueDepth() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        try {
+            executor.matches(blockingPasswordEncoder, "password", "password");
+            Assert.fail("AuthenticationOverloadedException expected!");
+        }
+        catch (AuthenticationOverloadedException e) {
+            PasswordVerificationExecutor.Metrics metrics = executor.getMetrics();
+            Assert.assertEquals(1, metrics.getRejected());
+            Assert.assertEquals(1, metrics.getMaxQueueDepth());
+        }
+        executor.shutdown();
+    }
+
+}
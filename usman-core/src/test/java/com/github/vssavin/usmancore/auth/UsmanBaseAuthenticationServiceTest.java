@@ -0,0 +1,127 @@
+package com.github.vssavin.usmancore.auth;
+
+import com.github.vssavin.usmancore.config.UsmanConfigurer;
+import com.github.vssavin.usmancore.security.SecureService;
+import com.github.vssavin.usmancore.security.auth.UsmanUsernamePasswordAuthenticationToken;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class UsmanBaseAuthenticationServiceTest {
+
+    private UsmanBaseAuthenticationService authenticationService;
+
+    @Before
+    public void setUp() {
+        UsmanConfigurer usmanConfigurer = new UsmanConfigurer().maxAuthFailureCount(3);
+        authenticationService = new UsmanBaseAuthenticationService(Mockito.mock(UserDetailsService.class),
+                Mockito.mock(PasswordEncoder.class), Mockito.mock(SecureService.class), usmanConfigurer);
+    }
+
+    @Test
+    public void shouldNotAllowAuthentication_WhenBannedWithFewFailures() {
+        authenticationService.blockIp("10.0.0.1");
+        authenticationService.getIpBlocklist().unban("10.0.0.1");
+
+        Assert.assertFalse(authenticationService.isAuthenticationAllowed("10.0.0.1"));
+        Assert.assertTrue(authenticationService.isAuthenticationAllowed("10.0.0.2"));
+    }
+
+    @Test
+    public void shouldAllowAuthentication_WhenFailureCountReset() {
+        authenticationService.incrementFailureCount("10.0.0.1");
+        authenticationService.incrementFailureCount("10.0.0.1");
+        authenticationService.blockIp("10.0.0.1");
+
+        authenticationService.resetFailureCount("10.0.0.1");
+
+        Assert.assertTrue(authenticationService.isAuthenticationAllowed("10.0.0.1"));
+    }
+
+    @Test
+    public void shouldKeepFailureTrackerWithinCapacity_WhenManyAddressesFail() {
+        int capacity = 1000;
+        UsmanBaseAuthenticationService limitedService = new UsmanBaseAuthenticationService(
+                Mockito.mock(UserDetailsService.class), Mockito.mock(PasswordEncoder.class),
+                Mockito.mock(SecureService.class),
+                new UsmanConfigurer().maxAuthFailureCount(3).authFailureTrackerCapacity(capacity));
+
+        for (int i = 0; i < capacity * 10; i++) {
+            String ip = "10.0." + (i >>> 8) + "." + (i & 0xFF);
+            Assert.assertTrue(limitedService.isAuthenticationAllowed(ip));
+            limitedService.incrementFailureCount(ip);
+        }
+
+        FailedLoginTracker.Stats stats = limitedService.getFailedLoginStats();
+        Assert.assertTrue("Tracker size exceeds capacity: " + stats, stats.getSize() <= capacity);
+    }
+
+    @Test
+    public void shouldRejectPasswordVerification_WhenDestroyed() {
+        UserDetailsService userDetailsService = Mockito.mock(UserDetailsService.class);
+        Mockito.when(userDetailsService.loadUserByUsername("unknown"))
+            .thenThrow(new UsernameNotFoundException("unknown"));
+        UsmanBaseAuthenticationService offloadingService = new UsmanBaseAuthenticationService(userDetailsService,
+                Mockito.mock(PasswordEncoder.class), Mockito.mock(SecureService.class),
+                new UsmanConfigurer().passwordVerificationOffloaded(true));
+
+        offloadingService.destroy();
+
+        try {
+            offloadingService.authenticate(new UsmanUsernamePasswordAuthenticationToken("unknown", "password"));
+        }
+        catch (UsernameNotFoundException e) {
+            // the dummy verification spending time on an unknown user is rejected
+        }
+
+        Assert.assertEquals(1, offloadingService.getPasswordVerificationMetrics().getRejected());
+    }
+
+    @Test
+    public void shouldUpgradePasswordHashOnVerificationThread_WhenOffloaded() throws Exception {
+        UserDetails user = Mockito.mock(UserDetails.class);
+        Mockito.when(user.isAccountNonExpired()).thenReturn(true);
+        Mockito.when(user.isAccountNonLocked()).thenReturn(true);
+        Mockito.when(user.isEnabled()).thenReturn(true);
+        Mockito.when(user.getPassword()).thenReturn("outdatedHash");
+        UserDetailsService userDetailsService = Mockito.mock(UserDetailsService.class);
+        Mockito.when(userDetailsService.loadUserByUsername("user")).thenReturn(user);
+        PasswordEncoder passwordEncoder = Mockito.mock(PasswordEncoder.class);
+        Mockito.when(passwordEncoder.matches(ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(true);
+        Mockito.when(passwordEncoder.upgradeEncoding("outdatedHash")).thenReturn(true);
+        Mockito.when(passwordEncoder.encode(ArgumentMatchers.any())).thenReturn("upgradedHash");
+        CompletableFuture<String> upgradeThread = new CompletableFuture<>();
+        UsmanBaseAuthenticationService offloadingService = new UsmanBaseAuthenticationService(userDetailsService,
+                passwordEncoder, Mockito.mock(SecureService.class),
+                new UsmanConfigurer().passwordVerificationOffloaded(true)) {
+            @Override
+            protected void updatePasswordHash(UserDetails userDetails, String encodedPassword) {
+                upgradeThread.complete(Thread.currentThread().getName() + ":" + encodedPassword);
+            }
+        };
+
+        try {
+            offloadingService.authenticate(new UsmanUsernamePasswordAuthenticationToken("user", "password"));
+
+            String upgrade = upgradeThread.get(5, TimeUnit.SECONDS);
+            Assert.assertTrue(upgrade, upgrade.startsWith("usman-password-verifier-"));
+            Assert.assertTrue(upgrade, upgrade.endsWith(":upgradedHash"));
+        }
+        finally {
+            offloadingService.destroy();
+        }
+    }
+
+}
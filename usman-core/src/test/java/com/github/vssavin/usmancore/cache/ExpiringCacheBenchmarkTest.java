@@ -0,0 +1,72 @@
+package com.github.vssavin.usmancore.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link UsmanCache} with a map whose entries are removed by tasks scheduled per
+ * entry (the way the remember-me services cached users before), for many distinct keys.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class ExpiringCacheBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiringCacheBenchmarkTest.class);
+
+    private static final int DISTINCT_KEYS = 200_000;
+
+    private static final int ROUNDS = 3;
+
+    private static final int MAX_SIZE = 10_000;
+
+    private static final long TTL_SECONDS = 10;
+
+    @Test
+    public void benchmarkScheduledRemovalAgainstLazyExpiry() {
+        long scheduledNanos = 0;
+        long cacheNanos = 0;
+        int queuedTasks = 0;
+        UsmanCache.Stats stats = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+            Map<String, String> scheduledMap = new ConcurrentHashMap<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < DISTINCT_KEYS; i++) {
+                String key = "user" + i;
+                scheduledMap.computeIfAbsent(key, login -> {
+                    executor.schedule(() -> scheduledMap.remove(login), TTL_SECONDS, TimeUnit.SECONDS);
+                    return login;
+                });
+            }
+            scheduledNanos += System.nanoTime() - start;
+            queuedTasks = executor.getQueue().size();
+            executor.shutdownNow();
+
+            UsmanCache<String, String> cache = UsmanCache.builder()
+                .maxSize(MAX_SIZE)
+                .ttlMillis(TimeUnit.SECONDS.toMillis(TTL_SECONDS))
+                .build();
+            start = System.nanoTime();
+            for (int i = 0; i < DISTINCT_KEYS; i++) {
+                cache.get("user" + i, login -> login);
+            }
+            cacheNanos += System.nanoTime() - start;
+            stats = cache.getStats();
+        }
+
+        log.info("Scheduled removal: {} ns per key, {} queued tasks; lazy expiry: {} ns per key, stats: {}",
+                scheduledNanos / ((long) ROUNDS * DISTINCT_KEYS), queuedTasks,
+                cacheNanos / ((long) ROUNDS * DISTINCT_KEYS), stats);
+
+        Assert.assertEquals(DISTINCT_KEYS, queuedTasks);
+        Assert.assertTrue("Cache size exceeds max size: " + stats, stats.getSize() <= MAX_SIZE);
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.github.vssavin.usmancore.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class UsmanCacheTest {
+
+    private static final long TTL_MILLIS = 60_000;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void shouldLoadOnceUntilExpired() {
+        UsmanCache<String, String> cache = UsmanCache.builder().ttlMillis(TTL_MILLIS).clock(now::get).build();
+        Assert.assertEquals("value-1", cache.get("key", this::load));
+        Assert.assertEquals("value-1", cache.get("key", this::load));
+
+        now.addAndGet(TTL_MILLIS);
+        Assert.assertEquals("value-2", cache.get("key", this::load));
+        UsmanCache.Stats stats = cache.getStats();
+        Assert.assertEquals(1, stats.getHits());
+        Assert.assertEquals(2, stats.getMisses());
+        Assert.assertEquals(1, stats.getExpirations());
+    }
+
+    @Test
+    public void shouldRefreshAheadOnce() {
+        UsmanCache<String, String> cache = UsmanCache.builder()
+            .ttlMillis(TTL_MILLIS)
+            .refreshAfterMillis(TTL_MILLIS / 2)
+            .clock(now::get)
+            .build();
+        cache.get("key", this::load);
+        now.addAndGet(TTL_MILLIS / 2);
+        Assert.assertEquals("value-2", cache.get("key", this::load));
+        Assert.assertEquals("value-2", cache.get("key", this::load));
+        Assert.assertEquals(1, cache.getStats().getRefreshes());
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void shouldKeepStaleValueWhenRefreshFails() {
+        UsmanCache<String, String> cache = UsmanCache.builder()
+            .ttlMillis(TTL_MILLIS)
+            .refreshAfterMillis(TTL_MILLIS / 2)
+            .clock(now::get)
+            .build();
+        cache.get("key", this::load);
+        now.addAndGet(TTL_MILLIS / 2);
+        Assert.assertEquals("value-1", cache.get("key", key -> {
+            throw new IllegalStateException("Database is not available");
+        }));
+        Assert.assertEquals("value-2", cache.get("key", this::load));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsed() {
+        UsmanCache<Integer, String> cache = UsmanCache.builder().maxSize(16).clock(now::get).build();
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, String.valueOf(i));
+        }
+        Assert.assertTrue(cache.size() <= 16);
+        Assert.assertTrue(cache.getStats().getEvictions() >= 1000 - 16);
+    }
+
+    @Test
+    public void shouldMissChangedSecondaryKeyAfterInvalidation() {
+        IndexedCache<Long, String[]> cache = new IndexedCache<Long, String[]>(
+                UsmanCache.builder().ttlMillis(TTL_MILLIS).clock(now::get), value -> Long.valueOf(value[0]))
+            .index("login", value -> value[1]);
+        String[] user = { "1", "user" };
+        String[] renamedUser = { "1", "renamed" };
+        Assert.assertSame(user, cache.getByKey("login", "user", id -> user, login -> user));
+        Assert.assertSame(user, cache.getByKey("login", "user", id -> user, login -> null));
+
+        cache.invalidate(renamedUser);
+        Assert.assertNull(cache.getByKey("login", "user", id -> renamedUser, login -> null));
+        Assert.assertSame(renamedUser, cache.getByKey("login", "renamed", id -> null, login -> renamedUser));
+    }
+
+    @Test
+    public void shouldNotCacheValueLoadedBeforeInvalidation() throws Exception {
+        UsmanCache<String, String> cache = UsmanCache.builder().ttlMillis(TTL_MILLIS).clock(now::get).build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        CompletableFuture<String> slowLoad = CompletableFuture.supplyAsync(() -> cache.get("key", key -> {
+            loading.countDown();
+            awaitLatch(invalidated);
+            return "stale";
+        }));
+
+        Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+        cache.invalidate("key");
+        invalidated.countDown();
+
+        Assert.assertEquals("stale", slowLoad.get(10, TimeUnit.SECONDS));
+        Assert.assertNull(cache.getIfPresent("key"));
+        Assert.assertEquals("value-1", cache.get("key", this::load));
+    }
+
+    @Test
+    public void shouldNotCacheEntityLoadedByKeyBeforeInvalidation() throws Exception {
+        IndexedCache<Long, String[]> cache = new IndexedCache<Long, String[]>(
+                UsmanCache.builder().ttlMillis(TTL_MILLIS).clock(now::get), value -> Long.valueOf(value[0]))
+            .index("login", value -> value[1]);
+        String[] user = { "1", "user", "old-password" };
+        String[] updatedUser = { "1", "user", "new-password" };
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        CompletableFuture<String[]> slowLoad = CompletableFuture
+            .supplyAsync(() -> cache.getByKey("login", "user", id -> user, login -> {
+                loading.countDown();
+                awaitLatch(invalidated);
+                return user;
+            }));
+
+        Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+        cache.invalidate(updatedUser);
+        invalidated.countDown();
+
+        Assert.assertSame(user, slowLoad.get(10, TimeUnit.SECONDS));
+        Assert.assertSame(updatedUser, cache.getByKey("login", "user", id -> updatedUser, login -> updatedUser));
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String load(String key) {
+        return "value-" + loads.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.github.vssavin.usmancore.config;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class BackgroundSchedulerTest {
+
+    @Test
+    public void shouldRunTaskInNamedDaemonThread() throws InterruptedException {
+        BackgroundScheduler scheduler = new BackgroundScheduler("usman-test-scheduler", Thread.MIN_PRIORITY);
+        AtomicReference<Thread> taskThread = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        try {
+            Assert.assertTrue(scheduler.start(() -> {
+                taskThread.set(Thread.currentThread());
+                finished.countDown();
+            }, 0, 0, TimeUnit.MILLISECONDS));
+
+            Assert.assertTrue(finished.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals("usman-test-scheduler", taskThread.get().getName());
+            Assert.assertTrue(taskThread.get().isDaemon());
+            Assert.assertEquals(Thread.MIN_PRIORITY, taskThread.get().getPriority());
+        }
+        finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void shouldRepeatTaskAndIgnoreSecondStart() throws InterruptedException {
+        BackgroundScheduler scheduler = new BackgroundScheduler("usman-test-scheduler", Thread.NORM_PRIORITY);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch repeated = new CountDownLatch(3);
+
+        try {
+            Assert.assertTrue(scheduler.start(() -> {
+                runs.incrementAndGet();
+                repeated.countDown();
+            }, 0, 1, TimeUnit.MILLISECONDS));
+            Assert.assertFalse(scheduler.start(runs::incrementAndGet, 0, 0, TimeUnit.MILLISECONDS));
+
+            Assert.assertTrue(repeated.await(10, TimeUnit.SECONDS));
+        }
+        finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void shouldStartAgain_WhenStopped() throws InterruptedException {
+        BackgroundScheduler scheduler = new BackgroundScheduler("usman-test-scheduler", Thread.NORM_PRIORITY);
+        CountDownLatch finished = new CountDownLatch(1);
+        scheduler.start(() -> {
+        }, 0, 0, TimeUnit.MILLISECONDS);
+        scheduler.stop();
+
+        try {
+            Assert.assertTrue(scheduler.start(finished::countDown, 0, 0, TimeUnit.MILLISECONDS));
+            Assert.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        }
+        finally {
+            scheduler.stop();
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.github.vssavin.usmancore.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers the same logins, in different letter cases, from several threads at once.
+ * Compares the check-then-insert registration on the schema without unique indexes with
+ * the single insert relying on the unique indexes of normalized logins and emails, and
+ * checks that no duplicates get through the latter.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class ConcurrentRegistrationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentRegistrationBenchmarkTest.class);
+
+    private static final int THREADS = 8;
+
+    private static final int LOGINS = 500;
+
+    private static final String UNIQUE_VIOLATION_STATE = "23505";
+
+    private static final String INSERT_QUERY = "INSERT INTO users(login, name, password, email, authority, "
+            + "expiration_date) VALUES (?, ?, 'password', ?, 'ROLE_USER', ?)";
+
+    private static final String INSERT_NORMALIZED_QUERY = "INSERT INTO users(login, name, password, email, "
+            + "authority, expiration_date, login_normalized, email_normalized) "
+            + "VALUES (?, ?, 'password', ?, 'ROLE_USER', ?, ?, ?)";
+
+    @Test
+    public void benchmarkConcurrentRegistrations() throws Exception {
+        JdbcDataSource checkedDataSource = createDataSource("V1__init.sql");
+        long start = System.nanoTime();
+        int checkedRegistrations = registerConcurrently(checkedDataSource, this::registerAfterCheck);
+        long checkedNanos = System.nanoTime() - start;
+
+        JdbcDataSource indexedDataSource = createDataSource("V1__init.sql", "V2__unique_logins.sql");
+        start = System.nanoTime();
+        int indexedRegistrations = registerConcurrently(indexedDataSource, this::registerWithInsert);
+        long indexedNanos = System.nanoTime() - start;
+
+        long checkedDuplicates = countDuplicates(checkedDataSource);
+        log.info("Check-then-insert: {} attempts/sec, {} duplicates; unique indexes: {} attempts/sec, {} duplicates",
+                attemptsPerSecond(checkedNanos), checkedDuplicates, attemptsPerSecond(indexedNanos),
+                countDuplicates(indexedDataSource));
+
+        Assert.assertEquals(LOGINS + checkedDuplicates, checkedRegistrations);
+        Assert.assertEquals(LOGINS, indexedRegistrations);
+        Assert.assertEquals(0, countDuplicates(indexedDataSource));
+    }
+
+    private int registerConcurrently(JdbcDataSource dataSource, Registration registration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                boolean upperCase = i % 2 == 1;
+                tasks.add(() -> {
+                    int registered = 0;
+                    try (Connection connection = dataSource.getConnection()) {
+                        for (int j = 0; j < LOGINS; j++) {
+                            String login = upperCase ? "USER" + j : "user" + j;
+                            if (registration.register(connection, login, login + "@example.com")) {
+                                registered++;
+                            }
+                        }
+                    }
+                    return registered;
+                });
+            }
+            int registered = 0;
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                registered += future.get();
+            }
+            return registered;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean registerAfterCheck(Connection connection, String login, String email) throws SQLException {
+        try (PreparedStatement statement = connection
+            .prepareStatement("SELECT COUNT(*) FROM users WHERE lower(login) = ? OR lower(email) = ?")) {
+            statement.setString(1, login.toLowerCase(Locale.ROOT));
+            statement.setString(2, email.toLowerCase(Locale.ROOT));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                if (resultSet.getLong(1) > 0) {
+                    return false;
+                }
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_QUERY)) {
+            statement.setString(1, login);
+            statement.setString(2, login);
+            statement.setString(3, email);
+            statement.setTimestamp(4, new Timestamp(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)));
+            statement.executeUpdate();
+            return true;
+        }
+    }
+
+    private boolean registerWithInsert(Connection connection, String login, String email) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_NORMALIZED_QUERY)) {
+            statement.setString(1, login);
+            statement.setString(2, login);
+            statement.setString(3, email);
+            statement.setTimestamp(4, new Timestamp(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)));
+            statement.setString(5, login.toLowerCase(Locale.ROOT));
+            statement.setString(6, email.toLowerCase(Locale.ROOT));
+            statement.executeUpdate();
+            return true;
+        }
+        catch (SQLException e) {
+            if (UNIQUE_VIOLATION_STATE.equals(e.getSQLState())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private JdbcDataSource createDataSource(String... scripts) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource)).migrate(SchemaMigrator.class, "migration/",
+                Arrays.asList(scripts));
+        return dataSource;
+    }
+
+    private long countDuplicates(JdbcDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement
+                    .executeQuery("SELECT COUNT(*) - COUNT(DISTINCT lower(login)) FROM users")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private long attemptsPerSecond(long nanos) {
+        return (long) THREADS * LOGINS * 1_000_000_000L / Math.max(nanos, 1);
+    }
+
+    @FunctionalInterface
+    private interface Registration {
+
+        boolean register(Connection connection, String login, String email) throws SQLException;
+
+    }
+
+}
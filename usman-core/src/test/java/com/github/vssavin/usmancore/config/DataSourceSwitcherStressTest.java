@@ -0,0 +1,139 @@
+package com.github.vssavin.usmancore.config;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class DataSourceSwitcherStressTest {
+
+    private static final int THREADS = 64;
+
+    private static final int ITERATIONS = 20_000;
+
+    private final DataSource usmanDataSource = Mockito.mock(DataSource.class);
+
+    private final DataSource appDataSource = Mockito.mock(DataSource.class);
+
+    private RoutingDataSource routingDataSource;
+
+    private DataSourceSwitcher dataSourceSwitcher;
+
+    @Before
+    public void setUp() {
+        routingDataSource = new RoutingDataSource();
+        routingDataSource.addDataSource(RoutingDataSource.DATASOURCE_TYPE.UM_DATASOURCE, usmanDataSource);
+        routingDataSource.addDataSource(RoutingDataSource.DATASOURCE_TYPE.APPLICATION_DATASOURCE, appDataSource);
+        dataSourceSwitcher = new DataSourceSwitcher(routingDataSource);
+    }
+
+    @After
+    public void tearDown() {
+        DataSourceRoutingContext.clear();
+    }
+
+    @Test
+    public void shouldUseDefaultDataSourceWhenNotSwitched() {
+        Assert.assertSame(appDataSource, dataSourceSwitcher.getCurrentDataSource());
+        routingDataSource.setKey(RoutingDataSource.DATASOURCE_TYPE.UM_DATASOURCE);
+        Assert.assertSame(usmanDataSource, dataSourceSwitcher.getCurrentDataSource());
+    }
+
+    @Test
+    public void shouldRestoreNestedSwitches() {
+        dataSourceSwitcher.switchToUmDataSource();
+        dataSourceSwitcher.switchToApplicationDataSource();
+        dataSourceSwitcher.switchToUmDataSource();
+        Assert.assertSame(usmanDataSource, dataSourceSwitcher.getCurrentDataSource());
+        dataSourceSwitcher.switchToPreviousDataSource();
+        Assert.assertSame(appDataSource, dataSourceSwitcher.getCurrentDataSource());
+        dataSourceSwitcher.switchToPreviousDataSource();
+        Assert.assertSame(usmanDataSource, dataSourceSwitcher.getCurrentDataSource());
+        dataSourceSwitcher.switchToPreviousDataSource();
+        Assert.assertSame(appDataSource, dataSourceSwitcher.getCurrentDataSource());
+        Assert.assertEquals(0, DataSourceRoutingContext.depth());
+    }
+
+    @Test
+    public void shouldIgnoreUnbalancedSwitchBack() {
+        dataSourceSwitcher.switchToPreviousDataSource();
+        Assert.assertSame(appDataSource, dataSourceSwitcher.getCurrentDataSource());
+    }
+
+    @Test
+    public void shouldNotCrossRouteConcurrentThreads() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        AtomicLong crossRoutings = new AtomicLong();
+        AtomicLong leakedContexts = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                boolean umThread = i % 2 == 0;
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < ITERATIONS; j++) {
+                        routeAndCheck(umThread, ThreadLocalRandom.current().nextInt(1, 4), crossRoutings);
+                        if (DataSourceRoutingContext.depth() != 0) {
+                            leakedContexts.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+
+        Assert.assertEquals("Cross routings detected!", 0, crossRoutings.get());
+        Assert.assertEquals("Routing contexts leaked!", 0, leakedContexts.get());
+    }
+
+    private void routeAndCheck(boolean toUm, int depth, AtomicLong crossRoutings) {
+        DataSource expected = toUm ? usmanDataSource : appDataSource;
+        if (toUm) {
+            dataSourceSwitcher.switchToUmDataSource();
+        }
+        else {
+            dataSourceSwitcher.switchToApplicationDataSource();
+        }
+        try {
+            checkRouting(expected, crossRoutings);
+            if (depth > 1) {
+                routeAndCheck(!toUm, depth - 1, crossRoutings);
+                checkRouting(expected, crossRoutings);
+            }
+        }
+        finally {
+            dataSourceSwitcher.switchToPreviousDataSource();
+        }
+    }
+
+    private void checkRouting(DataSource expected, AtomicLong crossRoutings) {
+        if (dataSourceSwitcher.getCurrentDataSource() != expected
+                || routingDataSource.determineCurrentLookupKey() != routingDataSource.getDatasourceKey()) {
+            crossRoutings.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.github.vssavin.usmancore.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Checks that lookups made by the repositories use indexes of the migrated schema and that
+ * foreign keys have the BIGINT type.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class QueryPlanTest {
+
+    private static final int USERS_COUNT = 200;
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource)).migrate(SchemaMigrator.class, "migration/",
+                Arrays.asList("V1__init.sql", "V2__unique_logins.sql", "V3__foreign_key_indexes.sql",
+                        "V4__bigint_event_ids.sql", "V5__csrf_keys.sql", "V6__password_rehash_plan.sql",
+                        "V7__user_created_at.sql"));
+        Timestamp expirationDate = new Timestamp(System.currentTimeMillis());
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO users(id, login, name, "
+                    + "password, email, authority, expiration_date, login_normalized, email_normalized) "
+                    + "VALUES (?, ?, ?, 'password', ?, 'ROLE_USER', ?, ?, ?)")) {
+                for (int i = 1; i <= USERS_COUNT; i++) {
+                    statement.setLong(1, 1000L + i);
+                    statement.setString(2, "User" + i);
+                    statement.setString(3, "User" + i);
+                    statement.setString(4, "User" + i + "@example.com");
+                    statement.setTimestamp(5, expirationDate);
+                    statement.setString(6, "user" + i);
+                    statement.setString(7, "user" + i + "@example.com");
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO csrf_tokens(id, user_id, token, expiration_date) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= USERS_COUNT; i++) {
+                    statement.setLong(1, i);
+                    statement.setLong(2, 1000L + i);
+                    statement.setString(3, "token" + i);
+                    statement.setTimestamp(4, expirationDate);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+        }
+    }
+
+    @Test
+    public void shouldFindUsersByLoginAndEmailWithIndexes() throws SQLException {
+        assertIndexUsed("SELECT * FROM users WHERE login = 'User1'");
+        assertIndexUsed("SELECT * FROM users WHERE email = 'User1@example.com'");
+    }
+
+    @Test
+    public void shouldSelectRecentlyCreatedUsersWithIndex() throws SQLException {
+        assertIndexUsed(
+                "SELECT login, email, created_at FROM users WHERE created_at > TIMESTAMP '2100-01-01 00:00:00'");
+    }
+
+    @Test
+    public void shouldFindTokensByUserWithIndexes() throws SQLException {
+        assertIndexUsed("SELECT * FROM csrf_tokens WHERE user_id = 1001");
+        assertIndexUsed("SELECT * FROM rememberme_tokens WHERE user_id = 1001");
+        assertIndexUsed("SELECT * FROM events WHERE user_id = 1001 ORDER BY event_timestamp");
+    }
+
+    @Test
+    public void shouldDeleteTokensWithIndexes() throws SQLException {
+        assertIndexUsed("DELETE FROM csrf_tokens WHERE token = 'token1'");
+        assertIndexUsed("DELETE FROM csrf_tokens WHERE user_id = 1001");
+        assertIndexUsed("SELECT * FROM rememberme_tokens WHERE token_digest = 'digest'");
+    }
+
+    @Test
+    public void shouldSelectExpiredTokensWithIndexes() throws SQLException {
+        for (String table : Arrays.asList("csrf_tokens", "rememberme_tokens")) {
+            assertIndexUsed("SELECT id FROM " + table + " WHERE expiration_date < TIMESTAMP '2100-01-01 00:00:00' "
+                    + "ORDER BY expiration_date LIMIT 100");
+        }
+    }
+
+    @Test
+    public void shouldJoinEventsOfUserWithIndexes() throws SQLException {
+        assertIndexUsed("SELECT e.* FROM users u JOIN events e ON e.user_id = u.id WHERE u.login = 'User1'");
+    }
+
+    @Test
+    public void shouldDeclareForeignKeysAsBigint() throws SQLException {
+        for (String table : Arrays.asList("events", "rememberme_tokens", "csrf_tokens")) {
+            Assert.assertEquals(table, "BIGINT", getColumnType(table, "user_id"));
+        }
+    }
+
+    @Test
+    public void shouldDeclareEventIdsAsBigint() throws SQLException {
+        Assert.assertEquals("BIGINT", getColumnType("events", "id"));
+    }
+
+    private String getColumnType(String table, String column) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? AND COLUMN_NAME = ?")) {
+            statement.setString(1, table.toUpperCase(Locale.ROOT));
+            statement.setString(2, column.toUpperCase(Locale.ROOT));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Assert.assertTrue(resultSet.next());
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private void assertIndexUsed(String query) throws SQLException {
+        String plan = explain(query);
+        Assert.assertFalse("Table scan in the plan: " + plan, plan.toLowerCase(Locale.ROOT).contains("tablescan"));
+    }
+
+    private String explain(String query) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("EXPLAIN " + query)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.github.vssavin.usmancore.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class SchemaInitializerTest {
+
+    private static final List<String> SCRIPTS = Collections.singletonList("V1__init.sql");
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @Test
+    public void shouldInitializeSchemaInBackground() throws SQLException {
+        SchemaInitializer initializer = createInitializer(SCRIPTS, true, 30_000);
+
+        initializer.start();
+        initializer.awaitReady();
+
+        Assert.assertTrue(initializer.isReady());
+        Assert.assertEquals(1, count("users"));
+        Map<String, Long> timings = initializer.getPhaseTimings();
+        Assert.assertTrue(timings.containsKey("migration.history"));
+        Assert.assertTrue(timings.containsKey("migration.V1__init.sql"));
+        Assert.assertTrue(timings.containsKey("idSequences"));
+        Assert.assertTrue(timings.containsKey("total"));
+    }
+
+    @Test
+    public void shouldCreateMissingIdSequences_WhenSchemaUpToDate() throws SQLException {
+        createInitializer(SCRIPTS, false, 30_000).start();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP SEQUENCE users_seq");
+        }
+        SchemaInitializer initializer = createInitializer(SCRIPTS, false, 30_000);
+
+        initializer.start();
+
+        Assert.assertTrue(initializer.isReady());
+        Assert.assertTrue(initializer.getPhaseTimings().containsKey("idSequences"));
+        Assert.assertEquals(1, countSequences("USERS_SEQ"));
+    }
+
+    @Test
+    public void shouldFailWaiting_WhenSchemaNotReadyInTime() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE usman_schema_lock(id integer primary key, locked_at timestamp not null)");
+            statement.execute("INSERT INTO usman_schema_lock(id, locked_at) VALUES (1, CURRENT_TIMESTAMP)");
+        }
+        SchemaInitializer initializer = createInitializer(SCRIPTS, true, 200);
+
+        initializer.start();
+        try {
+            initializer.awaitReady();
+            Assert.fail("Schema locked by another node shouldn't be ready!");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertFalse(initializer.isReady());
+        }
+        finally {
+            initializer.stop();
+        }
+    }
+
+    @Test
+    public void shouldFailWaiting_WhenInitializationFailed() {
+        SchemaInitializer initializer = createInitializer(Collections.singletonList("V2__missing.sql"), true,
+                30_000);
+
+        initializer.start();
+        try {
+            initializer.awaitReady();
+            Assert.fail("Failed initialization shouldn't be ready!");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertFalse(initializer.isReady());
+            Assert.assertTrue(initializer.getPhaseTimings().containsKey("total"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailStart_WhenSynchronousInitializationFailed() {
+        createInitializer(Collections.singletonList("V2__missing.sql"), false, 30_000).start();
+    }
+
+    private SchemaInitializer createInitializer(List<String> scripts, boolean async, long readyTimeoutMillis) {
+        SchemaMigrator schemaMigrator = new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource));
+        return new SchemaInitializer(dataSource, schemaMigrator, scripts, async, readyTimeoutMillis);
+    }
+
+    private long countSequences(String sequence) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(
+                        "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = '" + sequence + "'")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
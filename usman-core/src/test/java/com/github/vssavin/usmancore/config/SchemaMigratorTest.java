@@ -0,0 +1,189 @@
+package com.github.vssavin.usmancore.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class SchemaMigratorTest {
+
+    private static final SchemaMigrator.Script CREATE_SCRIPT = new SchemaMigrator.Script("V1__create.sql",
+            "create table IF NOT EXISTS items(name varchar(50) not null);");
+
+    private static final SchemaMigrator.Script INSERT_SCRIPT = new SchemaMigrator.Script("V2__insert.sql",
+            "insert into items(name) values ('first');");
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @Test
+    public void shouldApplyScriptsInVersionOrder() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource));
+
+        int applied = migrator.migrate(Arrays.asList(INSERT_SCRIPT, CREATE_SCRIPT));
+
+        Assert.assertEquals(2, applied);
+        Assert.assertEquals(1, count("items"));
+        Assert.assertEquals(2, count("usman_schema_history"));
+    }
+
+    @Test
+    public void shouldSkipAppliedScripts() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource));
+        migrator.migrate(Arrays.asList(CREATE_SCRIPT, INSERT_SCRIPT));
+
+        int applied = migrator.migrate(Arrays.asList(CREATE_SCRIPT, INSERT_SCRIPT));
+
+        Assert.assertEquals(0, applied);
+        Assert.assertEquals(1, count("items"));
+    }
+
+    @Test
+    public void shouldFailAndNotApplyScript_WhenChecksumChanged() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource));
+        migrator.migrate(Arrays.asList(CREATE_SCRIPT, INSERT_SCRIPT));
+        SchemaMigrator.Script changedScript = new SchemaMigrator.Script("V2__insert.sql",
+                "insert into items(name) values ('second');");
+
+        try {
+            migrator.migrate(Arrays.asList(CREATE_SCRIPT, changedScript));
+            Assert.fail("Changed applied script should fail the migration!");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(1, count("items"));
+            Assert.assertEquals(2, count("usman_schema_history"));
+        }
+    }
+
+    @Test
+    public void shouldFailAndNotApplyScripts_WhenHistoryCannotBeRead() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE usman_schema_history(script varchar(255) not null)");
+        }
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource));
+
+        try {
+            migrator.migrate(Arrays.asList(CREATE_SCRIPT, INSERT_SCRIPT));
+            Assert.fail("Unreadable schema history should fail the migration!");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(0, count("usman_schema_history"));
+            Assert.assertEquals(0, tableCount("ITEMS"));
+        }
+    }
+
+    @Test
+    public void shouldApplyScriptsOnce_WhenNodesMigrateConcurrently() throws Exception {
+        int nodes = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < nodes; i++) {
+                tasks.add(() -> new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource))
+                    .migrate(Arrays.asList(CREATE_SCRIPT, INSERT_SCRIPT)));
+            }
+            int applied = 0;
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                applied += future.get();
+            }
+
+            Assert.assertEquals(2, applied);
+            Assert.assertEquals(1, count("items"));
+            Assert.assertEquals(0, count("usman_schema_lock"));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldReleaseLockAndKeepScriptPending_WhenScriptFails() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource));
+        SchemaMigrator.Script brokenScript = new SchemaMigrator.Script("V2__insert.sql",
+                "insert into missing_items(name) values ('first');");
+
+        try {
+            migrator.migrate(Arrays.asList(CREATE_SCRIPT, brokenScript));
+            Assert.fail("Broken script should fail the migration!");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(0, count("usman_schema_lock"));
+        }
+
+        Assert.assertEquals(1, migrator.migrate(Arrays.asList(CREATE_SCRIPT, INSERT_SCRIPT)));
+        Assert.assertEquals(1, count("items"));
+    }
+
+    @Test
+    public void shouldRemoveAbandonedLock() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE usman_schema_lock(id integer primary key, locked_at timestamp not null)");
+            statement.execute(
+                    "INSERT INTO usman_schema_lock(id, locked_at) VALUES (1, TIMESTAMP '2000-01-01 00:00:00')");
+        }
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource), 2000, 1000);
+
+        Assert.assertEquals(2, migrator.migrate(Arrays.asList(CREATE_SCRIPT, INSERT_SCRIPT)));
+        Assert.assertEquals(0, count("usman_schema_lock"));
+    }
+
+    @Test
+    public void shouldKeepLockOfAnotherNode_WhenOwnLockWasRemoved() throws SQLException {
+        SchemaMigrator.Script takeOverScript = new SchemaMigrator.Script("V2__take_over.sql",
+                "delete from usman_schema_lock; insert into usman_schema_lock(id, locked_at, owner) "
+                        + "values (1, CURRENT_TIMESTAMP, 'other-node');");
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource));
+
+        try {
+            migrator.migrate(Arrays.asList(CREATE_SCRIPT, takeOverScript, new SchemaMigrator.Script("V3__insert.sql",
+                    "insert into items(name) values ('first');")));
+            Assert.fail("Migration shouldn't continue without the lock!");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(0, count("items"));
+            Assert.assertEquals(1, count("usman_schema_lock"));
+        }
+    }
+
+    private long tableCount(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                ResultSet resultSet = connection.getMetaData().getTables(null, null, table, null)) {
+            long count = 0;
+            while (resultSet.next()) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.github.vssavin.usmancore.data;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class ChunkedRemovalTest {
+
+    @Test
+    public void shouldRemoveChunksUntilChunkIsNotFull() throws InterruptedException {
+        AtomicInteger rows = new AtomicInteger(7);
+        AtomicInteger chunks = new AtomicInteger();
+        ChunkedRemoval removal = new ChunkedRemoval(3, 0);
+
+        ChunkedRemoval.Result result = removal.removeAll("rows", batchSize -> {
+            chunks.incrementAndGet();
+            int removed = Math.min(batchSize, rows.get());
+            rows.addAndGet(-removed);
+            return removed;
+        });
+
+        Assert.assertTrue(result.isCompleted());
+        Assert.assertEquals(7, result.getRemoved());
+        Assert.assertEquals(3, chunks.get());
+    }
+
+    @Test
+    public void shouldRetryFailedChunk() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        ChunkedRemoval removal = new ChunkedRemoval(3, 0);
+
+        ChunkedRemoval.Result result = removal.removeAll("rows", batchSize -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new SQLException("Lock timeout");
+            }
+            return 1;
+        });
+
+        Assert.assertTrue(result.isCompleted());
+        Assert.assertEquals(1, result.getRemoved());
+        Assert.assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void shouldAbandonRemoval_WhenChunksKeepFailing() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        ChunkedRemoval removal = new ChunkedRemoval(3, 0);
+
+        ChunkedRemoval.Result result = removal.removeAll("rows", batchSize -> {
+            attempts.incrementAndGet();
+            throw new SQLException("Lock timeout");
+        });
+
+        Assert.assertFalse(result.isCompleted());
+        Assert.assertEquals(0, result.getRemoved());
+        Assert.assertEquals(5, attempts.get());
+    }
+
+}
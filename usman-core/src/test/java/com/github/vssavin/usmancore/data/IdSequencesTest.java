@@ -0,0 +1,63 @@
+package com.github.vssavin.usmancore.data;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class IdSequencesTest {
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String table : new String[] { "users", "events", "rememberme_tokens", "csrf_tokens" }) {
+                statement.execute("CREATE TABLE " + table + "(id BIGINT AUTO_INCREMENT PRIMARY KEY)");
+            }
+            for (int i = 0; i < 120; i++) {
+                statement.execute("INSERT INTO users VALUES (DEFAULT)");
+            }
+        }
+    }
+
+    @Test
+    public void shouldStartSequenceAfterExistingIds() throws SQLException {
+        IdSequences.initialize(dataSource);
+
+        Assert.assertEquals(120 + IdSequences.ALLOCATION_SIZE, nextValue(IdSequences.USERS_SEQUENCE));
+        Assert.assertEquals(IdSequences.ALLOCATION_SIZE, nextValue(IdSequences.EVENTS_SEQUENCE));
+    }
+
+    @Test
+    public void shouldKeepExistingSequence_WhenInitializedAgain() throws SQLException {
+        IdSequences.initialize(dataSource);
+        long first = nextValue(IdSequences.USERS_SEQUENCE);
+
+        IdSequences.initialize(dataSource);
+
+        Assert.assertEquals(first + IdSequences.ALLOCATION_SIZE, nextValue(IdSequences.USERS_SEQUENCE));
+    }
+
+    private long nextValue(String sequence) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement
+                    .executeQuery("SELECT " + IdSequences.nextValueExpression(connection, sequence))) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
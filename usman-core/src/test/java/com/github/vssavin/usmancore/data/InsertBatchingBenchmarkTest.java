@@ -0,0 +1,117 @@
+package com.github.vssavin.usmancore.data;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Compares inserts into an identity column, where every row is a separate statement
+ * returning the generated key (the way Hibernate inserts IDENTITY entities), with
+ * batched inserts taking ids from a pooled sequence.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class InsertBatchingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InsertBatchingBenchmarkTest.class);
+
+    private static final int ROWS = 20_000;
+
+    private static final String CREATE_TABLE_QUERY = "CREATE TABLE events(id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "user_id BIGINT NOT NULL, event_message VARCHAR(255) NOT NULL)";
+
+    @Test
+    public void benchmarkIdentityInsertsAgainstSequenceBatches() throws SQLException {
+        JdbcDataSource identityDataSource = createDataSource();
+        long start = System.nanoTime();
+        try (Connection connection = identityDataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO events(user_id, event_message) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < ROWS; i++) {
+                statement.setLong(1, i);
+                statement.setString(2, "event " + i);
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                }
+            }
+            connection.commit();
+        }
+        long identityNanos = System.nanoTime() - start;
+
+        JdbcDataSource sequenceDataSource = createDataSource();
+        try (Connection connection = sequenceDataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE events_seq START WITH " + IdSequences.ALLOCATION_SIZE
+                    + " INCREMENT BY " + IdSequences.ALLOCATION_SIZE);
+        }
+        start = System.nanoTime();
+        try (Connection connection = sequenceDataSource.getConnection();
+                PreparedStatement sequenceStatement = connection
+                    .prepareStatement("SELECT " + IdSequences.nextValueExpression(connection, "events_seq"));
+                PreparedStatement statement = connection
+                    .prepareStatement("INSERT INTO events(id, user_id, event_message) VALUES (?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            long nextId = 0;
+            long maxId = -1;
+            for (int i = 0; i < ROWS; i++) {
+                if (nextId > maxId) {
+                    try (ResultSet resultSet = sequenceStatement.executeQuery()) {
+                        resultSet.next();
+                        maxId = resultSet.getLong(1);
+                        nextId = maxId - IdSequences.ALLOCATION_SIZE + 1;
+                    }
+                }
+                statement.setLong(1, nextId++);
+                statement.setLong(2, i);
+                statement.setString(3, "event " + i);
+                statement.addBatch();
+                if ((i + 1) % IdSequences.ALLOCATION_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+        long sequenceNanos = System.nanoTime() - start;
+
+        log.info("Identity inserts: {} rows/sec; sequence batches: {} rows/sec", rowsPerSecond(identityNanos),
+                rowsPerSecond(sequenceNanos));
+
+        Assert.assertEquals(ROWS, countRows(identityDataSource));
+        Assert.assertEquals(ROWS, countRows(sequenceDataSource));
+    }
+
+    private JdbcDataSource createDataSource() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE_QUERY);
+        }
+        return dataSource;
+    }
+
+    private long rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000L / Math.max(nanos, 1);
+    }
+
+    private long countRows(JdbcDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM events")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
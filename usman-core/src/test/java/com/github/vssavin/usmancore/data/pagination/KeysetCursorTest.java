@@ -0,0 +1,50 @@
+package com.github.vssavin.usmancore.data.pagination;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class KeysetCursorTest {
+
+    @Test
+    public void shouldDecodeEncodedTimestampWithNanos() {
+        Timestamp timestamp = new Timestamp(1_700_000_000_123L);
+        timestamp.setNanos(123_456_789);
+        KeysetCursor cursor = KeysetCursor.of(timestamp, 42);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+        Assert.assertEquals(cursor, decoded);
+        Assert.assertEquals(timestamp, decoded.getTimestamp());
+        Assert.assertEquals(42, decoded.getId());
+    }
+
+    @Test
+    public void shouldDecodeEncodedId() {
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.of(7).encode());
+        Assert.assertNull(decoded.getTimestamp());
+        Assert.assertEquals(7, decoded.getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowException_WhenCursorIsMalformed() {
+        KeysetCursor.decode("not a cursor");
+    }
+
+    @Test
+    public void shouldCreateNextCursorOnlyIfExtraRowFetched() {
+        List<Long> rows = Arrays.asList(1L, 2L, 3L);
+        KeysetPage<Long> page = KeysetPage.of(rows, 2, KeysetCursor::of);
+        Assert.assertEquals(Arrays.asList(1L, 2L), page.getItems());
+        Assert.assertEquals(2, KeysetCursor.decode(page.getNextCursor()).getId());
+
+        page = KeysetPage.of(rows, 3, KeysetCursor::of);
+        Assert.assertFalse(page.hasNext());
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.github.vssavin.usmancore.data.pool;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class UsmanPooledDataSourceTest {
+
+    private static final String CONNECTION_FAILURE_SQL_STATE = "08S01";
+
+    private final AtomicInteger openedConnections = new AtomicInteger();
+
+    private final AtomicInteger preparedStatements = new AtomicInteger();
+
+    private volatile boolean connectionFailing;
+
+    private volatile boolean validationFailing;
+
+    private DataSource targetDataSource;
+
+    private UsmanPooledDataSource pooledDataSource;
+
+    @Before
+    public void setUp() {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        targetDataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+                    if ("getConnection".equals(method.getName())) {
+                        openedConnections.incrementAndGet();
+                        return failingConnection(h2DataSource.getConnection());
+                    }
+                    return invoke(method, h2DataSource, args);
+                });
+    }
+
+    @After
+    public void tearDown() {
+        if (pooledDataSource != null) {
+            pooledDataSource.close();
+        }
+    }
+
+    @Test
+    public void shouldReuseConnection_WhenReturned() throws SQLException {
+        pooledDataSource = createPool(2, 1000, 0);
+
+        try (Connection connection = pooledDataSource.getConnection()) {
+            Assert.assertEquals(1, pooledDataSource.getMetrics().getActive());
+            Assert.assertTrue(isAlive(connection));
+        }
+        Assert.assertEquals(0, pooledDataSource.getMetrics().getActive());
+        Assert.assertEquals(1, pooledDataSource.getMetrics().getIdle());
+
+        try (Connection connection = pooledDataSource.getConnection()) {
+            Assert.assertTrue(isAlive(connection));
+        }
+        Assert.assertEquals(1, openedConnections.get());
+        Assert.assertEquals(1, pooledDataSource.getMetrics().getTotal());
+    }
+
+    @Test
+    public void shouldTimeOut_WhenPoolExhausted() throws SQLException {
+        pooledDataSource = createPool(1, 50, 0);
+
+        try (Connection ignored = pooledDataSource.getConnection()) {
+            pooledDataSource.getConnection();
+            Assert.fail("Connection shouldn't be available when the pool is exhausted!");
+        }
+        catch (SQLTransientConnectionException e) {
+            Assert.assertEquals(1, pooledDataSource.getMetrics().getTimeouts());
+            Assert.assertEquals(0, pooledDataSource.getMetrics().getWaiting());
+        }
+
+        try (Connection connection = pooledDataSource.getConnection()) {
+            Assert.assertTrue(isAlive(connection));
+        }
+    }
+
+    @Test
+    public void shouldReturnConnectionOnce_WhenClosedTwice() throws SQLException {
+        pooledDataSource = createPool(1, 50, 0);
+        Connection connection = pooledDataSource.getConnection();
+
+        connection.close();
+        connection.close();
+
+        Assert.assertTrue(connection.isClosed());
+        Assert.assertEquals(0, pooledDataSource.getMetrics().getActive());
+        Assert.assertEquals(1, pooledDataSource.getMetrics().getIdle());
+        try {
+            connection.createStatement();
+            Assert.fail("Closed connection shouldn't be usable!");
+        }
+        catch (SQLException e) {
+            // expected
+        }
+        try (Connection ignored = pooledDataSource.getConnection()) {
+            pooledDataSource.getConnection();
+            Assert.fail("Second close shouldn't release the connection permit twice!");
+        }
+        catch (SQLTransientConnectionException e) {
+            Assert.assertEquals(1, pooledDataSource.getMetrics().getTimeouts());
+        }
+    }
+
+    @Test
+    public void shouldDiscardConnection_WhenConnectionErrorOccurred() throws SQLException {
+        pooledDataSource = createPool(1, 1000, 0);
+
+        try (Connection connection = pooledDataSource.getConnection()) {
+            connectionFailing = true;
+            connection.createStatement();
+            Assert.fail("Failing connection should throw an exception!");
+        }
+        catch (SQLException e) {
+            Assert.assertEquals(CONNECTION_FAILURE_SQL_STATE, e.getSQLState());
+        }
+        connectionFailing = false;
+        Assert.assertEquals(0, pooledDataSource.getMetrics().getTotal());
+
+        try (Connection connection = pooledDataSource.getConnection()) {
+            Assert.assertTrue(isAlive(connection));
+        }
+        Assert.assertEquals(2, openedConnections.get());
+    }
+
+    @Test
+    public void shouldDiscardIdleConnection_WhenValidationFailed() throws SQLException {
+        pooledDataSource = UsmanPooledDataSource.builder(targetDataSource)
+            .minSize(0)
+            .maxSize(1)
+            .validationIntervalMillis(0)
+            .build();
+        pooledDataSource.getConnection().close();
+
+        validationFailing = true;
+        try (Connection connection = pooledDataSource.getConnection()) {
+            Assert.assertTrue(isAlive(connection));
+        }
+
+        Assert.assertEquals(2, openedConnections.get());
+        Assert.assertEquals(1, pooledDataSource.getMetrics().getTotal());
+    }
+
+    @Test
+    public void shouldReuseCachedStatement() throws SQLException {
+        pooledDataSource = createPool(1, 1000, 4);
+
+        try (Connection connection = pooledDataSource.getConnection()) {
+            executeSelect(connection, 1);
+            executeSelect(connection, 2);
+        }
+        try (Connection connection = pooledDataSource.getConnection()) {
+            executeSelect(connection, 3);
+        }
+
+        Assert.assertEquals(1, preparedStatements.get());
+    }
+
+    private UsmanPooledDataSource createPool(int maxSize, long acquireTimeoutMillis, int statementCacheSize) {
+        return UsmanPooledDataSource.builder(targetDataSource)
+            .minSize(0)
+            .maxSize(maxSize)
+            .acquireTimeoutMillis(acquireTimeoutMillis)
+            .statementCacheSize(statementCacheSize)
+            .build();
+    }
+
+    private Connection failingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if ("isValid".equals(method.getName()) && validationFailing) {
+                        return false;
+                    }
+                    if ("createStatement".equals(method.getName()) && connectionFailing) {
+                        throw new SQLException("Connection reset", CONNECTION_FAILURE_SQL_STATE);
+                    }
+                    if ("prepareStatement".equals(method.getName())) {
+                        preparedStatements.incrementAndGet();
+                    }
+                    return invoke(method, connection, args);
+                });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        }
+        catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isAlive(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT 1")) {
+            return resultSet.next();
+        }
+    }
+
+    private static void executeSelect(Connection connection, int value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT CAST(? AS INT)")) {
+            statement.setInt(1, value);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Assert.assertTrue(resultSet.next());
+                Assert.assertEquals(value, resultSet.getInt(1));
+            }
+        }
+    }
+
+}
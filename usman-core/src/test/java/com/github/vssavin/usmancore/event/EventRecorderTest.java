@@ -0,0 +1,136 @@
+package com.github.vssavin.usmancore.event;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class EventRecorderTest {
+
+    private JdbcDataSource dataSource;
+
+    private Path spillDirectory;
+
+    @Before
+    public void setUp() throws SQLException, IOException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE events(id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                    + "event_type VARCHAR(255) NOT NULL, event_timestamp TIMESTAMP NOT NULL, "
+                    + "event_message VARCHAR(255) NOT NULL, event_bucket INT NOT NULL)");
+            statement.execute("CREATE SEQUENCE events_seq START WITH 50 INCREMENT BY 50");
+        }
+        spillDirectory = Files.createTempDirectory("usman-events-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(spillDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void shouldWriteEventsInBatchesAndFlushOnClose() throws SQLException {
+        EventRecorder recorder = EventRecorder.builder(dataSource).batchSize(10).flushIntervalMillis(50).build();
+        recorder.start();
+        for (int i = 0; i < 25; i++) {
+            Assert.assertTrue(recorder.record(1, EventType.LOGGED_IN, "event " + i));
+        }
+        recorder.close();
+
+        Assert.assertEquals(25, countEvents());
+        EventRecorder.Stats stats = recorder.getStats();
+        Assert.assertEquals(25, stats.getWritten());
+        Assert.assertTrue("Events should be written in batches: " + stats, stats.getBatches() >= 3);
+    }
+
+    @Test
+    public void shouldTakeIdsFromSequenceBlocks() throws SQLException {
+        EventRecorder recorder = EventRecorder.builder(dataSource).batchSize(10).build();
+        recorder.start();
+        for (int i = 0; i < 60; i++) {
+            Assert.assertTrue(recorder.record(1, EventType.LOGGED_IN, "event " + i));
+        }
+        recorder.close();
+
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT MIN(id), MAX(id) FROM events")) {
+            resultSet.next();
+            Assert.assertEquals(1, resultSet.getLong(1));
+            Assert.assertEquals(60, resultSet.getLong(2));
+        }
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT NEXT VALUE FOR events_seq")) {
+            resultSet.next();
+            Assert.assertEquals("Sequence should be called once per block", 150, resultSet.getLong(1));
+        }
+    }
+
+    @Test
+    public void shouldDropEvent_WhenBufferIsFull() throws SQLException {
+        EventRecorder recorder = EventRecorder.builder(dataSource)
+            .bufferSize(2)
+            .overflowPolicy(EventOverflowPolicy.DROP)
+            .build();
+        Assert.assertTrue(recorder.record(1, EventType.LOGGED_IN, "first"));
+        Assert.assertTrue(recorder.record(1, EventType.LOGGED_IN, "second"));
+        Assert.assertFalse(recorder.record(1, EventType.LOGGED_IN, "third"));
+        recorder.close();
+
+        Assert.assertEquals(2, countEvents());
+        Assert.assertEquals(1, recorder.getStats().getDropped());
+    }
+
+    @Test
+    public void shouldWriteSpilledEvents_WhenBufferIsDrained() throws SQLException, InterruptedException {
+        EventRecorder recorder = EventRecorder.builder(dataSource)
+            .bufferSize(1)
+            .flushIntervalMillis(20)
+            .overflowPolicy(EventOverflowPolicy.SPILL)
+            .spillDirectory(spillDirectory)
+            .build();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(recorder.record(1, EventType.LOGGED_OUT, "event\twith\nspecial chars " + i));
+        }
+        Assert.assertEquals(2, recorder.getStats().getSpilled());
+
+        recorder.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (countEvents() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        recorder.close();
+
+        Assert.assertEquals(3, countEvents());
+        Assert.assertEquals(0, recorder.getStats().getDropped());
+    }
+
+    private long countEvents() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM events")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.vssavin.usmancore.event;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class EventRetentionReaperTest {
+
+    private static final long NOW = Timestamp.valueOf("2026-10-16 12:00:00").getTime();
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE events(id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "event_timestamp TIMESTAMP NOT NULL, event_bucket INT NOT NULL)");
+        }
+        insertEvents("2026-06-30 23:59:59", 3);
+        insertEvents("2026-07-01 00:00:00", 2);
+        insertEvents("2026-10-01 08:00:00", 4);
+    }
+
+    @Test
+    public void shouldRemoveBucketsOlderThanRetentionPeriod() throws Exception {
+        EventRetentionReaper reaper = new EventRetentionReaper(dataSource, null, 4, 60, 100, 0, () -> NOW);
+
+        EventRetentionReaper.Report report = reaper.purge();
+
+        Assert.assertEquals(202607, report.getFirstRetainedBucket());
+        Assert.assertEquals(1, report.getRemovedBuckets());
+        Assert.assertEquals(3, report.getRemovedEvents());
+        Assert.assertEquals(6, countEvents());
+    }
+
+    @Test
+    public void shouldRemoveEachBucketInChunks() throws Exception {
+        insertEvents("2026-05-15 10:00:00", 5);
+        EventRetentionReaper reaper = new EventRetentionReaper(dataSource, null, 4, 60, 2, 0, () -> NOW);
+
+        EventRetentionReaper.Report report = reaper.purge();
+
+        Assert.assertEquals(2, report.getRemovedBuckets());
+        Assert.assertEquals(8, report.getRemovedEvents());
+        Assert.assertEquals(6, countEvents());
+        Assert.assertEquals(0, reaper.purge().getRemovedEvents());
+    }
+
+    @Test
+    public void shouldKeepAllEvents_WhenRetentionDisabled() throws Exception {
+        EventRetentionReaper reaper = new EventRetentionReaper(dataSource, null, 0, 60, 100, 0, () -> NOW);
+
+        Assert.assertEquals(0, reaper.purge().getRemovedEvents());
+        Assert.assertEquals(9, countEvents());
+    }
+
+    @Test
+    public void shouldCalculateBucketsAcrossYears() {
+        Assert.assertEquals(202610, EventBuckets.bucketOf(NOW));
+        Assert.assertEquals(202511, EventBuckets.firstRetainedBucket(NOW, 12));
+        Assert.assertEquals(202610, EventBuckets.firstRetainedBucket(NOW, 1));
+    }
+
+    private void insertEvents(String timestamp, int count) throws SQLException {
+        Timestamp eventTimestamp = Timestamp.valueOf(timestamp);
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection
+                    .prepareStatement("INSERT INTO events(event_timestamp, event_bucket) VALUES (?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                statement.setTimestamp(1, eventTimestamp);
+                statement.setInt(2, EventBuckets.bucketOf(eventTimestamp));
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private long countEvents() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM events")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
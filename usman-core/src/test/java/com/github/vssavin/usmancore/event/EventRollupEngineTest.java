@@ -0,0 +1,104 @@
+package com.github.vssavin.usmancore.event;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class EventRollupEngineTest {
+
+    private static final long NOW = Timestamp.valueOf("2026-10-16 12:00:00").getTime();
+
+    private JdbcDataSource dataSource;
+
+    private EventRollupEngine rollupEngine;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE event_rollups(granularity VARCHAR(8) NOT NULL, "
+                    + "event_type VARCHAR(255) NOT NULL, user_id BIGINT NOT NULL, bucket_start TIMESTAMP NOT NULL, "
+                    + "event_count BIGINT NOT NULL, PRIMARY KEY (granularity, event_type, user_id, bucket_start))");
+        }
+        rollupEngine = new EventRollupEngine(dataSource, null, 1000, 48, 1000, () -> NOW);
+    }
+
+    @Test
+    public void shouldReturnCountsPerBucket() {
+        rollupEngine.record(1L, EventType.LOGGED_IN, time("2026-10-16 09:10:00"));
+        rollupEngine.record(1L, EventType.LOGGED_IN, time("2026-10-16 09:50:00"));
+        rollupEngine.record(2L, EventType.LOGGED_IN, time("2026-10-16 11:05:00"));
+        rollupEngine.record(2L, EventType.LOGGED_OUT, time("2026-10-16 11:06:00"));
+
+        List<EventCount> allUsers = rollupEngine.getSeries(EventRollupGranularity.HOUR, EventType.LOGGED_IN, null,
+                new Date(time("2026-10-16 00:00:00")), new Date(time("2026-10-17 00:00:00")));
+        Assert.assertEquals(Arrays.asList(new EventCount(new Date(time("2026-10-16 09:00:00")), 2),
+                new EventCount(new Date(time("2026-10-16 11:00:00")), 1)), allUsers);
+
+        List<EventCount> user = rollupEngine.getSeries(EventRollupGranularity.DAY, EventType.LOGGED_IN, 2L,
+                new Date(time("2026-10-01 00:00:00")), new Date(time("2026-11-01 00:00:00")));
+        Assert.assertEquals(Arrays.asList(new EventCount(new Date(time("2026-10-16 00:00:00")), 1)), user);
+    }
+
+    @Test
+    public void shouldAddIncrementsToExistingCounters() {
+        rollupEngine.record(1L, EventType.LOGGED_IN, time("2026-10-16 09:10:00"));
+        rollupEngine.flush();
+        rollupEngine.record(1L, EventType.LOGGED_IN, time("2026-10-16 09:10:30"));
+        rollupEngine.close();
+
+        List<EventCount> series = rollupEngine.getSeries(EventRollupGranularity.MINUTE, EventType.LOGGED_IN, 1L,
+                new Date(time("2026-10-16 09:00:00")), new Date(time("2026-10-16 10:00:00")));
+        Assert.assertEquals(Arrays.asList(new EventCount(new Date(time("2026-10-16 09:10:00")), 2)), series);
+    }
+
+    @Test
+    public void shouldDropIncrementsOfNewCounters_WhenPendingCountersAreFull() throws SQLException {
+        // one event with a user increments 6 counters: 3 granularities for the user and for all users
+        EventRollupEngine engine = new EventRollupEngine(dataSource, null, 1000, 48, 6, () -> NOW);
+        execute("ALTER TABLE event_rollups RENAME TO event_rollups_off");
+        engine.record(1L, EventType.LOGGED_IN, time("2026-10-16 09:10:00"));
+        engine.flush();
+        engine.record(1L, EventType.LOGGED_IN, time("2026-10-16 09:10:30"));
+        engine.record(1L, EventType.LOGGED_IN, time("2026-10-16 09:20:00"));
+
+        EventRollupEngine.Stats stats = engine.getStats();
+        Assert.assertEquals(6, stats.getPendingCounters());
+        Assert.assertEquals(2, stats.getDroppedIncrements());
+
+        execute("ALTER TABLE event_rollups_off RENAME TO event_rollups");
+        engine.flush();
+        Assert.assertEquals(0, engine.getStats().getPendingCounters());
+        List<EventCount> hours = engine.getSeries(EventRollupGranularity.HOUR, EventType.LOGGED_IN, 1L,
+                new Date(time("2026-10-16 09:00:00")), new Date(time("2026-10-16 10:00:00")));
+        Assert.assertEquals(Arrays.asList(new EventCount(new Date(time("2026-10-16 09:00:00")), 3)), hours);
+        List<EventCount> minutes = engine.getSeries(EventRollupGranularity.MINUTE, EventType.LOGGED_IN, 1L,
+                new Date(time("2026-10-16 09:00:00")), new Date(time("2026-10-16 10:00:00")));
+        Assert.assertEquals(Arrays.asList(new EventCount(new Date(time("2026-10-16 09:10:00")), 2)), minutes);
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private long time(String timestamp) {
+        return Timestamp.valueOf(timestamp).getTime();
+    }
+
+}
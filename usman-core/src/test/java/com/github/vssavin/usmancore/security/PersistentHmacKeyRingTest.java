@@ -0,0 +1,126 @@
+package com.github.vssavin.usmancore.security;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class PersistentHmacKeyRingTest {
+
+    private static final long ROTATION_HOURS = 24;
+
+    private static final int MAX_KEYS = 2;
+
+    private static final byte[] DATA = "data".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicLong now = new AtomicLong(Timestamp.valueOf("2026-10-16 12:00:00").getTime());
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE csrf_keys(id VARCHAR(32) PRIMARY KEY, "
+                    + "secret VARCHAR(64) NOT NULL, created_at TIMESTAMP NOT NULL)");
+        }
+    }
+
+    @Test
+    public void shouldVerifySignature_WhenSignedByAnotherNode() throws SQLException {
+        PersistentHmacKeyRing firstNode = createKeyRing();
+        PersistentHmacKeyRing secondNode = createKeyRing();
+
+        byte[] signature = firstNode.sign(DATA);
+
+        Assert.assertEquals(firstNode.getCurrentKeyId(), secondNode.getCurrentKeyId());
+        Assert.assertTrue(secondNode.verify(firstNode.getCurrentKeyId(), DATA, signature));
+        Assert.assertEquals(1, countKeys());
+    }
+
+    @Test
+    public void shouldVerifySignature_WhenRestarted() throws SQLException {
+        PersistentHmacKeyRing keyRing = createKeyRing();
+        keyRing.refresh();
+        byte[] signature = keyRing.sign(DATA);
+
+        PersistentHmacKeyRing restartedKeyRing = createKeyRing();
+
+        Assert.assertTrue(restartedKeyRing.verify(keyRing.getCurrentKeyId(), DATA, signature));
+    }
+
+    @Test
+    public void shouldRotateKeyAndKeepPreviousKeyForVerification() throws SQLException {
+        PersistentHmacKeyRing keyRing = createKeyRing();
+        keyRing.refresh();
+        String firstKeyId = keyRing.getCurrentKeyId();
+        byte[] signature = keyRing.sign(DATA);
+
+        now.addAndGet(TimeUnit.HOURS.toMillis(ROTATION_HOURS));
+        keyRing.refresh();
+        PersistentHmacKeyRing otherNode = createKeyRing();
+
+        Assert.assertNotEquals(firstKeyId, keyRing.getCurrentKeyId());
+        Assert.assertEquals(keyRing.getCurrentKeyId(), otherNode.getCurrentKeyId());
+        Assert.assertTrue(keyRing.verify(firstKeyId, DATA, signature));
+        Assert.assertTrue(otherNode.verify(firstKeyId, DATA, signature));
+    }
+
+    @Test
+    public void shouldRemoveKeys_WhenRingIsFull() throws SQLException {
+        PersistentHmacKeyRing keyRing = createKeyRing();
+        keyRing.refresh();
+        String firstKeyId = keyRing.getCurrentKeyId();
+        byte[] signature = keyRing.sign(DATA);
+
+        for (int i = 0; i < MAX_KEYS; i++) {
+            now.addAndGet(TimeUnit.HOURS.toMillis(ROTATION_HOURS));
+            keyRing.refresh();
+        }
+
+        Assert.assertFalse(keyRing.verify(firstKeyId, DATA, signature));
+        Assert.assertEquals(MAX_KEYS, keyRing.getKeyIds().size());
+        Assert.assertEquals(MAX_KEYS, countKeys());
+    }
+
+    @Test
+    public void shouldNotRotateKey_WhenRotationDisabled() throws SQLException {
+        PersistentHmacKeyRing keyRing = new PersistentHmacKeyRing(dataSource, null, "csrf_keys", MAX_KEYS, 0, now::get);
+        keyRing.refresh();
+        String keyId = keyRing.getCurrentKeyId();
+
+        now.addAndGet(TimeUnit.DAYS.toMillis(365));
+        keyRing.refresh();
+
+        Assert.assertEquals(keyId, keyRing.getCurrentKeyId());
+        Assert.assertEquals(1, countKeys());
+    }
+
+    private PersistentHmacKeyRing createKeyRing() {
+        return new PersistentHmacKeyRing(dataSource, null, "csrf_keys", MAX_KEYS, ROTATION_HOURS, now::get);
+    }
+
+    private long countKeys() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM csrf_keys")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
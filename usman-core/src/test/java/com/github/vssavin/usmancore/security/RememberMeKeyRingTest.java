@@ -0,0 +1,129 @@
+package com.github.vssavin.usmancore.security;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class RememberMeKeyRingTest {
+
+    private static final long ROTATION_HOURS = 24;
+
+    private static final long TOKEN_VALIDITY_SECONDS = TimeUnit.DAYS.toSeconds(2);
+
+    private final AtomicLong now = new AtomicLong(Timestamp.valueOf("2026-10-16 12:00:00").getTime());
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE rememberme_keys(id VARCHAR(32) PRIMARY KEY, "
+                    + "secret VARCHAR(64) NOT NULL, created_at TIMESTAMP NOT NULL)");
+        }
+    }
+
+    @Test
+    public void shouldShareKeysBetweenNodes() throws SQLException {
+        RememberMeKeyRing firstNode = createKeyRing();
+        RememberMeKeyRing secondNode = createKeyRing();
+
+        firstNode.refresh();
+        secondNode.refresh();
+
+        Assert.assertEquals(firstNode.getActiveKey(), secondNode.getActiveKey());
+        Assert.assertEquals(1, countKeys());
+    }
+
+    @Test
+    public void shouldKeepKeyAfterRestart() throws SQLException {
+        RememberMeKeyRing keyRing = createKeyRing();
+        keyRing.refresh();
+        String activeKey = keyRing.getActiveKey();
+
+        RememberMeKeyRing restartedKeyRing = createKeyRing();
+        restartedKeyRing.refresh();
+
+        Assert.assertEquals(activeKey, restartedKeyRing.getActiveKey());
+    }
+
+    @Test
+    public void shouldRotateKeyAndKeepPreviousKeyForVerification() throws SQLException {
+        RememberMeKeyRing keyRing = createKeyRing();
+        keyRing.refresh();
+        String firstKey = keyRing.getActiveKey();
+
+        now.addAndGet(TimeUnit.HOURS.toMillis(ROTATION_HOURS));
+        keyRing.refresh();
+        RememberMeKeyRing otherNode = createKeyRing();
+        otherNode.refresh();
+
+        Assert.assertNotEquals(firstKey, keyRing.getActiveKey());
+        Assert.assertEquals(keyRing.getActiveKey(), otherNode.getActiveKey());
+        List<String> keys = keyRing.getKeys();
+        Assert.assertEquals(2, keys.size());
+        Assert.assertEquals(keyRing.getActiveKey(), keys.get(0));
+        Assert.assertEquals(firstKey, keys.get(1));
+    }
+
+    @Test
+    public void shouldRemoveKeys_WhenCookiesSignedWithThemExpired() throws SQLException {
+        RememberMeKeyRing keyRing = createKeyRing();
+        keyRing.refresh();
+        String firstKey = keyRing.getActiveKey();
+        now.addAndGet(TimeUnit.HOURS.toMillis(ROTATION_HOURS));
+        keyRing.refresh();
+        String secondKey = keyRing.getActiveKey();
+
+        // cookies signed with the first key until the rotation have expired
+        now.addAndGet(TimeUnit.SECONDS.toMillis(TOKEN_VALIDITY_SECONDS) + TimeUnit.HOURS.toMillis(1));
+        keyRing.refresh();
+
+        List<String> keys = keyRing.getKeys();
+        Assert.assertFalse(keys.contains(firstKey));
+        Assert.assertTrue(keys.contains(secondKey));
+        Assert.assertEquals(keys.size(), countKeys());
+    }
+
+    @Test
+    public void shouldNotRotateKey_WhenRotationDisabled() throws SQLException {
+        RememberMeKeyRing keyRing = new RememberMeKeyRing(dataSource, null, 0, TOKEN_VALIDITY_SECONDS, now::get);
+        keyRing.refresh();
+        String activeKey = keyRing.getActiveKey();
+
+        now.addAndGet(TimeUnit.DAYS.toMillis(365));
+        keyRing.refresh();
+
+        Assert.assertEquals(activeKey, keyRing.getActiveKey());
+        Assert.assertEquals(1, countKeys());
+    }
+
+    private RememberMeKeyRing createKeyRing() {
+        return new RememberMeKeyRing(dataSource, null, ROTATION_HOURS, TOKEN_VALIDITY_SECONDS, now::get);
+    }
+
+    private long countKeys() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM rememberme_keys")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.github.vssavin.usmancore.security;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares finding the remember-me token of a request by loading all tokens of the user
+ * and comparing them with every request cookie, with a lookup of the cookie digests in the
+ * unique digest index, for users holding hundreds of devices.
+ *
+ * @author vssavin on 16.10.2026.
+ */
+public class RememberMeTokenLookupBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RememberMeTokenLookupBenchmarkTest.class);
+
+    private static final int USERS = 100;
+
+    private static final int DEVICES_PER_USER = 300;
+
+    private static final int COOKIES_PER_REQUEST = 5;
+
+    private static final int REQUESTS = 2_000;
+
+    @Test
+    public void benchmarkUserTokensScanAgainstDigestLookup() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        String[][] tokens = new String[USERS][DEVICES_PER_USER];
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE rememberme_tokens(id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                        + "user_id BIGINT NOT NULL, token VARCHAR(255) NOT NULL, token_digest VARCHAR(64) NOT NULL)");
+                statement.execute("CREATE INDEX rememberme_tokens_user_idx ON rememberme_tokens(user_id)");
+                statement.execute("CREATE UNIQUE INDEX rememberme_tokens_token_digest_idx "
+                        + "ON rememberme_tokens(token_digest)");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection
+                .prepareStatement("INSERT INTO rememberme_tokens(user_id, token, token_digest) VALUES (?, ?, ?)")) {
+                for (int user = 0; user < USERS; user++) {
+                    for (int device = 0; device < DEVICES_PER_USER; device++) {
+                        tokens[user][device] = UUID.randomUUID().toString() + UUID.randomUUID();
+                        statement.setLong(1, user);
+                        statement.setString(2, tokens[user][device]);
+                        statement.setString(3, TokenDigests.sha256(tokens[user][device]));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            connection.commit();
+        }
+
+        Random random = new Random(42);
+        long[] users = new long[REQUESTS];
+        List<String[]> requestCookies = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            int user = random.nextInt(USERS);
+            String[] cookies = new String[COOKIES_PER_REQUEST];
+            for (int j = 0; j < COOKIES_PER_REQUEST - 1; j++) {
+                cookies[j] = UUID.randomUUID().toString();
+            }
+            cookies[COOKIES_PER_REQUEST - 1] = tokens[user][random.nextInt(DEVICES_PER_USER)];
+            users[i] = user;
+            requestCookies.add(cookies);
+        }
+
+        long start = System.nanoTime();
+        int scanFound = 0;
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection
+                    .prepareStatement("SELECT token FROM rememberme_tokens WHERE user_id = ?")) {
+            for (int i = 0; i < REQUESTS; i++) {
+                statement.setLong(1, users[i]);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        String token = resultSet.getString(1);
+                        for (String cookie : requestCookies.get(i)) {
+                            if (cookie.equals(token)) {
+                                scanFound++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        long scanNanos = System.nanoTime() - start;
+
+        StringBuilder query = new StringBuilder("SELECT user_id FROM rememberme_tokens WHERE token_digest IN (?");
+        for (int j = 1; j < COOKIES_PER_REQUEST; j++) {
+            query.append(", ?");
+        }
+        query.append(')');
+        start = System.nanoTime();
+        int lookupFound = 0;
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < REQUESTS; i++) {
+                String[] cookies = requestCookies.get(i);
+                for (int j = 0; j < cookies.length; j++) {
+                    statement.setString(j + 1, TokenDigests.sha256(cookies[j]));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (resultSet.getLong(1) == users[i]) {
+                            lookupFound++;
+                        }
+                    }
+                }
+            }
+        }
+        long lookupNanos = System.nanoTime() - start;
+
+        log.info("Remember-me token lookup, {} devices per user, {} cookies per request: user tokens scan {} us "
+                + "per request, digest lookup {} us per request", DEVICES_PER_USER, COOKIES_PER_REQUEST,
+                scanNanos / REQUESTS / 1000, lookupNanos / REQUESTS / 1000);
+        Assert.assertEquals(REQUESTS, scanFound);
+        Assert.assertEquals(REQUESTS, lookupFound);
+    }
+
+}
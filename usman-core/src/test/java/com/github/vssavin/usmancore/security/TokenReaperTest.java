@@ -0,0 +1,108 @@
+package com.github.vssavin.usmancore.security;
+
+import com.github.vssavin.usmancore.config.SchemaInitializer;
+import com.github.vssavin.usmancore.config.SchemaMigrator;
+import com.github.vssavin.usmancore.config.SqlScriptExecutor;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class TokenReaperTest {
+
+    private static final long NOW = Timestamp.valueOf("2026-10-16 12:00:00").getTime();
+
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE rememberme_tokens(id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "token_digest VARCHAR(64) NOT NULL, expiration_date TIMESTAMP NOT NULL)");
+            statement.execute("CREATE TABLE csrf_tokens(id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "token VARCHAR(255) NOT NULL, expiration_date TIMESTAMP NOT NULL)");
+        }
+        insertTokens("rememberme_tokens", "token_digest", NOW - 1000, 7);
+        insertTokens("rememberme_tokens", "token_digest", NOW + 1000, 2);
+        insertTokens("csrf_tokens", "token", NOW - 1000, 4);
+        insertTokens("csrf_tokens", "token", NOW + 1000, 1);
+    }
+
+    @Test
+    public void shouldRemoveExpiredTokensInChunks() throws Exception {
+        TokenReaper reaper = new TokenReaper(dataSource, null, 60, 3, 0, () -> NOW);
+
+        TokenReaper.Report report = reaper.purge();
+
+        Assert.assertEquals(7, report.getRemovedRememberMeTokens());
+        Assert.assertEquals(4, report.getRemovedCsrfTokens());
+        Assert.assertEquals(2, countTokens("rememberme_tokens"));
+        Assert.assertEquals(1, countTokens("csrf_tokens"));
+        Assert.assertSame(report, reaper.getLastReport());
+    }
+
+    @Test
+    public void shouldNotRemoveTokens_WhenSchemaNotReady() throws Exception {
+        SchemaInitializer schemaInitializer = new SchemaInitializer(dataSource,
+                new SchemaMigrator(dataSource, new SqlScriptExecutor(dataSource)), Collections.emptyList(), true, 50);
+        TokenReaper reaper = new TokenReaper(dataSource, schemaInitializer, 60, 3, 0, () -> NOW);
+
+        try {
+            reaper.purge();
+            Assert.fail("Tokens shouldn't be removed before the schema is initialized!");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(9, countTokens("rememberme_tokens"));
+            Assert.assertEquals(5, countTokens("csrf_tokens"));
+        }
+    }
+
+    @Test
+    public void shouldGiveUpAfterRetries_WhenTableNotAvailable() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE csrf_tokens");
+        }
+        TokenReaper reaper = new TokenReaper(dataSource, null, 60, 3, 1, () -> NOW);
+
+        TokenReaper.Report report = reaper.purge();
+
+        Assert.assertEquals(7, report.getRemovedRememberMeTokens());
+        Assert.assertEquals(0, report.getRemovedCsrfTokens());
+    }
+
+    private void insertTokens(String table, String tokenColumn, long expirationTime, int count) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO " + table + "(" + tokenColumn + ", expiration_date) VALUES (?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                statement.setString(1, UUID.randomUUID().toString());
+                statement.setTimestamp(2, new Timestamp(expirationTime));
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private long countTokens(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.vssavin.usmancore.security.csrf;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class CsrfTokenCacheTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CsrfTokenCacheTest.class);
+
+    private static final long VALIDITY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final AtomicLong time = new AtomicLong(1_000_000L);
+
+    private final CsrfTokenCache cache = new CsrfTokenCache(100, 2, time::get);
+
+    @Test
+    public void shouldKeepNewestTokensOfUser() {
+        cache.putUserToken(1, "first", time.get() + VALIDITY_MILLIS);
+        cache.putUserToken(1, "second", time.get() + VALIDITY_MILLIS);
+        cache.putUserToken(1, "third", time.get() + VALIDITY_MILLIS);
+
+        Assert.assertEquals(Arrays.asList("third", "second"), cache.getUserTokens(1));
+        Assert.assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void shouldNotReturnExpiredTokens() {
+        cache.putUserToken(1, "short", time.get() + 10);
+        cache.putUserToken(1, "long", time.get() + VALIDITY_MILLIS);
+        cache.bindRememberMeToken("remember-me", 1, "short", time.get() + 10);
+
+        time.addAndGet(11);
+
+        Assert.assertEquals(Collections.singletonList("long"), cache.getUserTokens(1));
+        Assert.assertNull(cache.getBoundToken("remember-me"));
+    }
+
+    @Test
+    public void shouldRemoveBoundToken_WhenRememberMeTokenUnbound() {
+        cache.putUserToken(1, "first", time.get() + VALIDITY_MILLIS);
+        cache.putUserToken(1, "second", time.get() + VALIDITY_MILLIS);
+        cache.bindRememberMeToken("remember-me", 1, "first", time.get() + VALIDITY_MILLIS);
+
+        Assert.assertEquals("first", cache.unbindRememberMeToken("remember-me"));
+
+        Assert.assertEquals(Collections.singletonList("second"), cache.getUserTokens(1));
+        Assert.assertNull(cache.getBoundToken("remember-me"));
+        Assert.assertNull(cache.unbindRememberMeToken("remember-me"));
+        Assert.assertEquals(0, cache.getStats().getRememberMeTokens());
+    }
+
+    @Test
+    public void soakShouldKeepHeapFlat_WhenRememberMeTokensAreNeverUnbound() {
+        int maxUsers = 1_024;
+        CsrfTokenCache soakCache = new CsrfTokenCache(maxUsers, 3);
+        Runtime runtime = Runtime.getRuntime();
+        long baseline = 0;
+        long usedHeap = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50_000; i++) {
+                long userId = round * 50_000L + i;
+                String token = UUID.randomUUID().toString();
+                long expiresAt = System.currentTimeMillis() + VALIDITY_MILLIS;
+                soakCache.putUserToken(userId, token, expiresAt);
+                soakCache.bindRememberMeToken(UUID.randomUUID().toString(), userId, token, expiresAt);
+            }
+            usedHeap = usedHeapAfterGc(runtime);
+            if (round == 1) {
+                baseline = usedHeap;
+            }
+        }
+
+        CsrfTokenCache.Stats stats = soakCache.getStats();
+        log.info("Csrf token cache after soak: {}, used heap: baseline {} KB, final {} KB", stats, baseline / 1024,
+                usedHeap / 1024);
+        Assert.assertTrue(stats.getUsers() <= maxUsers);
+        Assert.assertTrue(stats.getRememberMeTokens() <= maxUsers * 3);
+        Assert.assertTrue(stats.getEvictions() > 0);
+        Assert.assertTrue("Heap grows: " + baseline + " -> " + usedHeap, usedHeap - baseline < 16L * 1024 * 1024);
+    }
+
+    private static long usedHeapAfterGc(Runtime runtime) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.vssavin.usmancore.security.csrf;
+
+import com.github.vssavin.usmancore.security.HmacKeyRing;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class SignedCsrfTokensTest {
+
+    private static final long VALIDITY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final AtomicLong time = new AtomicLong(1_000_000L);
+
+    private final String series = SignedCsrfTokens.seriesOf("$2a$10$password-hash");
+
+    private HmacKeyRing keyRing;
+
+    private SignedCsrfTokens signedCsrfTokens;
+
+    @Before
+    public void setUp() {
+        keyRing = new HmacKeyRing(2);
+        keyRing.rotate();
+        signedCsrfTokens = new SignedCsrfTokens(keyRing, VALIDITY_MILLIS, time::get);
+    }
+
+    @Test
+    public void shouldVerifyTokenOfSameUserAndSeries() {
+        String token = signedCsrfTokens.create(1, series);
+
+        Assert.assertTrue(signedCsrfTokens.verify(token, 1, series));
+        Assert.assertFalse(signedCsrfTokens.verify(token, 2, series));
+        Assert.assertFalse(signedCsrfTokens.verify(token, 1, SignedCsrfTokens.seriesOf("$2a$10$changed")));
+    }
+
+    @Test
+    public void shouldRejectExpiredToken() {
+        String token = signedCsrfTokens.create(1, series);
+        time.addAndGet(VALIDITY_MILLIS + 1);
+
+        Assert.assertFalse(signedCsrfTokens.verify(token, 1, series));
+    }
+
+    @Test
+    public void shouldRejectTamperedToken() {
+        String token = signedCsrfTokens.create(1, series);
+        int signatureIndex = token.indexOf('.') + 1;
+        char first = token.charAt(signatureIndex);
+        String tampered = token.substring(0, signatureIndex) + (first == 'A' ? 'B' : 'A')
+                + token.substring(signatureIndex + 1);
+
+        Assert.assertFalse(signedCsrfTokens.verify(tampered, 1, series));
+        Assert.assertFalse(signedCsrfTokens.verify("wrong token", 1, series));
+        Assert.assertFalse(signedCsrfTokens.verify(null, 1, series));
+    }
+
+    @Test
+    public void shouldAcceptTokensOfRetainedKeys_WhenKeyRotated() {
+        String firstKeyToken = signedCsrfTokens.create(1, series);
+        keyRing.rotate();
+        Assert.assertTrue(signedCsrfTokens.verify(firstKeyToken, 1, series));
+
+        keyRing.rotate();
+        Assert.assertFalse(signedCsrfTokens.verify(firstKeyToken, 1, series));
+        Assert.assertTrue(signedCsrfTokens.verify(signedCsrfTokens.create(1, series), 1, series));
+    }
+
+}
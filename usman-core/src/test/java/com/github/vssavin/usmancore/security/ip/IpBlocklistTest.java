@@ -0,0 +1,201 @@
+package com.github.vssavin.usmancore.security.ip;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author vssavin on 16.10.2026.
+ */
+public class IpBlocklistTest {
+
+    private final long inOneHour = System.currentTimeMillis() + 3_600_000;
+
+    @Test
+    public void shouldParseAddresses() {
+        int[] groups = new int[IpAddresses.GROUPS_COUNT];
+        Assert.assertEquals(IpAddresses.IPV4, IpAddresses.parse("192.168.1.10", groups));
+        Assert.assertArrayEquals(new int[] { 0, 0, 0, 0, 0, 0xFFFF, 0xC0A8, 0x010A }, groups);
+
+        Assert.assertEquals(IpAddresses.IPV6, IpAddresses.parse("2001:db8::1", groups));
+        Assert.assertArrayEquals(new int[] { 0x2001, 0xDB8, 0, 0, 0, 0, 0, 1 }, groups);
+
+        Assert.assertEquals(IpAddresses.IPV6, IpAddresses.parse("[fe80::1:2%eth0]", groups));
+        Assert.assertArrayEquals(new int[] { 0xFE80, 0, 0, 0, 0, 0, 1, 2 }, groups);
+
+        Assert.assertEquals(IpAddresses.IPV6, IpAddresses.parse("::ffff:10.0.0.1", groups));
+        Assert.assertTrue(IpAddresses.isIpv4Mapped(groups));
+
+        Assert.assertEquals(IpAddresses.IPV6, IpAddresses.parse("::", groups));
+        Assert.assertArrayEquals(new int[IpAddresses.GROUPS_COUNT], groups);
+    }
+
+    @Test
+    public void shouldRejectInvalidAddresses() {
+        int[] groups = new int[IpAddresses.GROUPS_COUNT];
+        String[] invalidAddresses = { "", "256.1.1.1", "1.2.3", "1.2.3.4.5", "1::2::3", "1:2:3:4:5:6:7:8:9", ":1:2",
+                "1:", "12345::", "abc", "localhost" };
+        for (String address : invalidAddresses) {
+            Assert.assertEquals(address, IpAddresses.INVALID, IpAddresses.parse(address, groups));
+        }
+    }
+
+    @Test
+    public void shouldBlockStaticRanges() {
+        IpBlocklist blocklist = new IpBlocklist();
+        blocklist.addStaticRange("10.0.0.0/8");
+        blocklist.addStaticRange("2001:db8::/32");
+        blocklist.addStaticRange("192.168.1.1");
+
+        Assert.assertTrue(blocklist.isBlocked("10.20.30.40"));
+        Assert.assertTrue(blocklist.isBlocked("::ffff:10.1.1.1"));
+        Assert.assertTrue(blocklist.isBlocked("2001:db8:ffff::1"));
+        Assert.assertTrue(blocklist.isBlocked("192.168.1.1"));
+        Assert.assertFalse(blocklist.isBlocked("192.168.1.2"));
+        Assert.assertFalse(blocklist.isBlocked("11.0.0.1"));
+        Assert.assertFalse(blocklist.isBlocked("2001:db9::1"));
+        Assert.assertFalse(blocklist.isBlocked("not an address"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenRangeIsInvalid() {
+        new IpBlocklist().addStaticRange("10.0.0.0/33");
+    }
+
+    @Test
+    public void shouldCollapseIpv6BansToSubnet() {
+        IpBlocklist blocklist = new IpBlocklist();
+        Assert.assertTrue(blocklist.ban("2001:db8:1:2:aaaa::1", inOneHour));
+        Assert.assertTrue(blocklist.isBlocked("2001:db8:1:2:bbbb:cccc:dddd:eeee"));
+        Assert.assertFalse(blocklist.isBlocked("2001:db8:1:3::1"));
+
+        blocklist.unban("2001:db8:1:2::ffff");
+        Assert.assertFalse(blocklist.isBlocked("2001:db8:1:2:aaaa::1"));
+        Assert.assertEquals(0, blocklist.getBansCount());
+    }
+
+    @Test
+    public void shouldBanSingleIpv4Address() {
+        IpBlocklist blocklist = new IpBlocklist();
+        blocklist.ban("172.16.0.5", inOneHour);
+        Assert.assertTrue(blocklist.isBlocked("172.16.0.5"));
+        Assert.assertFalse(blocklist.isBlocked("172.16.0.6"));
+    }
+
+    @Test
+    public void shouldIgnoreExpiredBans() {
+        IpBlocklist blocklist = new IpBlocklist();
+        blocklist.ban("172.16.0.5", System.currentTimeMillis() - 1);
+        Assert.assertFalse(blocklist.isBlocked("172.16.0.5"));
+        blocklist.purgeExpired();
+        Assert.assertEquals(0, blocklist.getBansCount());
+    }
+
+    @Test
+    public void shouldKeepStaticRangeWhenUnbanned() {
+        IpBlocklist blocklist = new IpBlocklist();
+        blocklist.addStaticRange("172.16.0.5");
+        blocklist.ban("172.16.0.5", inOneHour);
+        blocklist.unban("172.16.0.5");
+        Assert.assertTrue(blocklist.isBlocked("172.16.0.5"));
+    }
+
+    @Test
+    public void shouldRejectBansOverLimit() {
+        IpBlocklist blocklist = new IpBlocklist(IpBlocklist.DEFAULT_IPV6_BAN_PREFIX_LENGTH, 2);
+        Assert.assertTrue(blocklist.ban("10.0.0.1", inOneHour));
+        Assert.assertTrue(blocklist.ban("10.0.0.2", inOneHour));
+        Assert.assertFalse(blocklist.ban("10.0.0.3", inOneHour));
+        Assert.assertTrue(blocklist.ban("10.0.0.1", inOneHour + 1000));
+        Assert.assertFalse(blocklist.isBlocked("10.0.0.3"));
+        Assert.assertFalse(blocklist.ban("not an address", inOneHour));
+        Assert.assertEquals(2, blocklist.getRejectedBansCount());
+    }
+
+    @Test
+    public void shouldKeepAtMostTwoNodesPerBan() {
+        IpBlocklist blocklist = new IpBlocklist();
+        int bans = 1000;
+        for (int i = 0; i < bans; i++) {
+            Assert.assertTrue(blocklist.ban("2001:db8:" + Integer.toHexString(i * 37) + "::1", inOneHour));
+            Assert.assertTrue(blocklist.ban("172.16." + (i % 256) + "." + (i / 256), inOneHour));
+        }
+
+        Assert.assertTrue("Too many nodes: " + blocklist.getNodesCount(), blocklist.getNodesCount() < 4 * bans);
+        Assert.assertTrue(blocklist.isBlocked("2001:db8:" + Integer.toHexString(999 * 37) + ":0:1::2"));
+        Assert.assertTrue(blocklist.isBlocked("172.16.231.3"));
+        Assert.assertFalse(blocklist.isBlocked("172.16.232.3"));
+
+        for (int i = 0; i < bans; i++) {
+            blocklist.unban("2001:db8:" + Integer.toHexString(i * 37) + "::1");
+            blocklist.unban("172.16." + (i % 256) + "." + (i / 256));
+        }
+        Assert.assertEquals(0, blocklist.getNodesCount());
+    }
+
+    @Test
+    public void shouldBlockNestedRanges() {
+        IpBlocklist blocklist = new IpBlocklist();
+        blocklist.ban("10.1.1.1", inOneHour);
+        blocklist.addStaticRange("10.0.0.0/8");
+        blocklist.ban("2001:db8:1:2::1", inOneHour);
+        blocklist.addStaticRange("2001:db8:1:2::5");
+
+        blocklist.unban("10.1.1.1");
+        blocklist.unban("2001:db8:1:2::1");
+
+        Assert.assertTrue(blocklist.isBlocked("10.1.1.1"));
+        Assert.assertTrue(blocklist.isBlocked("2001:db8:1:2::5"));
+        Assert.assertFalse(blocklist.isBlocked("2001:db8:1:2::1"));
+        Assert.assertEquals(0, blocklist.getBansCount());
+    }
+
+    @Test
+    public void shouldBlockSameAddressesAsLinearScan() {
+        Random random = new Random(42);
+        IpBlocklist blocklist = new IpBlocklist();
+        List<String> ranges = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String range = "10." + random.nextInt(4) + "." + random.nextInt(4) + ".0/" + (8 + random.nextInt(25));
+            blocklist.addStaticRange(range);
+            ranges.add(range);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            String address = "10." + random.nextInt(4) + "." + random.nextInt(4) + "." + random.nextInt(256);
+            Assert.assertEquals(address, isInRanges(address, ranges), blocklist.isBlocked(address));
+        }
+    }
+
+    @Test
+    public void shouldBuildIpv6SubnetKey() {
+        Assert.assertEquals("10.0.0.1", IpAddresses.toSubnetKey("10.0.0.1", 64));
+        Assert.assertEquals("2001:db8:1:2:0:0:0:0/64", IpAddresses.toSubnetKey("2001:db8:1:2:3:4:5:6", 64));
+        Assert.assertEquals(IpAddresses.toSubnetKey("2001:db8:1:2::1", 64),
+                IpAddresses.toSubnetKey("2001:db8:1:2:ffff::9", 64));
+    }
+
+    private static boolean isInRanges(String address, List<String> ranges) {
+        long value = toLong(address);
+        for (String range : ranges) {
+            int slashIndex = range.indexOf('/');
+            int prefixLength = Integer.parseInt(range.substring(slashIndex + 1));
+            long mask = prefixLength == 0 ? 0 : (0xFFFFFFFFL << (32 - prefixLength)) & 0xFFFFFFFFL;
+            if ((toLong(range.substring(0, slashIndex)) & mask) == (value & mask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long toLong(String ipv4) {
+        long value = 0;
+        for (String octet : ipv4.split("\\.")) {
+            value = (value << 8) | Integer.parseInt(octet);
+        }
+        return value;
+    }
+
+}